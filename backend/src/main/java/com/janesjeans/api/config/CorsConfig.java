@@ -37,11 +37,12 @@ public class CorsConfig {
             "Accept",
             "Origin",
             "Access-Control-Request-Method",
-            "Access-Control-Request-Headers"
+            "Access-Control-Request-Headers",
+            "Idempotency-Key"
         ));
         
-        // Expose Authorization header so frontend can read it
-        configuration.setExposedHeaders(List.of("Authorization"));
+        // Expose Authorization header so frontend can read it, and whether a checkout was replayed
+        configuration.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed"));
         
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
@@ -0,0 +1,19 @@
+package com.janesjeans.api.config;
+
+import com.janesjeans.api.entity.IdGenerator;
+import com.janesjeans.api.entity.Ids;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Installs the entity id generator: an {@link IdGenerator} bean if the application
+ * defines one, otherwise the one named by {@code ids.generator} (uuidv7 or random).
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    public IdGeneratorConfig(ObjectProvider<IdGenerator> custom, @Value("${ids.generator:uuidv7}") String name) {
+        Ids.use(custom.getIfAvailable(() -> IdGenerator.named(name)));
+    }
+}
@@ -0,0 +1,16 @@
+package com.janesjeans.api.config;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+
+/**
+ * PostgreSQL, reading values the database generates on insert (the order number) through
+ * JDBC generated keys. The driver still sends them back with the INSERT's own RETURNING,
+ * and H2, which the tests run on and which has no RETURNING, supports generated keys too.
+ */
+public class PostgresDialect extends PostgreSQLDialect {
+
+    @Override
+    public boolean supportsInsertReturningGeneratedKeys() {
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package com.janesjeans.api.controller;
+
+import com.janesjeans.api.dto.CatalogImportResult;
+import com.janesjeans.api.service.CatalogImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/catalog")
+@RequiredArgsConstructor
+@Tag(name = "Admin – Catalog", description = "Bulk shop catalog maintenance (authenticated)")
+@SecurityRequirement(name = "bearerAuth")
+public class CatalogImportController {
+
+    private final CatalogImportService catalogImportService;
+
+    @Operation(summary = "Bulk import shop products",
+            description = "Streams a CSV (with header row) or NDJSON body and upserts every valid row into shop_products by id. "
+                    + "CSV list columns (sizes, colors, images) are '|'-separated; metadata is a JSON object. "
+                    + "id, name and price are required; other columns left out of the file keep their stored values on existing products. "
+                    + "Invalid rows are skipped and reported with their line number.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = "text/csv", examples = @ExampleObject(value =
+                    "id,name,price,category,subcategory,sizes,colors,inStock,metadata\n"
+                            + "sku-1,Slim Fit Jeans,79.99,jeans,slim,28|30|32,Dark Wash,true,\"{\"\"fit\"\":\"\"slim\"\"}\"")),
+            @Content(mediaType = "application/x-ndjson", examples = @ExampleObject(value =
+                    "{\"id\":\"sku-1\",\"name\":\"Slim Fit Jeans\",\"price\":79.99,\"sizes\":[\"28\",\"30\"],\"metadata\":{\"fit\":\"slim\"}}"))
+    })
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Import finished; see failed and errors for rejected rows", content = @Content(schema = @Schema(implementation = CatalogImportResult.class))),
+        @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    @PostMapping(value = "/import", consumes = "*/*")
+    public ResponseEntity<?> importProducts(
+            @RequestParam(required = false) @Schema(description = "csv or ndjson; defaults from Content-Type", example = "csv") String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+        CatalogImportService.Format importFormat;
+        try {
+            importFormat = CatalogImportService.Format.of(format != null ? format : formatFromContentType(contentType));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        return ResponseEntity.ok(catalogImportService.importProducts(body, importFormat));
+    }
+
+    private static String formatFromContentType(String contentType) {
+        if (contentType == null) return null;
+        if (contentType.startsWith("text/csv")) return "csv";
+        if (contentType.startsWith("application/x-ndjson") || contentType.startsWith("application/jsonl")) return "ndjson";
+        return contentType;
+    }
+}
@@ -1,9 +1,19 @@
 package com.janesjeans.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.BulkStatusRequest;
+import com.janesjeans.api.dto.BulkStatusResponse;
+import com.janesjeans.api.dto.OrderPageResponse;
+import com.janesjeans.api.dto.OrderSliceResponse;
+import com.janesjeans.api.dto.OrderSummaryDTO;
 import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.service.BulkOrderStatusService;
+import com.janesjeans.api.service.OrderExportService;
+import com.janesjeans.api.service.OrderSearchFilter;
+import com.janesjeans.api.service.OrderSearchService;
 import com.janesjeans.api.service.OrderService;
+import com.janesjeans.api.service.OrderSlice;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,11 +21,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -24,13 +43,136 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderSearchService orderSearchService;
+    private final BulkOrderStatusService bulkOrderStatusService;
+    private final ObjectMapper objectMapper;
     private final com.janesjeans.api.service.EmailSender emailSender;
 
-    @Operation(summary = "List all orders")
-    @ApiResponse(responseCode = "200", description = "Orders retrieved", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Order.class))))
+    @Operation(summary = "List orders", description = "Order summaries, newest first, without line items unless expand=items. "
+            + "Offset paging returns page counts; paging=cursor returns keyset slices with a nextCursor and no count query.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Orders retrieved", content = @Content(schema = @Schema(oneOf = {OrderPageResponse.class, OrderSliceResponse.class}))),
+        @ApiResponse(responseCode = "400", description = "Invalid page size, date range, cursor or expand value", content = @Content)
+    })
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<?> getOrders(
+            @RequestParam(required = false) @Schema(description = "Filter by status", example = "Pending") String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Schema(description = "Orders placed at or after this time") LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Schema(description = "Orders placed before this time") LocalDateTime to,
+            @RequestParam(defaultValue = "0") @Schema(description = "Page number, 0-based (offset mode)") int page,
+            @RequestParam(defaultValue = "50") @Schema(description = "Orders per page (1-200)") int size,
+            @RequestParam(defaultValue = "offset") @Schema(description = "Paging mode: offset or cursor", example = "cursor") String paging,
+            @RequestParam(required = false) @Schema(description = "Cursor from a previous slice's nextCursor (cursor mode)") String cursor,
+            @RequestParam(required = false) @Schema(description = "Set to items to include each order's line items", example = "items") String expand) {
+        try {
+            boolean withItems = expandsItems(expand);
+            if ("cursor".equalsIgnoreCase(paging) || cursor != null) {
+                OrderSlice slice = orderService.scrollOrderSummaries(status, from, to, cursor, size, withItems);
+                return ResponseEntity.ok(OrderSliceResponse.builder()
+                        .content(slice.content())
+                        .size(size)
+                        .nextCursor(slice.nextCursor())
+                        .hasNext(slice.nextCursor() != null)
+                        .build());
+            }
+            Page<OrderSummaryDTO> result = orderService.getOrderSummaries(status, from, to, page, size, withItems);
+            return ResponseEntity.ok(OrderPageResponse.builder()
+                    .content(result.getContent())
+                    .page(result.getNumber())
+                    .size(result.getSize())
+                    .totalElements(result.getTotalElements())
+                    .totalPages(result.getTotalPages())
+                    .last(result.isLast())
+                    .first(result.isFirst())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Search orders", description = "Orders matching every given filter, newest first, in keyset slices. "
+            + "Filtering by status or customer email is served by an index that also provides the sort order.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Matching orders", content = @Content(schema = @Schema(implementation = OrderSliceResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid page size, date or amount range, cursor or expand value", content = @Content)
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> searchOrders(
+            @RequestParam(required = false) @Schema(description = "Filter by status", example = "Shipped") String status,
+            @RequestParam(required = false) @Schema(description = "Filter by customer email (exact match)", example = "jane@example.com") String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Schema(description = "Orders placed at or after this time") LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Schema(description = "Orders placed before this time") LocalDateTime to,
+            @RequestParam(required = false) @Schema(description = "Minimum order total, inclusive", example = "50.00") BigDecimal minTotal,
+            @RequestParam(required = false) @Schema(description = "Maximum order total, inclusive", example = "500.00") BigDecimal maxTotal,
+            @RequestParam(defaultValue = "50") @Schema(description = "Orders per slice (1-200)") int size,
+            @RequestParam(required = false) @Schema(description = "Cursor from a previous slice's nextCursor") String cursor,
+            @RequestParam(required = false) @Schema(description = "Set to items to include each order's line items", example = "items") String expand) {
+        try {
+            OrderSearchFilter filter = OrderSearchFilter.builder()
+                    .status(status)
+                    .customerEmail(email)
+                    .from(from).to(to)
+                    .minTotal(minTotal).maxTotal(maxTotal)
+                    .build();
+            OrderSlice slice = orderSearchService.search(filter, cursor, size, expandsItems(expand));
+            return ResponseEntity.ok(OrderSliceResponse.builder()
+                    .content(slice.content())
+                    .size(size)
+                    .nextCursor(slice.nextCursor())
+                    .hasNext(slice.nextCursor() != null)
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    private static boolean expandsItems(String expand) {
+        if (expand == null || expand.isBlank()) return false;
+        if ("items".equalsIgnoreCase(expand.trim())) return true;
+        throw new IllegalArgumentException("Unknown expand value: " + expand);
+    }
+
+    @Operation(summary = "Export orders with their items", description = "Streams every matching order, oldest first, as CSV "
+            + "(one line per item) or NDJSON (one order with its items per line). The export is written as it is read, "
+            + "so it can be of any size; add gzip=true for a compressed download.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Export streamed as a file download"),
+        @ApiResponse(responseCode = "400", description = "Unknown format or invalid date range", content = @Content)
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") @Schema(description = "csv or ndjson", example = "ndjson") String format,
+            @RequestParam(required = false) @Schema(description = "Filter by status", example = "Delivered") String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Schema(description = "Orders placed at or after this time") LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @Schema(description = "Orders placed before this time") LocalDateTime to,
+            @RequestParam(defaultValue = "false") @Schema(description = "Compress the download with gzip") boolean gzip) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.parse(format);
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("'from' must not be after 'to'");
+            }
+        } catch (IllegalArgumentException e) {
+            // the body must be streamed too: Spring only streams when the declared body type says so
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, Map.of("message", e.getMessage())));
+        }
+        String filename = "orders-" + LocalDate.now() + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                orderExportService.export(exportFormat, status, from, to, compressed);
+                compressed.finish();
+            } else {
+                orderExportService.export(exportFormat, status, from, to, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
 
     @Operation(summary = "Get order by ID")
@@ -79,6 +221,23 @@ public class OrderController {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, body.get("status")));
     }
 
+    @Operation(summary = "Move many orders to one status",
+            description = "Set-based update of up to 1000 orders to Processing, Shipped or Delivered, stamping the shipped or "
+                    + "delivered date and moving the orders' shipments along. Returns a result per id; orders that cannot "
+                    + "make the transition are reported and left alone.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Per-order results", content = @Content(schema = @Schema(implementation = BulkStatusResponse.class))),
+        @ApiResponse(responseCode = "400", description = "No ids, too many ids, or an invalid target status", content = @Content)
+    })
+    @PostMapping("/bulk-status")
+    public ResponseEntity<?> bulkUpdateStatus(@RequestBody BulkStatusRequest request) {
+        try {
+            return ResponseEntity.ok(bulkOrderStatusService.transition(request.getIds(), request.getStatus()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @Operation(summary = "Delete an order")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Order deleted"),
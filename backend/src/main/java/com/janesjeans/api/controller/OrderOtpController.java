@@ -21,7 +21,9 @@ public class OrderOtpController {
     public static record VerifyOtpRequest(String phoneNumber, String otp) {}
 
     @Operation(summary = "Request OTP for order confirmation")
-    @ApiResponses({@ApiResponse(responseCode = "202", description = "OTP sent/accepted"), @ApiResponse(responseCode = "400", description = "Invalid input")})
+    @ApiResponses({@ApiResponse(responseCode = "202", description = "OTP sent/accepted"), @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "429", description = "Too many OTPs for this order or customer; retry after the Retry-After seconds"),
+            @ApiResponse(responseCode = "503", description = "Too many verifications pending; retry after the Retry-After seconds")})
     @PostMapping("/{id}/request-otp")
     public ResponseEntity<Map<String, Object>> requestOtp(@PathVariable("id") String id, @RequestBody RequestOtpRequest body) {
         String to = body.phoneNumber();
@@ -1,5 +1,8 @@
 package com.janesjeans.api.controller;
 
+import com.janesjeans.api.dto.CatalogFacetsResponse;
+import com.janesjeans.api.dto.CatalogSliceResponse;
+import com.janesjeans.api.dto.CatalogSuggestion;
 import com.janesjeans.api.dto.GuestOrderRequest;
 import com.janesjeans.api.dto.GuestOrderResponse;
 import com.janesjeans.api.dto.PaginatedCatalogResponse;
@@ -7,15 +10,18 @@ import com.janesjeans.api.dto.ShopCategoryDTO;
 import com.janesjeans.api.dto.ShopProductDTO;
 import com.janesjeans.api.dto.ShopProductDetailDTO;
 import com.janesjeans.api.entity.*;
+import com.janesjeans.api.exception.OtpRateLimitedException;
+import com.janesjeans.api.exception.OtpStoreFullException;
+import com.janesjeans.api.service.CatalogSlice;
+import com.janesjeans.api.service.CategoryTreeCache;
+import com.janesjeans.api.service.CheckoutService;
 import com.janesjeans.api.service.EmailService;
-import com.janesjeans.api.service.OrderService;
+import com.janesjeans.api.service.IdempotencyService;
+import com.janesjeans.api.service.InventoryHoldService;
 import com.janesjeans.api.service.OtpService;
 import com.janesjeans.api.service.ProductService;
-import com.janesjeans.api.service.PaymentService;
-import com.janesjeans.api.service.ShipmentService;
-import com.janesjeans.api.service.ShippingVendorService;
+import com.janesjeans.api.service.ProductJsonCache;
 import com.janesjeans.api.service.ShopCatalogService;
-import com.janesjeans.api.entity.Shipment;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -25,10 +31,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -39,60 +48,90 @@ import java.util.stream.Collectors;
 @Tag(name = "Shop (Public)", description = "Public storefront endpoints – no authentication required")
 public class ShopController {
 
+    private static final int OTP_TTL_SECONDS = 300;
+
     private final ProductService productService;
-    private final OrderService orderService;
     private final EmailService emailService;
-    private final PaymentService paymentService;
-    private final ShipmentService shipmentService;
-    private final ShippingVendorService shippingVendorService;
+    private final CheckoutService checkoutService;
     private final OtpService otpService;
     private final ShopCatalogService shopCatalogService;
+    private final InventoryHoldService inventoryHoldService;
+    private final IdempotencyService idempotencyService;
 
     // ==================== CATALOG ENDPOINTS (new shop tables) ====================
 
-    @Operation(summary = "List all shop categories", description = "Returns categories with their subcategories")
-    @GetMapping("/categories")
-    public ResponseEntity<List<ShopCategoryDTO>> getCategories() {
-        List<ShopCategory> categories = shopCatalogService.getAllCategories();
-        List<ShopCategoryDTO> dtos = categories.stream().map(c -> ShopCategoryDTO.builder()
-                .id(c.getId()).name(c.getName()).slug(c.getSlug())
-                .icon(c.getIcon()).sortOrder(c.getSortOrder() != null ? c.getSortOrder() : 0)
-                .subcategories(c.getSubcategories() != null ? c.getSubcategories().stream()
-                        .map(s -> ShopCategoryDTO.SubcategoryDTO.builder()
-                                .id(s.getId()).name(s.getName()).slug(s.getSlug())
-                                .sortOrder(s.getSortOrder() != null ? s.getSortOrder() : 0).build())
-                        .collect(Collectors.toList()) : List.of())
-                .build()).collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    @Operation(summary = "List all shop categories", description = "Returns categories with their subcategories. Served from an in-memory snapshot with an ETag; send If-None-Match to get 304 when unchanged.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Category tree", content = @Content(array = @ArraySchema(schema = @Schema(implementation = ShopCategoryDTO.class)))),
+        @ApiResponse(responseCode = "304", description = "Category tree unchanged since the given ETag", content = @Content)
+    })
+    @GetMapping(value = "/categories", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CategoryTreeCache.Snapshot tree = shopCatalogService.getCategoryTree();
+        if (etagMatches(ifNoneMatch, tree.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tree.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(tree.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(tree.json());
     }
 
-    @Operation(summary = "Search & browse shop catalog", description = "Paginated, searchable, filterable product listing from shop_products table. Supports sorting by price, name, rating, reviews, created_at.")
+    @Operation(summary = "Search & browse shop catalog", description = "Paginated, searchable, filterable product listing from shop_products table. Supports sorting by price, name, rating, reviews, created_at. "
+            + "With paging=cursor (or a cursor parameter) the response is a keyset slice: pass nextCursor back as cursor to get the following slice.")
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "Paginated products", content = @Content(schema = @Schema(implementation = PaginatedCatalogResponse.class)))
+        @ApiResponse(responseCode = "200", description = "Paginated products (offset mode) or a product slice (cursor mode)", content = @Content(schema = @Schema(oneOf = {PaginatedCatalogResponse.class, CatalogSliceResponse.class}))),
+        @ApiResponse(responseCode = "400", description = "Unsupported sort field, or an invalid cursor (cursor mode)", content = @Content)
     })
     @GetMapping("/catalog")
-    public ResponseEntity<PaginatedCatalogResponse> getCatalogProducts(
+    public ResponseEntity<?> getCatalogProducts(
             @RequestParam(required = false) @Schema(description = "Filter by category slug", example = "skincare") String category,
             @RequestParam(required = false) @Schema(description = "Filter by subcategory slug", example = "serums") String subcategory,
-            @RequestParam(required = false) @Schema(description = "Search by name or description", example = "vitamin") String search,
+            @RequestParam(required = false) @Schema(description = "Words, each matching the start of a word in the name, description or subcategory", example = "vitamin") String search,
             @RequestParam(required = false) @Schema(description = "Filter by stock availability") Boolean inStock,
             @RequestParam(required = false) @Schema(description = "Minimum price", example = "10") java.math.BigDecimal minPrice,
             @RequestParam(required = false) @Schema(description = "Maximum price", example = "100") java.math.BigDecimal maxPrice,
+            @RequestParam(required = false) @Schema(description = "Sizes, comma-separated or repeated; matches products offered in any of them", example = "28,30") List<String> sizes,
+            @RequestParam(required = false) @Schema(description = "Colors, comma-separated or repeated; matches products offered in any of them", example = "Indigo,Black") List<String> colors,
             @RequestParam(defaultValue = "0") @Schema(description = "Page number (0-based)", example = "0") int page,
             @RequestParam(defaultValue = "12") @Schema(description = "Page size", example = "12") int size,
             @RequestParam(defaultValue = "createdAt") @Schema(description = "Sort field: name, price, rating, reviews, createdAt", example = "price") String sortBy,
-            @RequestParam(defaultValue = "desc") @Schema(description = "Sort direction: asc or desc", example = "asc") String sortDir) {
+            @RequestParam(defaultValue = "desc") @Schema(description = "Sort direction: asc or desc", example = "asc") String sortDir,
+            @RequestParam(defaultValue = "offset") @Schema(description = "Paging mode: offset or cursor", example = "cursor") String paging,
+            @RequestParam(required = false) @Schema(description = "Cursor from a previous slice's nextCursor (cursor mode)") String cursor,
+            @RequestParam(defaultValue = "false") @Schema(description = "Include an approximate total (cursor mode)") boolean includeTotal) {
+
+        if ("cursor".equalsIgnoreCase(paging) || cursor != null) {
+            try {
+                CatalogSlice slice = shopCatalogService.scrollCatalog(category, subcategory, inStock, minPrice, maxPrice,
+                        search, sizes, colors, sortBy, sortDir, cursor, size, includeTotal);
+                return ResponseEntity.ok(CatalogSliceResponse.builder()
+                        .content(slice.content().stream().map(shopCatalogService::toJsonFragment).collect(Collectors.toList()))
+                        .size(size)
+                        .nextCursor(slice.nextCursor())
+                        .hasNext(slice.nextCursor() != null)
+                        .approximateTotal(slice.approximateTotal())
+                        .build());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+            }
+        }
 
         org.springframework.data.domain.Sort sort = sortDir.equalsIgnoreCase("asc")
                 ? org.springframework.data.domain.Sort.by(sortBy).ascending()
                 : org.springframework.data.domain.Sort.by(sortBy).descending();
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size, sort);
 
-        org.springframework.data.domain.Page<ShopProduct> resultPage =
-                shopCatalogService.searchCatalog(category, subcategory, inStock, minPrice, maxPrice, search, pageable);
+        org.springframework.data.domain.Page<ShopProduct> resultPage;
+        try {
+            resultPage = shopCatalogService.searchCatalog(category, subcategory, inStock, minPrice, maxPrice, search, sizes, colors, pageable);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
 
         PaginatedCatalogResponse response = PaginatedCatalogResponse.builder()
-                .content(resultPage.getContent().stream().map(this::toDetailDTO).collect(Collectors.toList()))
+                .content(resultPage.getContent().stream().map(shopCatalogService::toJsonFragment).collect(Collectors.toList()))
                 .page(resultPage.getNumber())
                 .size(resultPage.getSize())
                 .totalElements(resultPage.getTotalElements())
@@ -103,25 +142,63 @@ public class ShopController {
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Get shop catalog product by ID", description = "Returns a single product from shop_products with full metadata")
-    @GetMapping("/catalog/{id}")
-    public ResponseEntity<ShopProductDetailDTO> getCatalogProduct(@PathVariable String id) {
-        ShopProduct product = shopCatalogService.getShopProductById(id);
-        return ResponseEntity.ok(toDetailDTO(product));
+    @Operation(summary = "Facet counts for the shop catalog", description = "Counts per category, subcategory, size, color, stock state and price band for the products matching the same filters as /catalog, computed in one pass.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Facet counts", content = @Content(schema = @Schema(implementation = CatalogFacetsResponse.class)))
+    })
+    @GetMapping("/catalog/facets")
+    public ResponseEntity<CatalogFacetsResponse> getCatalogFacets(
+            @RequestParam(required = false) @Schema(description = "Filter by category slug", example = "skincare") String category,
+            @RequestParam(required = false) @Schema(description = "Filter by subcategory slug", example = "serums") String subcategory,
+            @RequestParam(required = false) @Schema(description = "Words, each matching the start of a word in the name, description or subcategory", example = "vitamin") String search,
+            @RequestParam(required = false) @Schema(description = "Filter by stock availability") Boolean inStock,
+            @RequestParam(required = false) @Schema(description = "Minimum price", example = "10") java.math.BigDecimal minPrice,
+            @RequestParam(required = false) @Schema(description = "Maximum price", example = "100") java.math.BigDecimal maxPrice,
+            @RequestParam(required = false) @Schema(description = "Sizes, comma-separated or repeated; matches products offered in any of them", example = "28,30") List<String> sizes,
+            @RequestParam(required = false) @Schema(description = "Colors, comma-separated or repeated; matches products offered in any of them", example = "Indigo,Black") List<String> colors,
+            @RequestParam(required = false) @Schema(description = "Price band boundaries, comma-separated", example = "25,50,100,200") List<java.math.BigDecimal> priceBuckets) {
+        return ResponseEntity.ok(shopCatalogService.getCatalogFacets(category, subcategory, inStock, minPrice, maxPrice, search, sizes, colors, priceBuckets));
     }
 
-    private ShopProductDetailDTO toDetailDTO(ShopProduct p) {
-        return ShopProductDetailDTO.builder()
-                .id(p.getId()).name(p.getName()).description(p.getDescription())
-                .price(p.getPrice()).category(p.getCategory()).subcategory(p.getSubcategory())
-                .sizes(p.getSizes() != null ? List.of(p.getSizes()) : List.of())
-                .colors(p.getColors() != null ? List.of(p.getColors()) : List.of())
-                .images(p.getImages() != null ? List.of(p.getImages()) : List.of("/placeholder.svg"))
-                .inStock(p.getInStock() != null && p.getInStock())
-                .rating(p.getRating() != null ? p.getRating().doubleValue() : 4.5)
-                .reviews(p.getReviews() != null ? p.getReviews() : 0)
-                .metadata(p.getMetadata() != null ? p.getMetadata() : Map.of())
-                .build();
+    @Operation(summary = "Typeahead suggestions", description = "Categories, subcategories and products that have a word starting with q. Categories and subcategories come first, then products by rating and review count.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Suggestions, best first", content = @Content(array = @ArraySchema(schema = @Schema(implementation = CatalogSuggestion.class))))
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<CatalogSuggestion>> suggest(
+            @RequestParam(defaultValue = "") @Schema(description = "What the shopper has typed so far", example = "dark wa") String q,
+            @RequestParam(defaultValue = "8") @Schema(description = "Maximum suggestions (1-10)", example = "8") int limit) {
+        return ResponseEntity.ok(shopCatalogService.suggest(q, limit));
+    }
+
+    @Operation(summary = "Get shop catalog product by ID", description = "Returns a single product from shop_products with full metadata. Responses carry an ETag; send If-None-Match to get 304 when unchanged.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Product found", content = @Content(schema = @Schema(implementation = ShopProductDetailDTO.class))),
+        @ApiResponse(responseCode = "304", description = "Product unchanged since the given ETag", content = @Content)
+    })
+    @GetMapping(value = "/catalog/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCatalogProduct(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ProductJsonCache.Entry product = shopCatalogService.getShopProductJson(id);
+        if (etagMatches(ifNoneMatch, product.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(product.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(product.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(product.bytes());
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        if (ifNoneMatch.trim().equals("*")) return true;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
     }
 
     // ==================== LEGACY ENDPOINTS (old products table) ====================
@@ -132,14 +209,7 @@ public class ShopController {
     })
     @GetMapping("/products")
     public ResponseEntity<List<ShopProductDTO>> getShopProducts(@RequestParam(required = false) String category) {
-        List<Product> allProducts = productService.getAllProducts();
-        Map<String, List<Product>> grouped = allProducts.stream()
-                .collect(Collectors.groupingBy(Product::getName, LinkedHashMap::new, Collectors.toList()));
-        List<ShopProductDTO> shopProducts = grouped.entrySet().stream()
-                .map(entry -> buildShopProductDTO(entry.getValue()))
-                .filter(p -> category == null || "all".equals(category) || p.getCategory().equals(category))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(shopProducts);
+        return ResponseEntity.ok(productService.getProductFamilies(category));
     }
 
     @Operation(summary = "Get shop product by ID", description = "Returns a single product with all size/color variants")
@@ -149,12 +219,7 @@ public class ShopController {
     })
     @GetMapping("/products/{id}")
     public ResponseEntity<ShopProductDTO> getShopProduct(@PathVariable String id) {
-        Product product = productService.getProductById(id);
-        List<Product> allProducts = productService.getAllProducts();
-        List<Product> variants = allProducts.stream()
-                .filter(p -> p.getName().equals(product.getName()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(buildShopProductDTO(variants));
+        return ResponseEntity.ok(productService.getProductFamily(id));
     }
 
     @Operation(summary = "Check stock availability", description = "Validates stock levels for a list of cart items before checkout")
@@ -164,23 +229,23 @@ public class ShopController {
     @PostMapping("/check-stock")
     public ResponseEntity<Map<String, Object>> checkStock(@RequestBody List<GuestOrderRequest.GuestOrderItem> items) {
         List<Map<String, Object>> outOfStock = new ArrayList<>();
+        Map<String, Product> products = productService.getProductsByIds(
+                items.stream().map(GuestOrderRequest.GuestOrderItem::getProductId).toList());
         for (GuestOrderRequest.GuestOrderItem item : items) {
-            try {
-                Product product = productService.getProductById(item.getProductId());
-                if (product.getStockLevel() < item.getQuantity()) {
-                    Map<String, Object> issue = new HashMap<>();
-                    issue.put("productId", item.getProductId());
-                    issue.put("productName", item.getProductName());
-                    issue.put("requestedQuantity", item.getQuantity());
-                    issue.put("availableStock", product.getStockLevel());
-                    outOfStock.add(issue);
-                }
-            } catch (Exception e) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
                 Map<String, Object> issue = new HashMap<>();
                 issue.put("productId", item.getProductId());
                 issue.put("productName", item.getProductName());
                 issue.put("error", "Product not found");
                 outOfStock.add(issue);
+            } else if (product.getAvailableStock() < item.getQuantity()) {
+                Map<String, Object> issue = new HashMap<>();
+                issue.put("productId", item.getProductId());
+                issue.put("productName", item.getProductName());
+                issue.put("requestedQuantity", item.getQuantity());
+                issue.put("availableStock", Math.max(0, product.getAvailableStock()));
+                outOfStock.add(issue);
             }
         }
         Map<String, Object> result = new HashMap<>();
@@ -189,36 +254,24 @@ public class ShopController {
         return ResponseEntity.ok(result);
     }
 
-    @Operation(summary = "Create guest order", description = "Places a new order as a guest with stock validation and email confirmation")
+    @Operation(summary = "Create guest order", description = "Places a new order as a guest with stock validation and email confirmation. Send an Idempotency-Key header to make retries safe: a repeated key replays the first response instead of ordering again.")
     @ApiResponses({
-        @ApiResponse(responseCode = "201", description = "Order created", content = @Content(schema = @Schema(implementation = GuestOrderResponse.class))),
-        @ApiResponse(responseCode = "409", description = "Some items are out of stock", content = @Content)
+        @ApiResponse(responseCode = "201", description = "Order created (or replayed, with Idempotent-Replayed: true)", content = @Content(schema = @Schema(implementation = GuestOrderResponse.class))),
+        @ApiResponse(responseCode = "400", description = "An item has no productId or a quantity below 1, or the Idempotency-Key is invalid", content = @Content),
+        @ApiResponse(responseCode = "409", description = "Some items are out of stock; nothing was reserved", content = @Content),
+        @ApiResponse(responseCode = "422", description = "The Idempotency-Key was already used for a different request", content = @Content)
     })
     @PostMapping("/orders")
-    public ResponseEntity<?> createGuestOrder(@RequestBody GuestOrderRequest request) {
-        List<String> stockErrors = new ArrayList<>();
-        for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
-            try {
-                Product product = productService.getProductById(item.getProductId());
-                if (product.getStockLevel() < item.getQuantity()) {
-                    stockErrors.add(String.format("%s: only %d available (requested %d)",
-                            item.getProductName(), product.getStockLevel(), item.getQuantity()));
-                }
-            } catch (Exception e) {
-                stockErrors.add(item.getProductName() + ": product not found");
-            }
-        }
-        if (!stockErrors.isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("message", "Some items are out of stock");
-            error.put("stockErrors", stockErrors);
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
-        }
-        for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
-            Product product = productService.getProductById(item.getProductId());
-            product.setStockLevel(product.getStockLevel() - item.getQuantity());
-            productService.updateProduct(product.getId(), product);
+    public ResponseEntity<?> createGuestOrder(@RequestBody GuestOrderRequest request,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            return idempotencyService.execute(idempotencyKey, "POST /api/shop/orders", request, () -> placeGuestOrder(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
+    }
+
+    private ResponseEntity<?> placeGuestOrder(GuestOrderRequest request) {
         String shippingAddress = String.format("%s, %s %s",
                 request.getShipmentDetails().getAddress(),
                 request.getShipmentDetails().getCity(),
@@ -242,10 +295,15 @@ public class ShopController {
                     .build();
             order.getItems().add(orderItem);
         }
-        Order saved = orderService.createOrder(order);
-        String orderNumber = "ORD-" + saved.getId().substring(0, 8).toUpperCase();
+        Order saved;
+        try {
+            saved = checkoutService.place(order, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        String orderNumber = saved.displayOrderNumber();
         log.info("Guest order created: {} ({})", saved.getId(), orderNumber);
-        emailService.sendOrderConfirmationAsync(saved, orderNumber);
+        emailService.queueOrderConfirmation(saved, orderNumber);
         GuestOrderResponse response = GuestOrderResponse.builder()
                 .id(saved.getId())
                 .orderNumber(orderNumber)
@@ -258,36 +316,24 @@ public class ShopController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @Operation(summary = "Confirm guest order (save order + payment + shipment)", description = "Places a new order as a guest and persists order, payment and shipment records")
+    @Operation(summary = "Confirm guest order (save order + payment + shipment)", description = "Places a new order as a guest. The order is saved before the response; its payment and shipment records and the confirmation email follow asynchronously, retried until they succeed. Send an Idempotency-Key header to make retries safe: a repeated key replays the first response instead of ordering again.")
     @ApiResponses({
-        @ApiResponse(responseCode = "201", description = "Order confirmed", content = @Content(schema = @Schema(implementation = GuestOrderResponse.class))),
-        @ApiResponse(responseCode = "409", description = "Some items are out of stock", content = @Content)
+        @ApiResponse(responseCode = "201", description = "Order confirmed (or replayed, with Idempotent-Replayed: true)", content = @Content(schema = @Schema(implementation = GuestOrderResponse.class))),
+        @ApiResponse(responseCode = "400", description = "An item has no productId or a quantity below 1, or the Idempotency-Key is invalid", content = @Content),
+        @ApiResponse(responseCode = "409", description = "Some items are out of stock; nothing was reserved", content = @Content),
+        @ApiResponse(responseCode = "422", description = "The Idempotency-Key was already used for a different request", content = @Content)
     })
     @PostMapping("/orders/confirm")
-    public ResponseEntity<?> confirmGuestOrder(@RequestBody GuestOrderRequest request) {
-        List<String> stockErrors = new ArrayList<>();
-        for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
-            try {
-                Product product = productService.getProductById(item.getProductId());
-                if (product.getStockLevel() < item.getQuantity()) {
-                    stockErrors.add(String.format("%s: only %d available (requested %d)",
-                            item.getProductName(), product.getStockLevel(), item.getQuantity()));
-                }
-            } catch (Exception e) {
-                stockErrors.add(item.getProductName() + ": product not found");
-            }
-        }
-        if (!stockErrors.isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("message", "Some items are out of stock");
-            error.put("stockErrors", stockErrors);
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
-        }
-        for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
-            Product product = productService.getProductById(item.getProductId());
-            product.setStockLevel(product.getStockLevel() - item.getQuantity());
-            productService.updateProduct(product.getId(), product);
+    public ResponseEntity<?> confirmGuestOrder(@RequestBody GuestOrderRequest request,
+                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            return idempotencyService.execute(idempotencyKey, "POST /api/shop/orders/confirm", request, () -> placeConfirmedGuestOrder(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
+    }
+
+    private ResponseEntity<?> placeConfirmedGuestOrder(GuestOrderRequest request) {
         String shippingAddress = String.format("%s, %s %s",
                 request.getShipmentDetails().getAddress(),
                 request.getShipmentDetails().getCity(),
@@ -311,38 +357,14 @@ public class ShopController {
                     .build();
             order.getItems().add(orderItem);
         }
-        Order saved = orderService.createOrder(order);
-
-        // persist payment
-        com.janesjeans.api.entity.Payment payment = com.janesjeans.api.entity.Payment.builder()
-                .orderId(saved.getId())
-                .amount(request.getTotalAmount())
-                .method(request.getPayment() != null ? request.getPayment().getType() : "unknown")
-                .status(request.getPayment() != null ? request.getPayment().getStatus() : "PENDING")
-                .notes("Guest checkout")
-                .build();
-        paymentService.createPayment(payment);
-
-        // choose a shipping vendor if available
-        String vendorId = null;
+        Order saved;
         try {
-            var vendors = shippingVendorService.getAllVendors();
-            if (!vendors.isEmpty()) vendorId = vendors.get(0).getId();
-        } catch (Exception ignored) {}
-
-        Shipment shipment = Shipment.builder()
-                .orderId(saved.getId())
-                .vendorId(vendorId != null ? vendorId : "")
-                .trackingNumber("")
-                .status("pending")
-                .shippingAddress(shippingAddress)
-                .notes(request.getShipmentDetails().getPhone())
-                .build();
-        shipmentService.createShipment(shipment);
-
-        String orderNumber = "ORD-" + saved.getId().substring(0, 8).toUpperCase();
+            saved = checkoutService.confirm(order, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        String orderNumber = saved.displayOrderNumber();
         log.info("Guest order confirmed: {} ({})", saved.getId(), orderNumber);
-        emailService.sendOrderConfirmationAsync(saved, orderNumber);
         GuestOrderResponse response = GuestOrderResponse.builder()
                 .id(saved.getId())
                 .orderNumber(orderNumber)
@@ -355,38 +377,18 @@ public class ShopController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @Operation(summary = "Initiate guest order with OTP confirmation", description = "Places a new order as pending verification and sends an OTP by SMS or email. Payment and shipment are created after OTP verification.")
+    @Operation(summary = "Initiate guest order with OTP confirmation", description = "Places a new order as pending verification and sends an OTP by SMS or email. The stock is held, not sold, until the OTP is verified or expires. Payment and shipment are created after OTP verification.")
     @ApiResponses({
-        @ApiResponse(responseCode = "202", description = "Order created and OTP sent"),
-        @ApiResponse(responseCode = "409", description = "Some items are out of stock", content = @Content)
+        @ApiResponse(responseCode = "202", description = "Order created, its stock held until the OTP expires, and OTP sent"),
+        @ApiResponse(responseCode = "400", description = "An item has no productId or a quantity below 1", content = @Content),
+        @ApiResponse(responseCode = "409", description = "Some items are out of stock; nothing was held", content = @Content),
+        @ApiResponse(responseCode = "429", description = "Too many OTPs for this customer; the order is saved as Not Verified and its stock released. Place it again after the Retry-After seconds", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Too many verifications pending; the order is saved as Not Verified and its stock released. Place it again after the Retry-After seconds", content = @Content)
     })
     @PostMapping("/orders/confirm-with-otp")
     public ResponseEntity<?> confirmGuestOrderWithOtp(@RequestBody GuestOrderRequest request,
                                                      @RequestParam(required = false) String method,
                                                      @RequestParam(required = false) String contact) {
-        List<String> stockErrors = new ArrayList<>();
-        for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
-            try {
-                Product product = productService.getProductById(item.getProductId());
-                if (product.getStockLevel() < item.getQuantity()) {
-                    stockErrors.add(String.format("%s: only %d available (requested %d)",
-                            item.getProductName(), product.getStockLevel(), item.getQuantity()));
-                }
-            } catch (Exception e) {
-                stockErrors.add(item.getProductName() + ": product not found");
-            }
-        }
-        if (!stockErrors.isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("message", "Some items are out of stock");
-            error.put("stockErrors", stockErrors);
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
-        }
-        for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
-            Product product = productService.getProductById(item.getProductId());
-            product.setStockLevel(product.getStockLevel() - item.getQuantity());
-            productService.updateProduct(product.getId(), product);
-        }
         String shippingAddress = String.format("%s, %s %s",
                 request.getShipmentDetails().getAddress(),
                 request.getShipmentDetails().getCity(),
@@ -395,6 +397,7 @@ public class ShopController {
                 .customerName(request.getShipmentDetails().getName())
                 .customerEmail(request.getShipmentDetails().getEmail())
                 .status("PendingVerification")
+                .holdExpiresAt(LocalDateTime.now().plusSeconds(OTP_TTL_SECONDS))
                 .totalAmount(request.getTotalAmount())
                 .shippingAddress(shippingAddress)
                 .notes("Payment: " + request.getPayment().getType() + " | Phone: " + request.getShipmentDetails().getPhone())
@@ -410,44 +413,32 @@ public class ShopController {
                     .build();
             order.getItems().add(orderItem);
         }
-        Order saved = orderService.createOrder(order);
+        Order saved;
+        try {
+            saved = checkoutService.placeOnHold(order, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
 
         String usedMethod = method == null ? "sms" : method;
         String dest = contact;
         if (dest == null) {
             dest = "email".equalsIgnoreCase(usedMethod) ? request.getShipmentDetails().getEmail() : request.getShipmentDetails().getPhone();
         }
-        otpService.requestOtp(saved.getId(), dest, 300, usedMethod, request);
+        try {
+            otpService.requestOtp(saved.getId(), dest, OTP_TTL_SECONDS, usedMethod, request);
+        } catch (OtpStoreFullException | OtpRateLimitedException e) {
+            // no OTP can be sent, so the order cannot be verified: give its stock back now,
+            // which leaves it Not Verified like an order whose OTP expired
+            inventoryHoldService.release(List.of(saved.getId()));
+            throw e;
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("id", saved.getId());
         response.put("status", saved.getStatus());
-        response.put("orderNumber", "ORD-" + saved.getId().substring(0, 8).toUpperCase());
+        response.put("orderNumber", saved.displayOrderNumber());
         response.put("message", "Order created and OTP sent");
         return ResponseEntity.accepted().body(response);
     }
-
-    private ShopProductDTO buildShopProductDTO(List<Product> variants) {
-        Product first = variants.get(0);
-        List<String> sizes = variants.stream().map(Product::getSize).distinct().sorted().collect(Collectors.toList());
-        List<String> colors = variants.stream().map(Product::getWash).filter(Objects::nonNull).distinct().collect(Collectors.toList());
-        if (colors.isEmpty()) colors = List.of("Default");
-        boolean inStock = variants.stream().anyMatch(p -> p.getStockLevel() > 0);
-        String imageUrl = first.getImageUrl() != null ? first.getImageUrl() : "/placeholder.svg";
-        double rating = 4.0 + (Math.abs(first.getName().hashCode()) % 10) / 10.0;
-        int reviews = 50 + Math.abs(first.getName().hashCode()) % 200;
-        return ShopProductDTO.builder()
-                .id(first.getId()).name(first.getName())
-                .description(first.getDescription() != null ? first.getDescription() : "Premium quality " + first.getFit() + " jeans")
-                .price(first.getPrice()).category(deriveCategoryFromFit(first.getFit()))
-                .sizes(sizes).colors(colors).images(List.of(imageUrl))
-                .inStock(inStock).rating(Math.min(rating, 5.0)).reviews(reviews)
-                .gender(first.getGender()).fit(first.getFit()).wash(first.getWash())
-                .build();
-    }
-
-    private String deriveCategoryFromFit(String fit) {
-        if (fit == null) return "jeans";
-        return "jeans";
-    }
 }
@@ -0,0 +1,22 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Move many orders to one status")
+public class BulkStatusRequest {
+    @Schema(description = "Order ids, at most 1000", example = "[\"0190f3c2-7a51-7c3e-9b1d-2f0a4c6e8d10\"]")
+    private List<String> ids;
+
+    @Schema(description = "Target status: Processing, Shipped or Delivered", example = "Shipped")
+    private String status;
+}
@@ -0,0 +1,51 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a bulk order status transition")
+public class BulkStatusResponse {
+    @Schema(description = "Target status", example = "Shipped")
+    private String status;
+
+    @Schema(description = "Orders moved to the target status", example = "250")
+    private int updated;
+
+    @Schema(description = "Shipments of those orders moved along with them", example = "248")
+    private int shipmentsUpdated;
+
+    @Schema(description = "One result per distinct id, in request order")
+    private List<Result> results;
+
+    public enum Outcome {
+        UPDATED, UNCHANGED, NOT_FOUND, INVALID_TRANSITION, CONFLICT
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        @Schema(description = "Order id")
+        private String id;
+
+        @Schema(description = "UPDATED, UNCHANGED (already in the target status), NOT_FOUND, "
+                + "INVALID_TRANSITION, or CONFLICT (changed by someone else meanwhile)", example = "UPDATED")
+        private Outcome outcome;
+
+        @Schema(description = "Status before the request; null if the order was not found", example = "Processing")
+        private String previousStatus;
+
+        @Schema(description = "Why the order was not moved", example = "Cannot move an order from Delivered to Shipped")
+        private String message;
+    }
+}
@@ -0,0 +1,54 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Per-facet product counts for the current catalog filter set")
+public class CatalogFacetsResponse {
+    @Schema(description = "Number of products matching the filters", example = "36")
+    private long total;
+
+    @Schema(description = "Count per category slug", example = "{\"jeans\": 30, \"jackets\": 6}")
+    private Map<String, Long> categories;
+
+    @Schema(description = "Count per subcategory slug", example = "{\"slim\": 12, \"skinny\": 8}")
+    private Map<String, Long> subcategories;
+
+    @Schema(description = "Count per size value", example = "{\"30\": 20, \"32\": 24}")
+    private Map<String, Long> sizes;
+
+    @Schema(description = "Count per color value", example = "{\"Dark Wash\": 14}")
+    private Map<String, Long> colors;
+
+    @Schema(description = "Counts per price band, in ascending order")
+    private List<PriceBucket> priceBuckets;
+
+    @Schema(description = "Products in stock", example = "30")
+    private long inStock;
+
+    @Schema(description = "Products out of stock", example = "6")
+    private long outOfStock;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        @Schema(description = "Inclusive lower bound; null for the first band", example = "50")
+        private BigDecimal min;
+        @Schema(description = "Exclusive upper bound; null for the last band", example = "100")
+        private BigDecimal max;
+        private long count;
+    }
+}
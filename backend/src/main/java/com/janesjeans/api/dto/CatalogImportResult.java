@@ -0,0 +1,49 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a bulk shop product import")
+public class CatalogImportResult {
+    @Schema(description = "Data rows read (header and blank lines excluded)", example = "100000")
+    private long processed;
+
+    @Schema(description = "Rows inserted or updated", example = "99998")
+    private long imported;
+
+    @Schema(description = "Rows rejected by validation or by the database", example = "2")
+    private long failed;
+
+    @Schema(description = "Per-row errors, capped; see errorsTruncated")
+    private List<RowError> errors;
+
+    @Schema(description = "Whether more rows failed than are listed in errors")
+    private boolean errorsTruncated;
+
+    @Schema(description = "Wall-clock duration of the import in milliseconds", example = "4210")
+    private long durationMillis;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        @Schema(description = "Line in the uploaded file where the row starts", example = "42")
+        private long line;
+
+        @Schema(description = "Product id from the row, if present", example = "sku-123")
+        private String id;
+
+        @Schema(description = "What was wrong with the row", example = "price is required")
+        private String message;
+    }
+}
@@ -0,0 +1,33 @@
+package com.janesjeans.api.dto;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cursor-paginated slice of catalog products (no total count query)")
+public class CatalogSliceResponse {
+    @ArraySchema(arraySchema = @Schema(description = "List of products in this slice"), schema = @Schema(implementation = ShopProductDetailDTO.class))
+    private List<RawValue> content;
+
+    @Schema(description = "Number of items requested per slice", example = "12")
+    private int size;
+
+    @Schema(description = "Opaque cursor for the next slice; null on the last slice")
+    private String nextCursor;
+
+    @Schema(description = "Whether another slice follows")
+    private boolean hasNext;
+
+    @Schema(description = "Approximate number of matching products, only when includeTotal=true", example = "36", nullable = true)
+    private Long approximateTotal;
+}
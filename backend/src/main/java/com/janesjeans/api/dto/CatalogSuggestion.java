@@ -0,0 +1,32 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Typeahead suggestion: a category, a subcategory or a product")
+public class CatalogSuggestion {
+    @Schema(description = "category, subcategory or product", example = "product")
+    private String type;
+
+    @Schema(description = "Product id, or the category/subcategory slug", example = "shop-jeans-001")
+    private String id;
+
+    @Schema(description = "Text to display", example = "Slim Fit Dark Wash Jeans")
+    private String text;
+
+    @Schema(description = "Category slug (the parent category for subcategories)", example = "jeans")
+    private String category;
+
+    @Schema(description = "Product rating (products only)", example = "4.7", nullable = true)
+    private Double rating;
+
+    @Schema(description = "Product review count (products only)", example = "128", nullable = true)
+    private Integer reviews;
+}
@@ -17,7 +17,7 @@ import java.time.LocalDateTime;
 public class GuestOrderResponse {
     @Schema(description = "Order UUID", example = "a1b2c3d4-e5f6-7890-abcd-ef1234567890")
     private String id;
-    @Schema(description = "Human-readable order number", example = "ORD-A1B2C3D4")
+    @Schema(description = "Human-readable order number", example = "ORD-001042")
     private String orderNumber;
     @Schema(description = "Order status", example = "Pending")
     private String status;
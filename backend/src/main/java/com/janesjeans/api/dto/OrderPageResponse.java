@@ -0,0 +1,37 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Paginated response wrapper for orders")
+public class OrderPageResponse {
+    @Schema(description = "Orders on this page, newest first")
+    private List<OrderSummaryDTO> content;
+
+    @Schema(description = "Current page number (0-based)", example = "0")
+    private int page;
+
+    @Schema(description = "Number of orders per page", example = "50")
+    private int size;
+
+    @Schema(description = "Total number of matching orders", example = "1280")
+    private long totalElements;
+
+    @Schema(description = "Total number of pages", example = "26")
+    private int totalPages;
+
+    @Schema(description = "Whether this is the last page")
+    private boolean last;
+
+    @Schema(description = "Whether this is the first page")
+    private boolean first;
+}
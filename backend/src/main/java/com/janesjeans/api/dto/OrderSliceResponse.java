@@ -0,0 +1,28 @@
+package com.janesjeans.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cursor-paginated slice of orders (no total count query)")
+public class OrderSliceResponse {
+    @Schema(description = "Orders in this slice, newest first")
+    private List<OrderSummaryDTO> content;
+
+    @Schema(description = "Number of orders requested per slice", example = "50")
+    private int size;
+
+    @Schema(description = "Opaque cursor for the next slice; null on the last slice")
+    private String nextCursor;
+
+    @Schema(description = "Whether another slice follows")
+    private boolean hasNext;
+}
@@ -0,0 +1,55 @@
+package com.janesjeans.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.OrderItem;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Order as listed on the dashboard; line items only with expand=items")
+public class OrderSummaryDTO {
+    @Schema(description = "Order UUID", example = "a1b2c3d4-e5f6-7890-abcd-ef1234567890")
+    private String id;
+    @Schema(description = "Human-readable order number", example = "ORD-001042")
+    private String orderNumber;
+    @Schema(description = "Customer UUID, if the order belongs to a registered customer")
+    private String customerId;
+    @Schema(description = "Customer name", example = "Jane Doe")
+    private String customerName;
+    @Schema(description = "Customer email", example = "jane@example.com")
+    private String customerEmail;
+    @Schema(description = "Order status", example = "Pending")
+    private String status;
+    @Schema(description = "Total amount", example = "149.99")
+    private BigDecimal totalAmount;
+    @Schema(description = "Shipping address", example = "1 Main St, Springfield 12345")
+    private String shippingAddress;
+    @Schema(description = "When the order was placed")
+    private LocalDateTime orderDate;
+    @Schema(description = "When the order was shipped")
+    private LocalDateTime shippedDate;
+    @Schema(description = "When the order was delivered")
+    private LocalDateTime deliveredDate;
+    @Schema(description = "Line items, present only with expand=items")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<OrderItem> items;
+
+    // JPQL constructor projection used by OrderRepository; leaves items unset
+    public OrderSummaryDTO(String id, Long orderNumber, String customerId, String customerName, String customerEmail,
+                           String status, BigDecimal totalAmount, String shippingAddress, LocalDateTime orderDate,
+                           LocalDateTime shippedDate, LocalDateTime deliveredDate) {
+        this(id, Order.displayOrderNumber(orderNumber, id), customerId, customerName, customerEmail, status,
+                totalAmount, shippingAddress, orderDate, shippedDate, deliveredDate, null);
+    }
+}
@@ -1,5 +1,7 @@
 package com.janesjeans.api.dto;
 
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,8 +16,8 @@ import java.util.List;
 @AllArgsConstructor
 @Schema(description = "Paginated response wrapper for catalog products")
 public class PaginatedCatalogResponse {
-    @Schema(description = "List of products on this page")
-    private List<ShopProductDetailDTO> content;
+    @ArraySchema(arraySchema = @Schema(description = "List of products on this page"), schema = @Schema(implementation = ShopProductDetailDTO.class))
+    private List<RawValue> content;
 
     @Schema(description = "Current page number (0-based)", example = "0")
     private int page;
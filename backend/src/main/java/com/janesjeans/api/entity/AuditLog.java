@@ -51,6 +51,6 @@ public class AuditLog {
 
     @PrePersist
     public void prePersist() {
-        if (id == null) id = java.util.UUID.randomUUID().toString();
+        if (id == null) id = Ids.next();
     }
 }
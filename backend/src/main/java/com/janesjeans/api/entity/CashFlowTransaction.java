@@ -65,6 +65,6 @@ public class CashFlowTransaction {
 
     @PrePersist
     public void prePersist() {
-        if (id == null) id = java.util.UUID.randomUUID().toString();
+        if (id == null) id = Ids.next();
     }
 }
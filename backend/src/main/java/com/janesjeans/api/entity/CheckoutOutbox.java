@@ -0,0 +1,80 @@
+package com.janesjeans.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Work still owed to a confirmed guest order, written in the order's own transaction and
+ * carried out by CheckoutPipeline one stage at a time.
+ */
+@Entity
+@Table(name = "checkout_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutOutbox {
+
+    public enum Stage {
+        PAYMENT, SHIPMENT, NOTIFICATION, DONE,
+        /** gave up after the maximum number of attempts */
+        FAILED;
+
+        public boolean isTerminal() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "order_id", nullable = false, unique = true, length = 36)
+    private String orderId;
+
+    // the GuestOrderRequest as JSON, for the payment and shipment details
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Stage stage = Stage.PAYMENT;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    // a worker whose lease ran out cannot commit a stage another worker already finished
+    @Version
+    @Column(nullable = false)
+    @Builder.Default
+    private Long version = 0L;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) id = Ids.next();
+        if (nextAttemptAt == null) nextAttemptAt = LocalDateTime.now();
+    }
+}
@@ -71,6 +71,6 @@ public class Coupon {
 
     @PrePersist
     public void prePersist() {
-        if (id == null) id = java.util.UUID.randomUUID().toString();
+        if (id == null) id = Ids.next();
     }
 }
@@ -60,6 +60,6 @@ public class Customer {
 
     @PrePersist
     public void prePersist() {
-        if (id == null) id = java.util.UUID.randomUUID().toString();
+        if (id == null) id = Ids.next();
     }
 }
@@ -0,0 +1,28 @@
+package com.janesjeans.api.entity;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Source of primary keys for entities that assign their own id in {@code @PrePersist}.
+ * The one in use is held by {@link Ids}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /** Random (version 4) UUIDs, the original scheme. */
+    IdGenerator RANDOM = () -> UUID.randomUUID().toString();
+
+    String newId();
+
+    /**
+     * @throws IllegalArgumentException for anything but uuidv7 or random
+     */
+    static IdGenerator named(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "uuidv7" -> new UuidV7Generator();
+            case "random", "uuidv4" -> RANDOM;
+            default -> throw new IllegalArgumentException("Unknown id generator: " + name + " (use uuidv7 or random)");
+        };
+    }
+}
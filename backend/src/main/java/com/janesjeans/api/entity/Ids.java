@@ -0,0 +1,26 @@
+package com.janesjeans.api.entity;
+
+import java.util.Objects;
+
+/**
+ * The {@link IdGenerator} entities draw their ids from. Defaults to time-ordered
+ * UUIDv7; {@code ids.generator} picks another at startup (see IdGeneratorConfig).
+ */
+public final class Ids {
+
+    private static volatile IdGenerator generator = new UuidV7Generator();
+
+    private Ids() {}
+
+    public static String next() {
+        return generator.newId();
+    }
+
+    public static void use(IdGenerator idGenerator) {
+        generator = Objects.requireNonNull(idGenerator);
+    }
+
+    public static IdGenerator current() {
+        return generator;
+    }
+}
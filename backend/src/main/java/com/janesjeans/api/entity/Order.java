@@ -6,7 +6,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.generator.EventType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -25,6 +27,12 @@ public class Order {
     @Column(length = 36)
     private String id;
 
+    // assigned by the database and returned by the INSERT itself; shown to customers through displayOrderNumber()
+    @Generated(event = EventType.INSERT)
+    @Column(name = "order_number", unique = true, insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED BY DEFAULT AS IDENTITY")
+    private Long orderNumber;
+
     @Column(name = "customer_id", length = 36)
     private String customerId;
 
@@ -57,6 +65,10 @@ public class Order {
     @Column(name = "delivered_date")
     private LocalDateTime deliveredDate;
 
+    // set while the order's stock is held pending OTP verification
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
@@ -69,8 +81,21 @@ public class Order {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * The customer-facing order number, e.g. ORD-001042. Orders not yet numbered fall back
+     * to the old id-prefix form.
+     */
+    public String displayOrderNumber() {
+        return displayOrderNumber(orderNumber, id);
+    }
+
+    public static String displayOrderNumber(Long orderNumber, String id) {
+        if (orderNumber != null) return String.format("ORD-%06d", orderNumber);
+        return "ORD-" + id.substring(0, Math.min(8, id.length())).toUpperCase();
+    }
+
     @PrePersist
     public void prePersist() {
-        if (id == null) id = java.util.UUID.randomUUID().toString();
+        if (id == null) id = Ids.next();
     }
 }
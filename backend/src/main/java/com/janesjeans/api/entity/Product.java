@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -44,10 +45,18 @@ public class Product {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
-    @Column(name = "stock_level", nullable = false)
+    // set on insert; afterwards only the stock SQL in ProductService writes it, so saving a
+    // loaded product cannot undo a reservation made since it was loaded
+    @Column(name = "stock_level", nullable = false, updatable = false)
     @Builder.Default
     private Integer stockLevel = 0;
 
+    // units held for orders awaiting OTP verification; only the stock SQL in ProductService writes it
+    @Column(name = "held_stock", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer heldStock = 0;
+
     @Column(name = "image_url", length = 500)
     private String imageUrl;
 
@@ -76,8 +85,15 @@ public class Product {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Stock that can still be sold: stock level minus units held for unverified orders.
+     */
+    public int getAvailableStock() {
+        return stockLevel - (heldStock != null ? heldStock : 0);
+    }
+
     @PrePersist
     public void prePersist() {
-        if (id == null) id = java.util.UUID.randomUUID().toString();
+        if (id == null) id = Ids.next();
     }
 }
@@ -78,4 +78,9 @@ public class ShopProduct {
     @Column(name = "created_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
     @Builder.Default
     private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    @Version
+    @Column(nullable = false)
+    @Builder.Default
+    private Long version = 0L;
 }
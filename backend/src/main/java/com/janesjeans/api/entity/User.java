@@ -53,7 +53,7 @@ public class User {
     @PrePersist
     public void prePersist() {
         if (id == null) {
-            id = java.util.UUID.randomUUID().toString();
+            id = Ids.next();
         }
     }
 }
@@ -0,0 +1,12 @@
+package com.janesjeans.api.exception;
+
+/**
+ * An Idempotency-Key was sent again with a different request than the one it was first
+ * used for. Answered with 422; the original response is not replayed.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different request");
+    }
+}
@@ -0,0 +1,21 @@
+package com.janesjeans.api.exception;
+
+import java.util.List;
+
+/**
+ * A checkout could not reserve stock for every cart line; nothing was reserved.
+ * Answered with 409 and one message per short line.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<String> stockErrors;
+
+    public InsufficientStockException(List<String> stockErrors) {
+        super("Some items are out of stock");
+        this.stockErrors = List.copyOf(stockErrors);
+    }
+
+    public List<String> getStockErrors() {
+        return stockErrors;
+    }
+}
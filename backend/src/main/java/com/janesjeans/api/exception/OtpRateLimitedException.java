@@ -0,0 +1,19 @@
+package com.janesjeans.api.exception;
+
+/**
+ * Too many OTPs were requested for the same order or customer in a short time.
+ * Answered with 429 and a Retry-After header.
+ */
+public class OtpRateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OtpRateLimitedException(long retryAfterSeconds) {
+        super("Too many verification codes requested, please try again later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.janesjeans.api.exception;
+
+/**
+ * The OTP store is at its entry or memory cap, so no new verification can start until
+ * pending ones are used or expire. Answered with 503 and a Retry-After header.
+ */
+public class OtpStoreFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OtpStoreFullException(long retryAfterSeconds) {
+        super("Too many order verifications are pending, please try again shortly");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
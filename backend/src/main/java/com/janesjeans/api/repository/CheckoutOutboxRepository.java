@@ -0,0 +1,36 @@
+package com.janesjeans.api.repository;
+
+import com.janesjeans.api.entity.CheckoutOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CheckoutOutboxRepository extends JpaRepository<CheckoutOutbox, String> {
+
+    Optional<CheckoutOutbox> findByOrderId(String orderId);
+
+    long countByStage(CheckoutOutbox.Stage stage);
+
+    @Query("SELECT o.id FROM CheckoutOutbox o WHERE o.stage NOT IN :terminal AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    List<String> findDueIds(@Param("terminal") Collection<CheckoutOutbox.Stage> terminal,
+                            @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Lease a due entry to one worker by pushing its next attempt past the lease; 0 if it
+     * is not due (finished, backing off, or leased by someone else).
+     */
+    @Modifying
+    @Query("UPDATE CheckoutOutbox o SET o.nextAttemptAt = :leaseUntil "
+            + "WHERE o.id = :id AND o.stage NOT IN :terminal AND o.nextAttemptAt <= :now")
+    int claim(@Param("id") String id, @Param("terminal") Collection<CheckoutOutbox.Stage> terminal,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
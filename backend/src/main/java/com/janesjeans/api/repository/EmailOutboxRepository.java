@@ -0,0 +1,53 @@
+package com.janesjeans.api.repository;
+
+import com.janesjeans.api.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, String> {
+
+    long countByStatus(EmailOutbox.Status status);
+
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutbox e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") EmailOutbox.Status status);
+
+    @Query("SELECT e.id FROM EmailOutbox e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<String> findDueIds(@Param("status") EmailOutbox.Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Lease a due email to one dispatcher by pushing its next attempt past the lease; 0 if
+     * it is not due (sent, dead, backing off, or leased by someone else).
+     */
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.nextAttemptAt = :leaseUntil "
+            + "WHERE e.id = :id AND e.status = :status AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") String id, @Param("status") EmailOutbox.Status status,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Record a batch's delivered emails in one statement.
+     */
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :sent, e.sentAt = :sentAt, e.updatedAt = :sentAt, "
+            + "e.attempts = e.attempts + 1, e.lastError = NULL, e.version = e.version + 1 "
+            + "WHERE e.id IN :ids AND e.status = :pending")
+    int markSent(@Param("ids") Collection<String> ids, @Param("sentAt") LocalDateTime sentAt,
+                 @Param("sent") EmailOutbox.Status sent, @Param("pending") EmailOutbox.Status pending);
+
+    /**
+     * Delete the emails in the given end states that last changed before {@code before}.
+     */
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status IN :statuses AND e.updatedAt < :before")
+    int deleteFinishedBefore(@Param("statuses") Collection<EmailOutbox.Status> statuses,
+                             @Param("before") LocalDateTime before);
+}
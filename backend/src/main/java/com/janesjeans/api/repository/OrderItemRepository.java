@@ -4,9 +4,11 @@ import com.janesjeans.api.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, String> {
     List<OrderItem> findByOrderId(String orderId);
+    List<OrderItem> findByOrderIdIn(Collection<String> orderIds);
 }
@@ -1,13 +1,61 @@
 package com.janesjeans.api.repository;
 
+import com.janesjeans.api.dto.OrderSummaryDTO;
 import com.janesjeans.api.entity.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
-    List<Order> findAllByOrderByOrderDateDesc();
+
+    interface StatusView {
+        String getId();
+        String getStatus();
+    }
+
+    String SUMMARY = "SELECT new com.janesjeans.api.dto.OrderSummaryDTO(o.id, o.orderNumber, o.customerId, "
+            + "o.customerName, o.customerEmail, o.status, o.totalAmount, o.shippingAddress, o.orderDate, "
+            + "o.shippedDate, o.deliveredDate) FROM Order o WHERE ";
+    String FILTER = "(:status IS NULL OR o.status = :status) AND "
+            + "(:from IS NULL OR o.orderDate >= :from) AND "
+            + "(:to IS NULL OR o.orderDate < :to)";
+
+    // Dashboard listing: summary columns only, so neither items nor TEXT notes are loaded
+    @Query(value = SUMMARY + FILTER, countQuery = "SELECT COUNT(o) FROM Order o WHERE " + FILTER)
+    Page<OrderSummaryDTO> findSummaries(@Param("status") String status, @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to, Pageable pageable);
+
+    // Keyset variant, newest first; a null afterDate starts from the newest order
+    @Query(SUMMARY + FILTER + " AND (:afterDate IS NULL OR o.orderDate < :afterDate "
+            + "OR (o.orderDate = :afterDate AND o.id < :afterId)) ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummariesAfter(@Param("status") String status, @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to, @Param("afterDate") LocalDateTime afterDate,
+                                             @Param("afterId") String afterId, Pageable pageable);
     List<Order> findByStatus(String status);
+    List<StatusView> findStatusByIdIn(Collection<String> ids);
+
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids AND o.status = :expected")
+    int updateStatusWhere(@Param("ids") Collection<String> ids, @Param("expected") String expected,
+                          @Param("status") String status, @Param("now") LocalDateTime now);
+
+    // Bulk transition; only rows still in one of the expected statuses move, and the
+    // shipped or delivered date is stamped when that is the new status
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, "
+            + "o.shippedDate = CASE WHEN :status = 'Shipped' THEN :now ELSE o.shippedDate END, "
+            + "o.deliveredDate = CASE WHEN :status = 'Delivered' THEN :now ELSE o.deliveredDate END "
+            + "WHERE o.id IN :ids AND o.status IN :expected")
+    int transitionStatus(@Param("ids") Collection<String> ids, @Param("expected") Collection<String> expected,
+                         @Param("status") String status, @Param("now") LocalDateTime now);
 }
@@ -2,8 +2,13 @@ package com.janesjeans.api.repository;
 
 import com.janesjeans.api.entity.Shipment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +16,15 @@ import java.util.Optional;
 public interface ShipmentRepository extends JpaRepository<Shipment, String> {
     List<Shipment> findAllByOrderByCreatedAtDesc();
     Optional<Shipment> findByOrderId(String orderId);
+
+    // Follows a bulk order transition: shippedAt is kept if already set, deliveredAt is
+    // stamped when the new status is delivered
+    @Modifying
+    @Query("UPDATE Shipment s SET s.status = :status, s.updatedAt = :now, "
+            + "s.shippedAt = COALESCE(s.shippedAt, :now), "
+            + "s.deliveredAt = CASE WHEN :status = 'delivered' THEN :now ELSE s.deliveredAt END "
+            + "WHERE s.orderId IN :orderIds AND s.status IN :expected")
+    int transitionStatusByOrderIds(@Param("orderIds") Collection<String> orderIds,
+                                   @Param("expected") Collection<String> expected,
+                                   @Param("status") String status, @Param("now") LocalDateTime now);
 }
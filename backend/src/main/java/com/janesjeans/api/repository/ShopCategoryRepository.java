@@ -2,11 +2,17 @@ package com.janesjeans.api.repository;
 
 import com.janesjeans.api.entity.ShopCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ShopCategoryRepository extends JpaRepository<ShopCategory, String> {
     Optional<ShopCategory> findBySlug(String slug);
+
+    // Categories with their subcategories in one query (avoids a lazy load per category)
+    @Query("SELECT DISTINCT c FROM ShopCategory c LEFT JOIN FETCH c.subcategories ORDER BY c.sortOrder")
+    List<ShopCategory> findAllWithSubcategories();
 }
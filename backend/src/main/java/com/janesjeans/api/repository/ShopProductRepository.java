@@ -4,6 +4,7 @@ import com.janesjeans.api.entity.ShopProduct;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,28 +13,24 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
-public interface ShopProductRepository extends JpaRepository<ShopProduct, String> {
+public interface ShopProductRepository extends JpaRepository<ShopProduct, String>, JpaSpecificationExecutor<ShopProduct> {
 
     List<ShopProduct> findByCategory(String category);
     List<ShopProduct> findByCategoryAndSubcategory(String category, String subcategory);
     List<ShopProduct> findByInStockTrue();
 
-    // Paginated + search + filter
-    // Using JPQL with COALESCE to handle NULL search parameter properly
+    // Paginated + filter; text search goes through CatalogSearchIndex, which owns its matching
     @Query("SELECT p FROM ShopProduct p WHERE " +
            "(:category IS NULL OR :category = 'all' OR p.category = :category) AND " +
            "(:subcategory IS NULL OR p.subcategory = :subcategory) AND " +
            "(:inStock IS NULL OR p.inStock = :inStock) AND " +
            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-           "(COALESCE(:search, '') = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))")
+           "(:maxPrice IS NULL OR p.price <= :maxPrice)")
     Page<ShopProduct> searchCatalog(
             @Param("category") String category,
             @Param("subcategory") String subcategory,
             @Param("inStock") Boolean inStock,
             @Param("minPrice") BigDecimal minPrice,
             @Param("maxPrice") BigDecimal maxPrice,
-            @Param("search") String search,
             Pageable pageable);
 }
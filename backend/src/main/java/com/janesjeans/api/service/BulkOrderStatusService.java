@@ -0,0 +1,148 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.BulkStatusResponse;
+import com.janesjeans.api.dto.BulkStatusResponse.Outcome;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.repository.ShipmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves many orders to one status with set-based UPDATEs instead of a load and save per
+ * order. Ids are processed in batches of {@code orders.bulk-status.batch-size}, each in
+ * its own transaction: one query reads the current statuses, transitions are checked in
+ * memory against {@link OrderStatusTransitions}, and one UPDATE moves every eligible
+ * order while stamping the shipped or delivered date. A second UPDATE moves the
+ * shipments of those orders.
+ *
+ * The order UPDATE is guarded by the allowed source statuses, so an order changed by
+ * someone else between the read and the write is reported as a conflict rather than
+ * forced into the new status.
+ */
+@Service
+@Slf4j
+public class BulkOrderStatusService {
+
+    static final int MAX_IDS = 1000;
+
+    private final OrderRepository orderRepository;
+    private final ShipmentRepository shipmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BulkOrderStatusService(OrderRepository orderRepository, ShipmentRepository shipmentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${orders.bulk-status.batch-size:200}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.shipmentRepository = shipmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Move the given orders to {@code status}. Duplicate ids are reported once.
+     *
+     * @return one result per distinct id, in request order, with totals
+     * @throws IllegalArgumentException for no ids, more than 1000, or a status that cannot be a bulk target
+     */
+    public BulkStatusResponse transition(List<String> ids, String status) {
+        if (status == null || !OrderStatusTransitions.isTarget(status)) {
+            throw new IllegalArgumentException("Cannot bulk-move orders to status " + status
+                    + " (use one of " + String.join(", ", OrderStatusTransitions.targets()) + ")");
+        }
+        if (ids == null || ids.isEmpty()) throw new IllegalArgumentException("No order ids given");
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " orders can be moved at once");
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, BulkStatusResponse.Result> results = new HashMap<>();
+        int shipments = 0;
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            List<String> batch = distinct.subList(from, Math.min(from + batchSize, distinct.size()));
+            shipments += transactionTemplate.execute(tx -> transitionBatch(batch, status, results));
+        }
+
+        List<BulkStatusResponse.Result> ordered = distinct.stream().map(results::get).toList();
+        int updated = (int) ordered.stream().filter(r -> r.getOutcome() == Outcome.UPDATED).count();
+        log.info("Bulk status {}: {} of {} orders moved, {} shipments, in {} ms",
+                status, updated, distinct.size(), shipments, System.currentTimeMillis() - start);
+        return BulkStatusResponse.builder()
+                .status(status)
+                .updated(updated)
+                .shipmentsUpdated(shipments)
+                .results(ordered)
+                .build();
+    }
+
+    /**
+     * @return how many shipments moved
+     */
+    private int transitionBatch(List<String> batch, String status, Map<String, BulkStatusResponse.Result> results) {
+        Map<String, String> current = statuses(batch);
+        List<String> eligible = new ArrayList<>();
+        for (String id : batch) {
+            String previous = current.get(id);
+            if (previous == null) {
+                results.put(id, result(id, Outcome.NOT_FOUND, null, "Order not found"));
+            } else if (previous.equals(status)) {
+                results.put(id, result(id, Outcome.UNCHANGED, previous, null));
+            } else if (!OrderStatusTransitions.allowed(previous, status)) {
+                results.put(id, result(id, Outcome.INVALID_TRANSITION, previous,
+                        "Cannot move an order from " + previous + " to " + status));
+            } else {
+                eligible.add(id);
+            }
+        }
+        if (eligible.isEmpty()) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        int moved = orderRepository.transitionStatus(eligible, OrderStatusTransitions.sourcesOf(status), status, now);
+        // anything short of every eligible order was changed by another writer meanwhile
+        Map<String, String> after = moved < eligible.size() ? statuses(eligible) : null;
+        List<String> updated = new ArrayList<>();
+        for (String id : eligible) {
+            String latest = after == null ? status : after.get(id);
+            if (status.equals(latest)) {
+                updated.add(id);
+                results.put(id, result(id, Outcome.UPDATED, current.get(id), null));
+            } else {
+                results.put(id, result(id, Outcome.CONFLICT, current.get(id),
+                        latest == null ? "Order was deleted meanwhile" : "Order was moved to " + latest + " meanwhile"));
+            }
+        }
+
+        String shipmentStatus = OrderStatusTransitions.shipmentStatusFor(status);
+        if (shipmentStatus == null || updated.isEmpty()) return 0;
+        return shipmentRepository.transitionStatusByOrderIds(updated,
+                OrderStatusTransitions.shipmentSourcesOf(shipmentStatus), shipmentStatus, now);
+    }
+
+    private Map<String, String> statuses(List<String> ids) {
+        Map<String, String> statuses = new HashMap<>();
+        for (OrderRepository.StatusView row : orderRepository.findStatusByIdIn(ids)) {
+            statuses.put(row.getId(), row.getStatus());
+        }
+        return statuses;
+    }
+
+    private static BulkStatusResponse.Result result(String id, Outcome outcome, String previousStatus, String message) {
+        return BulkStatusResponse.Result.builder()
+                .id(id)
+                .outcome(outcome)
+                .previousStatus(previousStatus)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.ShopProduct;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for catalog scrolling: the sort field, direction and the
+ * (sort key, id) of the last product on the previous slice.
+ */
+public record CatalogCursor(CatalogSortField field, boolean ascending, Object key, String id) {
+
+    public static CatalogCursor after(ShopProduct last, CatalogSortField field, boolean ascending) {
+        return new CatalogCursor(field, ascending, field.keyOf(last), last.getId());
+    }
+
+    public String encode() {
+        String raw = field.getProperty() + "\n" + (ascending ? "asc" : "desc") + "\n" + id + "\n" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static CatalogCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 4);
+            if (parts.length != 4) throw new IllegalArgumentException("Invalid cursor");
+            CatalogSortField field = CatalogSortField.fromProperty(parts[0])
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid cursor"));
+            return new CatalogCursor(field, "asc".equals(parts[1]), field.parseKey(parts[3]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
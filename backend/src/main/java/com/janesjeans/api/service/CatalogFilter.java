@@ -0,0 +1,29 @@
+package com.janesjeans.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Normalized filter set for catalog queries. Null fields mean "no constraint".
+ * sizes and colors match products offering any of the listed values; the
+ * fields themselves are ANDed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogFilter {
+    private String category;
+    private String subcategory;
+    private Boolean inStock;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private String search;
+    private List<String> sizes;
+    private List<String> colors;
+}
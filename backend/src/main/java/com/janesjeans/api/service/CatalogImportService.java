@@ -0,0 +1,376 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.janesjeans.api.dto.CatalogImportResult;
+import com.janesjeans.api.entity.ShopProduct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of shop products from CSV or NDJSON.
+ *
+ * The input is read one row at a time; valid rows are buffered into fixed-size batches
+ * and upserted through {@link ShopProductBulkWriter}, so memory stays flat regardless of
+ * file size. Invalid rows are reported with their line number and skipped. When a batch
+ * is rejected by the database its rows are retried one by one to pin down the culprits.
+ * Catalog indexes and caches are refreshed once, after the last batch.
+ *
+ * CSV needs a header row naming the columns (camelCase or snake_case). sizes, colors and
+ * images are '|'-separated and metadata is a JSON object. NDJSON uses the same field
+ * names with JSON arrays and objects.
+ *
+ * id, name and price are required. Other columns the file leaves out keep their stored
+ * values on products that already exist and get their defaults on new ones; a column
+ * that is present but empty (or null) is written with its default.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogImportService {
+
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 500;
+
+    private final ShopProductBulkWriter writer;
+    private final ShopCatalogService shopCatalogService;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * @throws IllegalArgumentException for anything but csv or ndjson
+         */
+        public static Format of(String value) {
+            if (value != null) {
+                switch (value.toLowerCase(Locale.ROOT)) {
+                    case "csv": return CSV;
+                    case "ndjson": case "jsonl": return NDJSON;
+                    default: break;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported import format: " + value + " (use csv or ndjson)");
+        }
+    }
+
+    public CatalogImportResult importProducts(InputStream input, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        Run run = new Run();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+            flush(run);
+        } finally {
+            if (run.imported > 0) shopCatalogService.refreshAfterBulkWrite();
+        }
+        long duration = System.currentTimeMillis() - start;
+        log.info("Catalog import: {} rows, {} imported, {} failed in {} ms", run.processed, run.imported, run.failed, duration);
+        return CatalogImportResult.builder()
+                .processed(run.processed)
+                .imported(run.imported)
+                .failed(run.failed)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .durationMillis(duration)
+                .build();
+    }
+
+    // ---- Readers ----
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) return;
+        String[] fields = header.stream().map(CatalogImportService::fieldName).toArray(String[]::new);
+        Set<String> columns = columnsOf(Arrays.asList(fields).iterator());
+
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IllegalArgumentException e) {
+                run.processed++;
+                run.reject(csv.getRecordLine(), null, e.getMessage());
+                return;
+            }
+            if (record == null) return;
+            run.processed++;
+            long line = csv.getRecordLine();
+            if (record.size() != fields.length) {
+                run.reject(line, record.isEmpty() ? null : record.get(0),
+                        "expected " + fields.length + " columns but found " + record.size());
+                continue;
+            }
+            ObjectNode row = objectMapper.createObjectNode();
+            String metadataError = null;
+            for (int i = 0; i < fields.length; i++) {
+                String value = record.get(i);
+                if (value.isEmpty()) continue;
+                switch (fields[i]) {
+                    case "sizes", "colors", "images" -> {
+                        ArrayNode values = row.putArray(fields[i]);
+                        for (String v : value.split("\\|")) {
+                            if (!v.isBlank()) values.add(v.trim());
+                        }
+                    }
+                    case "metadata" -> {
+                        try {
+                            row.set("metadata", objectMapper.readTree(value));
+                        } catch (JsonProcessingException e) {
+                            metadataError = "metadata is not valid JSON";
+                        }
+                    }
+                    default -> row.put(fields[i], value);
+                }
+            }
+            if (metadataError != null) {
+                run.reject(line, row.path("id").asText(null), metadataError);
+                continue;
+            }
+            accept(row, columns, line, run);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) continue;
+            run.processed++;
+            JsonNode row;
+            try {
+                row = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                run.reject(line, null, "not valid JSON");
+                continue;
+            }
+            if (!row.isObject()) {
+                run.reject(line, null, "expected a JSON object");
+                continue;
+            }
+            accept(row, columnsOf(row.fieldNames()), line, run);
+        }
+    }
+
+    private static String fieldName(String column) {
+        String name = column.trim();
+        if (name.startsWith("\uFEFF")) name = name.substring(1); // byte order mark
+        return switch (name) {
+            case "in_stock" -> "inStock";
+            default -> name;
+        };
+    }
+
+    /**
+     * The optional writer columns among the given field names; unknown fields are ignored.
+     */
+    private static Set<String> columnsOf(Iterator<String> fields) {
+        Set<String> columns = new HashSet<>();
+        fields.forEachRemaining(field -> {
+            String column = "inStock".equals(field) ? "in_stock" : field;
+            if (ShopProductBulkWriter.OPTIONAL_COLUMNS.contains(column)) columns.add(column);
+        });
+        return columns;
+    }
+
+    // ---- Validation and batching ----
+
+    private void accept(JsonNode row, Set<String> columns, long line, Run run) {
+        List<String> problems = new ArrayList<>();
+        ShopProduct product = toProduct(row, problems);
+        if (!problems.isEmpty()) {
+            run.reject(line, row.path("id").asText(null), String.join("; ", problems));
+            return;
+        }
+        // a batch is written with one statement, so it holds rows with the same columns only
+        if (!columns.equals(run.batchColumns)) {
+            flush(run);
+            run.batchColumns = columns;
+        }
+        run.batch.add(product);
+        run.batchLines.add(line);
+        if (run.batch.size() >= BATCH_SIZE) flush(run);
+    }
+
+    private void flush(Run run) {
+        if (run.batch.isEmpty()) return;
+        try {
+            writer.upsert(run.batch, run.batchColumns);
+            run.imported += run.batch.size();
+        } catch (DataAccessException batchFailure) {
+            // find the offending rows; the rest of the batch still goes in
+            for (int i = 0; i < run.batch.size(); i++) {
+                ShopProduct product = run.batch.get(i);
+                try {
+                    writer.upsert(List.of(product), run.batchColumns);
+                    run.imported++;
+                } catch (DataAccessException e) {
+                    String cause = e.getMostSpecificCause().getMessage();
+                    run.reject(run.batchLines.get(i), product.getId(), cause != null ? cause : "rejected by the database");
+                }
+            }
+        }
+        run.batch.clear();
+        run.batchLines.clear();
+    }
+
+    /**
+     * Map a row to a product, adding a message to problems for every invalid field.
+     */
+    ShopProduct toProduct(JsonNode row, List<String> problems) {
+        ShopProduct p = ShopProduct.builder().build();
+        p.setId(requiredText(row, "id", 50, problems));
+        p.setName(requiredText(row, "name", 255, problems));
+        p.setDescription(optionalText(row, "description", Integer.MAX_VALUE, "", problems));
+        p.setCategory(optionalText(row, "category", 50, "jeans", problems));
+        p.setSubcategory(optionalText(row, "subcategory", 100, "", problems));
+
+        BigDecimal price = decimal(row, "price", problems);
+        if (price == null && !row.hasNonNull("price")) problems.add("price is required");
+        if (price != null && (price.signum() < 0 || price.scale() > 2 || price.precision() - price.scale() > 8)) {
+            problems.add("price must be between 0 and 99999999.99 with at most 2 decimals");
+        }
+        p.setPrice(price);
+
+        BigDecimal rating = decimal(row, "rating", problems);
+        if (rating != null && (rating.compareTo(BigDecimal.ZERO) < 0 || rating.compareTo(BigDecimal.valueOf(5)) > 0)) {
+            problems.add("rating must be between 0 and 5");
+        }
+        if (rating != null) p.setRating(rating.setScale(1, RoundingMode.HALF_UP));
+
+        JsonNode reviews = row.get("reviews");
+        if (reviews != null && !reviews.isNull()) {
+            try {
+                int value = reviews.isNumber() ? reviews.decimalValue().intValueExact() : Integer.parseInt(reviews.asText().trim());
+                if (value < 0) problems.add("reviews must not be negative");
+                p.setReviews(value);
+            } catch (RuntimeException e) {
+                problems.add("reviews must be a whole number");
+            }
+        }
+
+        JsonNode inStock = row.get("inStock");
+        if (inStock != null && !inStock.isNull()) {
+            String value = inStock.asText().trim().toLowerCase(Locale.ROOT);
+            if (value.equals("true") || value.equals("false")) {
+                p.setInStock(Boolean.parseBoolean(value));
+            } else {
+                problems.add("inStock must be true or false");
+            }
+        }
+
+        String[] sizes = textArray(row, "sizes", problems);
+        if (sizes != null) p.setSizes(sizes);
+        String[] colors = textArray(row, "colors", problems);
+        if (colors != null) p.setColors(colors);
+        String[] images = textArray(row, "images", problems);
+        if (images != null && images.length > 0) p.setImages(images);
+
+        JsonNode metadata = row.get("metadata");
+        if (metadata != null && !metadata.isNull()) {
+            if (metadata.isObject()) {
+                p.setMetadata(objectMapper.convertValue(metadata, new TypeReference<Map<String, Object>>() {}));
+            } else {
+                problems.add("metadata must be a JSON object");
+            }
+        }
+        return p;
+    }
+
+    private static String requiredText(JsonNode row, String field, int maxLength, List<String> problems) {
+        String value = optionalText(row, field, maxLength, null, problems);
+        if (value == null || value.isBlank()) {
+            problems.add(field + " is required");
+            return null;
+        }
+        return value;
+    }
+
+    private static String optionalText(JsonNode row, String field, int maxLength, String fallback, List<String> problems) {
+        JsonNode node = row.get(field);
+        if (node == null || node.isNull()) return fallback;
+        if (!node.isValueNode()) {
+            problems.add(field + " must be text");
+            return fallback;
+        }
+        String value = node.asText().trim();
+        if (value.length() > maxLength) problems.add(field + " must be at most " + maxLength + " characters");
+        return value;
+    }
+
+    private static BigDecimal decimal(JsonNode row, String field, List<String> problems) {
+        JsonNode node = row.get(field);
+        if (node == null || node.isNull()) return null;
+        try {
+            return node.isNumber() ? node.decimalValue() : new BigDecimal(node.asText().trim());
+        } catch (NumberFormatException e) {
+            problems.add(field + " must be a number");
+            return null;
+        }
+    }
+
+    private static String[] textArray(JsonNode row, String field, List<String> problems) {
+        JsonNode node = row.get(field);
+        if (node == null || node.isNull()) return null;
+        if (!node.isArray()) {
+            problems.add(field + " must be a list");
+            return null;
+        }
+        String[] values = new String[node.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (!node.get(i).isValueNode()) {
+                problems.add(field + " must contain only text");
+                return null;
+            }
+            values[i] = node.get(i).asText();
+        }
+        return values;
+    }
+
+    /**
+     * Mutable state of one import: counters, the pending batch and the reported errors.
+     */
+    private static final class Run {
+        long processed;
+        long imported;
+        long failed;
+        final List<ShopProduct> batch = new ArrayList<>(BATCH_SIZE);
+        Set<String> batchColumns = Set.of();
+        final List<Long> batchLines = new ArrayList<>(BATCH_SIZE);
+        final List<CatalogImportResult.RowError> errors = new ArrayList<>();
+
+        void reject(long line, String id, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(CatalogImportResult.RowError.builder().line(line).id(id).message(message).build());
+            }
+        }
+    }
+}
@@ -0,0 +1,631 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.CatalogFacetsResponse;
+import com.janesjeans.api.entity.ShopProduct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over shop_products.
+ *
+ * Every product gets a dense int ordinal. Name, description and subcategory are
+ * tokenized into a sorted term dictionary (term -> BitSet of ordinals) so a query
+ * token matches every term it prefixes. Category, subcategory and stock are kept
+ * as BitSets too, so a search is a handful of BitSet intersections followed by a
+ * price check on the surviving ordinals. Sizes and colors have one BitSet per value,
+ * which lets facet counts be taken as intersection cardinalities.
+ *
+ * For every {@link CatalogSortField} the live ordinals are also kept pre-sorted, so a
+ * page over a broad filter is a walk along the sorted view that stops once the page
+ * is full. Narrow filters, where most of that walk would be skipped, still collect
+ * their matches into a bounded heap instead.
+ *
+ * The index keeps its own copy of every product and hands out copies, so nothing a
+ * caller does to a returned product can change what is indexed or move a sort key.
+ * Its matching is the catalog's definition of search: ShopCatalogService answers
+ * queries the index cannot take with a throwaway index over candidate rows.
+ */
+@Component
+@Slf4j
+public class CatalogSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final NavigableMap<String, BitSet> terms = new TreeMap<>();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> bySubcategory = new HashMap<>();
+    private final Map<String, BitSet> bySize = new HashMap<>();
+    private final Map<String, BitSet> byColor = new HashMap<>();
+    private final Map<CatalogSortField, SortedView> views = new EnumMap<>(CatalogSortField.class);
+
+    private volatile boolean ready;
+
+    /** What was indexed for an ordinal: a private copy of the product and its postings. */
+    private record Entry(ShopProduct product, Set<String> terms, String category, String subcategory,
+                         List<String> sizes, List<String> colors, long priceCents) {}
+
+    /** A sorted view and the direction to walk it in. */
+    private record Walk(SortedView view, boolean ascending) {}
+
+    public CatalogSearchIndex() {
+        for (CatalogSortField field : CatalogSortField.values()) views.put(field, new SortedView(field));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index with the given products.
+     */
+    public void rebuild(Collection<ShopProduct> products) {
+        lock.writeLock().lock();
+        try {
+            ordinalById.clear();
+            entries.clear();
+            freeOrdinals.clear();
+            live.clear();
+            inStock.clear();
+            terms.clear();
+            byCategory.clear();
+            bySubcategory.clear();
+            bySize.clear();
+            byColor.clear();
+            for (ShopProduct p : products) {
+                add(p);
+            }
+            for (SortedView view : views.values()) view.build();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Catalog search index built with {} products and {} terms", products.size(), terms.size());
+    }
+
+    /**
+     * Insert or replace a single product.
+     */
+    public void upsert(ShopProduct product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+            int ord = add(product);
+            for (SortedView view : views.values()) view.insert(ord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The indexed copy of a product, or empty if the index is not built or does not hold it.
+     */
+    public Optional<ShopProduct> get(String id) {
+        if (!ready) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            return ordinal == null ? Optional.empty() : Optional.of(copyOf(entries.get(ordinal).product()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run a catalog query against the index. Returns empty when the index cannot answer
+     * it (not built yet, unsupported sort property, or a search string without any
+     * indexable token), in which case callers should fall back to the database.
+     */
+    public Optional<Page<ShopProduct>> search(CatalogFilter filter, Pageable pageable) {
+        if (!ready) return Optional.empty();
+        Comparator<ShopProduct> comparator = comparatorFor(pageable.getSort());
+        if (comparator == null) return Optional.empty();
+        Walk walk = walkFor(pageable.getSort());
+        List<String> queryTokens = tokenize(filter.getSearch());
+        if (filter.getSearch() != null && queryTokens.isEmpty()) return Optional.empty();
+
+        long wanted = pageable.getOffset() + pageable.getPageSize();
+        int limit = (int) Math.min(wanted, Integer.MAX_VALUE - 1);
+        List<ShopProduct> head;
+        int total;
+        lock.readLock().lock();
+        try {
+            BitSet result = matching(filter, queryTokens);
+            total = result.cardinality();
+            if (walk != null && walkPays(limit, total)) {
+                head = walk.view().walk(result, walk.ascending(), walk.ascending() ? 0 : walk.view().size - 1, limit);
+            } else {
+                head = topK(result, comparator, null, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), head.size());
+        return Optional.of(new PageImpl<>(copiesOf(head.subList(from, head.size())), pageable, total));
+    }
+
+    /**
+     * Keyset variant of {@link #search}: returns up to {@code limit} products strictly
+     * after {@code after} (or from the start when null) in (field, id) order, without
+     * counting unless {@code withTotal} is set.
+     */
+    public Optional<CatalogSlice> scroll(CatalogFilter filter, CatalogSortField field, boolean ascending,
+                                         CatalogCursor after, int limit, boolean withTotal) {
+        if (!ready) return Optional.empty();
+        List<String> queryTokens = tokenize(filter.getSearch());
+        if (filter.getSearch() != null && queryTokens.isEmpty()) return Optional.empty();
+
+        Comparator<ShopProduct> comparator = field.comparator().thenComparing(ShopProduct::getId);
+        if (!ascending) comparator = comparator.reversed();
+        ShopProduct probe = null;
+        if (after != null) {
+            probe = ShopProduct.builder().id(after.id()).build();
+            applyKey(probe, field, after.key());
+        }
+
+        List<ShopProduct> head;
+        Long total = null;
+        lock.readLock().lock();
+        try {
+            BitSet result = matching(filter, queryTokens);
+            int matches = result.cardinality();
+            if (withTotal) total = (long) matches;
+            if (walkPays(limit + 1, matches)) {
+                SortedView view = views.get(field);
+                int start;
+                if (probe == null) start = ascending ? 0 : view.size - 1;
+                else start = ascending ? view.upperBound(probe) : view.lowerBound(probe) - 1;
+                head = view.walk(result, ascending, start, limit + 1);
+            } else {
+                head = topK(result, comparator, probe, limit + 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean hasNext = head.size() > limit;
+        List<ShopProduct> content = copiesOf(hasNext ? head.subList(0, limit) : head);
+        String next = hasNext ? CatalogCursor.after(content.get(content.size() - 1), field, ascending).encode() : null;
+        return Optional.of(new CatalogSlice(content, next, total));
+    }
+
+    /**
+     * The first {@code limit} matches in comparator order that sort after {@code after}
+     * (if given). Uses a bounded max-heap instead of sorting every match.
+     * Caller must hold the read lock.
+     */
+    private List<ShopProduct> topK(BitSet result, Comparator<ShopProduct> comparator, ShopProduct after, int limit) {
+        PriorityQueue<ShopProduct> top = new PriorityQueue<>(Math.min(limit, 1024) + 1, comparator.reversed());
+        for (int ord = result.nextSetBit(0); ord >= 0; ord = result.nextSetBit(ord + 1)) {
+            ShopProduct p = entries.get(ord).product();
+            if (after != null && comparator.compare(p, after) <= 0) continue;
+            if (top.size() < limit) {
+                top.add(p);
+            } else if (comparator.compare(p, top.peek()) < 0) {
+                top.poll();
+                top.add(p);
+            }
+        }
+        List<ShopProduct> head = new ArrayList<>(top);
+        head.sort(comparator);
+        return head;
+    }
+
+    /**
+     * A sorted-view walk visits about wanted * live / matches ordinals; the heap visits
+     * every match. Walk when that is the cheaper of the two.
+     */
+    private boolean walkPays(int wanted, int matches) {
+        return (long) wanted * ordinalById.size() <= (long) matches * matches;
+    }
+
+    /**
+     * The view that yields {@code sort} order: a single sort field, optionally followed
+     * by id in the same direction. Null for anything else.
+     */
+    private Walk walkFor(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty() || orders.size() > 2) return null;
+        Sort.Order first = orders.get(0);
+        Optional<CatalogSortField> field = CatalogSortField.fromProperty(first.getProperty());
+        if (field.isEmpty()) return null;
+        if (orders.size() == 2) {
+            Sort.Order second = orders.get(1);
+            if (!"id".equals(second.getProperty()) || second.getDirection() != first.getDirection()) return null;
+        }
+        return new Walk(views.get(field.get()), first.isAscending());
+    }
+
+    private static void applyKey(ShopProduct probe, CatalogSortField field, Object key) {
+        switch (field) {
+            case NAME -> probe.setName((String) key);
+            case PRICE -> probe.setPrice((BigDecimal) key);
+            case RATING -> probe.setRating((BigDecimal) key);
+            case REVIEWS -> probe.setReviews((Integer) key);
+            case CREATED_AT -> probe.setCreatedAt((OffsetDateTime) key);
+        }
+    }
+
+    /**
+     * Facet counts for every category, subcategory, size, color, stock state and price
+     * band among the products matching {@code filter}. {@code priceEdges} are the
+     * ascending band boundaries; n edges give n + 1 bands.
+     *
+     * Size counts ignore the size filter and color counts ignore the color filter
+     * (every other filter still applies), so a client can offer the remaining values
+     * of a multi-select facet without a second request.
+     */
+    public Optional<CatalogFacetsResponse> facets(CatalogFilter filter, List<BigDecimal> priceEdges) {
+        if (!ready) return Optional.empty();
+        List<String> queryTokens = tokenize(filter.getSearch());
+        if (filter.getSearch() != null && queryTokens.isEmpty()) return Optional.empty();
+
+        long[] edges = new long[priceEdges.size()];
+        for (int i = 0; i < edges.length; i++) edges[i] = toCents(priceEdges.get(i), RoundingMode.CEILING);
+        long[] bucketCounts = new long[edges.length + 1];
+
+        lock.readLock().lock();
+        try {
+            BitSet sizeMask = anyOf(bySize, filter.getSizes());
+            BitSet colorMask = anyOf(byColor, filter.getColors());
+            BitSet base = matching(filter, queryTokens, null, null);
+            BitSet result = restrict(restrict(base, sizeMask), colorMask);
+            BitSet sizeScope = sizeMask == null ? result : restrict(base, colorMask);
+            BitSet colorScope = colorMask == null ? result : restrict(base, sizeMask);
+            BitSet scratch = new BitSet(base.length());
+            long total = result.cardinality();
+            long inStockCount = intersectionCount(result, inStock, scratch);
+            for (int ord = result.nextSetBit(0); ord >= 0; ord = result.nextSetBit(ord + 1)) {
+                int bucket = Arrays.binarySearch(edges, entries.get(ord).priceCents());
+                bucketCounts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+            }
+
+            List<CatalogFacetsResponse.PriceBucket> buckets = new ArrayList<>(bucketCounts.length);
+            for (int i = 0; i < bucketCounts.length; i++) {
+                buckets.add(CatalogFacetsResponse.PriceBucket.builder()
+                        .min(i == 0 ? null : priceEdges.get(i - 1))
+                        .max(i == edges.length ? null : priceEdges.get(i))
+                        .count(bucketCounts[i])
+                        .build());
+            }
+            return Optional.of(CatalogFacetsResponse.builder()
+                    .total(total)
+                    .categories(facetCounts(byCategory, result, scratch))
+                    .subcategories(facetCounts(bySubcategory, result, scratch))
+                    .sizes(facetCounts(bySize, sizeScope, scratch))
+                    .colors(facetCounts(byColor, colorScope, scratch))
+                    .priceBuckets(buckets)
+                    .inStock(inStockCount)
+                    .outOfStock(total - inStockCount)
+                    .build());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Non-zero counts per value, largest first. Caller must hold the read lock. */
+    private static Map<String, Long> facetCounts(Map<String, BitSet> postings, BitSet result, BitSet scratch) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> e : postings.entrySet()) {
+            long count = intersectionCount(result, e.getValue(), scratch);
+            if (count > 0) counts.add(Map.entry(e.getKey(), count));
+        }
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : counts) ordered.put(e.getKey(), e.getValue());
+        return ordered;
+    }
+
+    /** |a AND b|, reusing {@code scratch} so no BitSet is allocated per facet value. */
+    private static long intersectionCount(BitSet a, BitSet b, BitSet scratch) {
+        scratch.clear();
+        scratch.or(a);
+        scratch.and(b);
+        return scratch.cardinality();
+    }
+
+    /** {@code set} AND {@code mask} as a new BitSet, or {@code set} itself when mask is null. */
+    private static BitSet restrict(BitSet set, BitSet mask) {
+        if (mask == null) return set;
+        BitSet restricted = (BitSet) set.clone();
+        restricted.and(mask);
+        return restricted;
+    }
+
+    /**
+     * Union of the postings of {@code values}, or null when there are no values (no
+     * constraint). Unknown values contribute nothing. Caller must hold the read lock.
+     */
+    private static BitSet anyOf(Map<String, BitSet> postings, List<String> values) {
+        if (values == null || values.isEmpty()) return null;
+        BitSet union = new BitSet();
+        for (String value : values) {
+            BitSet bits = postings.get(value);
+            if (bits != null) union.or(bits);
+        }
+        return union;
+    }
+
+    /** Caller must hold the read lock. */
+    private BitSet matching(CatalogFilter filter, List<String> queryTokens) {
+        return matching(filter, queryTokens, anyOf(bySize, filter.getSizes()), anyOf(byColor, filter.getColors()));
+    }
+
+    /**
+     * Ordinals matching {@code filter}, with the size and color filters given as
+     * precomputed masks (null for no constraint). Caller must hold the read lock.
+     */
+    private BitSet matching(CatalogFilter filter, List<String> queryTokens, BitSet sizeMask, BitSet colorMask) {
+        BitSet result = (BitSet) live.clone();
+        if (filter.getCategory() != null) {
+            result.and(byCategory.getOrDefault(filter.getCategory(), new BitSet()));
+        }
+        if (filter.getSubcategory() != null) {
+            result.and(bySubcategory.getOrDefault(filter.getSubcategory(), new BitSet()));
+        }
+        if (sizeMask != null) result.and(sizeMask);
+        if (colorMask != null) result.and(colorMask);
+        if (filter.getInStock() != null) {
+            if (filter.getInStock()) result.and(inStock);
+            else result.andNot(inStock);
+        }
+        for (String token : queryTokens) {
+            if (result.isEmpty()) break;
+            BitSet postings = new BitSet();
+            for (BitSet termPostings : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                postings.or(termPostings);
+            }
+            result.and(postings);
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            long min = filter.getMinPrice() != null ? toCents(filter.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+            long max = filter.getMaxPrice() != null ? toCents(filter.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            for (int ord = result.nextSetBit(0); ord >= 0; ord = result.nextSetBit(ord + 1)) {
+                long price = entries.get(ord).priceCents();
+                if (price < min || price > max) result.clear(ord);
+            }
+        }
+        return result;
+    }
+
+    /** Adds postings but not sorted-view entries. Caller must hold the write lock. */
+    private int add(ShopProduct product) {
+        ShopProduct p = copyOf(product);
+        int ord = freeOrdinals.isEmpty() ? entries.size() : freeOrdinals.pop();
+        Set<String> productTerms = new HashSet<>();
+        productTerms.addAll(tokenize(p.getName()));
+        productTerms.addAll(tokenize(p.getDescription()));
+        productTerms.addAll(tokenize(p.getSubcategory()));
+        long priceCents = p.getPrice() != null ? toCents(p.getPrice(), RoundingMode.HALF_UP) : 0L;
+        List<String> sizes = p.getSizes() != null ? List.of(p.getSizes()) : List.of();
+        List<String> colors = p.getColors() != null ? List.of(p.getColors()) : List.of();
+        Entry entry = new Entry(p, productTerms, p.getCategory(), p.getSubcategory(), sizes, colors, priceCents);
+        if (ord == entries.size()) entries.add(entry);
+        else entries.set(ord, entry);
+
+        ordinalById.put(p.getId(), ord);
+        live.set(ord);
+        if (Boolean.TRUE.equals(p.getInStock())) inStock.set(ord);
+        for (String term : productTerms) {
+            terms.computeIfAbsent(term, k -> new BitSet()).set(ord);
+        }
+        if (entry.category() != null) byCategory.computeIfAbsent(entry.category(), k -> new BitSet()).set(ord);
+        if (entry.subcategory() != null) bySubcategory.computeIfAbsent(entry.subcategory(), k -> new BitSet()).set(ord);
+        for (String size : sizes) bySize.computeIfAbsent(size, k -> new BitSet()).set(ord);
+        for (String color : colors) byColor.computeIfAbsent(color, k -> new BitSet()).set(ord);
+        return ord;
+    }
+
+    /** Caller must hold the write lock. */
+    private void removeInternal(String id) {
+        Integer ord = ordinalById.remove(id);
+        if (ord == null) return;
+        Entry entry = entries.get(ord);
+        for (SortedView view : views.values()) view.remove(ord);
+        live.clear(ord);
+        inStock.clear(ord);
+        for (String term : entry.terms()) {
+            clearPosting(terms, term, ord);
+        }
+        if (entry.category() != null) clearPosting(byCategory, entry.category(), ord);
+        if (entry.subcategory() != null) clearPosting(bySubcategory, entry.subcategory(), ord);
+        for (String size : entry.sizes()) clearPosting(bySize, size, ord);
+        for (String color : entry.colors()) clearPosting(byColor, color, ord);
+        entries.set(ord, null);
+        freeOrdinals.push(ord);
+    }
+
+    private static void clearPosting(Map<String, BitSet> postings, String key, int ord) {
+        BitSet bits = postings.get(key);
+        if (bits == null) return;
+        bits.clear(ord);
+        if (bits.isEmpty()) postings.remove(key);
+    }
+
+    /**
+     * A detached copy of a product. The arrays and the metadata map are copied too; the
+     * other fields are immutable values and shared.
+     */
+    private static ShopProduct copyOf(ShopProduct p) {
+        return ShopProduct.builder()
+                .id(p.getId())
+                .name(p.getName())
+                .description(p.getDescription())
+                .price(p.getPrice())
+                .category(p.getCategory())
+                .subcategory(p.getSubcategory())
+                .sizes(p.getSizes() != null ? p.getSizes().clone() : null)
+                .colors(p.getColors() != null ? p.getColors().clone() : null)
+                .images(p.getImages() != null ? p.getImages().clone() : null)
+                .inStock(p.getInStock())
+                .rating(p.getRating())
+                .reviews(p.getReviews())
+                .metadata(p.getMetadata() != null ? new LinkedHashMap<>(p.getMetadata()) : null)
+                .createdAt(p.getCreatedAt())
+                .version(p.getVersion())
+                .build();
+    }
+
+    private static List<ShopProduct> copiesOf(List<ShopProduct> products) {
+        List<ShopProduct> copies = new ArrayList<>(products.size());
+        for (ShopProduct p : products) copies.add(copyOf(p));
+        return copies;
+    }
+
+    /** Prices are NUMERIC(10,2), so whole cents compare exactly without BigDecimal. */
+    private static long toCents(BigDecimal amount, RoundingMode rounding) {
+        return amount.movePointRight(2).setScale(0, rounding).longValue();
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Comparator equivalent to the JPA sort, with id as a final tie-breaker (in the
+     * direction of the last order) so paging is stable. Returns null for properties the
+     * index does not know how to order.
+     */
+    static Comparator<ShopProduct> comparatorFor(Sort sort) {
+        Comparator<ShopProduct> comparator = null;
+        boolean hasId = false;
+        boolean descending = false;
+        for (Sort.Order order : sort) {
+            descending = order.isDescending();
+            Comparator<ShopProduct> next;
+            if ("id".equals(order.getProperty())) {
+                next = Comparator.comparing(ShopProduct::getId);
+                hasId = true;
+            } else {
+                Optional<CatalogSortField> field = CatalogSortField.fromProperty(order.getProperty());
+                if (field.isEmpty()) return null;
+                next = field.get().comparator();
+            }
+            if (order.isDescending()) next = next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        if (hasId) return comparator;
+        Comparator<ShopProduct> byId = Comparator.comparing(ShopProduct::getId);
+        if (descending) byId = byId.reversed();
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    /**
+     * Live ordinals in ascending (field, id) order, which is total since ids are unique.
+     * Built in one sort on rebuild and then kept in step with every upsert and remove by
+     * binary search plus an array shift. Caller must hold the lock.
+     */
+    private final class SortedView {
+        private final Comparator<ShopProduct> comparator;
+        private int[] ords = new int[0];
+        private int size;
+
+        SortedView(CatalogSortField field) {
+            this.comparator = field.comparator().thenComparing(ShopProduct::getId);
+        }
+
+        private ShopProduct product(int ord) {
+            return entries.get(ord).product();
+        }
+
+        void build() {
+            Integer[] sorted = live.stream().boxed().toArray(Integer[]::new);
+            Arrays.sort(sorted, (a, b) -> comparator.compare(product(a), product(b)));
+            ords = new int[Math.max(16, sorted.length)];
+            for (int i = 0; i < sorted.length; i++) ords[i] = sorted[i];
+            size = sorted.length;
+        }
+
+        /** Position of the first element sorting after {@code p}. */
+        int upperBound(ShopProduct p) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(product(ords[mid]), p) <= 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /** Position of the first element not sorting before {@code p}. */
+        int lowerBound(ShopProduct p) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(product(ords[mid]), p) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        void insert(int ord) {
+            int pos = upperBound(product(ord));
+            if (size == ords.length) ords = Arrays.copyOf(ords, Math.max(16, size * 2));
+            System.arraycopy(ords, pos, ords, pos + 1, size - pos);
+            ords[pos] = ord;
+            size++;
+        }
+
+        void remove(int ord) {
+            int pos = lowerBound(product(ord));
+            if (pos >= size || ords[pos] != ord) return;
+            System.arraycopy(ords, pos + 1, ords, pos, size - pos - 1);
+            size--;
+        }
+
+        /**
+         * Up to {@code limit} products in {@code result}, visiting the view from
+         * {@code start} forwards (ascending) or backwards (descending).
+         */
+        List<ShopProduct> walk(BitSet result, boolean ascending, int start, int limit) {
+            List<ShopProduct> head = new ArrayList<>(Math.min(limit, 1024));
+            int step = ascending ? 1 : -1;
+            for (int i = start; i >= 0 && i < size && head.size() < limit; i += step) {
+                if (result.get(ords[i])) head.add(product(ords[i]));
+            }
+            return head;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.ShopProduct;
+
+import java.util.List;
+
+/**
+ * One keyset-paginated slice of the catalog. nextCursor is null on the last slice;
+ * approximateTotal is null unless it was requested.
+ */
+public record CatalogSlice(List<ShopProduct> content, String nextCursor, Long approximateTotal) {
+}
@@ -0,0 +1,57 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.ShopProduct;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Sort keys supported by the shop catalog, with how to read, compare and
+ * (de)serialize each one for keyset cursors. All of them are NOT NULL columns.
+ */
+public enum CatalogSortField {
+    NAME("name", ShopProduct::getName, s -> s),
+    PRICE("price", ShopProduct::getPrice, BigDecimal::new),
+    RATING("rating", ShopProduct::getRating, BigDecimal::new),
+    REVIEWS("reviews", ShopProduct::getReviews, Integer::valueOf),
+    CREATED_AT("createdAt", ShopProduct::getCreatedAt, OffsetDateTime::parse);
+
+    private final String property;
+    private final Function<ShopProduct, ? extends Comparable<?>> getter;
+    private final Function<String, ? extends Comparable<?>> parser;
+
+    CatalogSortField(String property, Function<ShopProduct, ? extends Comparable<?>> getter,
+                     Function<String, ? extends Comparable<?>> parser) {
+        this.property = property;
+        this.getter = getter;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static Optional<CatalogSortField> fromProperty(String property) {
+        for (CatalogSortField field : values()) {
+            if (field.property.equals(property)) return Optional.of(field);
+        }
+        return Optional.empty();
+    }
+
+    public Object keyOf(ShopProduct product) {
+        return getter.apply(product);
+    }
+
+    public Object parseKey(String value) {
+        return parser.apply(value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<ShopProduct> comparator() {
+        Function<ShopProduct, Comparable> key = (Function) getter;
+        return Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+}
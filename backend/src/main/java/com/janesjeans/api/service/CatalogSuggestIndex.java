@@ -0,0 +1,358 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.CatalogSuggestion;
+import com.janesjeans.api.dto.ShopCategoryDTO;
+import com.janesjeans.api.entity.ShopProduct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix trie for storefront typeahead over product names, categories and subcategories.
+ *
+ * Every word position of a name is a key ("dark wash jeans", "wash jeans", "jeans"),
+ * so typing the start of any word finds the item. Each node keeps the best
+ * {@link #MAX_SUGGESTIONS} entries of its subtree, already ranked, so a lookup is one
+ * walk down the query's characters with no scanning or sorting.
+ *
+ * Ranking: categories, then subcategories (both by sort order), then products by
+ * rating and review count.
+ *
+ * Readers take no locks: child tables and top lists are immutable arrays published
+ * through volatile fields. Writers are serialized and only touch the nodes on the paths
+ * of the keys they add or remove.
+ */
+@Component
+@Slf4j
+public class CatalogSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_KEY_WORDS = 8;
+    // keys are branched on their first MAX_DEPTH characters; longer keys share the node there
+    static final int MAX_DEPTH = 16;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Filed[] NO_FILED = new Filed[0];
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingInt((Entry e) -> e.type().ordinal())
+            .thenComparingInt(Entry::order)
+            .thenComparing(Comparator.comparingDouble(Entry::rating).reversed())
+            .thenComparing(Comparator.comparingInt(Entry::reviews).reversed())
+            .thenComparing(Entry::text)
+            .thenComparing(Entry::id);
+
+    private enum Type { CATEGORY, SUBCATEGORY, PRODUCT }
+
+    /** One suggestion with the keys it was filed under and its response object, built once. */
+    private record Entry(Type type, String id, String text, int order, double rating, int reviews,
+                         List<String> keys, CatalogSuggestion suggestion) {}
+
+    /** An entry under one of its keys, kept at the node where the key's path ends. */
+    private record Filed(String key, Entry entry) {}
+
+    private record Branches(char[] labels, Node[] nodes) {
+        static final Branches EMPTY = new Branches(new char[0], new Node[0]);
+    }
+
+    private static final class Node {
+        volatile Branches branches = Branches.EMPTY;
+        volatile Entry[] top = NO_ENTRIES;
+        // keys whose path ends here: keys of exactly this length, or longer ones at MAX_DEPTH
+        volatile Filed[] terminal = NO_FILED;
+
+        Node child(char c) {
+            Branches b = branches;
+            int i = Arrays.binarySearch(b.labels(), c);
+            return i >= 0 ? b.nodes()[i] : null;
+        }
+    }
+
+    private volatile Node root = new Node();
+    private final Map<String, Entry> products = new HashMap<>();
+    private final List<Entry> categories = new ArrayList<>();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Suggestions whose text has a word starting with the query, best first.
+     */
+    public List<CatalogSuggestion> suggest(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit <= 0) return List.of();
+        Node node = root;
+        int depth = Math.min(key.length(), MAX_DEPTH);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) return List.of();
+        Entry[] top = key.length() <= MAX_DEPTH ? node.top : matching(node.terminal, key);
+        int n = Math.min(limit, top.length);
+        List<CatalogSuggestion> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) result.add(top[i].suggestion());
+        return result;
+    }
+
+    /**
+     * Replace everything with the given products and category tree. The new trie is built
+     * aside and swapped in, so lookups keep answering from the old one meanwhile.
+     */
+    public synchronized void rebuild(Collection<ShopProduct> allProducts, List<ShopCategoryDTO> categoryTree) {
+        Node fresh = new Node();
+        Map<Node, List<Filed>> terminals = new IdentityHashMap<>();
+        products.clear();
+        categories.clear();
+        for (ShopProduct p : allProducts) {
+            Entry entry = productEntry(p);
+            products.put(p.getId(), entry);
+            file(fresh, entry, terminals);
+        }
+        categories.addAll(categoryEntries(categoryTree));
+        categories.forEach(e -> file(fresh, e, terminals));
+        terminals.forEach((node, filed) -> node.terminal = filed.toArray(NO_FILED));
+        rankSubtree(fresh);
+        root = fresh;
+        ready = true;
+        log.info("Catalog suggest index built with {} products and {} categories/subcategories",
+                products.size(), categories.size());
+    }
+
+    public synchronized void upsertProduct(ShopProduct p) {
+        Entry previous = products.remove(p.getId());
+        if (previous != null) remove(root, previous);
+        Entry entry = productEntry(p);
+        products.put(p.getId(), entry);
+        add(root, entry);
+    }
+
+    public synchronized void removeProduct(String id) {
+        Entry previous = products.remove(id);
+        if (previous != null) remove(root, previous);
+    }
+
+    /**
+     * Swap in a new category tree; product entries are left alone.
+     */
+    public synchronized void replaceCategories(List<ShopCategoryDTO> categoryTree) {
+        for (Entry e : categories) remove(root, e);
+        categories.clear();
+        categories.addAll(categoryEntries(categoryTree));
+        categories.forEach(e -> add(root, e));
+    }
+
+    private static Entry productEntry(ShopProduct p) {
+        double rating = p.getRating() != null ? p.getRating().doubleValue() : 0;
+        int reviews = p.getReviews() != null ? p.getReviews() : 0;
+        CatalogSuggestion suggestion = CatalogSuggestion.builder()
+                .type("product").id(p.getId()).text(p.getName()).category(p.getCategory())
+                .rating(rating).reviews(reviews).build();
+        return new Entry(Type.PRODUCT, p.getId(), p.getName(), 0, rating, reviews, keysFor(p.getName()), suggestion);
+    }
+
+    private static List<Entry> categoryEntries(List<ShopCategoryDTO> categoryTree) {
+        List<Entry> entries = new ArrayList<>();
+        for (ShopCategoryDTO c : categoryTree) {
+            entries.add(new Entry(Type.CATEGORY, c.getSlug(), c.getName(), c.getSortOrder(), 0, 0, keysFor(c.getName()),
+                    CatalogSuggestion.builder().type("category").id(c.getSlug()).text(c.getName()).category(c.getSlug()).build()));
+            if (c.getSubcategories() == null) continue;
+            for (ShopCategoryDTO.SubcategoryDTO sub : c.getSubcategories()) {
+                // ordered by parent category first, then by the subcategory's own position
+                entries.add(new Entry(Type.SUBCATEGORY, c.getSlug() + "/" + sub.getSlug(), sub.getName(),
+                        c.getSortOrder() * 1000 + sub.getSortOrder(), 0, 0, keysFor(sub.getName()),
+                        CatalogSuggestion.builder().type("subcategory").id(sub.getSlug()).text(sub.getName()).category(c.getSlug()).build()));
+            }
+        }
+        return entries;
+    }
+
+    // ---- Trie maintenance (callers hold the monitor when working on the live root) ----
+
+    private static void add(Node root, Entry entry) {
+        for (String key : entry.keys()) {
+            Node node = root;
+            offer(node, entry);
+            for (int i = 0; i < pathLength(key); i++) {
+                node = childOrCreate(node, key.charAt(i));
+                offer(node, entry);
+            }
+            node.terminal = append(node.terminal, new Filed(key, entry));
+        }
+    }
+
+    /**
+     * Place an entry's keys in a trie under construction, collecting terminals in lists
+     * (appending to the arrays one by one would be quadratic for common words).
+     * Top lists are filled afterwards by {@link #rankSubtree}.
+     */
+    private static void file(Node root, Entry entry, Map<Node, List<Filed>> terminals) {
+        for (String key : entry.keys()) {
+            Node node = root;
+            for (int i = 0; i < pathLength(key); i++) {
+                node = childOrCreate(node, key.charAt(i));
+            }
+            terminals.computeIfAbsent(node, n -> new ArrayList<>()).add(new Filed(key, entry));
+        }
+    }
+
+    /** Compute top lists bottom-up, each node from its terminals and its children's lists. */
+    private static void rankSubtree(Node node) {
+        for (Node child : node.branches.nodes()) rankSubtree(child);
+        node.top = recompute(node);
+    }
+
+    private static void remove(Node root, Entry entry) {
+        keys:
+        for (String key : entry.keys()) {
+            int length = pathLength(key);
+            Node[] path = new Node[length + 1];
+            path[0] = root;
+            for (int i = 0; i < length; i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+                if (path[i + 1] == null) continue keys;
+            }
+            Node leaf = path[length];
+            leaf.terminal = without(leaf.terminal, entry);
+            for (int depth = length; depth >= 0; depth--) {
+                Node node = path[depth];
+                if (contains(node.top, entry)) node.top = recompute(node);
+                if (depth > 0 && node.top.length == 0 && node.branches.labels().length == 0) {
+                    detach(path[depth - 1], key.charAt(depth - 1));
+                }
+            }
+        }
+    }
+
+    private static int pathLength(String key) {
+        return Math.min(key.length(), MAX_DEPTH);
+    }
+
+    private static void offer(Node node, Entry entry) {
+        Entry[] top = node.top;
+        if (contains(top, entry)) return;
+        if (top.length == MAX_SUGGESTIONS && RANKING.compare(entry, top[top.length - 1]) >= 0) return;
+        int at = 0;
+        while (at < top.length && RANKING.compare(top[at], entry) < 0) at++;
+        int size = Math.min(top.length + 1, MAX_SUGGESTIONS);
+        Entry[] next = new Entry[size];
+        System.arraycopy(top, 0, next, 0, at);
+        next[at] = entry;
+        System.arraycopy(top, at, next, at + 1, size - at - 1);
+        node.top = next;
+    }
+
+    /** Best entries of a node's subtree, from its own terminals and its children's top lists. */
+    private static Entry[] recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>(node.terminal.length + node.branches.nodes().length * MAX_SUGGESTIONS);
+        for (Filed f : node.terminal) candidates.add(f.entry());
+        for (Node child : node.branches.nodes()) Collections.addAll(candidates, child.top);
+        return best(candidates);
+    }
+
+    /** Best entries filed at a MAX_DEPTH node whose full key starts with a longer query. */
+    private static Entry[] matching(Filed[] filed, String key) {
+        List<Entry> candidates = new ArrayList<>();
+        for (Filed f : filed) {
+            if (f.key().startsWith(key)) candidates.add(f.entry());
+        }
+        return best(candidates);
+    }
+
+    /**
+     * Rank candidates and keep the first MAX_SUGGESTIONS distinct ones. An entry can show up
+     * more than once (several of its keys under one node); the ranking has no ties between
+     * different entries, so copies end up next to each other.
+     */
+    private static Entry[] best(List<Entry> candidates) {
+        candidates.sort(RANKING);
+        Entry[] top = new Entry[Math.min(candidates.size(), MAX_SUGGESTIONS)];
+        int n = 0;
+        for (Entry e : candidates) {
+            if (n == top.length) break;
+            if (n > 0 && top[n - 1] == e) continue;
+            top[n++] = e;
+        }
+        return n == top.length ? top : Arrays.copyOf(top, n);
+    }
+
+    private static Filed[] append(Filed[] filed, Filed f) {
+        Filed[] next = Arrays.copyOf(filed, filed.length + 1);
+        next[filed.length] = f;
+        return next;
+    }
+
+    private static Filed[] without(Filed[] filed, Entry entry) {
+        int kept = 0;
+        Filed[] next = new Filed[filed.length];
+        for (Filed f : filed) {
+            if (f.entry() != entry) next[kept++] = f;
+        }
+        return kept == 0 ? NO_FILED : Arrays.copyOf(next, kept);
+    }
+
+    private static boolean contains(Entry[] top, Entry entry) {
+        for (Entry e : top) if (e == entry) return true;
+        return false;
+    }
+
+    private static Node childOrCreate(Node node, char c) {
+        Branches b = node.branches;
+        int i = Arrays.binarySearch(b.labels(), c);
+        if (i >= 0) return b.nodes()[i];
+        int at = -i - 1;
+        int n = b.labels().length;
+        char[] labels = new char[n + 1];
+        Node[] nodes = new Node[n + 1];
+        System.arraycopy(b.labels(), 0, labels, 0, at);
+        System.arraycopy(b.nodes(), 0, nodes, 0, at);
+        labels[at] = c;
+        nodes[at] = new Node();
+        System.arraycopy(b.labels(), at, labels, at + 1, n - at);
+        System.arraycopy(b.nodes(), at, nodes, at + 1, n - at);
+        node.branches = new Branches(labels, nodes);
+        return nodes[at];
+    }
+
+    private static void detach(Node parent, char c) {
+        Branches b = parent.branches;
+        int i = Arrays.binarySearch(b.labels(), c);
+        if (i < 0) return;
+        int n = b.labels().length;
+        char[] labels = new char[n - 1];
+        Node[] nodes = new Node[n - 1];
+        System.arraycopy(b.labels(), 0, labels, 0, i);
+        System.arraycopy(b.nodes(), 0, nodes, 0, i);
+        System.arraycopy(b.labels(), i + 1, labels, i, n - i - 1);
+        System.arraycopy(b.nodes(), i + 1, nodes, i, n - i - 1);
+        parent.branches = new Branches(labels, nodes);
+    }
+
+    // ---- Keys ----
+
+    /** Lowercased words joined by single spaces, e.g. "Slim-Fit  Jeans" -> "slim fit jeans". */
+    static String normalize(String text) {
+        return String.join(" ", CatalogSearchIndex.tokenize(text));
+    }
+
+    /** One key per word position: "dark wash jeans", "wash jeans", "jeans". */
+    static List<String> keysFor(String text) {
+        List<String> words = CatalogSearchIndex.tokenize(text);
+        List<String> keys = new ArrayList<>(Math.min(words.size(), MAX_KEY_WORDS));
+        for (int i = 0; i < words.size() && i < MAX_KEY_WORDS; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,82 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.ShopCategoryDTO;
+import com.janesjeans.api.entity.ShopCategory;
+import com.janesjeans.api.repository.ShopCategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable, pre-serialized snapshot of the storefront category tree.
+ *
+ * The tree is loaded with a single fetch-join, serialized to JSON once and kept
+ * together with its ETag. Readers only dereference the current snapshot; a change to
+ * categories or subcategories builds a new one and swaps it in atomically.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeCache {
+
+    private final ShopCategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public record Snapshot(List<ShopCategoryDTO> categories, byte[] json, String etag) {}
+
+    /**
+     * The current snapshot, loading it on first use.
+     */
+    public Snapshot get() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) return snapshot;
+        Snapshot loaded = load();
+        return current.compareAndSet(null, loaded) ? loaded : current.get();
+    }
+
+    /**
+     * Rebuild the snapshot from the database and swap it in.
+     */
+    public void refresh() {
+        Snapshot snapshot = load();
+        current.set(snapshot);
+        log.debug("Category tree refreshed: {} categories, etag {}", snapshot.categories().size(), snapshot.etag());
+    }
+
+    private Snapshot load() {
+        List<ShopCategoryDTO> categories = categoryRepository.findAllWithSubcategories().stream()
+                .map(CategoryTreeCache::toDTO)
+                .toList();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(categories);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            return new Snapshot(categories, json, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize category tree", e);
+        }
+    }
+
+    private static ShopCategoryDTO toDTO(ShopCategory c) {
+        List<ShopCategoryDTO.SubcategoryDTO> subcategories = c.getSubcategories() == null ? List.of()
+                : c.getSubcategories().stream()
+                        .map(s -> ShopCategoryDTO.SubcategoryDTO.builder()
+                                .id(s.getId()).name(s.getName()).slug(s.getSlug())
+                                .sortOrder(s.getSortOrder() != null ? s.getSortOrder() : 0).build())
+                        .sorted(Comparator.comparingInt(ShopCategoryDTO.SubcategoryDTO::getSortOrder))
+                        .toList();
+        return ShopCategoryDTO.builder()
+                .id(c.getId()).name(c.getName()).slug(c.getSlug())
+                .icon(c.getIcon()).sortOrder(c.getSortOrder() != null ? c.getSortOrder() : 0)
+                .subcategories(subcategories)
+                .build();
+    }
+}
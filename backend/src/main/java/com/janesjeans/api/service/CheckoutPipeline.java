@@ -0,0 +1,284 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.CheckoutOutbox;
+import com.janesjeans.api.entity.CheckoutOutbox.Stage;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.Payment;
+import com.janesjeans.api.entity.Shipment;
+import com.janesjeans.api.repository.CheckoutOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carries out the work a confirmed guest checkout leaves behind: create the payment,
+ * create the shipment, send the confirmation email, in that order.
+ *
+ * Work arrives as {@link CheckoutOutbox} entries committed together with their order.
+ * Each entry is handed to a bounded worker pool right after the commit, and a poller
+ * picks up whatever that missed: a full queue, a crash, or a retry that is due. A worker
+ * leases the entry with a conditional UPDATE before touching it, so an entry is worked
+ * by one worker at a time; should a lease run out mid-stage, the entry's version makes
+ * the slower worker's stage roll back. The payment and shipment stages commit their
+ * record together with the entry's next stage and skip records that already exist, so
+ * they happen once.
+ * The email goes out at least once. A failed stage is retried with exponential backoff;
+ * after {@code checkout.pipeline.max-attempts} the entry is parked as FAILED.
+ *
+ * Metrics: {@code checkout.pipeline.stage} (timer, tags stage and outcome) and
+ * {@code checkout.pipeline.failed} (entries given up on).
+ */
+@Service
+@Slf4j
+public class CheckoutPipeline {
+
+    static final Set<Stage> TERMINAL = EnumSet.of(Stage.DONE, Stage.FAILED);
+    private static final long MAX_BACKOFF_MILLIS = 300_000;
+    private static final int POLL_BATCH = 100;
+
+    private final CheckoutOutboxRepository outboxRepository;
+    private final OrderService orderService;
+    private final PaymentService paymentService;
+    private final ShipmentService shipmentService;
+    private final ShippingVendorService shippingVendorService;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter failed;
+
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long leaseMillis;
+    private final long pollMillis;
+    private final ThreadPoolExecutor workers;
+    private ScheduledExecutorService poller;
+
+    public CheckoutPipeline(CheckoutOutboxRepository outboxRepository, OrderService orderService,
+                            PaymentService paymentService, ShipmentService shipmentService,
+                            ShippingVendorService shippingVendorService, EmailService emailService,
+                            ObjectMapper objectMapper, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${checkout.pipeline.workers:4}") int workerCount,
+                            @Value("${checkout.pipeline.queue-capacity:1000}") int queueCapacity,
+                            @Value("${checkout.pipeline.max-attempts:8}") int maxAttempts,
+                            @Value("${checkout.pipeline.retry-base-millis:1000}") long retryBaseMillis,
+                            @Value("${checkout.pipeline.lease-millis:60000}") long leaseMillis,
+                            @Value("${checkout.pipeline.poll-millis:5000}") long pollMillis) {
+        this.outboxRepository = outboxRepository;
+        this.orderService = orderService;
+        this.paymentService = paymentService;
+        this.shipmentService = shipmentService;
+        this.shippingVendorService = shippingVendorService;
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.failed = meterRegistry.counter("checkout.pipeline.failed");
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMillis = retryBaseMillis;
+        this.leaseMillis = leaseMillis;
+        this.pollMillis = pollMillis;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "checkout-pipeline-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue an entry for a worker. If the queue is full the entry stays due and the
+     * poller picks it up.
+     */
+    public void submit(String outboxId) {
+        try {
+            workers.execute(() -> process(outboxId));
+        } catch (RejectedExecutionException e) {
+            log.debug("Checkout pipeline queue full, entry {} left for the poller", outboxId);
+        }
+    }
+
+    /**
+     * Work the entry's remaining stages if it is due and no other worker holds it.
+     */
+    public void process(String outboxId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                outboxRepository.claim(outboxId, TERMINAL, now, now.plusNanos(leaseMillis * 1_000_000)));
+        if (claimed == null || claimed == 0) return;
+        CheckoutOutbox entry = outboxRepository.findById(outboxId).orElse(null);
+        if (entry == null) return;
+
+        while (!entry.getStage().isTerminal()) {
+            Stage stage = entry.getStage();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                entry = transactionTemplate.execute(status -> runStage(outboxRepository.findById(outboxId).orElseThrow()));
+                sample.stop(stageTimer(stage, "success"));
+            } catch (OptimisticLockingFailureException e) {
+                sample.stop(stageTimer(stage, "superseded"));
+                log.info("Checkout entry {} was advanced by another worker", outboxId);
+                return;
+            } catch (RuntimeException e) {
+                sample.stop(stageTimer(stage, "failure"));
+                retryLater(outboxId, stage, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ask the database for due entries and queue them.
+     */
+    public int pollDue() {
+        List<String> due = outboxRepository.findDueIds(TERMINAL, LocalDateTime.now(), PageRequest.of(0, POLL_BATCH));
+        due.forEach(this::submit);
+        return due.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startPoller() {
+        if (poller != null) return;
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkout-pipeline-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                pollDue();
+            } catch (Exception e) {
+                log.warn("Checkout pipeline poll failed: {}", e.getMessage());
+            }
+        }, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        if (poller != null) poller.shutdownNow();
+        workers.shutdown();
+    }
+
+    private CheckoutOutbox runStage(CheckoutOutbox entry) {
+        GuestOrderRequest request = payload(entry);
+        switch (entry.getStage()) {
+            case PAYMENT -> {
+                if (paymentService.getPaymentsForOrder(entry.getOrderId()).isEmpty()) {
+                    paymentService.createPayment(Payment.builder()
+                            .orderId(entry.getOrderId())
+                            .amount(request.getTotalAmount())
+                            .method(request.getPayment() != null ? request.getPayment().getType() : "unknown")
+                            .status(request.getPayment() != null ? request.getPayment().getStatus() : "PENDING")
+                            .notes("Guest checkout")
+                            .build());
+                }
+                entry.setStage(Stage.SHIPMENT);
+            }
+            case SHIPMENT -> {
+                if (shipmentService.getShipmentByOrderId(entry.getOrderId()).isEmpty()) {
+                    shipmentService.createShipment(Shipment.builder()
+                            .orderId(entry.getOrderId())
+                            .vendorId(defaultVendorId())
+                            .trackingNumber("")
+                            .status("pending")
+                            .shippingAddress(orderService.getOrderById(entry.getOrderId()).getShippingAddress())
+                            .notes(request.getShipmentDetails() != null ? request.getShipmentDetails().getPhone() : "")
+                            .build());
+                }
+                entry.setStage(Stage.NOTIFICATION);
+            }
+            case NOTIFICATION -> {
+                Order order = orderService.getOrderById(entry.getOrderId());
+                try {
+                    emailService.sendOrderConfirmation(order, order.displayOrderNumber());
+                } catch (MessagingException e) {
+                    throw new IllegalStateException("Confirmation email not sent: " + e.getMessage(), e);
+                }
+                entry.setStage(Stage.DONE);
+                log.info("Checkout pipeline finished order {}", entry.getOrderId());
+            }
+            default -> throw new IllegalStateException("Nothing to do in stage " + entry.getStage());
+        }
+        entry.setLastError(null);
+        return outboxRepository.save(entry);
+    }
+
+    private void retryLater(String outboxId, Stage stage, RuntimeException cause) {
+        try {
+            recordFailure(outboxId, stage, cause);
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Checkout entry {} was advanced by another worker", outboxId);
+        }
+    }
+
+    private void recordFailure(String outboxId, Stage stage, RuntimeException cause) {
+        transactionTemplate.executeWithoutResult(status -> {
+            CheckoutOutbox entry = outboxRepository.findById(outboxId).orElse(null);
+            if (entry == null) return;
+            int attempts = entry.getAttempts() + 1;
+            entry.setAttempts(attempts);
+            entry.setLastError(stage + ": " + cause.getMessage());
+            if (attempts >= maxAttempts) {
+                entry.setStage(Stage.FAILED);
+                failed.increment();
+                log.error("Checkout pipeline gave up on order {} in stage {} after {} attempts: {}",
+                        entry.getOrderId(), stage, attempts, cause.getMessage());
+            } else {
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, retryBaseMillis << Math.min(attempts - 1, 20));
+                entry.setNextAttemptAt(LocalDateTime.now().plusNanos(backoff * 1_000_000));
+                log.warn("Checkout pipeline stage {} failed for order {} (attempt {}), retrying in {} ms: {}",
+                        stage, entry.getOrderId(), attempts, backoff, cause.getMessage());
+            }
+            outboxRepository.save(entry);
+        });
+    }
+
+    private String defaultVendorId() {
+        try {
+            var vendors = shippingVendorService.getAllVendors();
+            if (!vendors.isEmpty()) return vendors.get(0).getId();
+        } catch (Exception ignored) {}
+        return "";
+    }
+
+    private GuestOrderRequest payload(CheckoutOutbox entry) {
+        try {
+            return objectMapper.readValue(entry.getPayload(), GuestOrderRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable checkout payload for order " + entry.getOrderId(), e);
+        }
+    }
+
+    private Timer stageTimer(Stage stage, String outcome) {
+        return Timer.builder("checkout.pipeline.stage")
+                .tag("stage", stage.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,85 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.CheckoutOutbox;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.repository.CheckoutOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@RequiredArgsConstructor
+public class CheckoutService {
+
+    private final ProductService productService;
+    private final InventoryHoldService inventoryHoldService;
+    private final OrderService orderService;
+    private final CheckoutOutboxRepository outboxRepository;
+    private final CheckoutPipeline pipeline;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Reserve the cart's stock and save the order in one transaction, so a failed save
+     * leaves the stock untouched.
+     *
+     * @throws com.janesjeans.api.exception.InsufficientStockException if any line cannot be covered; nothing is saved
+     * @throws IllegalArgumentException for a line without a product id or with a quantity below 1
+     */
+    @Transactional
+    public Order place(Order order, GuestOrderRequest request) {
+        productService.reserveStock(request.getItems());
+        return orderService.createOrder(order);
+    }
+
+    /**
+     * Hold the cart's stock for an order awaiting verification and save the order, which
+     * must carry a holdExpiresAt, in one transaction, so a failed save holds nothing.
+     *
+     * @throws com.janesjeans.api.exception.InsufficientStockException if any line cannot be covered; nothing is saved
+     * @throws IllegalArgumentException for a line without a product id or with a quantity below 1
+     */
+    @Transactional
+    public Order placeOnHold(Order order, GuestOrderRequest request) {
+        inventoryHoldService.hold(request.getItems());
+        return orderService.createOrder(order);
+    }
+
+    /**
+     * Reserve the cart's stock, save the order and its outbox entry in one transaction,
+     * and hand the entry to the {@link CheckoutPipeline} once that commits. Payment,
+     * shipment and the confirmation email follow asynchronously.
+     *
+     * @throws com.janesjeans.api.exception.InsufficientStockException if any line cannot be covered; nothing is saved
+     * @throws IllegalArgumentException for a line without a product id or with a quantity below 1
+     */
+    @Transactional
+    public Order confirm(Order order, GuestOrderRequest request) {
+        productService.reserveStock(request.getItems());
+        Order saved = orderService.createOrder(order);
+        CheckoutOutbox entry = outboxRepository.save(CheckoutOutbox.builder()
+                .orderId(saved.getId())
+                .payload(toJson(request))
+                .build());
+        String entryId = entry.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pipeline.submit(entryId);
+            }
+        });
+        return saved;
+    }
+
+    private String toJson(GuestOrderRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store checkout request", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.janesjeans.api.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma separated, double-quoted fields with ""
+ * escapes, quoted fields may span lines. Reads one record at a time.
+ */
+public class CsvReader implements Closeable {
+
+    private final Reader reader;
+    private int peeked = -2;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * The physical line the last record returned by {@link #next()} started on.
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * The next record, or null at end of input. Blank lines are skipped.
+     *
+     * @throws IllegalArgumentException if a quoted field is not terminated
+     */
+    public List<String> next() throws IOException {
+        int c;
+        // skip blank lines between records
+        while ((c = read()) == '\r' || c == '\n') {
+            if (c == '\n') line++;
+        }
+        if (c == -1) return null;
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r' && peek() == '\n') read();
+                if (c != -1) line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) peeked = reader.read();
+        return peeked;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
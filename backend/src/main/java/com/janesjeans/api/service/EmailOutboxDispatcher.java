@@ -0,0 +1,348 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.EmailOutbox;
+import com.janesjeans.api.entity.EmailOutbox.Status;
+import com.janesjeans.api.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the emails queued in the {@link EmailOutbox}. A dispatch claims up to
+ * {@code email.outbox.batch-size} due emails with a lease, builds their messages and hands
+ * them to JavaMailSender in one call, which delivers the whole batch over a single SMTP
+ * connection instead of opening one per email.
+ *
+ * At most {@code email.outbox.workers} batches are in flight, so that is also the most
+ * connections this instance holds open to the relay. The poller starts a worker for each
+ * batch it can claim and a worker keeps claiming full batches until nothing is due, so a
+ * backlog drains without waiting for the next poll.
+ * A message the relay refuses for now is retried with exponential backoff. One it refuses
+ * for good (a rejected or unparseable address), or that still fails after
+ * {@code email.outbox.max-attempts}, is dead-lettered: left in the table as DEAD with its
+ * last error. Delivery is at least once; an email whose lease runs out before its batch
+ * is recorded goes out again. SENT and DEAD rows are deleted once they are
+ * {@code email.outbox.retention-hours} old, so the table holds only recent mail.
+ *
+ * Metrics: {@code email.outbox.sent}, {@code email.outbox.retried} and
+ * {@code email.outbox.dead} (counters); {@code email.outbox.batch} (timer per SMTP batch,
+ * tag outcome); {@code email.outbox.lag} (timer from queueing to delivery);
+ * {@code email.outbox.pending} and {@code email.outbox.oldest.age} (gauges, in emails and
+ * seconds, refreshed every poll).
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final long MAX_BACKOFF_MILLIS = 300_000;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+    private final Timer lag;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long leaseMillis;
+    private final long pollMillis;
+    private final long retentionHours;
+    private final Semaphore slots;
+    private final ThreadPoolExecutor workers;
+    private ScheduledExecutorService poller;
+    private volatile boolean stopped;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository, EmailService emailService,
+                                 JavaMailSender mailSender, TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${email.outbox.workers:4}") int workerCount,
+                                 @Value("${email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${email.outbox.max-attempts:10}") int maxAttempts,
+                                 @Value("${email.outbox.retry-base-millis:5000}") long retryBaseMillis,
+                                 @Value("${email.outbox.lease-millis:60000}") long leaseMillis,
+                                 @Value("${email.outbox.poll-millis:1000}") long pollMillis,
+                                 @Value("${email.outbox.retention-hours:168}") long retentionHours) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.sent = meterRegistry.counter("email.outbox.sent");
+        this.retried = meterRegistry.counter("email.outbox.retried");
+        this.dead = meterRegistry.counter("email.outbox.dead");
+        this.lag = meterRegistry.timer("email.outbox.lag");
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("email.outbox.oldest.age", oldestAgeSeconds, AtomicLong::get).baseUnit("seconds").register(meterRegistry);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMillis = retryBaseMillis;
+        this.leaseMillis = leaseMillis;
+        this.pollMillis = pollMillis;
+        this.retentionHours = retentionHours;
+        this.slots = new Semaphore(workerCount);
+        AtomicInteger threads = new AtomicInteger();
+        // the slots keep at most workerCount batches queued or running
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerCount), r -> {
+                    Thread thread = new Thread(r, "email-outbox-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Claim due emails a batch at a time and hand each batch to a worker, until nothing
+     * is due or every worker is busy.
+     *
+     * @return the number of emails handed out
+     */
+    public int dispatchDue() {
+        int dispatched = 0;
+        while (!stopped && slots.tryAcquire()) {
+            List<EmailOutbox> batch;
+            try {
+                batch = claimBatch();
+            } catch (RuntimeException e) {
+                slots.release();
+                throw e;
+            }
+            if (batch.isEmpty()) {
+                slots.release();
+                break;
+            }
+            try {
+                workers.execute(() -> drain(batch));
+            } catch (RejectedExecutionException e) {
+                // shutting down; the batch is sent again once its lease runs out
+                slots.release();
+                break;
+            }
+            dispatched += batch.size();
+        }
+        refreshBacklog();
+        return dispatched;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startPoller() {
+        if (poller != null) return;
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "email-outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                dispatchDue();
+            } catch (Exception e) {
+                log.warn("Email outbox poll failed: {}", e.getMessage());
+            }
+        }, 0, pollMillis, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purgeFinished, 0, 1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Delete sent and dead-lettered emails older than the retention period.
+     *
+     * @return the number of emails deleted
+     */
+    public int purgeFinished() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+            Integer purged = transactionTemplate.execute(status ->
+                    outboxRepository.deleteFinishedBefore(List.of(Status.SENT, Status.DEAD), before));
+            if (purged != null && purged > 0) log.info("Purged {} finished emails from the outbox", purged);
+            return purged != null ? purged : 0;
+        } catch (Exception e) {
+            log.warn("Finished emails not purged from the outbox: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        stopped = true;
+        if (poller != null) poller.shutdownNow();
+        workers.shutdown();
+    }
+
+    private void drain(List<EmailOutbox> first) {
+        try {
+            List<EmailOutbox> batch = first;
+            while (true) {
+                deliver(batch);
+                if (stopped || batch.size() < batchSize) break;
+                batch = claimBatch();
+                if (batch.isEmpty()) break;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Lease up to a batch of due emails to this dispatcher.
+     */
+    private List<EmailOutbox> claimBatch() {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime leaseUntil = now.plusNanos(leaseMillis * 1_000_000);
+            List<String> claimed = new ArrayList<>();
+            for (String id : outboxRepository.findDueIds(Status.PENDING, now, PageRequest.of(0, batchSize))) {
+                if (outboxRepository.claim(id, Status.PENDING, now, leaseUntil) == 1) claimed.add(id);
+            }
+            return claimed.isEmpty() ? List.<EmailOutbox>of() : outboxRepository.findAllById(claimed);
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    /**
+     * Send the batch in one call to the mail sender and record what happened to each email.
+     */
+    private void deliver(List<EmailOutbox> batch) {
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        Set<EmailOutbox> undeliverable = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (EmailOutbox email : batch) {
+            try {
+                new InternetAddress(email.getRecipient(), true);
+            } catch (AddressException e) {
+                failures.put(email, e);
+                undeliverable.add(email);
+                continue;
+            }
+            try {
+                messages.put(emailService.createMessage(email.getRecipient(), email.getSubject(), email.getHtmlBody()), email);
+            } catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+        if (!messages.isEmpty()) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "success";
+            try {
+                mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    EmailOutbox email = messages.get(message);
+                    if (email != null) failures.put(email, cause);
+                });
+                if (e.getFailedMessages().isEmpty()) messages.values().forEach(email -> failures.put(email, e));
+                outcome = e.getFailedMessages().size() < messages.size() ? "partial" : "failure";
+            } catch (MailException e) {
+                messages.values().forEach(email -> failures.put(email, e));
+                outcome = "failure";
+            }
+            sample.stop(Timer.builder("email.outbox.batch").tag("outcome", outcome).register(meterRegistry));
+        }
+        try {
+            record(batch, failures, undeliverable);
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Email outbox batch was recorded by another dispatcher");
+        }
+    }
+
+    private void record(List<EmailOutbox> batch, Map<EmailOutbox, Exception> failures, Set<EmailOutbox> undeliverable) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> delivered = batch.stream().filter(email -> !failures.containsKey(email)).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxRepository.markSent(delivered.stream().map(EmailOutbox::getId).toList(), now, Status.SENT, Status.PENDING);
+            }
+            failures.forEach((email, cause) ->
+                    outboxRepository.save(failed(email, cause, undeliverable.contains(email) || isRejected(cause))));
+        });
+        sent.increment(delivered.size());
+        for (EmailOutbox email : delivered) {
+            if (email.getCreatedAt() != null) lag.record(Duration.between(email.getCreatedAt(), now));
+        }
+    }
+
+    private EmailOutbox failed(EmailOutbox email, Exception cause, boolean permanent) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(describe(cause));
+        if (permanent || attempts >= maxAttempts) {
+            email.setStatus(Status.DEAD);
+            dead.increment();
+            log.error("Email to {} for order {} dead-lettered after {} attempts: {}",
+                    email.getRecipient(), email.getOrderId(), attempts, email.getLastError());
+        } else {
+            long backoff = Math.min(MAX_BACKOFF_MILLIS, retryBaseMillis << Math.min(attempts - 1, 20));
+            email.setNextAttemptAt(LocalDateTime.now().plusNanos(backoff * 1_000_000));
+            retried.increment();
+            log.warn("Email to {} for order {} failed (attempt {}), retrying in {} ms: {}",
+                    email.getRecipient(), email.getOrderId(), attempts, backoff, email.getLastError());
+        }
+        return email;
+    }
+
+    private void refreshBacklog() {
+        pending.set(outboxRepository.countByStatus(Status.PENDING));
+        LocalDateTime oldest = outboxRepository.findOldestCreatedAt(Status.PENDING);
+        oldestAgeSeconds.set(oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()) : 0);
+    }
+
+    /**
+     * Whether the relay refused the recipient with a 5xx reply; a 4xx leaves the address
+     * among the valid unsent ones, to be tried again.
+     */
+    private static boolean isRejected(Exception cause) {
+        return cause instanceof SendFailedException failed
+                && failed.getInvalidAddresses() != null && failed.getInvalidAddresses().length > 0;
+    }
+
+    private static String describe(Exception cause) {
+        String message = String.valueOf(cause.getMessage()).strip();
+        if (cause instanceof MessagingException messaging && messaging.getNextException() != null) {
+            message += ": " + String.valueOf(messaging.getNextException().getMessage()).strip();
+        }
+        return message;
+    }
+}
@@ -15,13 +15,13 @@ public class EmailSender {
 
     /**
      * Send an order confirmation email for an existing order by id.
-     * This method delegates to EmailService asynchronously.
+     * The email is queued in the outbox and sent by EmailOutboxDispatcher.
      */
     public void confirmOrderByEmail(String orderId) {
         Order order = orderService.getOrderById(orderId);
-        String orderNumber = "ORD-" + order.getId().substring(0, Math.min(8, order.getId().length())).toUpperCase();
+        String orderNumber = order.displayOrderNumber();
         log.info("Triggering confirmation email for order {} ({})", orderId, orderNumber);
         String html = emailService.buildConfirmOrderByEmailMessage(order, orderNumber);
-        emailService.sendCustomOrderConfirmationAsync(order, orderNumber, html);
+        emailService.queueCustomOrderConfirmation(order, orderNumber, html);
     }
 }
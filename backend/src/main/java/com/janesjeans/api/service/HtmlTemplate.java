@@ -0,0 +1,215 @@
+package com.janesjeans.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An HTML template parsed once into a list of segments: static text and placeholders
+ * bound to a value slot by name. Rendering walks the segments into a per-thread buffer
+ * that is reused between renders, so sending an email does no parsing or formatting of
+ * the markup itself.
+ *
+ * Syntax:
+ * <ul>
+ *   <li>{@code {{name}}} writes the value HTML-escaped; {@code {{name|lines}}} also turns
+ *       each comma into a line break, for addresses.</li>
+ *   <li>{@code {{#name}}...{{/name}}} renders its body only if the value is not null;
+ *       {@code {{^name}}...{{/name}}} only if it is.</li>
+ *   <li>A value that is a {@link Fragment} is not escaped but asked to write itself, for
+ *       nested markup such as the rows of an item table.</li>
+ * </ul>
+ */
+final class HtmlTemplate {
+
+    /**
+     * Markup written straight into the template's buffer. It must escape what it writes
+     * and render nested templates with {@link #renderTo}, never {@link #render}.
+     */
+    @FunctionalInterface
+    interface Fragment {
+        void writeTo(StringBuilder out);
+    }
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    // a buffer grown past this by one huge email is dropped rather than kept per thread
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private final List<String> names;
+    private final Segment[] segments;
+
+    private HtmlTemplate(List<String> names, Segment[] segments) {
+        this.names = names;
+        this.segments = segments;
+    }
+
+    /**
+     * Load a template from the classpath. Each line is trimmed and the lines are joined
+     * without a separator, so the files can be indented freely; break lines only between
+     * tags.
+     *
+     * @param names the placeholder names, in the order their values are passed to render
+     */
+    static HtmlTemplate load(String resource, String... names) {
+        try (InputStream in = HtmlTemplate.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Template not found: " + resource);
+            StringBuilder source = new StringBuilder();
+            new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().forEach(line -> source.append(line.strip()));
+            return compile(source.toString(), names);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read template " + resource, e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the template uses a name not in {@code names} or
+     *                                  a section is not closed
+     */
+    static HtmlTemplate compile(String source, String... names) {
+        List<String> slots = List.of(names);
+        Parser parser = new Parser(source, slots);
+        Segment[] segments = parser.parse(null);
+        return new HtmlTemplate(slots, segments);
+    }
+
+    /**
+     * Render with {@code values} in the order of the names the template was compiled
+     * with.
+     */
+    String render(Object... values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        renderTo(out, values);
+        String html = out.toString();
+        if (out.capacity() > MAX_RETAINED_CAPACITY) BUFFER.remove();
+        return html;
+    }
+
+    /**
+     * Append the rendered template to {@code out}, for templates nested in a
+     * {@link Fragment}.
+     */
+    void renderTo(StringBuilder out, Object... values) {
+        if (values.length != names.size()) {
+            throw new IllegalArgumentException("Expected values for " + names + " but got " + values.length);
+        }
+        for (Segment segment : segments) segment.write(out, values);
+    }
+
+    /**
+     * Append {@code text} with &amp;, &lt;, &gt; and both quotes escaped; with
+     * {@code lines}, commas become {@code <br>}.
+     */
+    static void escape(CharSequence text, StringBuilder out, boolean lines) {
+        int length = text.length();
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                case ',' -> lines ? "<br>" : null;
+                default -> null;
+            };
+            if (replacement == null) continue;
+            out.append(text, run, i).append(replacement);
+            run = i + 1;
+        }
+        out.append(text, run, length);
+    }
+
+    private interface Segment {
+        void write(StringBuilder out, Object[] values);
+    }
+
+    private record Text(String text) implements Segment {
+        @Override
+        public void write(StringBuilder out, Object[] values) {
+            out.append(text);
+        }
+    }
+
+    private record Value(int slot, boolean lines) implements Segment {
+        @Override
+        public void write(StringBuilder out, Object[] values) {
+            Object value = values[slot];
+            if (value == null) return;
+            if (value instanceof Fragment fragment) {
+                fragment.writeTo(out);
+            } else if (value instanceof Integer number) {
+                out.append(number.intValue());
+            } else if (value instanceof CharSequence text) {
+                escape(text, out, lines);
+            } else {
+                escape(value.toString(), out, lines);
+            }
+        }
+    }
+
+    private record Section(int slot, boolean inverted, Segment[] body) implements Segment {
+        @Override
+        public void write(StringBuilder out, Object[] values) {
+            if ((values[slot] == null) != inverted) return;
+            for (Segment segment : body) segment.write(out, values);
+        }
+    }
+
+    private static final class Parser {
+
+        private final String source;
+        private final List<String> names;
+        private int position;
+
+        Parser(String source, List<String> names) {
+            this.source = source;
+            this.names = names;
+        }
+
+        /**
+         * Parse up to the end of the source, or up to the closing tag of {@code section}.
+         */
+        Segment[] parse(String section) {
+            List<Segment> segments = new ArrayList<>();
+            while (position < source.length()) {
+                int open = source.indexOf("{{", position);
+                if (open < 0) break;
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) throw new IllegalArgumentException("Unclosed placeholder at " + open);
+                if (open > position) segments.add(new Text(source.substring(position, open)));
+                String tag = source.substring(open + 2, close).strip();
+                position = close + 2;
+                char kind = tag.isEmpty() ? ' ' : tag.charAt(0);
+                if (kind == '/') {
+                    String name = tag.substring(1).strip();
+                    if (!name.equals(section)) throw new IllegalArgumentException("Unexpected {{/" + name + "}} at " + open);
+                    return segments.toArray(Segment[]::new);
+                }
+                if (kind == '#' || kind == '^') {
+                    String name = tag.substring(1).strip();
+                    segments.add(new Section(slot(name), kind == '^', parse(name)));
+                } else {
+                    String[] parts = tag.split("\\|", 2);
+                    boolean lines = parts.length == 2 && parts[1].strip().equals("lines");
+                    if (parts.length == 2 && !lines) throw new IllegalArgumentException("Unknown filter in {{" + tag + "}}");
+                    segments.add(new Value(slot(parts[0].strip()), lines));
+                }
+            }
+            if (section != null) throw new IllegalArgumentException("Section {{#" + section + "}} is not closed");
+            if (position < source.length()) segments.add(new Text(source.substring(position)));
+            position = source.length();
+            return segments.toArray(Segment[]::new);
+        }
+
+        private int slot(String name) {
+            int slot = names.indexOf(name);
+            if (slot < 0) throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}, expected one of " + names);
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.entity.IdempotencyRecord;
+import com.janesjeans.api.exception.IdempotencyKeyReusedException;
+import com.janesjeans.api.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key and endpoint and replays its response
+ * for retries. Keys are stored with the endpoint in front, so the same key sent to two
+ * endpoints names two requests.
+ *
+ * Successful responses are kept in a bounded LRU map for quick replays and written to the
+ * idempotency_keys table, so a replay still works after the entry is evicted or the app
+ * restarts; both expire after {@code idempotency.ttl-hours}. Requests that arrive while
+ * the first one with the same key is still running wait for it and get its response
+ * instead of running again. Failed responses (4xx, exceptions) are shared with those
+ * waiters but not stored, so a later retry runs the request afresh.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final String INSERT_SQL = "INSERT INTO idempotency_keys "
+            + "(idempotency_key, request_hash, status_code, response_body, created_at, expires_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    record Stored(String requestHash, int status, String body, LocalDateTime expiresAt) {}
+
+    private final IdempotencyRecordRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final long ttlHours;
+    private final Map<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Stored> completed;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlHours = ttlHours;
+        this.completed = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Run {@code action} for the first request with this key and return its response;
+     * return the stored response for every later one. Without a key the action just runs.
+     *
+     * @param scope   the endpoint; the same key sent to another endpoint is another request
+     * @param request the request body, fingerprinted to catch a key reused for a different cart
+     * @throws IdempotencyKeyReusedException if the key was first used with another request
+     * @throws IllegalArgumentException if the key is blank or longer than 255 characters
+     */
+    public ResponseEntity<?> execute(String key, String scope, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null) return action.get();
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String hash = fingerprint(scope, request);
+        String id = scope + " " + key;
+
+        Stored stored = cached(id);
+        if (stored != null) return replay(key, hash, stored);
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) return replay(key, hash, await(running));
+        try {
+            stored = cached(id);
+            if (stored == null) stored = load(id);
+            if (stored != null) {
+                mine.complete(stored);
+                return replay(key, hash, stored);
+            }
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+            stored = new Stored(hash, response.getStatusCode().value(), toJson(response.getBody()),
+                    LocalDateTime.now().plusHours(ttlHours));
+            if (response.getStatusCode().is2xxSuccessful()) save(id, stored);
+            mine.complete(stored);
+            return response;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    /**
+     * Drop stored responses whose time is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void purgeExpired() {
+        try {
+            int purged = repository.deleteExpired(LocalDateTime.now());
+            if (purged > 0) log.info("Purged {} expired idempotency keys", purged);
+        } catch (Exception e) {
+            log.warn("Expired idempotency keys not purged: {}", e.getMessage());
+        }
+    }
+
+    private Stored cached(String id) {
+        synchronized (completed) {
+            Stored stored = completed.get(id);
+            if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+                completed.remove(id);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void remember(String id, Stored stored) {
+        synchronized (completed) {
+            completed.put(id, stored);
+        }
+    }
+
+    private Stored load(String id) {
+        IdempotencyRecord record = repository.findById(id).orElse(null);
+        if (record == null) return null;
+        if (record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            repository.deleteById(id);
+            return null;
+        }
+        Stored stored = new Stored(record.getRequestHash(), record.getStatusCode(), record.getResponseBody(), record.getExpiresAt());
+        remember(id, stored);
+        return stored;
+    }
+
+    private void save(String id, Stored stored) {
+        remember(id, stored);
+        try {
+            jdbcTemplate.update(INSERT_SQL, id, stored.requestHash(), stored.status(), stored.body(),
+                    Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(stored.expiresAt()));
+        } catch (DuplicateKeyException e) {
+            // another instance finished the same key first; either response is a valid replay
+            log.info("Idempotency key {} was stored concurrently", id);
+        } catch (RuntimeException e) {
+            log.warn("Idempotency key {} not persisted, replays limited to this instance: {}", id, e.getMessage());
+        }
+    }
+
+    private static Stored await(CompletableFuture<Stored> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static ResponseEntity<?> replay(String key, String hash, Stored stored) {
+        if (!stored.requestHash().equals(hash)) throw new IdempotencyKeyReusedException(key);
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stored.body());
+    }
+
+    private String fingerprint(String scope, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response", e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.exception.OtpStoreFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link OtpStore} in this node's memory; OTPs requested here can only be verified here,
+ * so it suits a single instance (otp.store.type=memory, the default).
+ *
+ * Entries expire by themselves: every put files the entry's deadline in a
+ * {@link TimerWheel} ticked in the background, and entries that come due are removed
+ * and their order ids handed to the expiry listener in batches, so an OTP nobody
+ * verifies no longer stays on the heap. The store is capped by entry count and by an
+ * estimate of the memory its entries hold. At the cap a new order's OTP is rejected
+ * with {@link OtpStoreFullException}; pending customers are never evicted to make room,
+ * so flooding the request endpoint cannot push real verifications out. Replacing the
+ * OTP of an order already in the store is allowed if the new entry fits.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store.type", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryOtpStore implements OtpStore {
+
+    // rough per-object costs for the memory estimate: map node, entry and wheel timeout;
+    // request with its nested objects; one cart line
+    private static final long ENTRY_OVERHEAD = 160;
+    private static final long REQUEST_OVERHEAD = 240;
+    private static final long ITEM_OVERHEAD = 120;
+    private static final long STRING_OVERHEAD = 40;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final TimerWheel<String> wheel;
+    private final long tickMillis;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int expiryBatchSize;
+    private final long retryAfterSeconds;
+    private final Counter evictions;
+    private final Counter consumed;
+    private final Counter rejections;
+    private volatile Consumer<List<String>> expiryListener = ids -> {};
+    private long bytes;
+    private ScheduledExecutorService ticker;
+
+    public InMemoryOtpStore(MeterRegistry meterRegistry,
+                            @Value("${otp.store.tick-millis:1000}") long tickMillis,
+                            @Value("${otp.store.max-entries:10000}") int maxEntries,
+                            @Value("${otp.store.max-bytes:16777216}") long maxBytes,
+                            @Value("${otp.store.expiry-batch-size:500}") int expiryBatchSize,
+                            @Value("${otp.store.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.tickMillis = tickMillis;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.expiryBatchSize = expiryBatchSize;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.wheel = new TimerWheel<>(tickMillis, 512, System.currentTimeMillis());
+        this.evictions = meterRegistry.counter("otp.store.evictions");
+        this.consumed = meterRegistry.counter("otp.store.consumed");
+        this.rejections = meterRegistry.counter("otp.store.rejections");
+        meterRegistry.gauge("otp.store.size", entries, Map::size);
+        meterRegistry.gauge("otp.store.bytes", this, InMemoryOtpStore::estimatedBytes);
+        // share of OTPs that were used rather than left to expire
+        meterRegistry.gauge("otp.store.hit.ratio", this, store -> {
+            double used = store.consumed.count();
+            double total = used + store.evictions.count();
+            return total == 0 ? Double.NaN : used / total;
+        });
+    }
+
+    @Override
+    public void onExpiry(Consumer<List<String>> listener) {
+        this.expiryListener = listener;
+    }
+
+    /**
+     * @throws OtpStoreFullException if the entry would take the store past its entry or memory cap
+     */
+    @Override
+    public synchronized void put(String orderId, Entry entry) {
+        long weight = weigh(entry);
+        Entry previous = entries.get(orderId);
+        long after = bytes + weight - (previous != null ? weigh(previous) : 0);
+        if ((previous == null && entries.size() >= maxEntries) || after > maxBytes) {
+            rejections.increment();
+            log.warn("OTP store full ({} entries, ~{} bytes), rejected OTP for order {}", entries.size(), bytes, orderId);
+            throw new OtpStoreFullException(retryAfterSeconds);
+        }
+        entries.put(orderId, entry);
+        bytes = after;
+        wheel.schedule(orderId, entry.expiresAtMillis());
+    }
+
+    /**
+     * The order's OTP, or null if there is none or it has expired.
+     */
+    public Entry get(String orderId) {
+        Entry entry = entries.get(orderId);
+        return entry != null && entry.expiresAtMillis() > System.currentTimeMillis() ? entry : null;
+    }
+
+    /**
+     * Remove {@code entry} as used, if it is still the order's current entry; of two
+     * callers racing to use the same OTP only one succeeds.
+     */
+    public synchronized boolean consume(String orderId, Entry entry) {
+        if (!entries.remove(orderId, entry)) return false;
+        bytes -= weigh(entry);
+        consumed.increment();
+        return true;
+    }
+
+    @Override
+    public Entry verify(String orderId, String destination, String otp) {
+        Entry entry = get(orderId);
+        if (entry == null || !entry.destination().equals(destination) || !entry.otp().equals(otp)) return null;
+        return consume(orderId, entry) ? entry : null;
+    }
+
+    @Override
+    public Entry take(String orderId) {
+        Entry entry = get(orderId);
+        return entry != null && consume(orderId, entry) ? entry : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized long estimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Remove every entry that has expired by {@code nowMillis} and pass their order ids
+     * to the expiry listener.
+     *
+     * @return the order ids whose OTP expired
+     */
+    public List<String> expireDue(long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        synchronized (this) {
+            for (String orderId : wheel.advance(nowMillis)) {
+                Entry entry = entries.get(orderId);
+                // replaced entries are still in the wheel under their old deadline as well
+                if (entry == null || entry.expiresAtMillis() > nowMillis || !entries.remove(orderId, entry)) continue;
+                bytes -= weigh(entry);
+                expired.add(orderId);
+            }
+        }
+        if (expired.isEmpty()) return expired;
+        evictions.increment(expired.size());
+        for (int from = 0; from < expired.size(); from += expiryBatchSize) {
+            List<String> batch = expired.subList(from, Math.min(from + expiryBatchSize, expired.size()));
+            try {
+                expiryListener.accept(batch);
+            } catch (Exception e) {
+                log.warn("Handling {} expired OTPs failed: {}", batch.size(), e.getMessage());
+            }
+        }
+        log.info("Expired {} unverified OTPs", expired.size());
+        return expired;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startTicker() {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "otp-store-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                expireDue(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("Expiring OTPs failed: {}", e.getMessage());
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void stopTicker() {
+        if (ticker != null) ticker.shutdownNow();
+    }
+
+    /**
+     * Estimated heap held by one entry; the request payload dominates.
+     */
+    static long weigh(Entry entry) {
+        long weight = ENTRY_OVERHEAD + chars(entry.destination()) + chars(entry.otp());
+        GuestOrderRequest request = entry.pendingRequest();
+        if (request == null) return weight;
+        weight += REQUEST_OVERHEAD;
+        if (request.getItems() != null) {
+            for (GuestOrderRequest.GuestOrderItem item : request.getItems()) {
+                weight += ITEM_OVERHEAD + chars(item.getProductId()) + chars(item.getProductName()) + chars(item.getSize());
+            }
+        }
+        GuestOrderRequest.ShipmentInfo ship = request.getShipmentDetails();
+        if (ship != null) {
+            weight += chars(ship.getName()) + chars(ship.getEmail()) + chars(ship.getPhone())
+                    + chars(ship.getAddress()) + chars(ship.getCity()) + chars(ship.getPostalCode());
+        }
+        GuestOrderRequest.PaymentInfo payment = request.getPayment();
+        if (payment != null) weight += chars(payment.getType()) + chars(payment.getStatus());
+        return weight;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+}
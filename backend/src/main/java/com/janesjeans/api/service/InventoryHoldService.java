@@ -0,0 +1,217 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.exception.InsufficientStockException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock held for orders awaiting OTP verification.
+ *
+ * Holding moves units from available to held in the products table (see
+ * {@link ProductService#holdStock}), so available-to-sell is enforced by the same
+ * conditional UPDATEs as checkout. The hold itself lives on the order: it is live while
+ * the order is pending verification with a hold_expires_at, so every instance sees the
+ * same holds. A hold ends exactly once: commit claims it by clearing hold_expires_at,
+ * release and expiry claim it by clearing it and marking the order "Not Verified", each
+ * with a conditional UPDATE, and only the instance whose UPDATE matched moves the order's
+ * quantities, in the same transaction. Only live holds keep a hold_expires_at, so the
+ * expiry poll never revisits ended ones. Every instance runs an expiry job that picks up
+ * lapsed holds in batches; on PostgreSQL with SKIP LOCKED, so instances split them.
+ */
+@Service
+@Slf4j
+public class InventoryHoldService {
+
+    private static final String LIVE = "status = 'PendingVerification' AND hold_expires_at IS NOT NULL";
+    private static final String CLAIM_SALE_SQL = "UPDATE orders SET hold_expires_at = NULL WHERE id = ? AND " + LIVE;
+    private static final String CLAIM_RELEASE_SQL = "UPDATE orders SET status = 'Not Verified', hold_expires_at = NULL, updated_at = ? "
+            + "WHERE id = ? AND " + LIVE;
+    private static final String EXTEND_SQL = "UPDATE orders SET hold_expires_at = ? WHERE id = ? AND " + LIVE;
+    private static final String HELD_BY_SQL = "SELECT product_id, SUM(quantity) FROM order_items WHERE order_id IN (%s) GROUP BY product_id";
+
+    private final ProductService productService;
+    private final OrderService orderService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final int expiryBatchSize;
+    private final String dueSql;
+    private ScheduledExecutorService ticker;
+
+    public InventoryHoldService(ProductService productService, OrderService orderService,
+                                JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                @Value("${inventory.holds.tick-millis:1000}") long tickMillis,
+                                @Value("${inventory.holds.expiry-batch-size:500}") int expiryBatchSize) {
+        this.productService = productService;
+        this.orderService = orderService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.expiryBatchSize = expiryBatchSize;
+        boolean postgres = "PostgreSQL".equals(databaseProductName(jdbcTemplate));
+        // SKIP LOCKED lets instances expiring at the same moment split the holds instead of queueing
+        this.dueSql = "SELECT id FROM orders WHERE status = 'PendingVerification' AND hold_expires_at <= ? "
+                + "ORDER BY hold_expires_at LIMIT ?" + (postgres ? " FOR UPDATE SKIP LOCKED" : "");
+    }
+
+    /**
+     * Hold the cart's stock for an order that is about to be saved with a holdExpiresAt,
+     * in the transaction that saves it (see {@link CheckoutService#placeOnHold}).
+     *
+     * @throws InsufficientStockException if any line cannot be covered; nothing is held
+     * @throws IllegalArgumentException for a line without a product id or with a quantity below 1
+     */
+    public void hold(List<GuestOrderRequest.GuestOrderItem> items) {
+        productService.holdStock(items);
+    }
+
+    /**
+     * Move an order's hold to a new expiry, e.g. when a fresh OTP is sent. Does nothing
+     * for orders without a live hold.
+     */
+    public void extend(String orderId, long expiresAtMillis) {
+        jdbcTemplate.update(EXTEND_SQL, new Timestamp(expiresAtMillis), orderId);
+    }
+
+    /**
+     * Turn the order's hold into a sale. An order placed without a hold, or whose hold was
+     * already sold, has its stock. An order whose hold was released is not sold: its units
+     * went back on sale then, and taking them again here would count them twice.
+     *
+     * @return whether the order's stock is now taken
+     */
+    public boolean commit(String orderId) {
+        boolean sold = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(CLAIM_SALE_SQL, orderId) == 0) return false;
+            productService.commitHeldStock(heldBy(List.of(orderId)));
+            return true;
+        }));
+        if (sold) return true;
+        Order order = orderService.getOrderById(orderId);
+        if (!"Not Verified".equals(order.getStatus())) return true;
+        log.warn("Order {} has no live hold, its stock is not taken", orderId);
+        return false;
+    }
+
+    /**
+     * Make the held stock of the given orders available again and mark them
+     * "Not Verified". Orders without a live hold are left alone.
+     *
+     * @return the ids of the orders whose hold this call ended
+     */
+    public List<String> release(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) return List.of();
+        List<String> ids = new ArrayList<>(new TreeSet<>(orderIds));
+        return transactionTemplate.execute(status -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            int[][] counts = jdbcTemplate.batchUpdate(CLAIM_RELEASE_SQL, ids, ids.size(), (ps, id) -> {
+                ps.setTimestamp(1, now);
+                ps.setString(2, id);
+            });
+            List<String> released = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (counts[0][i] > 0) released.add(ids.get(i));
+            }
+            if (!released.isEmpty()) productService.releaseHeldStock(heldBy(released));
+            return released;
+        });
+    }
+
+    /**
+     * Release every hold that has lapsed by {@code nowMillis}, a batch at a time, and
+     * mark its order "Not Verified".
+     *
+     * @return the ids of the orders whose hold this instance expired
+     */
+    public List<String> expireDue(long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        int due;
+        do {
+            due = transactionTemplate.execute(status -> {
+                List<String> ids = jdbcTemplate.queryForList(dueSql, String.class, new Timestamp(nowMillis), expiryBatchSize);
+                expired.addAll(release(ids));
+                return ids.size();
+            });
+        } while (due == expiryBatchSize);
+        if (!expired.isEmpty()) log.info("Released stock held by {} unverified orders", expired.size());
+        return expired;
+    }
+
+    /**
+     * Expire the holds that lapsed while no instance was running, bring held_stock back
+     * in line with the orders, then start the expiry ticker.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        try {
+            expireDue(System.currentTimeMillis());
+            int fixed = productService.reconcileHeldStock();
+            if (fixed > 0) log.info("Held stock of {} products was out of line with the orders", fixed);
+        } catch (Exception e) {
+            log.warn("Inventory holds not recovered, held stock may be stale: {}", e.getMessage());
+        }
+        startTicker();
+    }
+
+    /** Quantity per product id held by the given orders. */
+    private Map<String, Integer> heldBy(List<String> orderIds) {
+        String sql = String.format(HELD_BY_SQL, String.join(", ", Collections.nCopies(orderIds.size(), "?")));
+        Map<String, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            quantities.put(rs.getString(1), rs.getInt(2));
+        }, orderIds.toArray());
+        return quantities;
+    }
+
+    private synchronized void startTicker() {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> {
+            try {
+                expireDue(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("Expiring inventory holds failed: {}", e.getMessage());
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void stopTicker() {
+        if (ticker != null) ticker.shutdownNow();
+    }
+
+    private static String databaseProductName(JdbcTemplate jdbcTemplate) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot tell which database the inventory holds run on", e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.GuestOrderRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link OtpStore} in the order_otps table, shared by every replica, so an OTP requested
+ * through one instance can be verified through any other (otp.store.type=jdbc).
+ *
+ * Verifying and taking are each a single DELETE that returns the row it removed: the
+ * OTP, destination and expiry are checked in its WHERE clause, so whichever instance
+ * deletes the row owns the verification and no lock or second statement is needed.
+ * Only a hash of the OTP is stored. Every instance runs a purge job that deletes expired
+ * rows in batches through the expires_at index; since each row is deleted once, each
+ * expired order is reported by exactly one instance.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store.type", havingValue = "jdbc")
+@Slf4j
+public class JdbcOtpStore implements OtpStore {
+
+    private static final String UPDATE_SQL = "UPDATE order_otps SET destination = ?, otp_hash = ?, expires_at = ?, "
+            + "pending_request = ?, created_at = ? WHERE order_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO order_otps "
+            + "(order_id, destination, otp_hash, expires_at, pending_request, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String ENTRY_COLUMNS = "destination, expires_at, pending_request";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final long purgeMillis;
+    private final int expiryBatchSize;
+    private final String verifySql;
+    private final String takeSql;
+    private final String purgeSql;
+    private final Counter evictions;
+    private final Counter consumed;
+    private volatile Consumer<List<String>> expiryListener = ids -> {};
+    private ScheduledExecutorService purger;
+
+    public JdbcOtpStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                        @Value("${otp.store.purge-millis:5000}") long purgeMillis,
+                        @Value("${otp.store.expiry-batch-size:500}") int expiryBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.purgeMillis = purgeMillis;
+        this.expiryBatchSize = expiryBatchSize;
+        boolean postgres = "PostgreSQL".equals(databaseProductName(jdbcTemplate));
+        this.verifySql = deleteReturning(postgres, ENTRY_COLUMNS, "DELETE FROM order_otps "
+                + "WHERE order_id = ? AND destination = ? AND otp_hash = ? AND expires_at > ?");
+        this.takeSql = deleteReturning(postgres, ENTRY_COLUMNS, "DELETE FROM order_otps WHERE order_id = ? AND expires_at > ?");
+        // SKIP LOCKED lets instances purging at the same moment split the rows instead of queueing
+        this.purgeSql = deleteReturning(postgres, "order_id", "DELETE FROM order_otps WHERE order_id IN "
+                + "(SELECT order_id FROM order_otps WHERE expires_at <= ? ORDER BY expires_at LIMIT ?"
+                + (postgres ? " FOR UPDATE SKIP LOCKED" : "") + ")");
+        this.evictions = meterRegistry.counter("otp.store.evictions");
+        this.consumed = meterRegistry.counter("otp.store.consumed");
+        meterRegistry.gauge("otp.store.hit.ratio", this, store -> {
+            double used = store.consumed.count();
+            double total = used + store.evictions.count();
+            return total == 0 ? Double.NaN : used / total;
+        });
+    }
+
+    @Override
+    public void put(String orderId, Entry entry) {
+        Object[] values = {entry.destination(), hash(orderId, entry.otp()), new Timestamp(entry.expiresAtMillis()),
+                toJson(entry.pendingRequest()), new Timestamp(System.currentTimeMillis())};
+        if (jdbcTemplate.update(UPDATE_SQL, values[0], values[1], values[2], values[3], values[4], orderId) > 0) return;
+        try {
+            jdbcTemplate.update(INSERT_SQL, orderId, values[0], values[1], values[2], values[3], values[4]);
+        } catch (DuplicateKeyException e) {
+            // another instance inserted the order's first OTP meanwhile; the later request wins
+            jdbcTemplate.update(UPDATE_SQL, values[0], values[1], values[2], values[3], values[4], orderId);
+        }
+    }
+
+    @Override
+    public Entry verify(String orderId, String destination, String otp) {
+        List<Entry> removed = jdbcTemplate.query(verifySql, entryMapper(otp),
+                orderId, destination, hash(orderId, otp), new Timestamp(System.currentTimeMillis()));
+        return used(removed);
+    }
+
+    @Override
+    public Entry take(String orderId) {
+        return used(jdbcTemplate.query(takeSql, entryMapper(null), orderId, new Timestamp(System.currentTimeMillis())));
+    }
+
+    @Override
+    public void onExpiry(Consumer<List<String>> listener) {
+        this.expiryListener = listener;
+    }
+
+    /**
+     * Delete the rows expired by {@code nowMillis}, a batch at a time, and pass each
+     * batch's order ids to the expiry listener.
+     *
+     * @return the order ids this instance purged
+     */
+    public List<String> purgeExpired(long nowMillis) {
+        List<String> purged = new ArrayList<>();
+        List<String> batch;
+        do {
+            batch = jdbcTemplate.queryForList(purgeSql, String.class, new Timestamp(nowMillis), expiryBatchSize);
+            if (batch.isEmpty()) break;
+            evictions.increment(batch.size());
+            purged.addAll(batch);
+            try {
+                expiryListener.accept(batch);
+            } catch (Exception e) {
+                log.warn("Handling {} expired OTPs failed: {}", batch.size(), e.getMessage());
+            }
+        } while (batch.size() == expiryBatchSize);
+        if (!purged.isEmpty()) log.info("Purged {} expired OTPs", purged.size());
+        return purged;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startPurger() {
+        if (purger != null) return;
+        purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "otp-store-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purgeExpired(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("Purging expired OTPs failed: {}", e.getMessage());
+            }
+        }, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void stopPurger() {
+        if (purger != null) purger.shutdownNow();
+    }
+
+    private Entry used(List<Entry> removed) {
+        if (removed.isEmpty()) return null;
+        consumed.increment();
+        return removed.get(0);
+    }
+
+    private RowMapper<Entry> entryMapper(String otp) {
+        return (rs, row) -> new Entry(rs.getString("destination"), otp, rs.getTimestamp("expires_at").getTime(),
+                fromJson(rs.getString("pending_request")));
+    }
+
+    /**
+     * PostgreSQL returns the deleted rows with DELETE ... RETURNING; H2, used in tests,
+     * has no RETURNING but reads them from the same statement as a delta table.
+     */
+    private static String deleteReturning(boolean postgres, String columns, String delete) {
+        return postgres ? delete + " RETURNING " + columns : "SELECT " + columns + " FROM OLD TABLE (" + delete + ")";
+    }
+
+    private static String databaseProductName(JdbcTemplate jdbcTemplate) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot tell which database the OTP store runs on", e);
+        }
+    }
+
+    private static String hash(String orderId, String otp) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(orderId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(otp.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(GuestOrderRequest request) {
+        if (request == null) return null;
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store pending checkout", e);
+        }
+    }
+
+    private GuestOrderRequest fromJson(String json) {
+        if (json == null) return null;
+        try {
+            return objectMapper.readValue(json, GuestOrderRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read pending checkout", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.janesjeans.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the order listing: the (order date, id) of the last order on
+ * the previous slice, which is sorted newest first.
+ */
+public record OrderCursor(LocalDateTime orderDate, String id) {
+
+    public String encode() {
+        String raw = orderDate + "\n" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 2);
+            if (parts.length != 2 || parts[1].isEmpty()) throw new IllegalArgumentException("Invalid cursor");
+            return new OrderCursor(LocalDateTime.parse(parts[0]), parts[1]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
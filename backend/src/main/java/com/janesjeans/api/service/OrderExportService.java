@@ -0,0 +1,237 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.OrderSummaryDTO;
+import com.janesjeans.api.entity.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes orders with their items as CSV or NDJSON straight from a forward-only JDBC
+ * cursor. Rows are fetched {@code orders.export.fetch-size} at a time and written as they
+ * arrive, and only the current order is held in memory, so an export of any size runs in
+ * constant memory. The cursor runs in a read-only transaction, which PostgreSQL needs to
+ * honour the fetch size instead of sending the whole result at once.
+ */
+@Service
+@Slf4j
+public class OrderExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException for anything but csv or ndjson
+         */
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown export format: " + value + " (use csv or ndjson)");
+            }
+        }
+    }
+
+    static final String CSV_HEADER = "order_id,order_number,order_date,status,customer_name,customer_email,"
+            + "shipping_address,total_amount,shipped_date,delivered_date,product_id,product_name,size,quantity,price";
+
+    private static final String SELECT_SQL = "SELECT o.id, o.order_number, o.customer_id, o.customer_name, o.customer_email, "
+            + "o.status, o.total_amount, o.shipping_address, o.order_date, o.shipped_date, o.delivered_date, "
+            + "i.id AS item_id, i.product_id, i.product_name, i.size, i.quantity, i.price "
+            + "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id";
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnly;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              @Value("${orders.export.fetch-size:1000}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every order matching the filters, oldest first, to {@code out}. The stream is
+     * flushed but not closed.
+     *
+     * @param status only orders with this status, if not blank
+     * @param from   only orders placed at or after this time, if not null
+     * @param to     only orders placed before this time, if not null
+     * @return the number of orders written
+     * @throws IllegalArgumentException if from is after to
+     */
+    public long export(Format format, String status, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (status != null && !status.isBlank()) {
+            conditions.add("o.status = ?");
+            args.add(status);
+        }
+        if (from != null) {
+            conditions.add("o.order_date >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("o.order_date < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        // an order's rows must arrive together for the grouping below
+        sql.append(" ORDER BY o.order_date, o.id, i.id");
+
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        OrderGrouper grouper = new OrderGrouper(format, writer);
+        try {
+            if (format == Format.CSV) writer.write(CSV_HEADER + "\n");
+            readOnly.executeWithoutResult(tx -> cursorTemplate.query(sql.toString(), grouper, args.toArray()));
+            grouper.flush();
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("Exported {} orders as {} in {} ms", grouper.written, format, System.currentTimeMillis() - start);
+        return grouper.written;
+    }
+
+    /**
+     * Collects consecutive rows of the same order and writes the order once its last row
+     * has been read.
+     */
+    private final class OrderGrouper implements RowCallbackHandler {
+
+        private final Format format;
+        private final Writer writer;
+        private OrderSummaryDTO current;
+        private long written;
+
+        OrderGrouper(Format format, Writer writer) {
+            this.format = format;
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String id = rs.getString("id");
+            if (current == null || !current.getId().equals(id)) {
+                flush();
+                current = new OrderSummaryDTO(id, rs.getObject("order_number", Long.class), rs.getString("customer_id"),
+                        rs.getString("customer_name"), rs.getString("customer_email"), rs.getString("status"),
+                        rs.getBigDecimal("total_amount"), rs.getString("shipping_address"), toDateTime(rs.getTimestamp("order_date")),
+                        toDateTime(rs.getTimestamp("shipped_date")), toDateTime(rs.getTimestamp("delivered_date")));
+                current.setItems(new ArrayList<>());
+            }
+            if (rs.getString("item_id") != null) {
+                current.getItems().add(OrderItem.builder()
+                        .id(rs.getString("item_id"))
+                        .productId(rs.getString("product_id"))
+                        .productName(rs.getString("product_name"))
+                        .size(rs.getString("size"))
+                        .quantity(rs.getInt("quantity"))
+                        .price(rs.getBigDecimal("price"))
+                        .build());
+            }
+        }
+
+        void flush() {
+            if (current == null) return;
+            try {
+                if (format == Format.NDJSON) {
+                    writer.write(objectMapper.writeValueAsString(current));
+                    writer.write('\n');
+                } else {
+                    writeCsv(current, writer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+            current = null;
+        }
+    }
+
+    /**
+     * One line per item, the order's columns repeated; an order without items gets one
+     * line with the item columns empty.
+     */
+    static void writeCsv(OrderSummaryDTO order, Writer writer) throws IOException {
+        String orderColumns = String.join(",",
+                csv(order.getId()), csv(order.getOrderNumber()), csv(order.getOrderDate()), csv(order.getStatus()),
+                csv(order.getCustomerName()), csv(order.getCustomerEmail()), csv(order.getShippingAddress()),
+                csv(order.getTotalAmount()), csv(order.getShippedDate()), csv(order.getDeliveredDate()));
+        if (order.getItems().isEmpty()) {
+            writer.write(orderColumns + ",,,,,\n");
+            return;
+        }
+        for (OrderItem item : order.getItems()) {
+            writer.write(orderColumns);
+            writer.write(',');
+            writer.write(String.join(",", csv(item.getProductId()), csv(item.getProductName()), csv(item.getSize()),
+                    csv(item.getQuantity()), csv(item.getPrice())));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Quote a CSV field when needed. Text starting with =, +, - or @ gets a leading
+     * apostrophe so spreadsheets do not evaluate it as a formula.
+     */
+    static String csv(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) text = "'" + text;
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static LocalDateTime toDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
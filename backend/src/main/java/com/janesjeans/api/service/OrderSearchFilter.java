@@ -0,0 +1,26 @@
+package com.janesjeans.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Filters for order search. Null fields mean "no constraint"; the fields are ANDed.
+ * from is inclusive and to exclusive; both amount bounds are inclusive.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchFilter {
+    private String status;
+    private String customerEmail;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private BigDecimal minTotal;
+    private BigDecimal maxTotal;
+}
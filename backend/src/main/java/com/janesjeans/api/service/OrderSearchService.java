@@ -0,0 +1,135 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.OrderSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order search by status, customer email, order date range and amount range, newest
+ * first with keyset paging on (order_date, id).
+ *
+ * The SQL is built from the filters actually given rather than written with
+ * "(:param IS NULL OR ...)" guards, so the planner sees plain equalities and ranges and
+ * can use the (status, order_date, id) and (customer_email, order_date, id) indexes: a
+ * page is a backward range scan from the cursor that stops at the limit.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderSearchService {
+
+    record SearchQuery(String sql, List<Object> args) {}
+
+    private static final String SELECT_SQL = "SELECT id, order_number, customer_id, customer_name, customer_email, status, "
+            + "total_amount, shipping_address, order_date, shipped_date, delivered_date FROM orders";
+
+    private static final RowMapper<OrderSummaryDTO> SUMMARY = (rs, row) -> new OrderSummaryDTO(rs.getString("id"),
+            rs.getObject("order_number", Long.class), rs.getString("customer_id"), rs.getString("customer_name"),
+            rs.getString("customer_email"), rs.getString("status"), rs.getBigDecimal("total_amount"),
+            rs.getString("shipping_address"), toDateTime(rs.getTimestamp("order_date")),
+            toDateTime(rs.getTimestamp("shipped_date")), toDateTime(rs.getTimestamp("delivered_date")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderService orderService;
+
+    /**
+     * One slice of matching orders, continuing after {@code cursor} if given.
+     *
+     * @param withItems also load the line items of the slice's orders, in one query
+     * @throws IllegalArgumentException for a malformed cursor, a size outside 1 to 200, from after to,
+     *                                  or a minimum amount above the maximum
+     */
+    public OrderSlice search(OrderSearchFilter filter, String cursor, int size, boolean withItems) {
+        if (size < 1 || size > OrderService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + OrderService.MAX_PAGE_SIZE);
+        }
+        if (filter.getFrom() != null && filter.getTo() != null && filter.getFrom().isAfter(filter.getTo())) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (filter.getMinTotal() != null && filter.getMaxTotal() != null
+                && filter.getMinTotal().compareTo(filter.getMaxTotal()) > 0) {
+            throw new IllegalArgumentException("'minTotal' must not be above 'maxTotal'");
+        }
+        OrderCursor after = cursor == null || cursor.isBlank() ? null : OrderCursor.decode(cursor);
+
+        SearchQuery query = buildQuery(normalize(filter), after, size + 1);
+        List<OrderSummaryDTO> rows = jdbcTemplate.query(query.sql(), SUMMARY, query.args().toArray());
+        boolean hasNext = rows.size() > size;
+        List<OrderSummaryDTO> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        if (withItems) orderService.attachItems(content);
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummaryDTO last = content.get(content.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new OrderSlice(content, nextCursor);
+    }
+
+    /**
+     * The statement for one slice; only the given filters appear in the WHERE clause.
+     */
+    static SearchQuery buildQuery(OrderSearchFilter filter, OrderCursor after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            conditions.add("status = ?");
+            args.add(filter.getStatus());
+        }
+        if (filter.getCustomerEmail() != null) {
+            conditions.add("customer_email = ?");
+            args.add(filter.getCustomerEmail());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("order_date >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            conditions.add("order_date < ?");
+            args.add(Timestamp.valueOf(filter.getTo()));
+        }
+        if (filter.getMinTotal() != null) {
+            conditions.add("total_amount >= ?");
+            args.add(filter.getMinTotal());
+        }
+        if (filter.getMaxTotal() != null) {
+            conditions.add("total_amount <= ?");
+            args.add(filter.getMaxTotal());
+        }
+        if (after != null) {
+            // row comparison, which the planner turns into one index range bound
+            conditions.add("(order_date, id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.orderDate()));
+            args.add(after.id());
+        }
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        sql.append(" ORDER BY order_date DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return new SearchQuery(sql.toString(), args);
+    }
+
+    private static OrderSearchFilter normalize(OrderSearchFilter filter) {
+        return OrderSearchFilter.builder()
+                .status(blankToNull(filter.getStatus()))
+                .customerEmail(blankToNull(filter.getCustomerEmail()))
+                .from(filter.getFrom())
+                .to(filter.getTo())
+                .minTotal(filter.getMinTotal())
+                .maxTotal(filter.getMaxTotal())
+                .build();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static LocalDateTime toDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
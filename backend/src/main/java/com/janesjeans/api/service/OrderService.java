@@ -1,23 +1,96 @@
 package com.janesjeans.api.service;
 
+import com.janesjeans.api.dto.OrderSummaryDTO;
 import com.janesjeans.api.entity.Order;
 import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.repository.OrderItemRepository;
 import com.janesjeans.api.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
 
-    public List<Order> getAllOrders() {
-        return orderRepository.findAllByOrderByOrderDateDesc();
+    static final int MAX_PAGE_SIZE = 200;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("id"));
+
+    /**
+     * One page of order summaries, newest first, optionally filtered by status and by an
+     * order date range (from inclusive, to exclusive).
+     *
+     * @param withItems also load the line items of the page's orders, in one query
+     * @throws IllegalArgumentException for a page below 0, a size outside 1 to 200, or from after to
+     */
+    public Page<OrderSummaryDTO> getOrderSummaries(String status, LocalDateTime from, LocalDateTime to,
+                                                   int page, int size, boolean withItems) {
+        checkListing(from, to, size);
+        if (page < 0) throw new IllegalArgumentException("Page must not be negative");
+        Page<OrderSummaryDTO> result = orderRepository.findSummaries(blankToNull(status), from, to,
+                PageRequest.of(page, size, NEWEST_FIRST));
+        if (withItems) attachItems(result.getContent());
+        return result;
+    }
+
+    /**
+     * Like {@link #getOrderSummaries} but keyset-paginated: each slice continues after the
+     * cursor of the previous one, so deep slices cost the same as the first and there is
+     * no count query.
+     *
+     * @throws IllegalArgumentException for a malformed cursor, a size outside 1 to 200, or from after to
+     */
+    public OrderSlice scrollOrderSummaries(String status, LocalDateTime from, LocalDateTime to,
+                                           String cursor, int size, boolean withItems) {
+        checkListing(from, to, size);
+        OrderCursor after = cursor == null || cursor.isBlank() ? null : OrderCursor.decode(cursor);
+        List<OrderSummaryDTO> rows = orderRepository.findSummariesAfter(blankToNull(status), from, to,
+                after != null ? after.orderDate() : null, after != null ? after.id() : null,
+                PageRequest.of(0, size + 1));
+        boolean hasNext = rows.size() > size;
+        List<OrderSummaryDTO> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        if (withItems) attachItems(content);
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummaryDTO last = content.get(content.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new OrderSlice(content, nextCursor);
+    }
+
+    void attachItems(List<OrderSummaryDTO> orders) {
+        if (orders.isEmpty()) return;
+        Map<String, List<OrderItem>> byOrder = new HashMap<>();
+        for (OrderItem item : orderItemRepository.findByOrderIdIn(orders.stream().map(OrderSummaryDTO::getId).toList())) {
+            byOrder.computeIfAbsent(item.getOrder().getId(), id -> new ArrayList<>()).add(item);
+        }
+        for (OrderSummaryDTO order : orders) order.setItems(byOrder.getOrDefault(order.getId(), new ArrayList<>()));
+    }
+
+    private static void checkListing(LocalDateTime from, LocalDateTime to, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 
     public Order getOrderById(String id) {
@@ -31,7 +104,8 @@ public class OrderService {
                 item.setOrder(order);
             }
         }
-        return orderRepository.save(order);
+        // flushed so the INSERT runs now and the caller gets the number it returned
+        return orderRepository.saveAndFlush(order);
     }
 
     @Transactional
@@ -57,6 +131,18 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    /**
+     * Mark the orders that are still pending verification as "Not Verified" in one
+     * statement; orders that moved on in the meantime are left alone.
+     *
+     * @return how many orders changed
+     */
+    @Transactional
+    public int markNotVerified(Collection<String> ids) {
+        if (ids.isEmpty()) return 0;
+        return orderRepository.updateStatusWhere(ids, "PendingVerification", "Not Verified", LocalDateTime.now());
+    }
+
     public void deleteOrder(String id) {
         orderRepository.deleteById(id);
     }
@@ -0,0 +1,11 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.OrderSummaryDTO;
+
+import java.util.List;
+
+/**
+ * One keyset-paginated slice of the order listing. nextCursor is null on the last slice.
+ */
+public record OrderSlice(List<OrderSummaryDTO> content, String nextCursor) {
+}
@@ -0,0 +1,59 @@
+package com.janesjeans.api.service;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order status moves allowed through the bulk endpoint, and what each one means for the
+ * order's shipment. Verification statuses (PendingVerification, Not Verified) are owned
+ * by the OTP flow and cannot be reached or left from here.
+ */
+final class OrderStatusTransitions {
+
+    /** target status -> statuses an order may move to it from */
+    private static final Map<String, Set<String>> SOURCES = new LinkedHashMap<>();
+    /** target order status -> shipment status it moves the order's shipment to */
+    private static final Map<String, String> SHIPMENT_STATUS = Map.of(
+            "Shipped", "in_transit",
+            "Delivered", "delivered");
+    /** shipment status -> shipment statuses it may be reached from */
+    private static final Map<String, Set<String>> SHIPMENT_SOURCES = Map.of(
+            "in_transit", Set.of("pending", "picked_up"),
+            "delivered", Set.of("pending", "picked_up", "in_transit", "out_for_delivery"));
+
+    static {
+        SOURCES.put("Processing", Set.of("Pending", "Confirmed"));
+        SOURCES.put("Shipped", Set.of("Pending", "Confirmed", "Processing"));
+        SOURCES.put("Delivered", Set.of("Shipped"));
+    }
+
+    private OrderStatusTransitions() {
+    }
+
+    static Set<String> targets() {
+        return new LinkedHashSet<>(SOURCES.keySet());
+    }
+
+    static boolean isTarget(String status) {
+        return SOURCES.containsKey(status);
+    }
+
+    static Set<String> sourcesOf(String target) {
+        return SOURCES.getOrDefault(target, Set.of());
+    }
+
+    static boolean allowed(String from, String to) {
+        return sourcesOf(to).contains(from);
+    }
+
+    /** Shipment status for an order moving to {@code target}, or null if shipments stay put */
+    static String shipmentStatusFor(String target) {
+        return SHIPMENT_STATUS.get(target);
+    }
+
+    static Set<String> shipmentSourcesOf(String shipmentStatus) {
+        return SHIPMENT_SOURCES.getOrDefault(shipmentStatus, Set.of());
+    }
+}
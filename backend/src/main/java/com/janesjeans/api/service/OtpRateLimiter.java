@@ -0,0 +1,236 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.exception.OtpRateLimitedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets limiting how many OTPs are sent per order and per customer contact (the
+ * email address on the order), so repeated requests cannot flood the SMS or mail provider.
+ * Callers take tokens only for orders that exist, so made-up ids never reach the maps.
+ * Each bucket holds {@code capacity} tokens and regains one every {@code period}; a
+ * request takes a token from both buckets or is refused with
+ * {@link OtpRateLimitedException}.
+ *
+ * A bucket is one {@link AtomicLong} packing the time of its last refill (high bits,
+ * milliseconds since the limiter started) and its level (low bits, thousandths of a
+ * token), updated with compare-and-set, so the request path takes no lock: one map
+ * lookup and usually one CAS. The maps are bounded: a background sweep drops buckets
+ * that have refilled completely, which behave exactly like a missing bucket, and while a
+ * map is at its cap a new key evicts the stalest of a few sampled buckets, so a flood of
+ * new keys can reset some limits early but never locks anyone out.
+ */
+@Component
+@Slf4j
+public class OtpRateLimiter {
+
+    private static final int LEVEL_BITS = 20;
+    private static final long LEVEL_MASK = (1L << LEVEL_BITS) - 1;
+    private static final long TOKEN = 1000;
+    // marks a bucket the sweep is removing; requests that see it start a new bucket
+    private static final long REMOVED = -1;
+    // buckets looked at when one has to make room for a new key
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final Limit perOrder;
+    private final Limit perContact;
+    private final int maxKeys;
+    private final long sweepMillis;
+    private final long epochMillis = System.currentTimeMillis();
+    private ScheduledExecutorService sweeper;
+
+    public OtpRateLimiter(MeterRegistry meterRegistry,
+                          @Value("${otp.rate-limit.order.capacity:5}") int orderCapacity,
+                          @Value("${otp.rate-limit.order.period-seconds:60}") long orderPeriodSeconds,
+                          @Value("${otp.rate-limit.contact.capacity:3}") int contactCapacity,
+                          @Value("${otp.rate-limit.contact.period-seconds:120}") long contactPeriodSeconds,
+                          @Value("${otp.rate-limit.max-keys:100000}") int maxKeys,
+                          @Value("${otp.rate-limit.sweep-millis:60000}") long sweepMillis) {
+        this.maxKeys = maxKeys;
+        this.sweepMillis = sweepMillis;
+        this.perOrder = new Limit("order", orderCapacity, orderPeriodSeconds * 1000, meterRegistry);
+        this.perContact = new Limit("contact", contactCapacity, contactPeriodSeconds * 1000, meterRegistry);
+    }
+
+    /**
+     * Take a token for the order and one for the customer's contact. Call this only once
+     * the order has been loaded, with the contact taken from the order itself.
+     *
+     * @throws OtpRateLimitedException if either bucket is empty
+     */
+    public void acquire(String orderId, String contact) {
+        acquire(orderId, contact, System.currentTimeMillis());
+    }
+
+    void acquire(String orderId, String contact, long nowMillis) {
+        long now = Math.max(0, nowMillis - epochMillis);
+        long waitMillis = perOrder.tryAcquire(orderId, now);
+        if (waitMillis == 0) waitMillis = perContact.tryAcquire(contact.trim().toLowerCase(Locale.ROOT), now);
+        if (waitMillis > 0) throw new OtpRateLimitedException((waitMillis + 999) / 1000);
+    }
+
+    int buckets() {
+        return perOrder.buckets.size() + perContact.buckets.size();
+    }
+
+    /**
+     * Drop every bucket that has refilled completely by {@code nowMillis}.
+     *
+     * @return the number of buckets dropped
+     */
+    int sweep(long nowMillis) {
+        long now = Math.max(0, nowMillis - epochMillis);
+        return perOrder.sweep(now) + perContact.sweep(now);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startSweeper() {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "otp-rate-limit-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweep(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("Sweeping OTP rate limit buckets failed: {}", e.getMessage());
+            }
+        }, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void stopSweeper() {
+        if (sweeper != null) sweeper.shutdownNow();
+    }
+
+    private static long pack(long refilledAt, long level) {
+        return refilledAt << LEVEL_BITS | level;
+    }
+
+    /**
+     * The buckets of one key type with their shared capacity and refill period.
+     */
+    private final class Limit {
+
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final long full;
+        private final long periodMillis;
+        private final Counter allowed;
+        private final Counter rejected;
+        private final Counter evicted;
+
+        Limit(String name, int capacity, long periodMillis, MeterRegistry meterRegistry) {
+            if (capacity < 1 || capacity * TOKEN > LEVEL_MASK) {
+                throw new IllegalArgumentException("otp.rate-limit." + name + ".capacity must be between 1 and " + LEVEL_MASK / TOKEN);
+            }
+            if (periodMillis < 1) throw new IllegalArgumentException("otp.rate-limit." + name + ".period-seconds must be positive");
+            this.full = capacity * TOKEN;
+            this.periodMillis = periodMillis;
+            this.allowed = meterRegistry.counter("otp.rate.limit.allowed", "limit", name);
+            this.rejected = meterRegistry.counter("otp.rate.limit.rejected", "limit", name);
+            this.evicted = meterRegistry.counter("otp.rate.limit.evicted", "limit", name);
+            meterRegistry.gauge("otp.rate.limit.buckets", Tags.of("limit", name), buckets, Map::size);
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the milliseconds until one is available
+         */
+        long tryAcquire(String key, long now) {
+            while (true) {
+                AtomicLong bucket = buckets.get(key);
+                if (bucket == null) {
+                    if (buckets.size() >= maxKeys) evictOne();
+                    if (buckets.putIfAbsent(key, new AtomicLong(pack(now, full - TOKEN))) == null) {
+                        allowed.increment();
+                        return 0;
+                    }
+                    continue;
+                }
+                long state = bucket.get();
+                if (state == REMOVED) {
+                    buckets.remove(key, bucket);
+                    continue;
+                }
+                long refilledAt = state >>> LEVEL_BITS;
+                long level = state & LEVEL_MASK;
+                long elapsed = Math.max(0, now - refilledAt);
+                long credit = elapsed * TOKEN / periodMillis;
+                if (level + credit >= full) {
+                    level = full;
+                    refilledAt = Math.max(now, refilledAt);
+                } else {
+                    // move the refill time only as far as the credit covers, so a fraction
+                    // of a token is not lost between frequent requests
+                    level += credit;
+                    refilledAt += credit * periodMillis / TOKEN;
+                }
+                if (level < TOKEN) {
+                    rejected.increment();
+                    long untilToken = ((TOKEN - level) * periodMillis + TOKEN - 1) / TOKEN;
+                    return Math.max(1, untilToken - Math.max(0, now - refilledAt));
+                }
+                if (bucket.compareAndSet(state, pack(refilledAt, level - TOKEN))) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Drop the bucket refilled longest ago among the first few the map hands out; a
+         * full scan would cost a request time proportional to the cap.
+         */
+        private void evictOne() {
+            Map.Entry<String, AtomicLong> stalest = null;
+            long stalestState = 0;
+            int sampled = 0;
+            for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+                long state = entry.getValue().get();
+                if (state != REMOVED && (stalest == null || state >>> LEVEL_BITS < stalestState >>> LEVEL_BITS)) {
+                    stalest = entry;
+                    stalestState = state;
+                }
+                if (++sampled == EVICTION_SAMPLE) break;
+            }
+            if (stalest != null && stalest.getValue().compareAndSet(stalestState, REMOVED)) {
+                buckets.remove(stalest.getKey(), stalest.getValue());
+                evicted.increment();
+            }
+        }
+
+        int sweep(long now) {
+            int dropped = 0;
+            for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+                AtomicLong bucket = entry.getValue();
+                long state = bucket.get();
+                if (state == REMOVED) continue;
+                long level = state & LEVEL_MASK;
+                long elapsed = Math.max(0, now - (state >>> LEVEL_BITS));
+                if (level + elapsed * TOKEN / periodMillis < full) continue;
+                // a request that took a token meanwhile makes this CAS fail and keeps the bucket
+                if (bucket.compareAndSet(state, REMOVED)) {
+                    buckets.remove(entry.getKey(), bucket);
+                    dropped++;
+                }
+            }
+            return dropped;
+        }
+    }
+}
@@ -3,14 +3,15 @@ package com.janesjeans.api.service;
 import com.janesjeans.api.dto.GuestOrderRequest;
 import com.janesjeans.api.entity.Order;
 import com.janesjeans.api.config.SMSConfige;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -23,27 +24,30 @@ public class OtpService {
     private final PaymentService paymentService;
     private final ShipmentService shipmentService;
     private final ShippingVendorService shippingVendorService;
+    private final InventoryHoldService inventoryHoldService;
+    private final OtpStore store;
+    private final OtpRateLimiter rateLimiter;
 
-    // in-memory store: orderId -> entry
-    private final Map<String, OtpEntry> store = new ConcurrentHashMap<>();
-
-    public static class OtpEntry {
-        public final String destination;
-        public final String otp;
-        public final long expiresAt;
-        public final GuestOrderRequest pendingRequest;
+    @PostConstruct
+    void listenForExpiry() {
+        store.onExpiry(this::expired);
+    }
 
-        public OtpEntry(String destination, String otp, long expiresAt, GuestOrderRequest pendingRequest) {
-            this.destination = destination;
-            this.otp = otp;
-            this.expiresAt = expiresAt;
-            this.pendingRequest = pendingRequest;
-        }
+    /**
+     * OTPs nobody verified in time: give back any stock their orders still hold and mark
+     * the orders "Not Verified", one UPDATE per batch.
+     */
+    void expired(List<String> orderIds) {
+        inventoryHoldService.release(orderIds);
+        orderService.markNotVerified(orderIds);
     }
 
     /**
      * Request an OTP for the given order. If pendingRequest is provided, its payment
      * and shipment data will be used to persist those records after successful verification.
+     *
+     * @throws com.janesjeans.api.exception.OtpRateLimitedException if too many OTPs were sent for the order or its customer
+     * @throws com.janesjeans.api.exception.OtpStoreFullException if too many verifications are pending
      */
     public String requestOtp(String orderId, String destination, int ttlSeconds, String method, GuestOrderRequest pendingRequest) {
         if (destination == null || destination.isBlank()) {
@@ -53,16 +57,23 @@ public class OtpService {
 
         Order order = orderService.getOrderById(orderId);
         Objects.requireNonNull(order, "order not found");
+        // limited by the order's own contact, so a client cannot dodge it by varying the destination
+        String contact = order.getCustomerEmail() == null || order.getCustomerEmail().isBlank() ? orderId : order.getCustomerEmail();
+        rateLimiter.acquire(orderId, contact);
 
         String otp = smsService.generateOtp();
-        long expiresAt = Instant.now().getEpochSecond() + Math.max(60, ttlSeconds);
-        store.put(orderId, new OtpEntry(normalized, otp, expiresAt, pendingRequest));
+        long expiresAt = System.currentTimeMillis() + Math.max(60, ttlSeconds) * 1000L;
+        store.put(orderId, new OtpStore.Entry(normalized, otp, expiresAt, pendingRequest));
+        inventoryHoldService.extend(orderId, expiresAt);
 
-        String orderNumber = "ORD-" + order.getId().substring(0, Math.min(8, order.getId().length())).toUpperCase();
+        String orderNumber = order.displayOrderNumber();
 
         if ("email".equalsIgnoreCase(method)) {
-            String html = emailService.buildOtpEmailMessage(order, orderNumber, otp);
-            emailService.sendCustomOrderConfirmationAsync(order, orderNumber, html);
+            try {
+                emailService.sendOtpEmail(order, orderNumber, otp);
+            } catch (MessagingException | MailException e) {
+                log.warn("OTP email for order {} not sent: {}", orderId, e.getMessage());
+            }
             log.info("OTP (email) requested for order {} -> {} (expires in {}s)", orderId, normalized, ttlSeconds);
         } else {
             smsService.sendOtpWithMessage(normalized, otp);
@@ -72,24 +83,23 @@ public class OtpService {
     }
 
     /**
-     * Verify the OTP for order. If successful, persist pending payment and shipment
-     * information (if present) and mark order confirmed. If expired, mark order not verified.
+     * Verify the OTP for order. If successful, commit the order's held stock, persist
+     * pending payment and shipment information (if present) and mark order confirmed.
+     * If the stock can no longer be had, mark order not verified. An expired OTP fails
+     * verification; the store's expiry releases its stock and marks the order.
      */
     public boolean verifyOtp(String orderId, String destination, String otp) {
-        OtpEntry entry = store.get(orderId);
-        if (entry == null) return false;
-        if (!entry.destination.equals(destination)) return false;
-        if (Instant.now().getEpochSecond() > entry.expiresAt) {
-            store.remove(orderId);
-            try { orderService.updateOrderStatus(orderId, "Not Verified"); } catch (Exception ignored) {}
-            return false;
-        }
-        boolean ok = entry.otp.equals(otp);
+        if (destination == null || otp == null) return false;
+        OtpStore.Entry entry = store.verify(orderId, destination, otp);
+        boolean ok = entry != null;
         if (ok) {
-            store.remove(orderId);
+            if (!inventoryHoldService.commit(orderId)) {
+                try { orderService.updateOrderStatus(orderId, "Not Verified"); } catch (Exception ignored) {}
+                return false;
+            }
             try {
-                if (entry.pendingRequest != null) {
-                    GuestOrderRequest gr = entry.pendingRequest;
+                if (entry.pendingRequest() != null) {
+                    GuestOrderRequest gr = entry.pendingRequest();
                     // create payment
                     com.janesjeans.api.entity.Payment payment = com.janesjeans.api.entity.Payment.builder()
                             .orderId(orderId)
@@ -128,14 +138,18 @@ public class OtpService {
 
     /**
      * Finalize pending request without OTP (skip verification).
-     * Returns true if finalized, false if no pending entry found.
+     * Returns true if finalized, false if no pending entry found or its stock is gone.
      */
     public boolean finalizePending(String orderId) {
-        OtpEntry entry = store.remove(orderId);
+        OtpStore.Entry entry = store.take(orderId);
         if (entry == null) return false;
+        if (!inventoryHoldService.commit(orderId)) {
+            try { orderService.updateOrderStatus(orderId, "Not Verified"); } catch (Exception ignored) {}
+            return false;
+        }
         try {
-            if (entry.pendingRequest != null) {
-                GuestOrderRequest gr = entry.pendingRequest;
+            if (entry.pendingRequest() != null) {
+                GuestOrderRequest gr = entry.pendingRequest();
                 com.janesjeans.api.entity.Payment payment = com.janesjeans.api.entity.Payment.builder()
                         .orderId(orderId)
                         .amount(gr.getTotalAmount())
@@ -0,0 +1,41 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Pending OTPs by order id, each with the checkout request to finish once it is
+ * verified. otp.store.type picks the implementation: {@link InMemoryOtpStore} for a
+ * single instance, {@link JdbcOtpStore} when several replicas must see the same OTPs.
+ */
+public interface OtpStore {
+
+    record Entry(String destination, String otp, long expiresAtMillis, GuestOrderRequest pendingRequest) {}
+
+    /**
+     * Store the order's OTP, replacing any earlier one.
+     */
+    void put(String orderId, Entry entry);
+
+    /**
+     * Check the order's OTP and use it up in one step: of two callers verifying the
+     * same OTP at once, only one gets the entry.
+     *
+     * @return the removed entry, or null if there is none, it expired, or destination or otp do not match
+     */
+    Entry verify(String orderId, String destination, String otp);
+
+    /**
+     * Remove and return the order's unexpired OTP without checking it, or null if there
+     * is none. The returned entry's otp may be null.
+     */
+    Entry take(String orderId);
+
+    /**
+     * Called with the order ids of expired entries, in batches, on a background thread.
+     * Each expired entry is reported once, by one instance.
+     */
+    void onExpiry(Consumer<List<String>> listener);
+}
@@ -0,0 +1,265 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.ShopProductDTO;
+import com.janesjeans.api.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Legacy storefront view of the products table: variants grouped into families by name,
+ * each with its aggregated {@link ShopProductDTO} kept up to date on every write.
+ *
+ * ProductService feeds it creates, updates and deletes once they commit, so reads never
+ * scan the table. A write only rebuilds the DTO of the one or two families it touches.
+ * Variants are copied on the way in and DTOs on the way out, so neither the caller's
+ * entities nor the DTOs it hands out share state with the index.
+ */
+@Component
+@Slf4j
+public class ProductFamilyIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // family name -> variants in insertion order; the first variant represents the family
+    private final Map<String, Family> families = new LinkedHashMap<>();
+    private final Map<String, String> familyById = new HashMap<>();
+    private final Map<String, Set<String>> familiesByCategory = new HashMap<>();
+
+    private volatile boolean ready;
+
+    private static final class Family {
+        final LinkedHashMap<String, Product> variants = new LinkedHashMap<>();
+        ShopProductDTO dto;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replace the whole index with the given variants.
+     */
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            families.clear();
+            familyById.clear();
+            familiesByCategory.clear();
+            Set<String> touched = new LinkedHashSet<>();
+            for (Product p : products) {
+                add(p);
+                touched.add(p.getName());
+            }
+            touched.forEach(this::refresh);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product family index built with {} variants in {} families", products.size(), families.size());
+    }
+
+    /**
+     * Insert or replace a single variant, moving it to another family if its name changed.
+     */
+    public void upsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            String previous = removeInternal(product.getId());
+            add(product);
+            if (previous != null && !previous.equals(product.getName())) refresh(previous);
+            refresh(product.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            String previous = removeInternal(id);
+            if (previous != null) refresh(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply stock deltas (variant id -> change) written straight to the table, so the
+     * families' inStock flags follow checkouts without reloading the variants.
+     */
+    public void adjustStock(Map<String, Integer> deltas) {
+        adjust(deltas, (variant, delta) -> variant.setStockLevel(Math.max(0, variant.getStockLevel() + delta)));
+    }
+
+    /**
+     * Apply held-stock deltas (variant id -> change), as {@link #adjustStock} does for stock.
+     */
+    public void adjustHeld(Map<String, Integer> deltas) {
+        adjust(deltas, (variant, delta) -> variant.setHeldStock(Math.max(0, variant.getHeldStock() + delta)));
+    }
+
+    private void adjust(Map<String, Integer> deltas, ObjIntConsumer<Product> change) {
+        lock.writeLock().lock();
+        try {
+            Set<String> touched = new LinkedHashSet<>();
+            deltas.forEach((id, delta) -> {
+                String name = familyById.get(id);
+                if (name == null) return;
+                change.accept(families.get(name).variants.get(id), delta);
+                touched.add(name);
+            });
+            touched.forEach(this::refresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * All families, optionally limited to one category ("all" or null for every family).
+     */
+    public List<ShopProductDTO> families(String category) {
+        lock.readLock().lock();
+        try {
+            if (category == null || "all".equals(category)) {
+                return families.values().stream().map(f -> copyOf(f.dto)).toList();
+            }
+            Set<String> names = familiesByCategory.getOrDefault(category, Set.of());
+            return names.stream().map(name -> copyOf(families.get(name).dto)).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The family the given variant belongs to, or empty if the index does not hold it.
+     */
+    public Optional<ShopProductDTO> familyOf(String id) {
+        lock.readLock().lock();
+        try {
+            String name = familyById.get(id);
+            return name == null ? Optional.empty() : Optional.of(copyOf(families.get(name).dto));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Product p) {
+        families.computeIfAbsent(p.getName(), n -> new Family()).variants.put(p.getId(), copyOf(p));
+        familyById.put(p.getId(), p.getName());
+    }
+
+    /**
+     * Drop a variant and return the name of the family it was in; the caller refreshes it.
+     */
+    private String removeInternal(String id) {
+        String name = familyById.remove(id);
+        if (name == null) return null;
+        Family family = families.get(name);
+        family.variants.remove(id);
+        return name;
+    }
+
+    private void refresh(String name) {
+        Family family = families.get(name);
+        if (family == null) return;
+        String oldCategory = family.dto != null ? family.dto.getCategory() : null;
+        String newCategory = null;
+        if (family.variants.isEmpty()) {
+            families.remove(name);
+        } else {
+            family.dto = buildFamily(new ArrayList<>(family.variants.values()));
+            newCategory = family.dto.getCategory();
+        }
+        if (Objects.equals(oldCategory, newCategory)) return;
+        if (oldCategory != null) {
+            Set<String> names = familiesByCategory.get(oldCategory);
+            if (names != null) names.remove(name);
+        }
+        if (newCategory != null) {
+            familiesByCategory.computeIfAbsent(newCategory, c -> new LinkedHashSet<>()).add(name);
+        }
+    }
+
+    /**
+     * Aggregate the variants of one family (same name) into a storefront product.
+     */
+    public static ShopProductDTO buildFamily(List<Product> variants) {
+        Product first = variants.get(0);
+        List<String> sizes = variants.stream().map(Product::getSize).distinct().sorted().collect(Collectors.toList());
+        List<String> colors = variants.stream().map(Product::getWash).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (colors.isEmpty()) colors = List.of("Default");
+        boolean inStock = variants.stream().anyMatch(p -> p.getAvailableStock() > 0);
+        String imageUrl = first.getImageUrl() != null ? first.getImageUrl() : "/placeholder.svg";
+        double rating = 4.0 + (Math.abs(first.getName().hashCode()) % 10) / 10.0;
+        int reviews = 50 + Math.abs(first.getName().hashCode()) % 200;
+        return ShopProductDTO.builder()
+                .id(first.getId()).name(first.getName())
+                .description(first.getDescription() != null ? first.getDescription() : "Premium quality " + first.getFit() + " jeans")
+                .price(first.getPrice()).category(deriveCategoryFromFit(first.getFit()))
+                .sizes(sizes).colors(colors).images(List.of(imageUrl))
+                .inStock(inStock).rating(Math.min(rating, 5.0)).reviews(reviews)
+                .gender(first.getGender()).fit(first.getFit()).wash(first.getWash())
+                .build();
+    }
+
+    private static Product copyOf(Product p) {
+        return Product.builder()
+                .id(p.getId())
+                .name(p.getName())
+                .description(p.getDescription())
+                .gender(p.getGender())
+                .fit(p.getFit())
+                .size(p.getSize())
+                .wash(p.getWash())
+                .price(p.getPrice())
+                .stockLevel(p.getStockLevel())
+                .heldStock(p.getHeldStock())
+                .imageUrl(p.getImageUrl())
+                .discountPercent(p.getDiscountPercent())
+                .offerDiscountPercent(p.getOfferDiscountPercent())
+                .offerName(p.getOfferName())
+                .offerStart(p.getOfferStart())
+                .offerEnd(p.getOfferEnd())
+                .createdAt(p.getCreatedAt())
+                .updatedAt(p.getUpdatedAt())
+                .build();
+    }
+
+    private static ShopProductDTO copyOf(ShopProductDTO dto) {
+        return ShopProductDTO.builder()
+                .id(dto.getId())
+                .name(dto.getName())
+                .description(dto.getDescription())
+                .price(dto.getPrice())
+                .category(dto.getCategory())
+                .sizes(new ArrayList<>(dto.getSizes()))
+                .colors(new ArrayList<>(dto.getColors()))
+                .images(new ArrayList<>(dto.getImages()))
+                .inStock(dto.isInStock())
+                .rating(dto.getRating())
+                .reviews(dto.getReviews())
+                .gender(dto.getGender())
+                .fit(dto.getFit())
+                .wash(dto.getWash())
+                .build();
+    }
+
+    private static String deriveCategoryFromFit(String fit) {
+        if (fit == null) return "jeans";
+        return "jeans";
+    }
+}
@@ -0,0 +1,123 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.ShopProductDetailDTO;
+import com.janesjeans.api.entity.ShopProduct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of each catalog product's serialized {@link ShopProductDetailDTO}.
+ *
+ * Entries are keyed by product id and only served while their version matches the
+ * product's current version, so a stale fragment is never returned even if an
+ * invalidation is missed. Catalog pages embed the cached JSON as raw values.
+ */
+@Component
+public class ProductJsonCache {
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+
+    // access-ordered, so iteration order is least recently used first
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Serialized product: the JSON (its UTF-8 bytes are computed once and kept) and a strong ETag.
+     */
+    public record Entry(long version, SerializedString json, String etag) {
+        public byte[] bytes() {
+            return json.asUnquotedUTF8();
+        }
+    }
+
+    public ProductJsonCache(ObjectMapper objectMapper,
+                            @Value("${catalog.product-json-cache.max-entries:5000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ProductJsonCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cached JSON for this product version, serializing it on a miss.
+     */
+    public Entry get(ShopProduct product) {
+        long version = versionOf(product);
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(product.getId());
+        }
+        if (cached != null && cached.version() == version) return cached;
+
+        Entry fresh = serialize(product, version);
+        synchronized (entries) {
+            Entry current = entries.get(product.getId());
+            // don't let a slow reader of an older version overwrite a newer entry
+            if (current == null || current.version() <= version) {
+                entries.put(product.getId(), fresh);
+            }
+        }
+        return fresh;
+    }
+
+    public void evict(String id) {
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Entry serialize(ShopProduct product, long version) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(toDetailDTO(product));
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            SerializedString serialized = new SerializedString(new String(json, StandardCharsets.UTF_8));
+            serialized.asUnquotedUTF8(); // encode once up front rather than on the first response
+            return new Entry(version, serialized, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize shop product " + product.getId(), e);
+        }
+    }
+
+    private static long versionOf(ShopProduct product) {
+        return product.getVersion() != null ? product.getVersion() : 0L;
+    }
+
+    public static ShopProductDetailDTO toDetailDTO(ShopProduct p) {
+        return ShopProductDetailDTO.builder()
+                .id(p.getId()).name(p.getName()).description(p.getDescription())
+                .price(p.getPrice()).category(p.getCategory()).subcategory(p.getSubcategory())
+                .sizes(p.getSizes() != null ? List.of(p.getSizes()) : List.of())
+                .colors(p.getColors() != null ? List.of(p.getColors()) : List.of())
+                .images(p.getImages() != null ? List.of(p.getImages()) : List.of("/placeholder.svg"))
+                .inStock(p.getInStock() != null && p.getInStock())
+                .rating(p.getRating() != null ? p.getRating().doubleValue() : 4.5)
+                .reviews(p.getReviews() != null ? p.getReviews() : 0)
+                .metadata(p.getMetadata() != null ? p.getMetadata() : Map.of())
+                .build();
+    }
+}
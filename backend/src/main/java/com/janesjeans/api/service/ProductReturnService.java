@@ -1,8 +1,6 @@
 package com.janesjeans.api.service;
 
-import com.janesjeans.api.entity.Product;
 import com.janesjeans.api.entity.ProductReturn;
-import com.janesjeans.api.repository.ProductRepository;
 import com.janesjeans.api.repository.ProductReturnRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -16,7 +14,7 @@ import java.util.List;
 public class ProductReturnService {
 
     private final ProductReturnRepository returnRepository;
-    private final ProductRepository productRepository;
+    private final ProductService productService;
 
     public List<ProductReturn> getAll() {
         return returnRepository.findAll();
@@ -59,10 +57,7 @@ public class ProductReturnService {
 
         // Restock if flagged
         if (Boolean.TRUE.equals(ret.getRestock())) {
-            productRepository.findById(ret.getProductId()).ifPresent(product -> {
-                product.setStockLevel(product.getStockLevel() + ret.getQuantity());
-                productRepository.save(product);
-            });
+            productService.restock(ret.getProductId(), ret.getQuantity());
         }
 
         return returnRepository.save(ret);
@@ -1,17 +1,66 @@
 package com.janesjeans.api.service;
 
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.dto.ShopProductDTO;
 import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.exception.InsufficientStockException;
 import com.janesjeans.api.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ProductService {
 
+    static final String RESERVE_SQL = "UPDATE products SET stock_level = stock_level - ? WHERE id = ? AND stock_level - held_stock >= ?";
+    static final String RELEASE_SQL = "UPDATE products SET stock_level = stock_level + ? WHERE id = ?";
+    static final String HOLD_SQL = "UPDATE products SET held_stock = held_stock + ? WHERE id = ? AND stock_level - held_stock >= ?";
+    static final String RELEASE_HELD_SQL = "UPDATE products SET held_stock = GREATEST(held_stock - ?, 0) WHERE id = ?";
+    static final String SET_STOCK_SQL = "UPDATE products SET stock_level = ? WHERE id = ? AND held_stock <= ?";
+    static final String COMMIT_HELD_SQL = "UPDATE products SET stock_level = stock_level - ?, held_stock = GREATEST(held_stock - ?, 0) WHERE id = ?";
+    // what the live holds add up to: items of orders still pending verification with a hold
+    private static final String LIVE_HELD = "COALESCE((SELECT SUM(oi.quantity) FROM order_items oi "
+            + "JOIN orders o ON o.id = oi.order_id WHERE oi.product_id = p.id "
+            + "AND o.status = 'PendingVerification' AND o.hold_expires_at IS NOT NULL), 0)";
+    static final String RECONCILE_HELD_SQL = "UPDATE products p SET held_stock = " + LIVE_HELD
+            + " WHERE p.held_stock <> " + LIVE_HELD;
+
     private final ProductRepository productRepository;
+    private final ProductFamilyIndex familyIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Load every variant into the product family index once the app is up.
+     * If this fails, the family lookups group the table on each call instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildFamilyIndex() {
+        try {
+            familyIndex.rebuild(productRepository.findAll());
+        } catch (Exception e) {
+            log.warn("Product family index not built, falling back to grouping on each request: {}", e.getMessage());
+        }
+    }
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
@@ -25,10 +74,62 @@ public class ProductService {
         return productRepository.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
+    /**
+     * The products with the given ids, keyed by id, in one query. Ids without a product
+     * are simply absent from the map.
+     */
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        Set<String> distinct = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (distinct.isEmpty()) return Map.of();
+        return productRepository.findAllById(distinct).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    /**
+     * Storefront products (variants grouped by name), optionally limited to a category.
+     */
+    public List<ShopProductDTO> getProductFamilies(String category) {
+        if (familyIndex.isReady()) return familyIndex.families(category);
+        return productRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Product::getName, LinkedHashMap::new, Collectors.toList()))
+                .values().stream()
+                .map(ProductFamilyIndex::buildFamily)
+                .filter(p -> category == null || "all".equals(category) || p.getCategory().equals(category))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The storefront product (all variants sharing its name) that the given variant belongs to.
+     */
+    public ShopProductDTO getProductFamily(String id) {
+        if (familyIndex.isReady()) {
+            return familyIndex.familyOf(id).orElseThrow(() -> new RuntimeException("Product not found"));
+        }
+        Product product = getProductById(id);
+        return ProductFamilyIndex.buildFamily(productRepository.findAll().stream()
+                .filter(p -> p.getName().equals(product.getName()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Save a new product. The family index sees it once the save has committed.
+     */
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        afterCommit(() -> familyIndex.upsert(saved));
+        return saved;
     }
 
+    /**
+     * Copy the non-null fields of {@code updates} onto the product. A new stock level is
+     * written by its own UPDATE rather than saved with the rest, so it cannot be undone
+     * by, or undo, a reservation made while the product was loaded.
+     *
+     * @throws InsufficientStockException if the new stock level is below the units held
+     *         for orders awaiting verification; nothing is changed
+     */
+    @Transactional
     public Product updateProduct(String id, Product updates) {
         Product product = getProductById(id);
         if (updates.getName() != null) product.setName(updates.getName());
@@ -38,18 +139,203 @@ public class ProductService {
         if (updates.getSize() != null) product.setSize(updates.getSize());
         if (updates.getWash() != null) product.setWash(updates.getWash());
         if (updates.getPrice() != null) product.setPrice(updates.getPrice());
-        if (updates.getStockLevel() != null) product.setStockLevel(updates.getStockLevel());
         if (updates.getImageUrl() != null) product.setImageUrl(updates.getImageUrl());
         if (updates.getDiscountPercent() != null) product.setDiscountPercent(updates.getDiscountPercent());
         if (updates.getOfferDiscountPercent() != null) product.setOfferDiscountPercent(updates.getOfferDiscountPercent());
         if (updates.getOfferName() != null) product.setOfferName(updates.getOfferName());
         if (updates.getOfferStart() != null) product.setOfferStart(updates.getOfferStart());
         if (updates.getOfferEnd() != null) product.setOfferEnd(updates.getOfferEnd());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        if (updates.getStockLevel() != null) setStockLevel(saved, updates.getStockLevel());
+        afterCommit(() -> familyIndex.upsert(saved));
+        return saved;
     }
 
+    /**
+     * Put returned units back in stock.
+     */
+    @Transactional
+    public void restock(String productId, int quantity) {
+        Map<String, Integer> quantities = Map.of(productId, quantity);
+        batchUpdate(RELEASE_SQL, quantities, false);
+        afterCommit(() -> familyIndex.adjustStock(quantities));
+    }
+
+    @Transactional
     public void deleteProduct(String id) {
         productRepository.deleteById(id);
+        afterCommit(() -> familyIndex.remove(id));
+    }
+
+    /**
+     * Take every cart line's quantity out of stock, all or nothing. Each line is a
+     * conditional UPDATE that only matches while enough unheld stock is left, so
+     * concurrent checkouts cannot oversell, and all lines go to the database in one JDBC
+     * batch. Lines for the same product are merged and rows are updated in id order, so
+     * two carts locking the same products cannot deadlock.
+     *
+     * @throws InsufficientStockException if any line cannot be covered; nothing is reserved
+     * @throws IllegalArgumentException for a line without a product id or with a quantity below 1
+     */
+    @Transactional
+    public void reserveStock(List<GuestOrderRequest.GuestOrderItem> items) {
+        Map<String, Integer> quantities = takeAll(RESERVE_SQL, items);
+        afterCommit(() -> familyIndex.adjustStock(negated(quantities)));
+    }
+
+    /**
+     * Put reserved quantities back, e.g. when the order they were reserved for could not
+     * be saved.
+     */
+    @Transactional
+    public void releaseStock(List<GuestOrderRequest.GuestOrderItem> items) {
+        Map<String, Integer> quantities = quantitiesById(items);
+        batchUpdate(RELEASE_SQL, quantities, false);
+        afterCommit(() -> familyIndex.adjustStock(quantities));
+    }
+
+    /**
+     * Hold every cart line's quantity for an order awaiting verification, all or nothing.
+     * Held units stay in stock_level but no longer count as available to sell; the hold
+     * is later committed or released with the quantities returned here.
+     *
+     * @return quantity per product id that was held
+     * @throws InsufficientStockException if any line cannot be covered; nothing is held
+     * @throws IllegalArgumentException for a line without a product id or with a quantity below 1
+     */
+    @Transactional
+    public Map<String, Integer> holdStock(List<GuestOrderRequest.GuestOrderItem> items) {
+        Map<String, Integer> quantities = takeAll(HOLD_SQL, items);
+        afterCommit(() -> familyIndex.adjustHeld(quantities));
+        return quantities;
+    }
+
+    /**
+     * Turn held quantities into a sale: both stock_level and held_stock drop, so the
+     * available stock is unchanged.
+     */
+    @Transactional
+    public void commitHeldStock(Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        productRepository.flush();
+        List<Map.Entry<String, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(COMMIT_HELD_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setInt(2, line.getValue());
+            ps.setString(3, line.getKey());
+        });
+        Map<String, Integer> deltas = negated(quantities);
+        afterCommit(() -> {
+            familyIndex.adjustStock(deltas);
+            familyIndex.adjustHeld(deltas);
+        });
+    }
+
+    /**
+     * Make held quantities available to sell again.
+     */
+    @Transactional
+    public void releaseHeldStock(Map<String, Integer> quantities) {
+        batchUpdate(RELEASE_HELD_SQL, new TreeMap<>(quantities), false);
+        afterCommit(() -> familyIndex.adjustHeld(negated(quantities)));
+    }
+
+    /**
+     * Bring held_stock back in line with the orders that hold stock, e.g. after a crash
+     * between a hold and its order. One statement recomputes each product's total from
+     * the orders table, so holds taken while it runs are counted rather than wiped.
+     *
+     * @return how many products were out of line
+     */
+    @Transactional
+    public int reconcileHeldStock() {
+        productRepository.flush();
+        int fixed = jdbcTemplate.update(RECONCILE_HELD_SQL);
+        if (fixed > 0) afterCommit(this::buildFamilyIndex);
+        return fixed;
+    }
+
+    private void setStockLevel(Product product, int level) {
+        productRepository.flush();
+        if (jdbcTemplate.update(SET_STOCK_SQL, level, product.getId(), level) == 0) {
+            throw new InsufficientStockException(List.of(String.format(
+                    "%s: stock level %d is below the units held for unverified orders", product.getName(), level)));
+        }
+        product.setStockLevel(level);
+    }
+
+    /**
+     * Run a conditional per-line update for the whole cart and fail with every short
+     * line if any of them did not match.
+     */
+    private Map<String, Integer> takeAll(String sql, List<GuestOrderRequest.GuestOrderItem> items) {
+        Map<String, Integer> quantities = quantitiesById(items);
+        List<String> ids = new ArrayList<>(quantities.keySet());
+        int[] counts = batchUpdate(sql, quantities, true);
+
+        List<String> shortIds = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) shortIds.add(ids.get(i));
+        }
+        if (!shortIds.isEmpty()) {
+            Map<String, Product> current = getProductsByIds(shortIds);
+            Map<String, String> names = new HashMap<>();
+            for (GuestOrderRequest.GuestOrderItem item : items) names.putIfAbsent(item.getProductId(), item.getProductName());
+            List<String> errors = new ArrayList<>();
+            for (String id : shortIds) {
+                Product product = current.get(id);
+                errors.add(product == null
+                        ? names.get(id) + ": product not found"
+                        : String.format("%s: only %d available (requested %d)",
+                                names.get(id), Math.max(0, product.getAvailableStock()), quantities.get(id)));
+            }
+            throw new InsufficientStockException(errors);
+        }
+        return quantities;
+    }
+
+    private int[] batchUpdate(String sql, Map<String, Integer> quantities, boolean conditional) {
+        if (quantities.isEmpty()) return new int[0];
+        productRepository.flush(); // the batch bypasses the persistence context
+        List<Map.Entry<String, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(sql, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setString(2, line.getKey());
+            if (conditional) ps.setInt(3, line.getValue());
+        });
+        return counts.length == 0 ? new int[0] : counts[0];
+    }
+
+    private static Map<String, Integer> negated(Map<String, Integer> quantities) {
+        Map<String, Integer> deltas = new HashMap<>();
+        quantities.forEach((id, qty) -> deltas.put(id, -qty));
+        return deltas;
+    }
+
+    /** Quantity per product id, in id order. */
+    static Map<String, Integer> quantitiesById(List<GuestOrderRequest.GuestOrderItem> items) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (GuestOrderRequest.GuestOrderItem item : items) {
+            if (item.getProductId() == null) throw new IllegalArgumentException("Every item needs a productId");
+            if (item.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity must be at least 1 for " + item.getProductName());
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     public List<Product> getLowStockProducts(int threshold) {
@@ -1,32 +1,157 @@
 package com.janesjeans.api.service;
 
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.janesjeans.api.dto.CatalogFacetsResponse;
+import com.janesjeans.api.dto.CatalogSuggestion;
 import com.janesjeans.api.entity.ShopCategory;
 import com.janesjeans.api.entity.ShopProduct;
 import com.janesjeans.api.entity.ShopSubcategory;
 import com.janesjeans.api.repository.ShopCategoryRepository;
 import com.janesjeans.api.repository.ShopProductRepository;
 import com.janesjeans.api.repository.ShopSubcategoryRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ShopCatalogService {
 
     private final ShopCategoryRepository categoryRepository;
     private final ShopSubcategoryRepository subcategoryRepository;
     private final ShopProductRepository productRepository;
+    private final CatalogSearchIndex searchIndex;
+    private final CategoryTreeCache categoryTree;
+    private final ProductJsonCache productJsonCache;
+    private final CatalogSuggestIndex suggestIndex;
+
+    private static final List<BigDecimal> DEFAULT_PRICE_EDGES = List.of(
+            new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("200"));
+    private static final long COUNT_CACHE_TTL_MILLIS = 60_000;
+    private static final int COUNT_CACHE_MAX_ENTRIES = 1024;
+    private static final long INDEX_RETRY_MAX_MILLIS = 300_000;
+
+    // filter -> approximate total for cursor mode when the index is unavailable
+    private final Map<CatalogFilter, CachedCount> countCache = new ConcurrentHashMap<>();
+
+    private record CachedCount(long value, long expiresAt) {}
+
+    // wait before the first retry of a failed index build; doubles per failure up to five minutes
+    private long indexRetryMillis = 5_000;
+    private ScheduledExecutorService indexRetry;
+    private boolean indexRetryPending;
+
+    /**
+     * Load every shop product into the in-memory search and suggest indexes once the app
+     * is up. If this fails, searches page through the database and the build is retried
+     * in the background with a growing delay until it succeeds.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        if (!rebuildIndexes()) scheduleIndexRetry(indexRetryMillis);
+    }
+
+    /**
+     * @return false if the search index could not be built
+     */
+    private boolean rebuildIndexes() {
+        List<ShopProduct> products;
+        try {
+            products = productRepository.findAll();
+            searchIndex.rebuild(products);
+        } catch (Exception e) {
+            log.warn("Catalog search index not built, searching the database until a retry succeeds: {}", e.getMessage());
+            return false;
+        }
+        try {
+            suggestIndex.rebuild(products, categoryTree.get().categories());
+        } catch (Exception e) {
+            log.warn("Catalog suggest index not built: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    private synchronized void scheduleIndexRetry(long delayMillis) {
+        if (indexRetryPending) return;
+        if (indexRetry == null) {
+            indexRetry = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "catalog-index-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        indexRetryPending = true;
+        indexRetry.schedule(() -> {
+            synchronized (this) {
+                indexRetryPending = false;
+            }
+            if (!rebuildIndexes()) scheduleIndexRetry(Math.min(delayMillis * 2, INDEX_RETRY_MAX_MILLIS));
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void stopIndexRetry() {
+        if (indexRetry != null) indexRetry.shutdownNow();
+    }
+
+    /**
+     * Reload everything derived from shop_products after rows were written outside JPA
+     * (bulk import). Meant to be called once per bulk operation, not per row.
+     */
+    public void refreshAfterBulkWrite() {
+        buildSearchIndex();
+        productJsonCache.clear();
+    }
 
     // ---- Categories ----
 
     public List<ShopCategory> getAllCategories() {
-        return categoryRepository.findAll(Sort.by("sortOrder"));
+        return categoryRepository.findAllWithSubcategories();
+    }
+
+    /**
+     * Category tree for the storefront, served from memory with its JSON and ETag precomputed.
+     */
+    public CategoryTreeCache.Snapshot getCategoryTree() {
+        return categoryTree.get();
+    }
+
+    public ShopCategory saveCategory(ShopCategory category) {
+        ShopCategory saved = categoryRepository.save(category);
+        refreshCategories();
+        return saved;
+    }
+
+    private void refreshCategories() {
+        categoryTree.refresh();
+        if (suggestIndex.isReady()) suggestIndex.replaceCategories(categoryTree.get().categories());
+    }
+
+    public void deleteCategory(String id) {
+        categoryRepository.deleteById(id);
+        refreshCategories();
     }
 
     public ShopCategory getCategoryBySlug(String slug) {
@@ -40,6 +165,17 @@ public class ShopCatalogService {
         return subcategoryRepository.findByCategoryIdOrderBySortOrder(categoryId);
     }
 
+    public ShopSubcategory saveSubcategory(ShopSubcategory subcategory) {
+        ShopSubcategory saved = subcategoryRepository.save(subcategory);
+        refreshCategories();
+        return saved;
+    }
+
+    public void deleteSubcategory(String id) {
+        subcategoryRepository.deleteById(id);
+        refreshCategories();
+    }
+
     // ---- Products ----
 
     public List<ShopProduct> getAllShopProducts() {
@@ -55,19 +191,249 @@ public class ShopCatalogService {
     }
 
     public ShopProduct getShopProductById(String id) {
-        return productRepository.findById(id)
+        return searchIndex.get(id)
+                .or(() -> productRepository.findById(id))
                 .orElseThrow(() -> new RuntimeException("Shop product not found: " + id));
     }
 
+    /**
+     * Serialized detail JSON and ETag for a product, from the per-product cache.
+     */
+    public ProductJsonCache.Entry getShopProductJson(String id) {
+        return productJsonCache.get(getShopProductById(id));
+    }
+
+    /**
+     * A product's cached detail JSON as a raw value, for embedding in catalog pages.
+     */
+    public RawValue toJsonFragment(ShopProduct product) {
+        return new RawValue(productJsonCache.get(product).json());
+    }
+
+    public ShopProduct saveShopProduct(ShopProduct product) {
+        ShopProduct saved = productRepository.save(product);
+        searchIndex.upsert(saved);
+        productJsonCache.evict(saved.getId());
+        if (suggestIndex.isReady()) suggestIndex.upsertProduct(saved);
+        return saved;
+    }
+
+    public void deleteShopProduct(String id) {
+        productRepository.deleteById(id);
+        searchIndex.remove(id);
+        productJsonCache.evict(id);
+        if (suggestIndex.isReady()) suggestIndex.removeProduct(id);
+    }
+
+    // ---- Typeahead ----
+
+    /**
+     * Categories, subcategories and products with a word starting with the query.
+     * Empty until the suggest index has been built.
+     */
+    public List<CatalogSuggestion> suggest(String query, int limit) {
+        int capped = Math.max(1, Math.min(limit, CatalogSuggestIndex.MAX_SUGGESTIONS));
+        return suggestIndex.suggest(query, capped);
+    }
+
     // ---- Paginated search ----
 
+    /**
+     * Offset-paginated catalog search. Rows tied on the sort key are ordered by id in the
+     * same direction, so pages are stable and line up with the (category, key, id) indexes.
+     *
+     * @throws IllegalArgumentException if the sort uses a property other than a
+     *         {@link CatalogSortField} or id
+     */
     public Page<ShopProduct> searchCatalog(String category, String subcategory,
                                            Boolean inStock, BigDecimal minPrice,
                                            BigDecimal maxPrice, String search,
+                                           List<String> sizes, List<String> colors,
                                            Pageable pageable) {
-        String cat = (category != null && !"all".equalsIgnoreCase(category)) ? category : null;
-        String sub = (subcategory != null && !subcategory.isBlank()) ? subcategory : null;
-        String q = (search != null && !search.isBlank()) ? search : null;
-        return productRepository.searchCatalog(cat, sub, inStock, minPrice, maxPrice, q, pageable);
+        Pageable stable = withIdTieBreaker(pageable);
+        CatalogFilter filter = normalizeFilter(category, subcategory, inStock, minPrice, maxPrice, search, sizes, colors);
+        return searchIndex.search(filter, stable).orElseGet(() -> {
+            // JPQL has no array operators or word matching; those filters go through the Specification
+            if (filter.getSearch() != null || filter.getSizes() != null || filter.getColors() != null) {
+                return productRepository.findAll(catalogSpecification(filter), stable);
+            }
+            return productRepository.searchCatalog(filter.getCategory(), filter.getSubcategory(),
+                    inStock, minPrice, maxPrice, stable);
+        });
+    }
+
+    private static Pageable withIdTieBreaker(Pageable pageable) {
+        Sort.Direction direction = Sort.Direction.ASC;
+        for (Sort.Order order : pageable.getSort()) {
+            if ("id".equals(order.getProperty())) return pageable;
+            if (CatalogSortField.fromProperty(order.getProperty()).isEmpty()) {
+                throw new IllegalArgumentException("Unsupported sort field: " + order.getProperty());
+            }
+            direction = order.getDirection();
+        }
+        Sort sort = pageable.getSort().and(Sort.by(direction, "id"));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    // ---- Keyset (cursor) search ----
+
+    /**
+     * Cursor-paginated catalog search. Each slice is ordered by (sortBy, id) and starts
+     * strictly after the cursor, so deep pages cost the same as the first one and no
+     * COUNT query runs unless includeTotal is set (and then it is cached briefly).
+     *
+     * @throws IllegalArgumentException for an unsupported sortBy or an invalid/mismatched cursor
+     */
+    public CatalogSlice scrollCatalog(String category, String subcategory,
+                                      Boolean inStock, BigDecimal minPrice,
+                                      BigDecimal maxPrice, String search,
+                                      List<String> sizes, List<String> colors,
+                                      String sortBy, String sortDir, String cursor,
+                                      int size, boolean includeTotal) {
+        if (size < 1) throw new IllegalArgumentException("Page size must be at least 1");
+        CatalogSortField field = CatalogSortField.fromProperty(sortBy)
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort field: " + sortBy));
+        boolean ascending = "asc".equalsIgnoreCase(sortDir);
+        CatalogCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = CatalogCursor.decode(cursor);
+            if (after.field() != field || after.ascending() != ascending) {
+                throw new IllegalArgumentException("Cursor does not match sortBy/sortDir");
+            }
+        }
+        CatalogFilter filter = normalizeFilter(category, subcategory, inStock, minPrice, maxPrice, search, sizes, colors);
+
+        CatalogCursor position = after;
+        return searchIndex.scroll(filter, field, ascending, after, size, includeTotal)
+                .orElseGet(() -> scrollFromDatabase(filter, field, ascending, position, size, includeTotal));
+    }
+
+    // ---- Facets ----
+
+    /**
+     * Per-facet counts for the given filter set, taken from the search index in a single
+     * pass. Without the index, the matching rows are loaded once and counted in memory.
+     * Size and color counts ignore their own filter (see {@link CatalogSearchIndex#facets}).
+     *
+     * @param priceEdges band boundaries for the price facet; null or empty uses 25/50/100/200
+     */
+    public CatalogFacetsResponse getCatalogFacets(String category, String subcategory,
+                                                  Boolean inStock, BigDecimal minPrice,
+                                                  BigDecimal maxPrice, String search,
+                                                  List<String> sizes, List<String> colors,
+                                                  List<BigDecimal> priceEdges) {
+        CatalogFilter filter = normalizeFilter(category, subcategory, inStock, minPrice, maxPrice, search, sizes, colors);
+        List<BigDecimal> edges = (priceEdges == null || priceEdges.isEmpty())
+                ? DEFAULT_PRICE_EDGES
+                : priceEdges.stream().distinct().sorted().toList();
+        return searchIndex.facets(filter, edges).orElseGet(() -> {
+            // load without the size/color filters and apply them in memory, so their own
+            // facet counts still cover the other values
+            CatalogFilter variants = CatalogFilter.builder()
+                    .search(filter.getSearch()).sizes(filter.getSizes()).colors(filter.getColors()).build();
+            CatalogFilter rest = normalizeFilter(category, subcategory, inStock, minPrice, maxPrice, search, null, null);
+            return candidates(rest).facets(variants, edges).orElseThrow();
+        });
+    }
+
+    /**
+     * An index over the rows that may match {@code filter}, for counting facets while the
+     * main index is down. The Specification only narrows a search by substring, so the
+     * index's word-prefix match has the final say.
+     */
+    private CatalogSearchIndex candidates(CatalogFilter filter) {
+        CatalogSearchIndex matches = new CatalogSearchIndex();
+        matches.rebuild(productRepository.findAll(catalogSpecification(filter)));
+        return matches;
+    }
+
+    private CatalogSlice scrollFromDatabase(CatalogFilter filter, CatalogSortField field, boolean ascending,
+                                            CatalogCursor after, int size, boolean includeTotal) {
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, field.getProperty(), "id");
+        ScrollPosition position = after == null
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(Map.of(field.getProperty(), after.key(), "id", after.id()));
+        Specification<ShopProduct> spec = catalogSpecification(filter);
+
+        Window<ShopProduct> window = productRepository.findBy(spec, q -> q.sortBy(sort).limit(size).scroll(position));
+        List<ShopProduct> content = window.getContent();
+        String next = window.hasNext() && !content.isEmpty()
+                ? CatalogCursor.after(content.get(content.size() - 1), field, ascending).encode()
+                : null;
+        Long total = includeTotal ? cachedCount(filter, spec) : null;
+        return new CatalogSlice(content, next, total);
+    }
+
+    private long cachedCount(CatalogFilter filter, Specification<ShopProduct> spec) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = countCache.get(filter);
+        if (cached != null && cached.expiresAt() > now) return cached.value();
+        long count = productRepository.count(spec);
+        if (countCache.size() >= COUNT_CACHE_MAX_ENTRIES) countCache.clear();
+        countCache.put(filter, new CachedCount(count, now + COUNT_CACHE_TTL_MILLIS));
+        return count;
+    }
+
+    /**
+     * Same predicates as ShopProductRepository.searchCatalog plus the size/color
+     * filters, for Specification-based queries. A search matches when every query word
+     * occurs somewhere in the name, description or subcategory: a superset of the index's
+     * word-prefix matches, paged in the database while the index is down.
+     */
+    private static Specification<ShopProduct> catalogSpecification(CatalogFilter f) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (f.getCategory() != null) predicates.add(cb.equal(root.get("category"), f.getCategory()));
+            if (f.getSubcategory() != null) predicates.add(cb.equal(root.get("subcategory"), f.getSubcategory()));
+            if (f.getInStock() != null) predicates.add(cb.equal(root.get("inStock"), f.getInStock()));
+            if (f.getMinPrice() != null) predicates.add(cb.greaterThanOrEqualTo(root.get("price"), f.getMinPrice()));
+            if (f.getMaxPrice() != null) predicates.add(cb.lessThanOrEqualTo(root.get("price"), f.getMaxPrice()));
+            // array overlap (sizes && ?), which the GIN indexes on sizes/colors serve
+            if (f.getSizes() != null) {
+                predicates.add(((HibernateCriteriaBuilder) cb).arrayIntersects(
+                        root.<String[]>get("sizes"), f.getSizes().toArray(new String[0])));
+            }
+            if (f.getColors() != null) {
+                predicates.add(((HibernateCriteriaBuilder) cb).arrayIntersects(
+                        root.<String[]>get("colors"), f.getColors().toArray(new String[0])));
+            }
+            // tokens are lowercase letters and digits, so they need no LIKE escaping
+            for (String token : CatalogSearchIndex.tokenize(f.getSearch())) {
+                String like = "%" + token + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("name")), like),
+                        cb.like(cb.lower(root.get("description")), like),
+                        cb.like(cb.lower(root.get("subcategory")), like)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static CatalogFilter normalizeFilter(String category, String subcategory, Boolean inStock,
+                                                 BigDecimal minPrice, BigDecimal maxPrice, String search,
+                                                 List<String> sizes, List<String> colors) {
+        return CatalogFilter.builder()
+                .category((category != null && !"all".equalsIgnoreCase(category)) ? category : null)
+                .subcategory((subcategory != null && !subcategory.isBlank()) ? subcategory : null)
+                .inStock(inStock)
+                .minPrice(minPrice).maxPrice(maxPrice)
+                // a search without a single word constrains nothing, like a blank one
+                .search(CatalogSearchIndex.tokenize(search).isEmpty() ? null : search)
+                .sizes(normalizeValues(sizes))
+                .colors(normalizeValues(colors))
+                .build();
+    }
+
+    /** Trimmed, de-duplicated and sorted (so equal filters share count cache entries); null if empty. */
+    private static List<String> normalizeValues(List<String> values) {
+        if (values == null) return null;
+        List<String> normalized = values.stream()
+                .filter(v -> v != null && !v.isBlank())
+                .map(String::trim)
+                .distinct()
+                .sorted()
+                .toList();
+        return normalized.isEmpty() ? null : normalized;
     }
 }
@@ -0,0 +1,86 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.entity.ShopProduct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Upserts shop products with plain JDBC batches (one transaction per batch), bypassing
+ * the persistence context so bulk imports neither load existing rows nor keep entities.
+ * An update only overwrites the columns the import supplied, so a file with a subset of
+ * the columns does not reset the rest to their defaults.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShopProductBulkWriter {
+
+    /** Columns an import may leave out; id, name and price are always written. */
+    static final List<String> OPTIONAL_COLUMNS = List.of("description", "category", "subcategory",
+            "sizes", "colors", "images", "in_stock", "rating", "reviews", "metadata");
+
+    private static final String INSERT_SQL = """
+            INSERT INTO shop_products (id, name, description, price, category, subcategory,
+                                       sizes, colors, images, in_stock, rating, reviews, metadata)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb))
+            ON CONFLICT (id) DO UPDATE SET
+                name = EXCLUDED.name,
+                price = EXCLUDED.price,
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Insert or update every product in one JDBC batch and transaction; all or nothing.
+     * New rows get every column. Existing rows get id, name, price and those of
+     * {@link #OPTIONAL_COLUMNS} named in {@code columns}; the others keep their values.
+     */
+    public void upsert(List<ShopProduct> batch, Set<String> columns) {
+        String sql = upsertSql(columns);
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(sql, batch, batch.size(), this::bind));
+    }
+
+    static String upsertSql(Set<String> columns) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        for (String column : OPTIONAL_COLUMNS) {
+            if (columns.contains(column)) sql.append("    ").append(column).append(" = EXCLUDED.").append(column).append(",\n");
+        }
+        return sql.append("    version = shop_products.version + 1\n").toString();
+    }
+
+    private void bind(PreparedStatement ps, ShopProduct p) throws SQLException {
+        ps.setString(1, p.getId());
+        ps.setString(2, p.getName());
+        ps.setString(3, p.getDescription());
+        ps.setBigDecimal(4, p.getPrice());
+        ps.setString(5, p.getCategory());
+        ps.setString(6, p.getSubcategory());
+        ps.setArray(7, ps.getConnection().createArrayOf("text", p.getSizes()));
+        ps.setArray(8, ps.getConnection().createArrayOf("text", p.getColors()));
+        ps.setArray(9, ps.getConnection().createArrayOf("text", p.getImages()));
+        ps.setBoolean(10, p.getInStock());
+        ps.setBigDecimal(11, p.getRating());
+        ps.setInt(12, p.getReviews());
+        ps.setString(13, toJson(p.getMetadata()));
+    }
+
+    private String toJson(Map<String, Object> metadata) throws SQLException {
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Cannot serialize metadata", e);
+        }
+    }
+}
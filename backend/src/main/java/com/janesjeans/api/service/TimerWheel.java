@@ -0,0 +1,81 @@
+package com.janesjeans.api.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel: deadlines are filed into one of {@code slots} buckets by tick, and
+ * {@link #advance} only visits the buckets for the ticks that passed since the last call,
+ * so scheduling is O(1) and expiring costs O(due + bucket size) instead of a scan of
+ * everything pending. Deadlines more than one revolution away wait in their bucket
+ * until a later pass reaches them.
+ *
+ * There is no cancel: owners keep the authoritative deadline themselves and ignore keys
+ * whose deadline has moved on when they come due.
+ */
+public class TimerWheel<K> {
+
+    private record Timeout<K>(K key, long deadline) {}
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Timeout<K>>[] buckets;
+    private long lastTick;
+    private int size;
+
+    /**
+     * @param slots rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int slots, long startMillis) {
+        if (tickMillis < 1) throw new IllegalArgumentException("tickMillis must be at least 1");
+        int n = slots <= 2 ? 2 : Integer.highestOneBit(slots - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = n - 1;
+        this.buckets = new List[n];
+        for (int i = 0; i < n; i++) buckets[i] = new ArrayList<>();
+        this.lastTick = startMillis / tickMillis;
+    }
+
+    /**
+     * File {@code key} to come due at {@code deadlineMillis}; a deadline already past is
+     * returned by the next {@link #advance}.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), lastTick + 1);
+        buckets[(int) (tick & mask)].add(new Timeout<>(key, deadlineMillis));
+        size++;
+    }
+
+    /**
+     * Remove and return every key whose deadline is at or before {@code nowMillis}.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long now = nowMillis / tickMillis;
+        List<K> due = new ArrayList<>();
+        if (now <= lastTick) return due;
+        long ticks = Math.min(now - lastTick, buckets.length);
+        for (long t = 1; t <= ticks; t++) {
+            Iterator<Timeout<K>> it = buckets[(int) ((lastTick + t) & mask)].iterator();
+            while (it.hasNext()) {
+                Timeout<K> timeout = it.next();
+                if (timeout.deadline() <= nowMillis) {
+                    due.add(timeout.key());
+                    it.remove();
+                    size--;
+                }
+            }
+        }
+        lastTick = now;
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
@@ -0,0 +1,196 @@
+package com.janesjeans.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.BulkStatusRequest;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.Shipment;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.repository.ShipmentRepository;
+import com.janesjeans.api.service.EmailService;
+import com.janesjeans.api.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:bulkstatus;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "orders.bulk-status.batch-size=4",
+    "email.outbox.poll-millis=3600000"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class BulkOrderStatusTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private EmailService emailService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        shipmentRepository.deleteAll();
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void shipped_movesEveryEligibleOrderAndItsShipmentInOneUpdatePerBatch() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = order(i % 2 == 0 ? "Pending" : "Processing");
+            shipment(order, "pending");
+            ids.add(order.getId());
+        }
+
+        statistics.clear();
+        JsonNode response = bulk(ids, "Shipped");
+
+        assertThat(response.get("updated").asInt()).isEqualTo(10);
+        assertThat(response.get("shipmentsUpdated").asInt()).isEqualTo(10);
+        assertThat(response.get("results")).allSatisfy(r -> assertThat(r.get("outcome").asText()).isEqualTo("UPDATED"));
+        assertThat(response.get("results").get(1).get("previousStatus").asText()).isEqualTo("Processing");
+        // three batches of at most 4: read statuses, update orders, update shipments
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(9);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        for (String id : ids) {
+            Order order = orderRepository.findById(id).orElseThrow();
+            assertThat(order.getStatus()).isEqualTo("Shipped");
+            assertThat(order.getShippedDate()).isNotNull();
+            assertThat(order.getDeliveredDate()).isNull();
+            Shipment shipment = shipmentRepository.findByOrderId(id).orElseThrow();
+            assertThat(shipment.getStatus()).isEqualTo("in_transit");
+            assertThat(shipment.getShippedAt()).isNotNull();
+        }
+    }
+
+    @Test
+    void delivered_reportsEveryIdAndOnlyMovesAllowedTransitions() throws Exception {
+        Order shipped = order("Shipped");
+        Shipment inTransit = shipment(shipped, "in_transit");
+        Order pending = order("Pending");
+        Order delivered = order("Delivered");
+        Order verifying = order("PendingVerification");
+
+        JsonNode response = bulk(List.of(shipped.getId(), pending.getId(), "missing", delivered.getId(),
+                verifying.getId(), shipped.getId()), "Delivered");
+
+        assertThat(response.get("updated").asInt()).isEqualTo(1);
+        assertThat(response.get("shipmentsUpdated").asInt()).isEqualTo(1);
+        JsonNode results = response.get("results");
+        assertThat(results).hasSize(5);
+        assertThat(outcomes(results)).containsExactly("UPDATED", "INVALID_TRANSITION", "NOT_FOUND", "UNCHANGED",
+                "INVALID_TRANSITION");
+        assertThat(results.get(1).get("message").asText()).isEqualTo("Cannot move an order from Pending to Delivered");
+        assertThat(results.get(2).get("previousStatus").isNull()).isTrue();
+
+        Order moved = orderRepository.findById(shipped.getId()).orElseThrow();
+        assertThat(moved.getDeliveredDate()).isNotNull();
+        assertThat(orderRepository.findById(pending.getId()).orElseThrow().getStatus()).isEqualTo("Pending");
+        assertThat(orderRepository.findById(verifying.getId()).orElseThrow().getStatus()).isEqualTo("PendingVerification");
+        Shipment shipment = shipmentRepository.findById(inTransit.getId()).orElseThrow();
+        assertThat(shipment.getStatus()).isEqualTo("delivered");
+        assertThat(shipment.getDeliveredAt()).isNotNull();
+        assertThat(shipment.getShippedAt()).isEqualTo(inTransit.getShippedAt());
+    }
+
+    @Test
+    void invalidRequests_areRejected() throws Exception {
+        Order pending = order("Pending");
+        request(List.of(pending.getId()), "PendingVerification")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(startsWith("Cannot bulk-move orders to status")));
+        request(List.of(), "Shipped").andExpect(status().isBadRequest());
+        request(IntStream.range(0, 1001).mapToObj(i -> "id-" + i).toList(), "Shipped")
+                .andExpect(status().isBadRequest());
+        assertThat(orderRepository.findById(pending.getId()).orElseThrow().getStatus()).isEqualTo("Pending");
+    }
+
+    private JsonNode bulk(List<String> ids, String status) throws Exception {
+        return objectMapper.readTree(request(ids, status)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private ResultActions request(List<String> ids, String status) throws Exception {
+        return mockMvc.perform(post("/api/orders/bulk-status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(BulkStatusRequest.builder().ids(ids).status(status).build())));
+    }
+
+    private static List<String> outcomes(JsonNode results) {
+        List<String> outcomes = new ArrayList<>();
+        results.forEach(r -> outcomes.add(r.get("outcome").asText()));
+        return outcomes;
+    }
+
+    private Order order(String status) {
+        return orderService.createOrder(Order.builder()
+                .customerName("Bulk Customer")
+                .customerEmail("bulk@example.com")
+                .status(status)
+                .totalAmount(new BigDecimal("59.99"))
+                .shippingAddress("1 Bulk Rd")
+                .items(new ArrayList<>())
+                .build());
+    }
+
+    private Shipment shipment(Order order, String status) {
+        return shipmentRepository.save(Shipment.builder()
+                .orderId(order.getId())
+                .vendorId("vendor-1")
+                .trackingNumber("TRK-" + order.getId())
+                .status(status)
+                .shippingAddress(order.getShippingAddress())
+                .shippedAt("in_transit".equals(status) ? LocalDateTime.of(2026, 5, 1, 8, 0) : null)
+                .build());
+    }
+}
@@ -0,0 +1,142 @@
+package com.janesjeans.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.exception.InsufficientStockException;
+import com.janesjeans.api.repository.ProductRepository;
+import com.janesjeans.api.service.EmailService;
+import com.janesjeans.api.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:querycount;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "email.outbox.poll-millis=3600000"
+})
+@AutoConfigureMockMvc
+class CheckStockQueryCountTest {
+
+    private static final int CART_LINES = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private EmailService emailService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void checkStock_loadsTheWholeCartInOneQuery() throws Exception {
+        List<GuestOrderRequest.GuestOrderItem> cart = new ArrayList<>();
+        for (int i = 0; i < CART_LINES; i++) {
+            cart.add(item(product("Count Jeans " + i, i == 3 ? 1 : 10), 2));
+        }
+        cart.add(missingItem());
+
+        statistics.clear();
+        mockMvc.perform(post("/api/shop/check-stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cart)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(false))
+                .andExpect(jsonPath("$.issues.length()").value(2))
+                .andExpect(jsonPath("$.issues[0].productName").value("Count Jeans 3"))
+                .andExpect(jsonPath("$.issues[0].availableStock").value(1))
+                .andExpect(jsonPath("$.issues[1].productId").value("no-such-product"))
+                .andExpect(jsonPath("$.issues[1].error").value("Product not found"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shortReservation_describesEveryShortLineWithOneLookup() {
+        List<GuestOrderRequest.GuestOrderItem> cart = new ArrayList<>();
+        for (int i = 0; i < CART_LINES; i++) {
+            cart.add(item(product("Short Count Jeans " + i, i % 5 == 0 ? 1 : 10), 2));
+        }
+        cart.add(missingItem());
+
+        statistics.clear();
+        assertThatThrownBy(() -> productService.reserveStock(cart))
+                .isInstanceOf(InsufficientStockException.class)
+                .extracting(e -> ((InsufficientStockException) e).getStockErrors())
+                .asList()
+                .hasSize(5)
+                .contains("Missing Jeans: product not found");
+
+        // the reservation itself is a plain JDBC batch; only the shortfall lookup goes through JPA
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Product product(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setFit("Slim");
+        p.setGender("Men");
+        p.setSize("32");
+        p.setPrice(new BigDecimal("59.99"));
+        p.setStockLevel(stock);
+        return productRepository.save(p);
+    }
+
+    private static GuestOrderRequest.GuestOrderItem item(Product p, int quantity) {
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId(p.getId());
+        item.setProductName(p.getName());
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static GuestOrderRequest.GuestOrderItem missingItem() {
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId("no-such-product");
+        item.setProductName("Missing Jeans");
+        item.setQuantity(1);
+        return item;
+    }
+}
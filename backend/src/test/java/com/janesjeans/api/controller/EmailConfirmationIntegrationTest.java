@@ -92,7 +92,7 @@ public class EmailConfirmationIntegrationTest {
                         .content(objectMapper.writeValueAsString(req)))
                 .andExpect(status().isCreated());
 
-        // verify EmailService was asked to send the confirmation
-        org.mockito.Mockito.verify(emailService, timeout(2000)).sendOrderConfirmationAsync(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.anyString());
+        // verify the checkout pipeline asked EmailService to send the confirmation
+        org.mockito.Mockito.verify(emailService, timeout(5000)).sendOrderConfirmation(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.anyString());
     }
 }
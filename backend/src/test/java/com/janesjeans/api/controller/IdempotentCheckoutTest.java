@@ -0,0 +1,270 @@
+package com.janesjeans.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.CheckoutOutbox;
+import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.repository.CheckoutOutboxRepository;
+import com.janesjeans.api.repository.IdempotencyRecordRepository;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.repository.PaymentRepository;
+import com.janesjeans.api.repository.ProductRepository;
+import com.janesjeans.api.service.EmailService;
+import com.janesjeans.api.service.IdempotencyService;
+import com.janesjeans.api.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test"
+})
+@AutoConfigureMockMvc
+class IdempotentCheckoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private CheckoutOutboxRepository checkoutOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void retriedConfirm_replaysTheFirstResponseWithoutOrderingAgain() throws Exception {
+        Product jeans = product("Retry Jeans", 5);
+        String body = objectMapper.writeValueAsString(request(jeans, 2, "retry@test.com"));
+        String key = UUID.randomUUID().toString();
+
+        String first = confirm(key, body).getContentAsString();
+        MockHttpServletResponse replay = mockMvc.perform(post("/api/shop/orders/confirm")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn().getResponse();
+
+        assertThat(objectMapper.readTree(replay.getContentAsString())).isEqualTo(objectMapper.readTree(first));
+        String orderId = objectMapper.readTree(first).get("id").asText();
+        assertThat(stockOf(jeans)).isEqualTo(3);
+        assertThat(ordersFor("retry@test.com")).isEqualTo(1);
+        awaitTrue(() -> checkoutOutboxRepository.findByOrderId(orderId).orElseThrow().getStage() == CheckoutOutbox.Stage.DONE);
+        assertThat(paymentRepository.findByOrderId(orderId)).hasSize(1);
+        assertThat(idempotencyRecordRepository.findById("POST /api/shop/orders/confirm " + key)).isPresent();
+    }
+
+    @Test
+    void keyReusedForAnotherCart_isRejected() throws Exception {
+        Product jeans = product("Reused Key Jeans", 5);
+        String key = UUID.randomUUID().toString();
+        confirm(key, objectMapper.writeValueAsString(request(jeans, 1, "reuse@test.com")));
+
+        mockMvc.perform(post("/api/shop/orders/confirm")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(jeans, 3, "reuse@test.com"))))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(stockOf(jeans)).isEqualTo(4);
+    }
+
+    @Test
+    void sameKeyOnAnotherEndpoint_isAnotherRequest() throws Exception {
+        Product jeans = product("Scoped Key Jeans", 5);
+        String key = UUID.randomUUID().toString();
+        String body = objectMapper.writeValueAsString(request(jeans, 1, "scoped@test.com"));
+        confirm(key, body);
+
+        mockMvc.perform(post("/api/shop/orders")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        assertThat(stockOf(jeans)).isEqualTo(3);
+        assertThat(ordersFor("scoped@test.com")).isEqualTo(2);
+        assertThat(idempotencyRecordRepository.findById("POST /api/shop/orders " + key)).isPresent();
+        assertThat(idempotencyRecordRepository.findById("POST /api/shop/orders/confirm " + key)).isPresent();
+    }
+
+    @Test
+    void concurrentDuplicates_runOnce() throws Exception {
+        Product jeans = product("Double Click Jeans", 50);
+        String body = objectMapper.writeValueAsString(request(jeans, 1, "double@test.com"));
+        String key = UUID.randomUUID().toString();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            responses.add(pool.submit(() -> {
+                start.await();
+                return confirm(key, body).getContentAsString();
+            }));
+        }
+        start.countDown();
+        Set<String> orderIds = new HashSet<>();
+        for (Future<String> response : responses) {
+            orderIds.add(objectMapper.readTree(response.get(60, TimeUnit.SECONDS)).get("id").asText());
+        }
+        pool.shutdown();
+
+        assertThat(orderIds).hasSize(1);
+        assertThat(ordersFor("double@test.com")).isEqualTo(1);
+        assertThat(stockOf(jeans)).isEqualTo(49);
+    }
+
+    @Test
+    void storedResponse_outlivesTheInMemoryEntry() throws Exception {
+        Product jeans = product("Restart Jeans", 5);
+        GuestOrderRequest request = request(jeans, 1, "restart@test.com");
+        String key = UUID.randomUUID().toString();
+        String first = confirm(key, objectMapper.writeValueAsString(request)).getContentAsString();
+
+        // a fresh instance has an empty memory, as after a restart
+        IdempotencyService restarted = new IdempotencyService(idempotencyRecordRepository, jdbcTemplate, objectMapper, 24, 10);
+        ResponseEntity<?> replay = restarted.execute(key, "POST /api/shop/orders/confirm", request, () -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertThat(replay.getStatusCode().value()).isEqualTo(201);
+        assertThat(objectMapper.readTree((String) replay.getBody())).isEqualTo(objectMapper.readTree(first));
+    }
+
+    @Test
+    void failedCheckout_isNotStoredSoARetryRunsAgain() throws Exception {
+        Product jeans = product("Restocked Jeans", 0);
+        String body = objectMapper.writeValueAsString(request(jeans, 1, "restocked@test.com"));
+        String key = UUID.randomUUID().toString();
+
+        mockMvc.perform(post("/api/shop/orders/confirm")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isConflict());
+        jeans.setStockLevel(1);
+        productService.updateProduct(jeans.getId(), jeans);
+
+        confirm(key, body);
+        assertThat(stockOf(jeans)).isZero();
+    }
+
+    private MockHttpServletResponse confirm(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/shop/orders/confirm")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private long ordersFor(String email) {
+        return orderRepository.findAll().stream().filter(o -> email.equals(o.getCustomerEmail())).count();
+    }
+
+    private Product product(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setFit("Slim");
+        p.setGender("Men");
+        p.setSize("32");
+        p.setPrice(new BigDecimal("59.99"));
+        p.setStockLevel(stock);
+        return productRepository.save(p);
+    }
+
+    private int stockOf(Product p) {
+        return productRepository.findById(p.getId()).orElseThrow().getStockLevel();
+    }
+
+    private static GuestOrderRequest request(Product p, int quantity, String email) {
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId(p.getId());
+        item.setProductName(p.getName());
+        item.setQuantity(quantity);
+        item.setSize(p.getSize());
+        item.setPrice(p.getPrice());
+
+        GuestOrderRequest.ShipmentInfo ship = new GuestOrderRequest.ShipmentInfo();
+        ship.setName("Guest");
+        ship.setEmail(email);
+        ship.setPhone("+100");
+        ship.setAddress("1 Test Ave");
+        ship.setCity("Testville");
+        ship.setPostalCode("12345");
+
+        GuestOrderRequest.PaymentInfo pay = new GuestOrderRequest.PaymentInfo();
+        pay.setType("CARD");
+        pay.setStatus("SUCCESS");
+
+        GuestOrderRequest request = new GuestOrderRequest();
+        request.setItems(new ArrayList<>(List.of(item)));
+        request.setShipmentDetails(ship);
+        request.setPayment(pay);
+        request.setTotalAmount(p.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        return request;
+    }
+}
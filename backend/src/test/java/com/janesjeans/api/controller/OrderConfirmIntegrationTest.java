@@ -15,13 +15,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import com.janesjeans.api.service.EmailService;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -61,7 +61,6 @@ class OrderConfirmIntegrationTest {
     private ShipmentRepository shipmentRepository;
 
     @Test
-    @Transactional
     void confirmOrder_shouldPersistOrderPaymentAndShipment() throws Exception {
         // prepare product
         Product p = new Product();
@@ -119,6 +118,11 @@ class OrderConfirmIntegrationTest {
         assertThat(order.getTotalAmount()).isEqualByComparingTo(req.getTotalAmount());
         assertThat(order.getShippingAddress()).isNotBlank();
         assertThat(order.getOrderDate()).isNotNull();
+        assertThat(order.getOrderNumber()).isNotNull();
+        assertThat(node.get("orderNumber").asText()).isEqualTo(String.format("ORD-%06d", order.getOrderNumber()));
+
+        // payment and shipment are created by the checkout pipeline after the response
+        awaitTrue(() -> shipmentRepository.findByOrderId(orderId).isPresent());
 
         // verify payment persisted
         List<Payment> payments = paymentRepository.findByOrderId(orderId);
@@ -133,4 +137,12 @@ class OrderConfirmIntegrationTest {
         Shipment shipment = shipOpt.get();
         assertThat(shipment.getShippingAddress()).contains("Test Ave");
     }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
 }
@@ -1,12 +1,15 @@
 package com.janesjeans.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.OrderSummaryDTO;
 import com.janesjeans.api.entity.Order;
 import com.janesjeans.api.service.OrderService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -49,17 +52,29 @@ class OrderControllerTest {
                 .build();
     }
 
+    private OrderSummaryDTO summary(String id, String status) {
+        return OrderSummaryDTO.builder()
+                .id(id)
+                .customerName("Test Customer")
+                .customerEmail("test@test.com")
+                .status(status)
+                .totalAmount(new BigDecimal("149.99"))
+                .orderDate(LocalDateTime.now())
+                .build();
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
-    void getAllOrders_shouldReturnOrders() throws Exception {
-        when(orderService.getAllOrders()).thenReturn(Arrays.asList(
-                createMockOrder("o1", "Pending"),
-                createMockOrder("o2", "Shipped")
-        ));
+    void getOrders_shouldReturnAPageOfSummaries() throws Exception {
+        when(orderService.getOrderSummaries(null, null, null, 0, 50, false)).thenReturn(new PageImpl<>(Arrays.asList(
+                summary("o1", "Pending"),
+                summary("o2", "Shipped")
+        ), PageRequest.of(0, 50), 2));
 
         mockMvc.perform(get("/api/orders"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(2));
     }
 
     @Test
@@ -0,0 +1,172 @@
+package com.janesjeans.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.service.EmailService;
+import com.janesjeans.api.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:orderexport;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "orders.export.fetch-size=2"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class OrderExportTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 5, 4, 9, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private EmailService emailService;
+
+    private Order twoItems;
+    private Order quoted;
+    private Order noItems;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        twoItems = order("Ann Lee", "Delivered", DAY, 2);
+        quoted = order("Lee, \"Bo\"", "Pending", DAY.plusHours(1), 1);
+        noItems = order("=HYPERLINK(\"x\")", "Delivered", DAY.plusDays(1), 0);
+    }
+
+    @Test
+    void csv_hasOneLinePerItemInOrderDateOrder() throws Exception {
+        MockHttpServletResponse response = export(get("/api/orders/export").param("format", "csv"));
+
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getHeader("Content-Disposition")).contains("attachment").contains(".csv\"");
+        List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0)).startsWith("order_id,order_number,order_date,status");
+        assertThat(lines.get(1)).startsWith(twoItems.getId() + "," + twoItems.displayOrderNumber() + ",2026-05-04T09:00,Delivered,Ann Lee,")
+                .endsWith(",sku-0,Export Jeans,30,1,49.50");
+        assertThat(lines.get(2)).endsWith(",sku-1,Export Jeans,30,2,49.50");
+        // commas and quotes are quoted; a leading = cannot become a spreadsheet formula
+        assertThat(lines.get(3)).contains(",\"Lee, \"\"Bo\"\"\",");
+        assertThat(lines.get(4)).contains(",\"'=HYPERLINK(\"\"x\"\")\",").endsWith(",,,,,");
+    }
+
+    @Test
+    void ndjson_filteredByStatusAndRange_hasOneOrderPerLine() throws Exception {
+        MockHttpServletResponse response = export(get("/api/orders/export")
+                .param("format", "ndjson")
+                .param("status", "Delivered")
+                .param("from", DAY.toString())
+                .param("to", DAY.plusHours(12).toString()));
+
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(1);
+        JsonNode order = objectMapper.readTree(lines.get(0));
+        assertThat(order.get("id").asText()).isEqualTo(twoItems.getId());
+        assertThat(order.get("items")).hasSize(2);
+        assertThat(order.get("items").get(1).get("quantity").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void gzip_compressesTheDownload() throws Exception {
+        MockHttpServletResponse response = export(get("/api/orders/export").param("format", "ndjson").param("gzip", "true"));
+
+        assertThat(response.getContentType()).isEqualTo("application/gzip");
+        assertThat(response.getHeader("Content-Disposition")).contains(".ndjson.gz\"");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertThat(lines).hasSize(3);
+            assertThat(objectMapper.readTree(lines.get(2)).get("items")).isEmpty();
+        }
+    }
+
+    @Test
+    void invalidParameters_areRejectedBeforeStreaming() throws Exception {
+        MvcResult unknownFormat = mockMvc.perform(get("/api/orders/export").param("format", "xlsx")).andReturn();
+        mockMvc.perform(asyncDispatch(unknownFormat))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown export format: xlsx (use csv or ndjson)"));
+        MvcResult backwards = mockMvc.perform(get("/api/orders/export")
+                        .param("from", DAY.toString())
+                        .param("to", DAY.minusDays(1).toString()))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(backwards)).andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Content-Disposition"))
+                .andReturn().getResponse();
+    }
+
+    private Order order(String customerName, String status, LocalDateTime orderDate, int items) {
+        Order order = Order.builder()
+                .customerName(customerName)
+                .customerEmail("export@example.com")
+                .status(status)
+                .totalAmount(new BigDecimal("99.00"))
+                .shippingAddress("1 Export Rd, Portsmouth")
+                .orderDate(orderDate)
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < items; i++) {
+            order.getItems().add(OrderItem.builder()
+                    .productId("sku-" + i)
+                    .productName("Export Jeans")
+                    .size("30")
+                    .quantity(i + 1)
+                    .price(new BigDecimal("49.50"))
+                    .build());
+        }
+        return orderService.createOrder(order);
+    }
+}
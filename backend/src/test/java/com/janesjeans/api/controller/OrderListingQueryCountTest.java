@@ -0,0 +1,195 @@
+package com.janesjeans.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.service.EmailService;
+import com.janesjeans.api.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:orderlisting;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "email.outbox.poll-millis=3600000"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class OrderListingQueryCountTest {
+
+    private static final int ORDERS = 30;
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private EmailService emailService;
+
+    private Statistics statistics;
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        orderRepository.deleteAll();
+        orders.clear();
+        for (int i = 0; i < ORDERS; i++) {
+            // pairs of orders share an order date, so paging has to break ties by id
+            orders.add(order(i % 3 == 0 ? "Shipped" : "Pending", NEWEST.minusHours(i / 2)));
+        }
+    }
+
+    @Test
+    void summaries_takeOneQueryPlusTheCount() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/api/orders").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.totalElements").value(ORDERS))
+                .andExpect(jsonPath("$.totalPages").value(3))
+                .andExpect(jsonPath("$.content[0].orderDate").value("2026-03-01T12:00:00"))
+                .andExpect(jsonPath("$.content[0].orderNumber").value(org.hamcrest.Matchers.startsWith("ORD-")))
+                .andExpect(jsonPath("$.content[0].items").doesNotExist())
+                .andExpect(jsonPath("$.content[0].notes").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void expandItems_loadsEveryOrdersItemsInOneMoreQuery() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/api/orders").param("size", "10").param("expand", "items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(10))
+                .andExpect(jsonPath("$.content[0].items.length()").value(2))
+                .andExpect(jsonPath("$.content[9].items[1].quantity").value(2));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void filters_narrowByStatusAndDateRange() throws Exception {
+        // orders 0..11 fall in [NEWEST - 5h, NEWEST + 1h); of those, 0, 3, 6 and 9 are Shipped
+        mockMvc.perform(get("/api/orders")
+                        .param("status", "Shipped")
+                        .param("from", NEWEST.minusHours(5).toString())
+                        .param("to", NEWEST.plusHours(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(4))
+                .andExpect(jsonPath("$.content[*].status").value(org.hamcrest.Matchers.everyItem(org.hamcrest.Matchers.is("Shipped"))));
+    }
+
+    @Test
+    void cursorPaging_walksEveryOrderOnceNewestFirst() throws Exception {
+        List<String> expected = orders.stream()
+                .sorted(Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            var request = get("/api/orders").param("paging", "cursor").param("size", "7");
+            if (cursor != null) request.param("cursor", cursor);
+            JsonNode slice = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            slice.get("content").forEach(o -> seen.add(o.get("id").asText()));
+            cursor = slice.get("nextCursor").isNull() ? null : slice.get("nextCursor").asText();
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        } while (cursor != null);
+
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void createdOrder_getsItsNumberFromTheInsert() {
+        statistics.clear();
+
+        Order created = order("Pending", NEWEST.plusHours(1));
+
+        assertThat(created.getOrderNumber()).isNotNull();
+        assertThat(orderRepository.findById(created.getId()).orElseThrow().getOrderNumber()).isEqualTo(created.getOrderNumber());
+        // the order and its two items, with no SELECT to read the number back
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3 + 1);
+    }
+
+    @Test
+    void invalidListingParameters_areRejected() throws Exception {
+        mockMvc.perform(get("/api/orders").param("size", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders").param("size", "500")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders").param("expand", "payments")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders").param("paging", "cursor").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders")
+                        .param("from", NEWEST.toString())
+                        .param("to", NEWEST.minusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Order order(String status, LocalDateTime orderDate) {
+        Order order = Order.builder()
+                .customerName("Listing Customer")
+                .customerEmail("listing@example.com")
+                .status(status)
+                .totalAmount(new BigDecimal("119.98"))
+                .shippingAddress("1 List St")
+                .notes("not part of the summary")
+                .orderDate(orderDate)
+                .items(new ArrayList<>())
+                .build();
+        for (String size : List.of("30", "32")) {
+            order.getItems().add(OrderItem.builder()
+                    .productId("product-" + size)
+                    .productName("Listing Jeans")
+                    .size(size)
+                    .quantity(2)
+                    .price(new BigDecimal("29.99"))
+                    .build());
+        }
+        return orderService.createOrder(order);
+    }
+}
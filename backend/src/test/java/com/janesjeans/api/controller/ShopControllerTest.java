@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.janesjeans.api.dto.GuestOrderRequest;
 import com.janesjeans.api.entity.Order;
 import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.exception.InsufficientStockException;
 import com.janesjeans.api.service.EmailService;
 import com.janesjeans.api.service.OrderService;
 import com.janesjeans.api.service.ProductService;
@@ -20,6 +21,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -103,7 +105,7 @@ class ShopControllerTest {
     @Test
     void checkStock_shouldReturnAvailableWhenInStock() throws Exception {
         Product product = createMockProduct("p1", "Jeans", "Men", "Slim", "32", 50);
-        when(productService.getProductById("p1")).thenReturn(product);
+        when(productService.getProductsByIds(any())).thenReturn(Map.of("p1", product));
 
         List<GuestOrderRequest.GuestOrderItem> items = new ArrayList<>();
         GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
@@ -123,7 +125,7 @@ class ShopControllerTest {
     @Test
     void checkStock_shouldReturnIssuesWhenOutOfStock() throws Exception {
         Product product = createMockProduct("p1", "Jeans", "Men", "Slim", "32", 1);
-        when(productService.getProductById("p1")).thenReturn(product);
+        when(productService.getProductsByIds(any())).thenReturn(Map.of("p1", product));
 
         List<GuestOrderRequest.GuestOrderItem> items = new ArrayList<>();
         GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
@@ -142,10 +144,6 @@ class ShopControllerTest {
 
     @Test
     void createGuestOrder_shouldReturn201OnSuccess() throws Exception {
-        Product product = createMockProduct("p1", "Slim Jeans", "Men", "Slim", "32", 10);
-        when(productService.getProductById("p1")).thenReturn(product);
-        when(productService.updateProduct(eq("p1"), any())).thenReturn(product);
-
         String orderId = UUID.randomUUID().toString();
         Order savedOrder = Order.builder()
                 .id(orderId)
@@ -194,8 +192,8 @@ class ShopControllerTest {
 
     @Test
     void createGuestOrder_shouldReturn409WhenOutOfStock() throws Exception {
-        Product product = createMockProduct("p1", "Slim Jeans", "Men", "Slim", "32", 0);
-        when(productService.getProductById("p1")).thenReturn(product);
+        doThrow(new InsufficientStockException(List.of("Slim Jeans: only 0 available (requested 1)")))
+                .when(productService).reserveStock(any());
 
         GuestOrderRequest request = new GuestOrderRequest();
         List<GuestOrderRequest.GuestOrderItem> items = new ArrayList<>();
@@ -227,6 +225,8 @@ class ShopControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.message").value("Some items are out of stock"));
+                .andExpect(jsonPath("$.message").value("Some items are out of stock"))
+                .andExpect(jsonPath("$.stockErrors[0]").value("Slim Jeans: only 0 available (requested 1)"));
+        verify(orderService, never()).createOrder(any());
     }
 }
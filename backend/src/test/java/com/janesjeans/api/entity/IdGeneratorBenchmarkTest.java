@@ -0,0 +1,91 @@
+package com.janesjeans.api.entity;
+
+import com.janesjeans.api.service.EmailService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch insert throughput into orders and audit_logs with random (v4) against
+ * time-ordered (v7) primary keys. Runs against the in-memory H2 test database, so the
+ * absolute numbers say little about PostgreSQL; the gap between the two key schemes
+ * grows once the primary key index no longer fits in memory.
+ *
+ * Run with: mvn test -Dtest=IdGeneratorBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdGeneratorBenchmarkTest {
+
+    private static final int ROWS = 200_000;
+    private static final int BATCH = 1_000;
+    private static final String MARKER = "id-benchmark@example.com";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void insertThroughput() {
+        IdGenerator[] generators = {IdGenerator.RANDOM, new UuidV7Generator()};
+        String[] names = {"uuid v4", "uuid v7"};
+        for (int round = 0; round < 3; round++) {
+            for (int g = 0; g < generators.length; g++) {
+                double orders = insertOrders(generators[g]);
+                double audits = insertAuditLogs(generators[g]);
+                System.out.printf("round %d %-8s orders %,10.0f rows/s   audit_logs %,10.0f rows/s%n",
+                        round, names[g], orders, audits);
+                cleanUp();
+            }
+        }
+    }
+
+    private double insertOrders(IdGenerator ids) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return timeBatches("INSERT INTO orders (id, customer_name, customer_email, status, total_amount, shipping_address, "
+                + "order_date, created_at, updated_at) VALUES (?, 'Bench', '" + MARKER + "', 'Pending', 59.99, '1 Bench St', ?, ?, ?)",
+                ids, id -> new Object[]{id, now, now, now});
+    }
+
+    private double insertAuditLogs(IdGenerator ids) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return timeBatches("INSERT INTO audit_logs (id, user_email, action, entity_type, created_at) VALUES (?, '"
+                + MARKER + "', 'CREATE', 'Order', ?)", ids, id -> new Object[]{id, now});
+    }
+
+    private double timeBatches(String sql, IdGenerator ids, java.util.function.Function<String, Object[]> row) {
+        long start = System.nanoTime();
+        for (int done = 0; done < ROWS; done += BATCH) {
+            List<Object[]> batch = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) batch.add(row.apply(ids.newId()));
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return ROWS / seconds;
+    }
+
+    private void cleanUp() {
+        assertThat(jdbcTemplate.update("DELETE FROM orders WHERE customer_email = ?", MARKER)).isEqualTo(ROWS);
+        assertThat(jdbcTemplate.update("DELETE FROM audit_logs WHERE user_email = ?", MARKER)).isEqualTo(ROWS);
+    }
+}
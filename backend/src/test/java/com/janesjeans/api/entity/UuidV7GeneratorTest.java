@@ -0,0 +1,81 @@
+package com.janesjeans.api.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void ids_areVersion7WithTheCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = new UuidV7Generator().next();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(UuidV7Generator.timestampOf(id)).isBetween(before, after + 1);
+    }
+
+    @Test
+    void idsInTheSameMillisecond_keepIncreasingAsStrings() {
+        UuidV7Generator generator = new UuidV7Generator();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) ids.add(generator.newId());
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void clockGoingBackwards_doesNotBreakTheOrder() {
+        UuidV7Generator generator = new UuidV7Generator();
+        long first = generator.nextTick(1_000_000);
+        long second = generator.nextTick(999_000);
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void counterOverflow_borrowsTheNextMillisecond() {
+        UuidV7Generator generator = new UuidV7Generator();
+        long tick = 0;
+        for (int i = 0; i <= 4096; i++) tick = generator.nextTick(5_000);
+
+        assertThat(tick >>> 12).isEqualTo(5_001);
+    }
+
+    @Test
+    void parallelCallers_neverShareAnId() throws Exception {
+        UuidV7Generator generator = new UuidV7Generator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) ids.add(generator.newId());
+            }));
+        }
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(ids).hasSize(160_000);
+    }
+
+    @Test
+    void named_picksTheGenerator() {
+        assertThat(UUID.fromString(IdGenerator.named("uuidv7").newId()).version()).isEqualTo(7);
+        assertThat(UUID.fromString(IdGenerator.named("random").newId()).version()).isEqualTo(4);
+        assertThatThrownBy(() -> IdGenerator.named("snowflake")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,204 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.dto.CatalogImportResult;
+import com.janesjeans.api.entity.ShopProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogImportServiceTest {
+
+    @Mock
+    private ShopProductBulkWriter writer;
+
+    @Mock
+    private ShopCatalogService shopCatalogService;
+
+    private CatalogImportService service;
+
+    // copies of every batch handed to the writer (the service reuses its buffer)
+    private final List<List<ShopProduct>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new CatalogImportService(writer, shopCatalogService, new ObjectMapper());
+    }
+
+    private void recordBatches() {
+        doAnswer(inv -> {
+            batches.add(new ArrayList<>(inv.<List<ShopProduct>>getArgument(0)));
+            return null;
+        }).when(writer).upsert(anyList(), anySet());
+    }
+
+    private CatalogImportResult run(String body, CatalogImportService.Format format) throws IOException {
+        return service.importProducts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    @Test
+    void csv_parsesQuotedFieldsListsAndMetadataAndReportsBadRows() throws IOException {
+        recordBatches();
+        String csv = "id,name,description,price,category,subcategory,sizes,colors,in_stock,rating,reviews,metadata\r\n"
+                + "sku-1,Slim Fit Jeans,\"Soft, stretchy\nand \"\"dark\"\"\",79.99,jeans,slim,28|30|32,Dark Wash,true,4.7,12,\"{\"\"fit\"\":\"\"slim\"\"}\"\r\n"
+                + "sku-2,No Price,,,jeans,,,,true,,,\r\n"
+                + "\r\n"
+                + "sku-3,Serum,,24.5,skincare,serums,,,maybe,7,,\r\n"
+                + "sku-4,Jacket,,129,jackets,,,,false,,,\r\n";
+
+        CatalogImportResult result = run(csv, CatalogImportService.Format.CSV);
+
+        assertThat(result.getProcessed()).isEqualTo(4);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(CatalogImportResult.RowError::getLine).containsExactly(4L, 6L);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("price is required");
+        assertThat(result.getErrors().get(1).getId()).isEqualTo("sku-3");
+        assertThat(result.getErrors().get(1).getMessage())
+                .contains("rating must be between 0 and 5").contains("inStock must be true or false");
+
+        assertThat(batches).hasSize(1);
+        ShopProduct slim = batches.get(0).get(0);
+        assertThat(slim.getDescription()).isEqualTo("Soft, stretchy\nand \"dark\"");
+        assertThat(slim.getSizes()).containsExactly("28", "30", "32");
+        assertThat(slim.getColors()).containsExactly("Dark Wash");
+        assertThat(slim.getImages()).containsExactly("/placeholder.svg");
+        assertThat(slim.getRating()).isEqualByComparingTo("4.7");
+        assertThat(slim.getReviews()).isEqualTo(12);
+        assertThat(slim.getMetadata()).isEqualTo(Map.of("fit", "slim"));
+        ShopProduct jacket = batches.get(0).get(1);
+        assertThat(jacket.getInStock()).isFalse();
+        assertThat(jacket.getPrice()).isEqualByComparingTo(new BigDecimal("129"));
+        verify(shopCatalogService, times(1)).refreshAfterBulkWrite();
+    }
+
+    @Test
+    void ndjson_upsertsInFixedSizeBatchesAndRefreshesOnce() throws IOException {
+        recordBatches();
+        StringBuilder body = new StringBuilder();
+        int rows = CatalogImportService.BATCH_SIZE * 2 + 500;
+        for (int i = 0; i < rows; i++) {
+            body.append("{\"id\":\"sku-").append(i).append("\",\"name\":\"Product ").append(i)
+                    .append("\",\"price\":").append(10 + i % 90).append(".99,\"sizes\":[\"S\",\"M\"],\"metadata\":{\"n\":")
+                    .append(i).append("}}\n");
+        }
+        body.append("not json\n");
+
+        CatalogImportResult result = run(body.toString(), CatalogImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(rows);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getLine()).isEqualTo(rows + 1);
+        assertThat(batches).extracting(List::size)
+                .containsExactly(CatalogImportService.BATCH_SIZE, CatalogImportService.BATCH_SIZE, 500);
+        verify(shopCatalogService, times(1)).refreshAfterBulkWrite();
+    }
+
+    @Test
+    void rejectedBatch_isRetriedRowByRowToIsolateFailures() throws IOException {
+        doAnswer(inv -> {
+            List<ShopProduct> batch = inv.getArgument(0);
+            if (batch.size() > 1 || batch.get(0).getId().equals("sku-2")) {
+                throw new DataIntegrityViolationException("value too long for type character varying(50)");
+            }
+            batches.add(new ArrayList<>(batch));
+            return null;
+        }).when(writer).upsert(anyList(), anySet());
+
+        CatalogImportResult result = run("""
+                {"id":"sku-1","name":"A","price":1}
+                {"id":"sku-2","name":"B","price":2}
+                {"id":"sku-3","name":"C","price":3}
+                """, CatalogImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).singleElement().satisfies(e -> {
+            assertThat(e.getLine()).isEqualTo(2);
+            assertThat(e.getId()).isEqualTo("sku-2");
+            assertThat(e.getMessage()).contains("value too long");
+        });
+        assertThat(batches).extracting(b -> b.get(0).getId()).containsExactly("sku-1", "sku-3");
+    }
+
+    @Test
+    void reimportWithASubsetOfColumns_updatesOnlyThoseColumns() throws IOException {
+        recordBatches();
+
+        run("id,name,price,category,sizes,in_stock,metadata\n"
+                + "sku-1,Slim Fit Jeans,79.99,jeans,28|30,true,\"{\"\"fit\"\":\"\"slim\"\"}\"\n", CatalogImportService.Format.CSV);
+        run("id,name,price,in_stock\nsku-1,Slim Fit Jeans,69.99,false\n", CatalogImportService.Format.CSV);
+
+        verify(writer).upsert(anyList(), eq(Set.of("category", "sizes", "in_stock", "metadata")));
+        verify(writer).upsert(anyList(), eq(Set.of("in_stock")));
+        String sql = ShopProductBulkWriter.upsertSql(Set.of("in_stock"));
+        assertThat(sql).contains("price = EXCLUDED.price").contains("in_stock = EXCLUDED.in_stock")
+                .doesNotContain("sizes = ").doesNotContain("metadata = ").doesNotContain("category = ");
+        assertThat(batches.get(1)).singleElement().satisfies(p -> {
+            assertThat(p.getPrice()).isEqualByComparingTo("69.99");
+            assertThat(p.getInStock()).isFalse();
+        });
+    }
+
+    @Test
+    void ndjsonRowsWithDifferentFields_goInSeparateBatches() throws IOException {
+        recordBatches();
+
+        run("""
+                {"id":"sku-1","name":"A","price":1,"rating":4.5}
+                {"id":"sku-2","name":"B","price":2,"rating":3}
+                {"id":"sku-3","name":"C","price":3,"inStock":false}
+                {"id":"sku-4","name":"D","price":4,"rating":5}
+                """, CatalogImportService.Format.NDJSON);
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 1, 1);
+        verify(writer, times(2)).upsert(anyList(), eq(Set.of("rating")));
+        verify(writer).upsert(anyList(), eq(Set.of("in_stock")));
+    }
+
+    @Test
+    void nothingImported_skipsTheRefresh() throws IOException {
+        CatalogImportResult result = run("id,name,price\n,Nameless,5\n", CatalogImportService.Format.CSV);
+
+        assertThat(result.getFailed()).isEqualTo(1);
+        verify(writer, never()).upsert(anyList(), anySet());
+        verify(shopCatalogService, never()).refreshAfterBulkWrite();
+    }
+
+    @Test
+    void csvReader_failsOnUnterminatedQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\n\"open,1\n"));
+        assertThat(reader.next()).containsExactly("a", "b");
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("line 2");
+    }
+
+    @Test
+    void format_acceptsCsvAndNdjsonOnly() {
+        assertThat(CatalogImportService.Format.of("CSV")).isEqualTo(CatalogImportService.Format.CSV);
+        assertThat(CatalogImportService.Format.of("jsonl")).isEqualTo(CatalogImportService.Format.NDJSON);
+        assertThatThrownBy(() -> CatalogImportService.Format.of("xml")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
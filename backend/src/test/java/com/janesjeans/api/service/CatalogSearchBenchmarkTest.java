@@ -0,0 +1,137 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.ShopProduct;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the inverted index and its sorted views against a full scan that evaluates the same predicate as
+ * ShopProductRepository.searchCatalog (LOWER(...) LIKE '%q%'), i.e. the best case for the
+ * JPQL path with all rows already in memory.
+ *
+ * Run with: mvn test -Dtest=CatalogSearchBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogSearchBenchmarkTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final String[] WORDS = {"slim", "relaxed", "skinny", "bootcut", "dark", "light", "wash", "stretch",
+            "denim", "jeans", "jacket", "serum", "vitamin", "organic", "cotton", "linen", "classic", "vintage"};
+    private static final String[] CATEGORIES = {"jeans", "jackets", "skincare", "shirts", "accessories"};
+    private static final String[] QUERIES = {"dark", "slim jeans", "vit", "stretch denim", "classic cotton"};
+
+    @Test
+    void indexVersusScan() {
+        List<ShopProduct> products = products();
+
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        long buildStart = System.nanoTime();
+        index.rebuild(products);
+        System.out.printf("index build: %d products in %d ms%n", PRODUCTS, (System.nanoTime() - buildStart) / 1_000_000);
+
+        Pageable pageable = PageRequest.of(0, 12, Sort.by("price").ascending());
+        for (String query : QUERIES) {
+            CatalogFilter filter = CatalogFilter.builder().category("jeans").inStock(true)
+                    .maxPrice(new BigDecimal("150")).search(query).build();
+            double indexMicros = time(() -> index.search(filter, pageable).orElseThrow().getTotalElements());
+            double scanMicros = time(() -> scan(products, filter, pageable));
+            System.out.printf("%-22s index %9.1f us   scan %9.1f us%n", '"' + query + '"', indexMicros, scanMicros);
+            assertThat(index.search(filter, pageable).orElseThrow().getTotalElements()).isPositive();
+        }
+    }
+
+    /**
+     * Browsing pages (no search text) sorted by each key: the sorted-view walk against a
+     * scan that filters and fully sorts the matches.
+     */
+    @Test
+    void sortedPagesVersusScanAndSort() {
+        List<ShopProduct> products = products();
+        CatalogSearchIndex index = new CatalogSearchIndex();
+        index.rebuild(products);
+
+        CatalogFilter filter = CatalogFilter.builder().category("jeans").inStock(true).build();
+        for (CatalogSortField field : CatalogSortField.values()) {
+            for (int page : new int[]{0, 50}) {
+                Pageable pageable = PageRequest.of(page, 12, Sort.by(Sort.Direction.DESC, field.getProperty()));
+                Comparator<ShopProduct> comparator = CatalogSearchIndex.comparatorFor(pageable.getSort());
+                double indexMicros = time(() -> index.search(filter, pageable).orElseThrow().getContent().size());
+                double scanMicros = time(() -> products.stream()
+                        .filter(p -> p.getCategory().equals("jeans") && p.getInStock())
+                        .sorted(comparator)
+                        .skip(pageable.getOffset()).limit(12).count());
+                System.out.printf("%-10s page %-3d index %9.1f us   scan+sort %9.1f us%n",
+                        field.getProperty(), page, indexMicros, scanMicros);
+            }
+        }
+    }
+
+    private static List<ShopProduct> products() {
+        Random random = new Random(42);
+        List<ShopProduct> products = new ArrayList<>(PRODUCTS);
+        OffsetDateTime epoch = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < PRODUCTS; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            products.add(ShopProduct.builder()
+                    .id("sku-" + i)
+                    .name(words(random, 3) + " " + category)
+                    .description(words(random, 12))
+                    .category(category)
+                    .subcategory(WORDS[random.nextInt(WORDS.length)])
+                    .price(BigDecimal.valueOf(500 + random.nextInt(20_000), 2))
+                    .rating(BigDecimal.valueOf(random.nextInt(51), 1))
+                    .reviews(random.nextInt(2_000))
+                    .createdAt(epoch.plusMinutes(random.nextInt(1_000_000)))
+                    .inStock(random.nextInt(10) > 1)
+                    .build());
+        }
+        return products;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /** Mean microseconds per call after warm-up. */
+    private static double time(java.util.function.LongSupplier work) {
+        long sink = 0;
+        for (int i = 0; i < 200; i++) sink += work.getAsLong();
+        int runs = 500;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) sink += work.getAsLong();
+        double micros = (System.nanoTime() - start) / 1_000.0 / runs;
+        assertThat(sink).isNotNegative();
+        return micros;
+    }
+
+    private static long scan(List<ShopProduct> products, CatalogFilter f, Pageable pageable) {
+        String q = f.getSearch().toLowerCase();
+        List<ShopProduct> matches = new ArrayList<>();
+        for (ShopProduct p : products) {
+            if (f.getCategory() != null && !f.getCategory().equals(p.getCategory())) continue;
+            if (f.getInStock() != null && !f.getInStock().equals(p.getInStock())) continue;
+            if (f.getMaxPrice() != null && p.getPrice().compareTo(f.getMaxPrice()) > 0) continue;
+            if (!p.getName().toLowerCase().contains(q) && !p.getDescription().toLowerCase().contains(q)) continue;
+            matches.add(p);
+        }
+        matches.sort(Comparator.comparing(ShopProduct::getPrice));
+        return matches.subList(0, Math.min(pageable.getPageSize(), matches.size())).size() + matches.size();
+    }
+}
@@ -0,0 +1,272 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.CatalogFacetsResponse;
+import com.janesjeans.api.entity.ShopProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSearchIndexTest {
+
+    private CatalogSearchIndex index;
+
+    static ShopProduct product(String id, String name, String category, String subcategory, String price, boolean inStock) {
+        return ShopProduct.builder()
+                .id(id)
+                .name(name)
+                .description("Premium " + name.toLowerCase())
+                .category(category)
+                .subcategory(subcategory)
+                .price(new BigDecimal(price))
+                .inStock(inStock)
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogSearchIndex();
+        index.rebuild(List.of(
+                product("p1", "Slim Fit Dark Wash Jeans", "jeans", "slim", "79.99", true),
+                product("p2", "Relaxed Boyfriend Jeans", "jeans", "relaxed", "59.99", true),
+                product("p3", "Vitamin C Serum", "skincare", "serums", "24.50", false),
+                product("p4", "Dark Denim Jacket", "jackets", "denim", "129.00", true)
+        ));
+    }
+
+    private List<String> ids(CatalogFilter filter) {
+        Page<ShopProduct> page = index.search(filter, PageRequest.of(0, 20, Sort.by("price").ascending())).orElseThrow();
+        return page.getContent().stream().map(ShopProduct::getId).toList();
+    }
+
+    @Test
+    void search_matchesTokenPrefixesAcrossNameDescriptionAndSubcategory() {
+        assertThat(ids(CatalogFilter.builder().search("jea").build())).containsExactly("p2", "p1");
+        assertThat(ids(CatalogFilter.builder().search("DARK").build())).containsExactly("p1", "p4");
+        assertThat(ids(CatalogFilter.builder().search("serums").build())).containsExactly("p3");
+        assertThat(ids(CatalogFilter.builder().search("dark jeans").build())).containsExactly("p1");
+    }
+
+    @Test
+    void search_intersectsCategoryStockAndPriceFilters() {
+        assertThat(ids(CatalogFilter.builder().category("jeans").build())).containsExactly("p2", "p1");
+        assertThat(ids(CatalogFilter.builder().inStock(false).build())).containsExactly("p3");
+        assertThat(ids(CatalogFilter.builder().minPrice(new BigDecimal("60")).maxPrice(new BigDecimal("130")).build()))
+                .containsExactly("p1", "p4");
+        assertThat(ids(CatalogFilter.builder().category("jeans").subcategory("slim").search("dark").build()))
+                .containsExactly("p1");
+    }
+
+    @Test
+    void search_pagesAndReportsTotal() {
+        Page<ShopProduct> page = index.search(new CatalogFilter(), PageRequest.of(1, 3, Sort.by("price").descending())).orElseThrow();
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(ShopProduct::getId).containsExactly("p3");
+    }
+
+    @Test
+    void upsertAndRemove_updatePostingsIncrementally() {
+        index.upsert(product("p3", "Vitamin C Serum", "skincare", "serums", "24.50", true));
+        index.upsert(product("p5", "Stretch Skinny Jeans", "jeans", "skinny", "69.99", true));
+        index.remove("p1");
+
+        assertThat(ids(CatalogFilter.builder().inStock(false).build())).isEmpty();
+        assertThat(ids(CatalogFilter.builder().search("jeans").build())).containsExactly("p2", "p5");
+        assertThat(ids(CatalogFilter.builder().search("slim").build())).isEmpty();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void search_declinesQueriesItCannotAnswer() {
+        assertThat(index.search(new CatalogFilter(), PageRequest.of(0, 10, Sort.by("unknownField")))).isEmpty();
+        assertThat(index.search(CatalogFilter.builder().search("%%").build(), PageRequest.of(0, 10))).isEmpty();
+        assertThat(new CatalogSearchIndex().search(new CatalogFilter(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void scroll_walksEverySortFieldInBothDirectionsWithoutGapsOrDuplicates() {
+        index.upsert(product("p5", "Dark Wash Skinny Jeans", "jeans", "skinny", "79.99", true));
+        for (CatalogSortField field : CatalogSortField.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                Sort sort = Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, field.getProperty(), "id");
+                List<String> expected = index.search(new CatalogFilter(), PageRequest.of(0, 20, sort)).orElseThrow()
+                        .getContent().stream().map(ShopProduct::getId).toList();
+
+                List<String> scrolled = new ArrayList<>();
+                CatalogCursor cursor = null;
+                do {
+                    CatalogSlice slice = index.scroll(new CatalogFilter(), field, ascending, cursor, 2, false).orElseThrow();
+                    slice.content().forEach(p -> scrolled.add(p.getId()));
+                    cursor = slice.nextCursor() != null ? CatalogCursor.decode(slice.nextCursor()) : null;
+                } while (cursor != null);
+
+                assertThat(scrolled).as("%s %s", field, ascending ? "asc" : "desc").isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void scroll_appliesFiltersAndReportsTotalOnlyWhenAsked() {
+        CatalogFilter jeans = CatalogFilter.builder().category("jeans").build();
+        CatalogSlice first = index.scroll(jeans, CatalogSortField.PRICE, true, null, 1, true).orElseThrow();
+        assertThat(first.content()).extracting(ShopProduct::getId).containsExactly("p2");
+        assertThat(first.approximateTotal()).isEqualTo(2L);
+
+        CatalogSlice second = index.scroll(jeans, CatalogSortField.PRICE, true, CatalogCursor.decode(first.nextCursor()), 1, false).orElseThrow();
+        assertThat(second.content()).extracting(ShopProduct::getId).containsExactly("p1");
+        assertThat(second.nextCursor()).isNull();
+        assertThat(second.approximateTotal()).isNull();
+    }
+
+    @Test
+    void facets_countEveryValueWithinTheFilteredSet() {
+        ShopProduct p1 = product("p1", "Slim Fit Dark Wash Jeans", "jeans", "slim", "79.99", true);
+        p1.setSizes(new String[]{"30", "32"});
+        p1.setColors(new String[]{"Dark Wash"});
+        ShopProduct p2 = product("p2", "Relaxed Boyfriend Jeans", "jeans", "relaxed", "59.99", false);
+        p2.setSizes(new String[]{"32", "34"});
+        p2.setColors(new String[]{"Light Wash", "Dark Wash"});
+        index.upsert(p1);
+        index.upsert(p2);
+
+        CatalogFacetsResponse facets = index.facets(CatalogFilter.builder().category("jeans").build(),
+                List.of(new BigDecimal("50"), new BigDecimal("79.99"))).orElseThrow();
+
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getCategories()).containsExactly(Map.entry("jeans", 2L));
+        assertThat(facets.getSubcategories()).containsOnlyKeys("slim", "relaxed");
+        assertThat(facets.getSizes()).containsExactly(
+                Map.entry("32", 2L), Map.entry("30", 1L), Map.entry("34", 1L));
+        assertThat(facets.getColors()).containsExactly(
+                Map.entry("Dark Wash", 2L), Map.entry("Light Wash", 1L));
+        assertThat(facets.getInStock()).isEqualTo(1);
+        assertThat(facets.getOutOfStock()).isEqualTo(1);
+        assertThat(facets.getPriceBuckets()).extracting(CatalogFacetsResponse.PriceBucket::getCount)
+                .containsExactly(0L, 1L, 1L);
+    }
+
+    @Test
+    void search_matchesAnyRequestedSizeOrColorAndIntersectsOtherFilters() {
+        ShopProduct p1 = product("p1", "Slim Fit Dark Wash Jeans", "jeans", "slim", "79.99", true);
+        p1.setSizes(new String[]{"30", "32"});
+        p1.setColors(new String[]{"Indigo"});
+        ShopProduct p2 = product("p2", "Relaxed Boyfriend Jeans", "jeans", "relaxed", "59.99", true);
+        p2.setSizes(new String[]{"34"});
+        p2.setColors(new String[]{"Black", "Indigo"});
+        ShopProduct p4 = product("p4", "Dark Denim Jacket", "jackets", "denim", "129.00", true);
+        p4.setSizes(new String[]{"32"});
+        p4.setColors(new String[]{"Black"});
+        index.upsert(p1);
+        index.upsert(p2);
+        index.upsert(p4);
+
+        assertThat(ids(CatalogFilter.builder().sizes(List.of("32")).build())).containsExactly("p1", "p4");
+        assertThat(ids(CatalogFilter.builder().sizes(List.of("30", "34")).build())).containsExactly("p2", "p1");
+        assertThat(ids(CatalogFilter.builder().sizes(List.of("32", "34")).colors(List.of("Black")).build()))
+                .containsExactly("p2", "p4");
+        assertThat(ids(CatalogFilter.builder().sizes(List.of("32")).category("jeans").build())).containsExactly("p1");
+        assertThat(ids(CatalogFilter.builder().colors(List.of("Black")).maxPrice(new BigDecimal("100")).build()))
+                .containsExactly("p2");
+        assertThat(ids(CatalogFilter.builder().sizes(List.of("99")).build())).isEmpty();
+    }
+
+    @Test
+    void facets_countSizesAndColorsWithoutTheirOwnFilter() {
+        ShopProduct p1 = product("p1", "Slim Fit Dark Wash Jeans", "jeans", "slim", "79.99", true);
+        p1.setSizes(new String[]{"30", "32"});
+        p1.setColors(new String[]{"Indigo"});
+        ShopProduct p2 = product("p2", "Relaxed Boyfriend Jeans", "jeans", "relaxed", "59.99", true);
+        p2.setSizes(new String[]{"34"});
+        p2.setColors(new String[]{"Black"});
+        index.upsert(p1);
+        index.upsert(p2);
+
+        CatalogFacetsResponse facets = index.facets(
+                CatalogFilter.builder().category("jeans").sizes(List.of("30")).colors(List.of("Indigo")).build(),
+                List.of()).orElseThrow();
+
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getSubcategories()).containsExactly(Map.entry("slim", 1L));
+        // other sizes available in Indigo, other colors available in size 30
+        assertThat(facets.getSizes()).containsExactly(Map.entry("30", 1L), Map.entry("32", 1L));
+        assertThat(facets.getColors()).containsExactly(Map.entry("Indigo", 1L));
+
+        facets = index.facets(CatalogFilter.builder().category("jeans").sizes(List.of("30")).build(), List.of())
+                .orElseThrow();
+        assertThat(facets.getSizes()).containsExactly(Map.entry("30", 1L), Map.entry("32", 1L), Map.entry("34", 1L));
+        assertThat(facets.getColors()).containsExactly(Map.entry("Indigo", 1L));
+    }
+
+    @Test
+    void search_sortedPagesMatchAFullSortAcrossUpsertsAndRemoves() {
+        Random random = new Random(7);
+        String[] categories = {"jeans", "jackets", "skincare"};
+        Map<String, ShopProduct> all = new HashMap<>();
+        CatalogSearchIndex sorted = new CatalogSearchIndex();
+        List<ShopProduct> initial = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ShopProduct p = randomProduct("s" + i, categories, random);
+            initial.add(p);
+            all.put(p.getId(), p);
+        }
+        sorted.rebuild(initial);
+        for (int i = 0; i < 200; i++) {
+            String id = "s" + random.nextInt(400);
+            if (random.nextInt(4) == 0) {
+                sorted.remove(id);
+                all.remove(id);
+            } else {
+                ShopProduct p = randomProduct(id, categories, random);
+                sorted.upsert(p);
+                all.put(id, p);
+            }
+        }
+
+        List<CatalogFilter> filters = List.of(new CatalogFilter(),
+                CatalogFilter.builder().category("jeans").build(),
+                CatalogFilter.builder().category("skincare").inStock(false).maxPrice(new BigDecimal("12")).build());
+        for (CatalogSortField field : CatalogSortField.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort sort = Sort.by(direction, field.getProperty());
+                for (CatalogFilter filter : filters) {
+                    List<String> expected = all.values().stream()
+                            .filter(p -> filter.getCategory() == null || filter.getCategory().equals(p.getCategory()))
+                            .filter(p -> filter.getInStock() == null || filter.getInStock().equals(p.getInStock()))
+                            .filter(p -> filter.getMaxPrice() == null || p.getPrice().compareTo(filter.getMaxPrice()) <= 0)
+                            .sorted(CatalogSearchIndex.comparatorFor(sort))
+                            .map(ShopProduct::getId)
+                            .toList();
+                    for (int page = 0; page < 3; page++) {
+                        Page<ShopProduct> result = sorted.search(filter, PageRequest.of(page, 7, sort)).orElseThrow();
+                        List<String> want = expected.subList(Math.min(page * 7, expected.size()), Math.min(page * 7 + 7, expected.size()));
+                        assertThat(result.getContent()).extracting(ShopProduct::getId)
+                                .as("%s %s %s page %d", field, direction, filter, page)
+                                .isEqualTo(want);
+                        assertThat(result.getTotalElements()).isEqualTo(expected.size());
+                    }
+                }
+            }
+        }
+    }
+
+    private static ShopProduct randomProduct(String id, String[] categories, Random random) {
+        ShopProduct p = product(id, "Item " + random.nextInt(20), categories[random.nextInt(categories.length)],
+                "sub", random.nextInt(20) + ".99", random.nextBoolean());
+        p.setRating(BigDecimal.valueOf(random.nextInt(10), 1));
+        p.setReviews(random.nextInt(5));
+        p.setCreatedAt(OffsetDateTime.parse("2025-01-01T00:00:00Z").plusHours(random.nextInt(30)));
+        return p;
+    }
+}
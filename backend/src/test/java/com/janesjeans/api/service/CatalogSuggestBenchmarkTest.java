@@ -0,0 +1,109 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.ShopProduct;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookup latency of the suggest trie under concurrent load, with writers churning
+ * products at the same time.
+ *
+ * Run with: mvn test -Dtest=CatalogSuggestBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogSuggestBenchmarkTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 200_000;
+    private static final String[] WORDS = {"slim", "relaxed", "skinny", "bootcut", "dark", "light", "wash", "stretch",
+            "denim", "jeans", "jacket", "serum", "vitamin", "organic", "cotton", "linen", "classic", "vintage"};
+
+    @Test
+    void concurrentLookupLatency() throws Exception {
+        Random random = new Random(42);
+        List<ShopProduct> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(product(random, i));
+        }
+        CatalogSuggestIndex index = new CatalogSuggestIndex();
+        for (int run = 1; run <= 3; run++) {
+            long buildStart = System.nanoTime();
+            index.rebuild(products, List.of());
+            System.out.printf("suggest build #%d: %d products in %d ms%n", run, PRODUCTS, (System.nanoTime() - buildStart) / 1_000_000);
+        }
+
+        String[] queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            queries[i] = word.substring(0, 1 + random.nextInt(word.length()));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                Random r = new Random(1);
+                for (int i = 0; i < 20_000; i++) index.upsertProduct(product(r, r.nextInt(PRODUCTS)));
+            });
+            List<Future<long[]>> readers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int seed = t;
+                readers.add(pool.submit(() -> {
+                    long[] nanos = new long[CALLS_PER_THREAD];
+                    int sink = 0;
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        String q = queries[(i * 31 + seed) & (queries.length - 1)];
+                        long start = System.nanoTime();
+                        sink += index.suggest(q, 8).size();
+                        nanos[i] = System.nanoTime() - start;
+                    }
+                    assertThat(sink).isPositive();
+                    return nanos;
+                }));
+            }
+            long[] all = new long[THREADS * CALLS_PER_THREAD];
+            int at = 0;
+            for (Future<long[]> f : readers) {
+                long[] nanos = f.get();
+                // drop the first half of each thread as warm-up
+                int half = nanos.length / 2;
+                System.arraycopy(nanos, half, all, at, nanos.length - half);
+                at += nanos.length - half;
+            }
+            writer.get();
+            long[] measured = Arrays.copyOf(all, at);
+            Arrays.sort(measured);
+            System.out.printf("suggest lookups (%d threads, concurrent writer): p50 %.1f us  p99 %.1f us  p99.9 %.1f us%n",
+                    THREADS, measured[at / 2] / 1000.0, measured[(int) (at * 0.99)] / 1000.0, measured[(int) (at * 0.999)] / 1000.0);
+            assertThat(measured[(int) (at * 0.99)]).isLessThan(1_000_000L);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ShopProduct product(Random random, int i) {
+        StringBuilder name = new StringBuilder();
+        for (int w = 0; w < 4; w++) {
+            if (w > 0) name.append(' ');
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return ShopProduct.builder()
+                .id("sku-" + i)
+                .name(name.toString())
+                .price(BigDecimal.TEN)
+                .rating(BigDecimal.valueOf(random.nextInt(50), 1))
+                .reviews(random.nextInt(1000))
+                .build();
+    }
+}
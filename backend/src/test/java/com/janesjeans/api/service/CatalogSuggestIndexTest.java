@@ -0,0 +1,130 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.CatalogSuggestion;
+import com.janesjeans.api.dto.ShopCategoryDTO;
+import com.janesjeans.api.entity.ShopProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.janesjeans.api.service.CatalogSearchIndexTest.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSuggestIndexTest {
+
+    private CatalogSuggestIndex index;
+
+    private static ShopProduct rated(String id, String name, String rating, int reviews) {
+        ShopProduct p = product(id, name, "jeans", "slim", "79.99", true);
+        p.setRating(new BigDecimal(rating));
+        p.setReviews(reviews);
+        return p;
+    }
+
+    private static List<ShopCategoryDTO> categories() {
+        return List.of(
+                ShopCategoryDTO.builder().id("jeans").name("Jeans").slug("jeans").sortOrder(1)
+                        .subcategories(List.of(ShopCategoryDTO.SubcategoryDTO.builder().id("s1").name("Slim Fit").slug("slim").sortOrder(1).build()))
+                        .build(),
+                ShopCategoryDTO.builder().id("skincare").name("Skincare").slug("skincare").sortOrder(2)
+                        .subcategories(List.of()).build());
+    }
+
+    private List<String> texts(String query) {
+        return index.suggest(query, CatalogSuggestIndex.MAX_SUGGESTIONS).stream().map(CatalogSuggestion::getText).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogSuggestIndex();
+        index.rebuild(List.of(
+                rated("p1", "Slim Fit Dark Wash Jeans", "4.8", 120),
+                rated("p2", "Skinny Stretch Jeans", "4.8", 300),
+                rated("p3", "Dark Denim Jacket", "4.2", 50),
+                rated("p4", "Vitamin C Serum", "4.9", 10)
+        ), categories());
+    }
+
+    @Test
+    void suggest_matchesTheStartOfAnyWordRankedByTypeThenRatingThenReviews() {
+        assertThat(texts("s")).containsExactly(
+                "Skincare", "Slim Fit", "Vitamin C Serum", "Skinny Stretch Jeans", "Slim Fit Dark Wash Jeans");
+        assertThat(texts("dar")).containsExactly("Slim Fit Dark Wash Jeans", "Dark Denim Jacket");
+        assertThat(texts("DARK  wa")).containsExactly("Slim Fit Dark Wash Jeans");
+        assertThat(texts("jeans")).containsExactly("Jeans", "Skinny Stretch Jeans", "Slim Fit Dark Wash Jeans");
+        assertThat(texts("xyz")).isEmpty();
+        assertThat(texts("  ")).isEmpty();
+    }
+
+    @Test
+    void suggest_carriesTypeIdAndCategory() {
+        List<CatalogSuggestion> slim = index.suggest("slim", 5);
+        assertThat(slim.get(0).getType()).isEqualTo("subcategory");
+        assertThat(slim.get(0).getId()).isEqualTo("slim");
+        assertThat(slim.get(0).getCategory()).isEqualTo("jeans");
+        assertThat(slim.get(1).getType()).isEqualTo("product");
+        assertThat(slim.get(1).getId()).isEqualTo("p1");
+        assertThat(slim.get(1).getRating()).isEqualTo(4.8);
+        assertThat(index.suggest("s", 2)).hasSize(2);
+    }
+
+    @Test
+    void upsertAndRemove_updateRankingsIncrementally() {
+        index.upsertProduct(rated("p3", "Dark Denim Jacket", "5.0", 50));
+        assertThat(texts("dar")).containsExactly("Dark Denim Jacket", "Slim Fit Dark Wash Jeans");
+
+        index.upsertProduct(rated("p1", "Slim Fit Light Wash Jeans", "4.8", 120));
+        assertThat(texts("dar")).containsExactly("Dark Denim Jacket");
+        assertThat(texts("lig")).containsExactly("Slim Fit Light Wash Jeans");
+
+        index.removeProduct("p3");
+        assertThat(texts("dar")).isEmpty();
+        assertThat(texts("d")).isEmpty();
+
+        index.replaceCategories(List.of());
+        assertThat(texts("jeans")).containsExactly("Skinny Stretch Jeans", "Slim Fit Light Wash Jeans");
+    }
+
+    @Test
+    void topListsStayExactAfterRandomChurn() {
+        Random random = new Random(7);
+        String[] words = {"slim", "slate", "skinny", "stretch", "dark", "denim", "dash", "jeans", "jacket"};
+        List<ShopProduct> live = new ArrayList<>();
+        for (int round = 0; round < 2000; round++) {
+            if (!live.isEmpty() && random.nextInt(3) == 0) {
+                ShopProduct gone = live.remove(random.nextInt(live.size()));
+                index.removeProduct(gone.getId());
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                ShopProduct p = rated("r" + random.nextInt(300), name, (random.nextInt(50) / 10.0) + "", random.nextInt(500));
+                live.removeIf(x -> x.getId().equals(p.getId()));
+                live.add(p);
+                index.upsertProduct(p);
+            }
+        }
+        index.replaceCategories(List.of());
+        index.removeProduct("p1");
+        index.removeProduct("p2");
+        index.removeProduct("p3");
+        index.removeProduct("p4");
+
+        for (String query : List.of("s", "sl", "d", "da", "j", "jeans", "slim d")) {
+            List<String> expected = live.stream()
+                    .filter(p -> CatalogSuggestIndex.keysFor(p.getName()).stream().anyMatch(k -> k.startsWith(query)))
+                    .sorted(Comparator.comparing((ShopProduct p) -> p.getRating()).reversed()
+                            .thenComparing(Comparator.comparing(ShopProduct::getReviews).reversed())
+                            .thenComparing(ShopProduct::getName)
+                            .thenComparing(ShopProduct::getId))
+                    .limit(CatalogSuggestIndex.MAX_SUGGESTIONS)
+                    .map(ShopProduct::getId)
+                    .toList();
+            assertThat(index.suggest(query, CatalogSuggestIndex.MAX_SUGGESTIONS))
+                    .as(query).extracting(CatalogSuggestion::getId).containsExactlyElementsOf(expected);
+        }
+    }
+}
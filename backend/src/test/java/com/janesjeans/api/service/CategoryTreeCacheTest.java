@@ -0,0 +1,77 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.entity.ShopCategory;
+import com.janesjeans.api.entity.ShopSubcategory;
+import com.janesjeans.api.repository.ShopCategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryTreeCacheTest {
+
+    @Mock
+    private ShopCategoryRepository categoryRepository;
+
+    private CategoryTreeCache cache;
+
+    private ShopCategory jeans;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CategoryTreeCache(categoryRepository, new ObjectMapper());
+        jeans = ShopCategory.builder().id("jeans").name("Jeans").slug("jeans").sortOrder(1).build();
+        jeans.setSubcategories(new ArrayList<>(List.of(
+                ShopSubcategory.builder().id("jeans-wide").name("Wide Leg").slug("wide").sortOrder(2).category(jeans).build(),
+                ShopSubcategory.builder().id("jeans-slim").name("Slim").slug("slim").sortOrder(1).category(jeans).build())));
+        when(categoryRepository.findAllWithSubcategories()).thenReturn(List.of(jeans));
+    }
+
+    @Test
+    void get_loadsTreeOnceAndServesTheSameSnapshot() {
+        CategoryTreeCache.Snapshot first = cache.get();
+        CategoryTreeCache.Snapshot second = cache.get();
+
+        assertThat(second).isSameAs(first);
+        verify(categoryRepository, times(1)).findAllWithSubcategories();
+        assertThat(first.categories()).hasSize(1);
+        assertThat(first.categories().get(0).getSubcategories())
+                .extracting(s -> s.getSlug()).containsExactly("slim", "wide");
+        assertThat(new String(first.json(), StandardCharsets.UTF_8))
+                .startsWith("[{\"id\":\"jeans\"").contains("\"slug\":\"slim\"");
+        assertThat(first.etag()).startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void refresh_swapsInANewSnapshotWithANewEtag() {
+        CategoryTreeCache.Snapshot before = cache.get();
+
+        jeans.getSubcategories().add(ShopSubcategory.builder().id("jeans-boot").name("Bootcut").slug("bootcut")
+                .sortOrder(3).category(jeans).build());
+        cache.refresh();
+        CategoryTreeCache.Snapshot after = cache.get();
+
+        assertThat(after.etag()).isNotEqualTo(before.etag());
+        assertThat(after.categories().get(0).getSubcategories()).hasSize(3);
+        assertThat(before.categories().get(0).getSubcategories()).hasSize(2);
+    }
+
+    @Test
+    void refresh_keepsEtagWhenTreeIsUnchanged() {
+        String etag = cache.get().etag();
+        cache.refresh();
+        assertThat(cache.get().etag()).isEqualTo(etag);
+    }
+}
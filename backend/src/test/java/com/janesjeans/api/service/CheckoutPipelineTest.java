@@ -0,0 +1,251 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.CheckoutOutbox;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.exception.InsufficientStockException;
+import com.janesjeans.api.repository.CheckoutOutboxRepository;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.repository.PaymentRepository;
+import com.janesjeans.api.repository.ProductRepository;
+import com.janesjeans.api.repository.ShipmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test"
+})
+class CheckoutPipelineTest {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private CheckoutPipeline pipeline;
+
+    @Autowired
+    private CheckoutOutboxRepository outboxRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void confirmedOrder_runsEveryStageAfterTheCommit() throws Exception {
+        Product jeans = product("Pipeline Jeans", 5);
+        Order order = checkoutService.confirm(order(jeans, 2, "pipeline@test.com"), request(jeans, 2, "pipeline@test.com"));
+
+        awaitStage(order.getId(), CheckoutOutbox.Stage.DONE);
+
+        assertThat(stockOf(jeans)).isEqualTo(3);
+        assertThat(paymentRepository.findByOrderId(order.getId())).singleElement()
+                .satisfies(p -> assertThat(p.getMethod()).isEqualTo("CARD"));
+        assertThat(shipmentRepository.findByOrderId(order.getId())).get()
+                .satisfies(s -> assertThat(s.getShippingAddress()).contains("Test Ave"));
+        verify(emailService).sendOrderConfirmation(argThat(o -> o.getId().equals(order.getId())), eq(order.displayOrderNumber()));
+        assertThat(meterRegistry.find("checkout.pipeline.stage").tags("stage", "payment", "outcome", "success").timer())
+                .isNotNull();
+    }
+
+    @Test
+    void failedEmail_isRetriedWithoutRepeatingEarlierStages() throws Exception {
+        Product jeans = product("Retried Jeans", 5);
+        doThrow(new MessagingException("smtp down"))
+                .doNothing()
+                .when(emailService).sendOrderConfirmation(argThat(o -> "retry-email@test.com".equals(o.getCustomerEmail())), any());
+        Order order = checkoutService.confirm(order(jeans, 1, "retry-email@test.com"), request(jeans, 1, "retry-email@test.com"));
+
+        awaitTrue(() -> entry(order).getAttempts() == 1);
+        CheckoutOutbox failed = entry(order);
+        assertThat(failed.getStage()).isEqualTo(CheckoutOutbox.Stage.NOTIFICATION);
+        assertThat(failed.getLastError()).contains("smtp down");
+
+        makeDue(failed);
+        pipeline.process(failed.getId());
+        awaitStage(order.getId(), CheckoutOutbox.Stage.DONE);
+
+        assertThat(paymentRepository.findByOrderId(order.getId())).hasSize(1);
+        assertThat(shipmentRepository.findByOrderId(order.getId())).isPresent();
+        verify(emailService, atLeast(2)).sendOrderConfirmation(argThat(o -> o.getId().equals(order.getId())), any());
+    }
+
+    @Test
+    void entryThatKeepsFailing_isParkedAfterTheLastAttempt() throws Exception {
+        Product jeans = product("Dead Letter Jeans", 5);
+        doThrow(new MessagingException("mailbox unavailable"))
+                .when(emailService).sendOrderConfirmation(argThat(o -> "dead@test.com".equals(o.getCustomerEmail())), any());
+        double failedBefore = meterRegistry.counter("checkout.pipeline.failed").count();
+        Order order = checkoutService.confirm(order(jeans, 1, "dead@test.com"), request(jeans, 1, "dead@test.com"));
+
+        awaitTrue(() -> {
+            CheckoutOutbox current = entry(order);
+            if (current.getStage() == CheckoutOutbox.Stage.FAILED) return true;
+            makeDue(current);
+            pipeline.process(current.getId());
+            return false;
+        });
+
+        CheckoutOutbox parked = entry(order);
+        assertThat(parked.getAttempts()).isEqualTo(8);
+        assertThat(parked.getLastError()).isEqualTo("NOTIFICATION: Confirmation email not sent: mailbox unavailable");
+        assertThat(meterRegistry.counter("checkout.pipeline.failed").count()).isEqualTo(failedBefore + 1);
+        // parked entries are no longer picked up
+        makeDue(parked);
+        pipeline.process(parked.getId());
+        assertThat(entry(order).getAttempts()).isEqualTo(8);
+        assertThat(paymentRepository.findByOrderId(order.getId())).hasSize(1);
+    }
+
+    @Test
+    void outOfStock_leavesNoOrderAndNoOutboxEntry() {
+        Product jeans = product("Sold Out Jeans", 1);
+        long entries = outboxRepository.count();
+
+        assertThatThrownBy(() -> checkoutService.confirm(order(jeans, 2, "soldout@test.com"), request(jeans, 2, "soldout@test.com")))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(outboxRepository.count()).isEqualTo(entries);
+        assertThat(orderRepository.findAll()).noneMatch(o -> "soldout@test.com".equals(o.getCustomerEmail()));
+        assertThat(stockOf(jeans)).isEqualTo(1);
+    }
+
+    @Test
+    void placedOrderThatCannotBeSaved_reservesNoStock() {
+        Product jeans = product("Unsaved Jeans", 3);
+        Order order = order(jeans, 2, "unsaved@test.com");
+        order.setShippingAddress(null);
+
+        assertThatThrownBy(() -> checkoutService.place(order, request(jeans, 2, "unsaved@test.com")))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(orderRepository.findAll()).noneMatch(o -> "unsaved@test.com".equals(o.getCustomerEmail()));
+        assertThat(stockOf(jeans)).isEqualTo(3);
+    }
+
+    private CheckoutOutbox entry(Order order) {
+        return outboxRepository.findByOrderId(order.getId()).orElseThrow();
+    }
+
+    private void makeDue(CheckoutOutbox entry) {
+        jdbcTemplate.update("UPDATE checkout_outbox SET next_attempt_at = DATEADD('SECOND', -1, CURRENT_TIMESTAMP) WHERE id = ?",
+                entry.getId());
+    }
+
+    private void awaitStage(String orderId, CheckoutOutbox.Stage stage) throws InterruptedException {
+        awaitTrue(() -> outboxRepository.findByOrderId(orderId).map(CheckoutOutbox::getStage).orElse(null) == stage);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private Product product(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setFit("Straight");
+        p.setGender("Men");
+        p.setSize("34");
+        p.setPrice(new BigDecimal("79.99"));
+        p.setStockLevel(stock);
+        return productRepository.save(p);
+    }
+
+    private int stockOf(Product p) {
+        return productRepository.findById(p.getId()).orElseThrow().getStockLevel();
+    }
+
+    private static Order order(Product p, int quantity, String email) {
+        Order order = Order.builder()
+                .customerName("Guest")
+                .customerEmail(email)
+                .status("Confirmed")
+                .totalAmount(p.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .shippingAddress("1 Test Ave, Testville 12345")
+                .items(new ArrayList<>())
+                .build();
+        order.getItems().add(OrderItem.builder()
+                .productId(p.getId())
+                .productName(p.getName())
+                .size(p.getSize())
+                .quantity(quantity)
+                .price(p.getPrice())
+                .build());
+        return order;
+    }
+
+    private static GuestOrderRequest request(Product p, int quantity, String email) {
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId(p.getId());
+        item.setProductName(p.getName());
+        item.setQuantity(quantity);
+        item.setSize(p.getSize());
+        item.setPrice(p.getPrice());
+
+        GuestOrderRequest.ShipmentInfo ship = new GuestOrderRequest.ShipmentInfo();
+        ship.setName("Guest");
+        ship.setEmail(email);
+        ship.setPhone("+100");
+        ship.setAddress("1 Test Ave");
+        ship.setCity("Testville");
+        ship.setPostalCode("12345");
+
+        GuestOrderRequest.PaymentInfo pay = new GuestOrderRequest.PaymentInfo();
+        pay.setType("CARD");
+        pay.setStatus("SUCCESS");
+
+        GuestOrderRequest request = new GuestOrderRequest();
+        request.setItems(new ArrayList<>(List.of(item)));
+        request.setShipmentDetails(ship);
+        request.setPayment(pay);
+        request.setTotalAmount(p.getPrice().multiply(BigDecimal.valueOf(quantity)));
+        return request;
+    }
+}
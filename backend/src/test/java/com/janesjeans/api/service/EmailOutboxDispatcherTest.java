@@ -0,0 +1,216 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.EmailOutbox;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:emailoutbox;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "spring.mail.host=127.0.0.1",
+    "spring.mail.username=noreply@janesjeans.com",
+    "spring.mail.properties.mail.smtp.auth=false",
+    "spring.mail.properties.mail.smtp.starttls.enable=false",
+    "spring.mail.properties.mail.smtp.starttls.required=false",
+    "spring.mail.properties.mail.smtp.connectiontimeout=2000",
+    "spring.mail.properties.mail.smtp.timeout=2000",
+    "email.outbox.workers=2",
+    "email.outbox.batch-size=10",
+    "email.outbox.max-attempts=3",
+    "email.outbox.retry-base-millis=50",
+    "email.outbox.poll-millis=50"
+})
+class EmailOutboxDispatcherTest {
+
+    private static final SmtpStandIn SMTP = SmtpStandIn.start();
+
+    @DynamicPropertySource
+    static void smtpPort(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.port", SMTP::port);
+    }
+
+    @AfterAll
+    static void stopSmtp() {
+        SMTP.close();
+    }
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queuedEmails_goOutInBatchesOverOneConnectionEach() throws Exception {
+        double sentBefore = meterRegistry.counter("email.outbox.sent").count();
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 25; i++) recipients.add("batch" + i + "@test.com");
+
+        queue(recipients);
+        awaitTrue(() -> recipients.stream().allMatch(r -> status(r) == EmailOutbox.Status.SENT));
+
+        List<SmtpStandIn.Message> received = recipients.stream().flatMap(r -> SMTP.messagesTo(r).stream()).toList();
+        assertThat(received).hasSize(25);
+        assertThat(received.get(0).data()).contains("Subject: Order Confirmation - JJ-batch0@test.com | Jane's Jeans");
+        // 25 emails at 10 per batch: three connections, not 25
+        assertThat(received.stream().map(SmtpStandIn.Message::connection).distinct().count()).isEqualTo(3);
+        assertThat(SMTP.maxOpenConnections()).isLessThanOrEqualTo(2);
+        assertThat(meterRegistry.counter("email.outbox.sent").count()).isEqualTo(sentBefore + 25);
+        assertThat(meterRegistry.timer("email.outbox.lag").count()).isGreaterThanOrEqualTo(25);
+        assertThat(meterRegistry.find("email.outbox.batch").tag("outcome", "success").timer()).isNotNull();
+        awaitTrue(() -> meterRegistry.get("email.outbox.pending").gauge().value() == 0);
+    }
+
+    @Test
+    void deferredRecipient_isRetriedWhileTheRestOfTheBatchIsSent() throws Exception {
+        double retriedBefore = meterRegistry.counter("email.outbox.retried").count();
+        SMTP.defer("later@test.com", 2);
+
+        queue(List.of("before@test.com", "later@test.com", "after@test.com"));
+        awaitTrue(() -> status("later@test.com") == EmailOutbox.Status.SENT);
+
+        EmailOutbox later = entry("later@test.com");
+        assertThat(later.getAttempts()).isEqualTo(3);
+        assertThat(later.getLastError()).isNull();
+        assertThat(later.getSentAt()).isNotNull();
+        assertThat(entry("before@test.com").getAttempts()).isEqualTo(1);
+        assertThat(entry("after@test.com").getAttempts()).isEqualTo(1);
+        assertThat(SMTP.messagesTo("later@test.com")).hasSize(1);
+        assertThat(SMTP.messagesTo("after@test.com")).hasSize(1);
+        assertThat(meterRegistry.counter("email.outbox.retried").count()).isEqualTo(retriedBefore + 2);
+        assertThat(meterRegistry.find("email.outbox.batch").tag("outcome", "partial").timer()).isNotNull();
+    }
+
+    @Test
+    void rejectedRecipient_isDeadLetteredAtOnce() throws Exception {
+        double deadBefore = meterRegistry.counter("email.outbox.dead").count();
+        SMTP.reject("nobody@test.com");
+
+        queue(List.of("nobody@test.com"));
+        awaitTrue(() -> status("nobody@test.com") == EmailOutbox.Status.DEAD);
+
+        EmailOutbox dead = entry("nobody@test.com");
+        assertThat(dead.getAttempts()).isEqualTo(1);
+        assertThat(dead.getLastError()).contains("550");
+        assertThat(meterRegistry.counter("email.outbox.dead").count()).isEqualTo(deadBefore + 1);
+    }
+
+    @Test
+    void recipientThatKeepsFailing_isDeadLetteredAfterTheLastAttempt() throws Exception {
+        SMTP.defer("busy@test.com", 100);
+
+        queue(List.of("busy@test.com"));
+        awaitTrue(() -> status("busy@test.com") == EmailOutbox.Status.DEAD);
+
+        EmailOutbox dead = entry("busy@test.com");
+        assertThat(dead.getAttempts()).isEqualTo(3);
+        assertThat(dead.getLastError()).contains("451");
+        assertThat(dead.getSentAt()).isNull();
+        assertThat(SMTP.messagesTo("busy@test.com")).isEmpty();
+    }
+
+    @Test
+    void unreachableRelay_keepsEmailsQueuedUntilItIsBack() throws Exception {
+        EmailOutbox failed;
+        SMTP.refuseConnections(true);
+        try {
+            queue(List.of("patient@test.com"));
+            awaitTrue(() -> entry("patient@test.com").getAttempts() >= 1);
+            failed = entry("patient@test.com");
+        } finally {
+            SMTP.refuseConnections(false);
+        }
+
+        assertThat(failed.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(failed.getLastError()).contains("421");
+        awaitTrue(() -> status("patient@test.com") == EmailOutbox.Status.SENT);
+        assertThat(SMTP.messagesTo("patient@test.com")).hasSize(1);
+    }
+
+    @Test
+    void finishedEmails_arePurgedOnceTheRetentionPeriodIsOver() throws Exception {
+        queue(List.of("old-sent@test.com", "old-dead@test.com", "recent-sent@test.com"));
+        awaitTrue(() -> status("old-sent@test.com") == EmailOutbox.Status.SENT
+                && status("old-dead@test.com") == EmailOutbox.Status.SENT
+                && status("recent-sent@test.com") == EmailOutbox.Status.SENT);
+        jdbcTemplate.update("UPDATE email_outbox SET status = 'DEAD' WHERE recipient = 'old-dead@test.com'");
+        jdbcTemplate.update("UPDATE email_outbox SET updated_at = DATEADD('DAY', -8, CURRENT_TIMESTAMP) "
+                + "WHERE recipient IN ('old-sent@test.com', 'old-dead@test.com')");
+
+        assertThat(dispatcher.purgeFinished()).isEqualTo(2);
+
+        assertThat(outboxRepository.findAll()).extracting(EmailOutbox::getRecipient)
+                .contains("recent-sent@test.com")
+                .doesNotContain("old-sent@test.com", "old-dead@test.com");
+    }
+
+    /**
+     * Queue one confirmation per recipient in a single transaction, so the dispatcher
+     * sees them all at once.
+     */
+    private void queue(List<String> recipients) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String recipient : recipients) {
+                Order order = Order.builder()
+                        .customerName("Outbox Customer")
+                        .customerEmail(recipient)
+                        .totalAmount(new BigDecimal("59.99"))
+                        .shippingAddress("1 Test Ave, Testville 12345")
+                        .items(new ArrayList<>())
+                        .build();
+                emailService.queueOrderConfirmation(order, "JJ-" + recipient);
+            }
+        });
+    }
+
+    private EmailOutbox entry(String recipient) {
+        return outboxRepository.findAll().stream()
+                .filter(e -> e.getRecipient().equals(recipient))
+                .findFirst().orElseThrow();
+    }
+
+    private EmailOutbox.Status status(String recipient) {
+        return entry(recipient).getStatus();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.janesjeans.api.service;
 
+import com.janesjeans.api.entity.EmailOutbox;
 import com.janesjeans.api.entity.Order;
 import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.repository.EmailOutboxRepository;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,6 +19,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +31,9 @@ class EmailServiceTest {
     @Mock
     private MimeMessage mimeMessage;
 
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
     @InjectMocks
     private EmailService emailService;
 
@@ -91,4 +98,94 @@ class EmailServiceTest {
 
         verify(mailSender, never()).send(any(MimeMessage.class));
     }
+
+    @Test
+    void queueOrderConfirmation_shouldWriteTheRenderedEmailToTheOutbox() {
+        Order order = order("John Doe", "123 Main St, Dhaka 1200", 1);
+        order.setId("ord-4");
+        order.setCustomerEmail(" john@test.com ");
+
+        emailService.queueOrderConfirmation(order, "JJ-1042");
+
+        ArgumentCaptor<EmailOutbox> queued = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(outboxRepository).save(queued.capture());
+        assertThat(queued.getValue().getOrderId()).isEqualTo("ord-4");
+        assertThat(queued.getValue().getRecipient()).isEqualTo("john@test.com");
+        assertThat(queued.getValue().getSubject()).isEqualTo("Order Confirmation - JJ-1042 | Jane's Jeans");
+        assertThat(queued.getValue().getHtmlBody()).isEqualTo(emailService.buildOrderConfirmationHtml(order, "JJ-1042"));
+        assertThat(queued.getValue().getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        verify(mailSender, never()).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void queueCustomOrderConfirmation_shouldSkipWhenNoEmail() {
+        Order order = order("No Email User", null, 0);
+        order.setCustomerEmail(null);
+
+        emailService.queueCustomOrderConfirmation(order, "JJ-1043", "<p>hi</p>");
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void sendOtpEmail_sendsAtOnceAndQueuesNothing() throws Exception {
+        Order order = order("John Doe", "123 Main St, Dhaka 1200", 1);
+        order.setCustomerEmail("john@test.com");
+
+        emailService.sendOtpEmail(order, "JJ-1042", "482913");
+
+        verify(mailSender).send(mimeMessage);
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void templates_renderTheSameMarkupAsTheOldBuilders() {
+        Order order = order("John Doe", "123 Main St, Dhaka 1200", 3);
+        Order bare = order(null, null, 0);
+
+        assertThat(emailService.buildOrderConfirmationHtml(order, "JJ-1042"))
+                .isEqualTo(LegacyEmailHtml.buildOrderConfirmationHtml(order, "JJ-1042"));
+        assertThat(emailService.buildOrderConfirmationHtml(bare, "JJ-1043"))
+                .isEqualTo(LegacyEmailHtml.buildOrderConfirmationHtml(bare, "JJ-1043"));
+        assertThat(emailService.buildConfirmOrderByEmailMessage(order, "JJ-1042"))
+                .isEqualTo(LegacyEmailHtml.buildConfirmOrderByEmailMessage(order, "JJ-1042"));
+        assertThat(emailService.buildConfirmOrderByEmailMessage(bare, "JJ-1043"))
+                .isEqualTo(LegacyEmailHtml.buildConfirmOrderByEmailMessage(bare, "JJ-1043"));
+        assertThat(emailService.buildOtpEmailMessage(order, "JJ-1042", "482913"))
+                .isEqualTo(LegacyEmailHtml.buildOtpEmailMessage(order, "JJ-1042", "482913"));
+        assertThat(emailService.buildOtpEmailMessage(bare, "JJ-1043", "482913"))
+                .isEqualTo(LegacyEmailHtml.buildOtpEmailMessage(bare, "JJ-1043", "482913"));
+    }
+
+    @Test
+    void templates_escapeCustomerInput() {
+        Order order = order("<script>alert(1)</script>", "1 O'Neil & Sons Rd, <b>Leeds</b>", 1);
+        order.getItems().get(0).setProductName("Jeans \"Slim\" <i>");
+
+        String html = emailService.buildOrderConfirmationHtml(order, "JJ-1");
+
+        assertThat(html).doesNotContain("<script>").doesNotContain("<b>").doesNotContain("<i>")
+                .contains("Hi &lt;script&gt;alert(1)&lt;/script&gt;,")
+                .contains("1 O&#39;Neil &amp; Sons Rd<br> &lt;b&gt;Leeds&lt;/b&gt;")
+                .contains("Jeans &quot;Slim&quot; &lt;i&gt;<br>");
+    }
+
+    private static Order order(String customerName, String shippingAddress, int items) {
+        Order order = Order.builder()
+                .customerName(customerName)
+                .customerEmail("john@test.com")
+                .totalAmount(new BigDecimal("149.955"))
+                .shippingAddress(shippingAddress)
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < items; i++) {
+            order.getItems().add(OrderItem.builder()
+                    .productName("Slim Jeans " + i)
+                    .size(i == 1 ? null : "3" + i)
+                    .quantity(i + 1)
+                    .price(new BigDecimal("49.985"))
+                    .build());
+        }
+        return order;
+    }
 }
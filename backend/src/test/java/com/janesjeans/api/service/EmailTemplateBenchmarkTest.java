@@ -0,0 +1,100 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Order confirmation emails rendered by the compiled templates against the old
+ * String.format builders ({@link LegacyEmailHtml}), at 1, 10 and 100 line items. Reports
+ * time and bytes allocated per email; the templates must be faster at every size.
+ *
+ * Run with: mvn test -Dtest=EmailTemplateBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EmailTemplateBenchmarkTest {
+
+    private static final int[] ITEM_COUNTS = {1, 10, 100};
+    private static final long TARGET_NANOS = 500_000_000L;
+
+    private final EmailService emailService = new EmailService(mock(JavaMailSender.class), mock(EmailOutboxRepository.class));
+
+    @Test
+    void templatesBeatTheFormatBuilders() {
+        for (int items : ITEM_COUNTS) {
+            Order order = order(items);
+            Result legacy = measure(o -> LegacyEmailHtml.buildOrderConfirmationHtml(o, "JJ-1042"), order);
+            Result template = measure(o -> emailService.buildOrderConfirmationHtml(o, "JJ-1042"), order);
+            Result legacyShort = measure(o -> LegacyEmailHtml.buildConfirmOrderByEmailMessage(o, "JJ-1042"), order);
+            Result templateShort = measure(o -> emailService.buildConfirmOrderByEmailMessage(o, "JJ-1042"), order);
+
+            report("confirmation", items, legacy, template);
+            report("confirm-by-email", items, legacyShort, templateShort);
+            assertThat(template.nanos).isLessThan(legacy.nanos);
+            assertThat(templateShort.nanos).isLessThan(legacyShort.nanos);
+        }
+        Order order = order(1);
+        Result legacyOtp = measure(o -> LegacyEmailHtml.buildOtpEmailMessage(o, "JJ-1042", "482913"), order);
+        Result templateOtp = measure(o -> emailService.buildOtpEmailMessage(o, "JJ-1042", "482913"), order);
+        report("otp", 1, legacyOtp, templateOtp);
+        assertThat(templateOtp.nanos).isLessThan(legacyOtp.nanos);
+    }
+
+    private record Result(double nanos, double bytes) {}
+
+    /**
+     * Warm up, then render for about half a second and average time and allocation.
+     */
+    private static Result measure(Function<Order, String> render, Order order) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (int i = 0; i < 20_000; i++) sink += render.apply(order).length();
+        int calls = 0;
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1_000; i++) sink += render.apply(order).length();
+            calls += 1_000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TARGET_NANOS);
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        assertThat(sink).isPositive();
+        return new Result((double) elapsed / calls, (double) bytes / calls);
+    }
+
+    private static void report(String email, int items, Result legacy, Result template) {
+        System.out.printf("%-17s %3d items: format %,9.0f ns %,9.0f B   template %,9.0f ns %,9.0f B   (%.1fx faster)%n",
+                email, items, legacy.nanos, legacy.bytes, template.nanos, template.bytes, legacy.nanos / template.nanos);
+    }
+
+    private static Order order(int items) {
+        Order order = Order.builder()
+                .customerName("Jane Customer")
+                .customerEmail("jane@example.com")
+                .totalAmount(new BigDecimal("1234.50"))
+                .shippingAddress("12 Denim Row, Flat 3, Leeds LS1 4AB")
+                .items(new ArrayList<>())
+                .build();
+        for (int i = 0; i < items; i++) {
+            order.getItems().add(OrderItem.builder()
+                    .productName("Slim Fit Dark Wash Jeans " + i)
+                    .size("3" + i % 10)
+                    .quantity(1 + i % 3)
+                    .price(new BigDecimal("59.99"))
+                    .build());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,59 @@
+package com.janesjeans.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HtmlTemplateTest {
+
+    @Test
+    void placeholders_areEscapedAndSectionsFollowTheirValue() {
+        HtmlTemplate template = HtmlTemplate.compile(
+                "<p>{{name}}</p>{{#address}}<p>{{address|lines}}</p>{{/address}}{{^address}}<p>none</p>{{/address}}",
+                "name", "address");
+
+        assertThat(template.render("A & B's <shop>", "1 High St, Leeds"))
+                .isEqualTo("<p>A &amp; B&#39;s &lt;shop&gt;</p><p>1 High St<br> Leeds</p>");
+        assertThat(template.render(null, null)).isEqualTo("<p></p><p>none</p>");
+    }
+
+    @Test
+    void fragments_writeNestedTemplatesIntoTheSameBuffer() {
+        HtmlTemplate row = HtmlTemplate.compile("<li>{{item}} x{{quantity}}</li>", "item", "quantity");
+        HtmlTemplate list = HtmlTemplate.compile("<ul>{{rows}}</ul>", "rows");
+        HtmlTemplate.Fragment rows = out -> {
+            row.renderTo(out, "Slim", 2);
+            row.renderTo(out, "<Wide>", 1);
+        };
+
+        String first = list.render(rows);
+        String second = list.render((HtmlTemplate.Fragment) out -> row.renderTo(out, "Flare", 3));
+
+        assertThat(first).isEqualTo("<ul><li>Slim x2</li><li>&lt;Wide&gt; x1</li></ul>");
+        assertThat(second).isEqualTo("<ul><li>Flare x3</li></ul>");
+    }
+
+    @Test
+    void load_joinsTrimmedLines() {
+        HtmlTemplate template = HtmlTemplate.load("templates/email/order-item-row.html", "productName", "size", "quantity", "subtotal");
+
+        assertThat(template.render("Slim", "32", 1, "49.99"))
+                .startsWith("<tr><td style='padding:12px 8px;border-bottom:1px solid #e5e7eb;'>Slim<br>")
+                .endsWith(">$49.99</td></tr>");
+    }
+
+    @Test
+    void invalidTemplates_areRejectedWhenCompiled() {
+        assertThatThrownBy(() -> HtmlTemplate.compile("{{name}} {{other}}", "name"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{{other}}");
+        assertThatThrownBy(() -> HtmlTemplate.compile("{{#name}}open", "name"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not closed");
+        assertThatThrownBy(() -> HtmlTemplate.compile("{{name|upper}}", "name"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HtmlTemplate.compile("{{name}}", "name").render("a", "b"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
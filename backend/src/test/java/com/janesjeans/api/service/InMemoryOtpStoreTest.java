@@ -0,0 +1,145 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.exception.OtpStoreFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryOtpStoreTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void expiredEntries_areRemovedAndReportedInBatches() {
+        InMemoryOtpStore store = store(100, Long.MAX_VALUE, 2);
+        List<List<String>> batches = new ArrayList<>();
+        store.onExpiry(ids -> batches.add(List.copyOf(ids)));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) store.put("order-" + i, entry(now + 1_000));
+        store.put("later", entry(now + 60_000));
+
+        assertThat(store.expireDue(now + 500)).isEmpty();
+        assertThat(store.expireDue(now + 1_000)).hasSize(5);
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get("later")).isNotNull();
+        assertThat(registry.counter("otp.store.evictions").count()).isEqualTo(5);
+        assertThat(registry.get("otp.store.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void replacedEntry_expiresAtItsNewDeadlineOnly() {
+        InMemoryOtpStore store = store(100, Long.MAX_VALUE, 100);
+        long now = System.currentTimeMillis();
+        store.put("order", entry(now + 1_000));
+        OtpStore.Entry resent = entry(now + 5_000);
+        store.put("order", resent);
+
+        assertThat(store.expireDue(now + 1_000)).isEmpty();
+        assertThat(store.get("order")).isSameAs(resent);
+        assertThat(store.expireDue(now + 5_000)).containsExactly("order");
+        assertThat(store.estimatedBytes()).isZero();
+    }
+
+    @Test
+    void entryCap_rejectsNewOrdersButAllowsResendsAndFreesOnUse() {
+        InMemoryOtpStore store = store(2, Long.MAX_VALUE, 100);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        store.put("a", entry(expiresAt));
+        store.put("b", entry(expiresAt));
+
+        assertThatThrownBy(() -> store.put("c", entry(expiresAt)))
+                .isInstanceOf(OtpStoreFullException.class)
+                .satisfies(e -> assertThat(((OtpStoreFullException) e).getRetryAfterSeconds()).isEqualTo(30));
+        store.put("a", entry(expiresAt)); // a resend replaces, it does not grow the store
+        assertThat(store.take("b")).isNotNull();
+        store.put("c", entry(expiresAt));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(registry.counter("otp.store.rejections").count()).isEqualTo(1);
+    }
+
+    @Test
+    void memoryCap_rejectsEntriesWhosePayloadDoesNotFit() {
+        long small = InMemoryOtpStore.weigh(entry(0));
+        InMemoryOtpStore store = store(100, small * 3, 100);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        store.put("small", entry(expiresAt));
+
+        GuestOrderRequest bigCart = new GuestOrderRequest();
+        bigCart.setItems(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+            item.setProductId("product-" + i);
+            item.setProductName("Wide Leg Jeans " + i);
+            bigCart.getItems().add(item);
+        }
+        assertThatThrownBy(() -> store.put("big", new OtpStore.Entry("+100", "123456", expiresAt, bigCart)))
+                .isInstanceOf(OtpStoreFullException.class);
+        assertThat(store.estimatedBytes()).isEqualTo(small);
+    }
+
+    @Test
+    void expiredEntry_isNotReturnedBeforeTheWheelReachesIt() {
+        InMemoryOtpStore store = store(100, Long.MAX_VALUE, 100);
+        store.put("order", entry(System.currentTimeMillis() - 1));
+
+        assertThat(store.get("order")).isNull();
+        assertThat(store.take("order")).isNull();
+    }
+
+    @Test
+    void verify_consumesOnlyAMatchingOtp() {
+        InMemoryOtpStore store = store(100, Long.MAX_VALUE, 100);
+        store.put("order", entry(System.currentTimeMillis() + 60_000));
+
+        assertThat(store.verify("order", "+100", "000000")).isNull();
+        assertThat(store.verify("order", "+200", "123456")).isNull();
+        assertThat(store.verify("order", "+100", "123456")).isNotNull();
+        assertThat(store.verify("order", "+100", "123456")).isNull();
+    }
+
+    @Test
+    void concurrentVerifications_consumeAnOtpOnce() throws Exception {
+        InMemoryOtpStore store = store(100, Long.MAX_VALUE, 100);
+        store.put("order", entry(System.currentTimeMillis() + 60_000));
+        OtpStore.Entry entry = store.get("order");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            attempts.add(pool.submit(() -> {
+                start.await();
+                return store.consume("order", entry);
+            }));
+        }
+        start.countDown();
+        int won = 0;
+        for (Future<Boolean> attempt : attempts) if (attempt.get()) won++;
+        pool.shutdown();
+
+        assertThat(won).isEqualTo(1);
+        store.put("abandoned", entry(System.currentTimeMillis() - 1));
+        store.expireDue(System.currentTimeMillis() + 1_000);
+        assertThat(registry.get("otp.store.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    private InMemoryOtpStore store(int maxEntries, long maxBytes, int batchSize) {
+        return new InMemoryOtpStore(registry, 1, maxEntries, maxBytes, batchSize, 30);
+    }
+
+    private static OtpStore.Entry entry(long expiresAt) {
+        return new OtpStore.Entry("+100", "123456", expiresAt, null);
+    }
+}
@@ -0,0 +1,329 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.entity.OrderItem;
+import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.exception.InsufficientStockException;
+import com.janesjeans.api.repository.OrderRepository;
+import com.janesjeans.api.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:inventoryholds;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    // the app's own expiry job stays out of the way; the tests call expireDue themselves
+    "inventory.holds.tick-millis=3600000"
+})
+class InventoryHoldServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    private InventoryHoldService holds;
+
+    @BeforeEach
+    void setUp() {
+        holds = instance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // end whatever a test left holding, so later tests only expire their own orders
+        holds.expireDue(millis(LocalDateTime.now().plusYears(1)));
+        holds.stopTicker();
+    }
+
+    @Test
+    void heldStock_isNotAvailableToOtherBuyersAndCommitSellsIt() {
+        Product jeans = product("Held Jeans", 2);
+        Order order = pendingOrder(jeans, 2, inAnHour());
+        holds.hold(List.of(item(jeans, 2)));
+
+        assertThat(heldOf(jeans)).isEqualTo(2);
+        assertThatThrownBy(() -> productService.reserveStock(List.of(item(jeans, 1))))
+                .isInstanceOf(InsufficientStockException.class)
+                .extracting(e -> ((InsufficientStockException) e).getStockErrors())
+                .isEqualTo(List.of("Held Jeans: only 0 available (requested 1)"));
+        assertThatThrownBy(() -> holds.hold(List.of(item(jeans, 1))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(holds.commit(order.getId())).isTrue();
+        assertThat(stockOf(jeans)).isZero();
+        assertThat(heldOf(jeans)).isZero();
+        // a second verification does not sell the units again
+        assertThat(holds.commit(order.getId())).isTrue();
+        assertThat(stockOf(jeans)).isZero();
+    }
+
+    @Test
+    void lapsedHold_isReleasedAndOrderMarkedNotVerified() {
+        Product jeans = product("Lapsing Jeans", 3);
+        LocalDateTime expiresAt = inAnHour();
+        Order order = pendingOrder(jeans, 2, expiresAt);
+        holds.hold(List.of(item(jeans, 2)));
+
+        assertThat(holds.expireDue(millis(expiresAt) - 1)).isEmpty();
+        assertThat(holds.expireDue(millis(expiresAt))).containsExactly(order.getId());
+
+        assertThat(heldOf(jeans)).isZero();
+        assertThat(stockOf(jeans)).isEqualTo(3);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo("Not Verified");
+
+        // a late commit does not take the released units a second time
+        assertThat(holds.commit(order.getId())).isFalse();
+        assertThat(stockOf(jeans)).isEqualTo(3);
+    }
+
+    @Test
+    void lapsedHold_cannotCommitOnceTheStockIsSold() {
+        Product jeans = product("Resold Jeans", 1);
+        LocalDateTime expiresAt = inAnHour();
+        Order order = pendingOrder(jeans, 1, expiresAt);
+        holds.hold(List.of(item(jeans, 1)));
+        holds.expireDue(millis(expiresAt));
+
+        productService.reserveStock(List.of(item(jeans, 1)));
+
+        assertThat(holds.commit(order.getId())).isFalse();
+        assertThat(stockOf(jeans)).isZero();
+    }
+
+    @Test
+    void reconcile_recomputesHeldStockFromPendingOrders() {
+        Product jeans = product("Reconciled Jeans", 10);
+        pendingOrder(jeans, 3, inAnHour());
+        holds.hold(List.of(item(jeans, 3)));
+        jdbcTemplate.update("UPDATE products SET held_stock = 7 WHERE id = ?", jeans.getId());
+
+        assertThat(productService.reconcileHeldStock()).isPositive();
+        assertThat(heldOf(jeans)).isEqualTo(3);
+    }
+
+    @Test
+    void extendedHold_outlivesItsFirstDeadline() {
+        Product jeans = product("Extended Jeans", 1);
+        LocalDateTime expiresAt = inAnHour();
+        Order order = pendingOrder(jeans, 1, expiresAt);
+        holds.hold(List.of(item(jeans, 1)));
+
+        long extended = millis(expiresAt) + 300_000;
+        holds.extend(order.getId(), extended);
+
+        assertThat(holds.expireDue(millis(expiresAt) + 1)).isEmpty();
+        assertThat(heldOf(jeans)).isEqualTo(1);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getHoldExpiresAt())
+                .isNotEqualTo(expiresAt);
+        assertThat(holds.expireDue(extended)).containsExactly(order.getId());
+    }
+
+    @Test
+    void releasedHold_isAvailableAgainAndNeverExpiresOrCommits() {
+        Product jeans = product("Released Jeans", 1);
+        LocalDateTime expiresAt = inAnHour();
+        Order order = pendingOrder(jeans, 1, expiresAt);
+        holds.hold(List.of(item(jeans, 1)));
+
+        assertThat(holds.release(List.of(order.getId()))).containsExactly(order.getId());
+        assertThat(holds.release(List.of(order.getId()))).isEmpty();
+
+        assertThat(heldOf(jeans)).isZero();
+        assertThat(holds.expireDue(millis(expiresAt))).isEmpty();
+        assertThat(holds.commit(order.getId())).isFalse();
+        assertThat(stockOf(jeans)).isEqualTo(1);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo("Not Verified");
+    }
+
+    @Test
+    void endedHolds_dropOutOfTheExpiryPoll() {
+        Product jeans = product("Polled Jeans", 10);
+        LocalDateTime expiresAt = inAnHour();
+        List<String> released = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            released.add(pendingOrder(jeans, 1, expiresAt).getId());
+            holds.hold(List.of(item(jeans, 1)));
+        }
+        Order lapsed = pendingOrder(jeans, 1, expiresAt);
+        holds.hold(List.of(item(jeans, 1)));
+        Order sold = pendingOrder(jeans, 1, expiresAt);
+        holds.hold(List.of(item(jeans, 1)));
+        Order live = pendingOrder(jeans, 1, expiresAt.plusMinutes(5));
+        holds.hold(List.of(item(jeans, 1)));
+
+        holds.commit(sold.getId());
+        holds.release(released);
+        holds.expireDue(millis(expiresAt));
+
+        // the rows the poll's range scan meets, however far ahead it looks
+        List<String> polled = jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE hold_expires_at <= ?", String.class, LocalDateTime.now().plusYears(1));
+        assertThat(polled).containsExactly(live.getId());
+        assertThat(holds.commit(lapsed.getId())).isFalse();
+        assertThat(holds.commit(released.get(0))).isFalse();
+        assertThat(holds.commit(sold.getId())).isTrue();
+    }
+
+    @Test
+    void recover_keepsLiveHoldsAndExpiresLapsedOnes() {
+        Product jeans = product("Recovered Jeans", 10);
+        Order live = pendingOrder(jeans, 3, inAnHour());
+        Order lapsed = pendingOrder(jeans, 2, LocalDateTime.now().minusMinutes(1));
+        // what a crash could leave behind: the column out of line with the orders
+        jdbcTemplate.update("UPDATE products SET held_stock = 7 WHERE id = ?", jeans.getId());
+
+        holds.recover();
+
+        assertThat(heldOf(jeans)).isEqualTo(3);
+        assertThat(orderRepository.findById(lapsed.getId()).orElseThrow().getStatus()).isEqualTo("Not Verified");
+        assertThat(holds.commit(live.getId())).isTrue();
+        assertThat(stockOf(jeans)).isEqualTo(7);
+        assertThat(heldOf(jeans)).isZero();
+    }
+
+    @Test
+    void twoInstances_shareHoldsAndEndEachOnlyOnce() {
+        InventoryHoldService other = instance();
+        try {
+            Product jeans = product("Shared Jeans", 4);
+            LocalDateTime expiresAt = inAnHour();
+            Order sold = pendingOrder(jeans, 1, expiresAt);
+            holds.hold(List.of(item(jeans, 1)));
+            Order lapsing = pendingOrder(jeans, 2, expiresAt);
+            holds.hold(List.of(item(jeans, 2)));
+
+            // held on one instance, verified on the other
+            assertThat(other.commit(sold.getId())).isTrue();
+            assertThat(stockOf(jeans)).isEqualTo(3);
+            assertThat(heldOf(jeans)).isEqualTo(2);
+
+            long extended = millis(expiresAt) + 60_000;
+            other.extend(lapsing.getId(), extended);
+            assertThat(holds.expireDue(millis(expiresAt))).isEmpty();
+
+            // both instances run expiry; the hold is released by one of them only
+            List<String> expired = new ArrayList<>(holds.expireDue(extended));
+            expired.addAll(other.expireDue(extended));
+            assertThat(expired).containsExactly(lapsing.getId());
+            assertThat(heldOf(jeans)).isZero();
+            assertThat(stockOf(jeans)).isEqualTo(3);
+
+            // one instance starting up keeps the holds the other one took
+            Order live = pendingOrder(jeans, 3, inAnHour());
+            holds.hold(List.of(item(jeans, 3)));
+            other.recover();
+            assertThat(heldOf(jeans)).isEqualTo(3);
+            assertThat(holds.commit(live.getId())).isTrue();
+            assertThat(other.commit(live.getId())).isTrue();
+            assertThat(stockOf(jeans)).isZero();
+            assertThat(heldOf(jeans)).isZero();
+        } finally {
+            other.stopTicker();
+        }
+    }
+
+    /**
+     * A private instance, standing in for one app instance; several share the database
+     * the way replicas do.
+     */
+    private InventoryHoldService instance() {
+        return new InventoryHoldService(productService, orderService, jdbcTemplate, transactionTemplate, 3_600_000, 500);
+    }
+
+    private Order pendingOrder(Product product, int quantity, LocalDateTime holdExpiresAt) {
+        Order order = Order.builder()
+                .customerName("Guest")
+                .customerEmail("guest@example.com")
+                .status("PendingVerification")
+                .totalAmount(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .shippingAddress("1 Test St")
+                .holdExpiresAt(holdExpiresAt)
+                .items(new ArrayList<>())
+                .build();
+        order.getItems().add(OrderItem.builder()
+                .productId(product.getId())
+                .productName(product.getName())
+                .size(product.getSize())
+                .quantity(quantity)
+                .price(product.getPrice())
+                .build());
+        return orderService.createOrder(order);
+    }
+
+    private Product product(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setFit("Slim");
+        p.setGender("Women");
+        p.setSize("28");
+        p.setPrice(new BigDecimal("69.99"));
+        p.setStockLevel(stock);
+        return productRepository.save(p);
+    }
+
+    private int stockOf(Product p) {
+        return productRepository.findById(p.getId()).orElseThrow().getStockLevel();
+    }
+
+    private int heldOf(Product p) {
+        return productRepository.findById(p.getId()).orElseThrow().getHeldStock();
+    }
+
+    // whole milliseconds, so expireDue(millis(t)) lands exactly on the stored deadline
+    private static LocalDateTime inAnHour() {
+        return LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static GuestOrderRequest.GuestOrderItem item(Product p, int quantity) {
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId(p.getId());
+        item.setProductName(p.getName());
+        item.setQuantity(quantity);
+        item.setSize(p.getSize());
+        item.setPrice(p.getPrice());
+        return item;
+    }
+}
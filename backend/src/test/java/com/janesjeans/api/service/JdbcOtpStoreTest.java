@@ -0,0 +1,236 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janesjeans.api.config.SMSConfige;
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two instances sharing one database: node A is the application's own OtpService and
+ * JdbcOtpStore, node B a second OtpService over its own JdbcOtpStore, as on another
+ * replica. The background purge is effectively off so the tests drive it by hand.
+ */
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:otpnodes;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "otp.store.type=jdbc",
+    "otp.store.purge-millis=3600000"
+})
+class JdbcOtpStoreTest {
+
+    @Autowired
+    private OtpService nodeA;
+
+    @Autowired
+    private OtpStore storeA;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SMSConfige.SmsService smsService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ShipmentService shipmentService;
+
+    @Autowired
+    private ShippingVendorService shippingVendorService;
+
+    @Autowired
+    private InventoryHoldService inventoryHoldService;
+
+    @Autowired
+    private OtpRateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    private EmailService emailService;
+
+    private JdbcOtpStore storeB;
+    private OtpService nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        applyOtpTable();
+        jdbcTemplate.update("DELETE FROM order_otps");
+        orderRepository.deleteAll();
+        storeB = new JdbcOtpStore(jdbcTemplate, objectMapper, new SimpleMeterRegistry(), 3_600_000, 2);
+        nodeB = new OtpService(orderService, smsService, emailService, paymentService, shipmentService,
+                shippingVendorService, inventoryHoldService, storeB, rateLimiter);
+        nodeB.listenForExpiry();
+    }
+
+    @Test
+    void otpRequestedOnOneNode_isVerifiedOnTheOther() {
+        Order order = order();
+        String otp = nodeA.requestOtp(order.getId(), "+447700900123", 300, "sms", null);
+
+        assertThat(nodeB.verifyOtp(order.getId(), "+447700900123", wrong(otp))).isFalse();
+        assertThat(nodeB.verifyOtp(order.getId(), "+447700900999", otp)).isFalse();
+        assertThat(rows()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT otp_hash FROM order_otps", String.class)).hasSize(64).isNotEqualTo(otp);
+
+        assertThat(nodeB.verifyOtp(order.getId(), "+447700900123", otp)).isTrue();
+        assertThat(orderService.getOrderById(order.getId()).getStatus()).isEqualTo("Confirmed");
+        assertThat(nodeA.verifyOtp(order.getId(), "+447700900123", otp)).isFalse();
+        assertThat(rows()).isZero();
+    }
+
+    @Test
+    void otpForAnUnknownOrder_takesNoRateLimitToken() {
+        int buckets = rateLimiter.buckets();
+
+        assertThatThrownBy(() -> nodeA.requestOtp("no-such-order", "+447700900123", 300, "sms", null))
+                .hasMessage("Order not found");
+        assertThat(rateLimiter.buckets()).isEqualTo(buckets);
+        assertThat(rows()).isZero();
+    }
+
+    @Test
+    void pendingCheckout_survivesTheRoundTrip() {
+        Order order = order();
+        GuestOrderRequest checkout = new GuestOrderRequest();
+        checkout.setTotalAmount(new BigDecimal("149.99"));
+        checkout.setItems(new ArrayList<>());
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId("sku-1");
+        item.setQuantity(2);
+        checkout.getItems().add(item);
+        storeA.put(order.getId(), new OtpStore.Entry("+100", "123456", System.currentTimeMillis() + 60_000, checkout));
+        storeA.put(order.getId(), new OtpStore.Entry("+100", "654321", System.currentTimeMillis() + 60_000, checkout));
+
+        assertThat(storeB.verify(order.getId(), "+100", "123456")).isNull();
+        OtpStore.Entry taken = storeB.take(order.getId());
+        assertThat(taken.pendingRequest()).isEqualTo(checkout);
+        assertThat(taken.otp()).isNull();
+        assertThat(storeA.take(order.getId())).isNull();
+    }
+
+    @Test
+    void concurrentVerificationsAcrossNodes_haveOneWinner() throws Exception {
+        Order order = order();
+        storeA.put(order.getId(), new OtpStore.Entry("+100", "123456", System.currentTimeMillis() + 60_000, null));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OtpStore.Entry>> attempts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            OtpStore node = i % 2 == 0 ? storeA : storeB;
+            attempts.add(pool.submit(() -> {
+                start.await();
+                return node.verify(order.getId(), "+100", "123456");
+            }));
+        }
+        start.countDown();
+        int won = 0;
+        for (Future<OtpStore.Entry> attempt : attempts) if (attempt.get() != null) won++;
+        pool.shutdown();
+
+        assertThat(won).isEqualTo(1);
+    }
+
+    @Test
+    void expiredOtps_arePurgedAndReportedByOneNodeEach() throws Exception {
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Order order = order();
+            expired.add(order.getId());
+            storeA.put(order.getId(), new OtpStore.Entry("+100", "123456", System.currentTimeMillis() - 1_000, null));
+        }
+        Order live = order();
+        storeA.put(live.getId(), new OtpStore.Entry("+100", "123456", System.currentTimeMillis() + 60_000, null));
+        JdbcOtpStore purgeA = (JdbcOtpStore) storeA;
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        long now = System.currentTimeMillis();
+        Future<List<String>> byA = pool.submit(() -> purgeA.purgeExpired(now));
+        Future<List<String>> byB = pool.submit(() -> storeB.purgeExpired(now));
+        List<String> purged = new ArrayList<>(byA.get());
+        purged.addAll(byB.get());
+        pool.shutdown();
+
+        assertThat(purged).containsExactlyInAnyOrderElementsOf(expired);
+        assertThat(new HashSet<>(purged)).hasSize(5);
+        assertThat(rows()).isEqualTo(1);
+        Set<String> statuses = new HashSet<>();
+        expired.forEach(id -> statuses.add(orderService.getOrderById(id).getStatus()));
+        assertThat(statuses).containsExactly("Not Verified");
+        assertThat(orderService.getOrderById(live.getId()).getStatus()).isEqualTo("PendingVerification");
+    }
+
+    private Order order() {
+        return orderService.createOrder(Order.builder()
+                .customerName("Otp Customer")
+                .customerEmail("otp@example.com")
+                .status("PendingVerification")
+                .totalAmount(new BigDecimal("49.99"))
+                .shippingAddress("1 Otp Lane")
+                .items(new ArrayList<>())
+                .build());
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_otps", Integer.class);
+    }
+
+    private static String wrong(String otp) {
+        return otp.equals("000000") ? "111111" : "000000";
+    }
+
+    private void applyOtpTable() throws Exception {
+        Integer present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_NAME = 'ORDER_OTPS'", Integer.class);
+        if (present != null && present > 0) return;
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            new Liquibase("db/changelog/changes/024-create-order-otps-table.xml", new ClassLoaderResourceAccessor(), database)
+                    .update("");
+        }
+    }
+}
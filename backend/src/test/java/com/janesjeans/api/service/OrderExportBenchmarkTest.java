@@ -0,0 +1,140 @@
+package com.janesjeans.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports one million synthetic orders and checks that the heap does not grow with the
+ * number of rows: live memory halfway through must be within a few MB of what it was
+ * after the first 50,000 orders, where a List of the orders would need hundreds. The
+ * early sample keeps one-off costs (database page cache, serializer caches) out of the
+ * comparison.
+ *
+ * Run with: mvn test -Dtest=OrderExportBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:exportbench;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderExportBenchmarkTest {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int WARM_UP = 50_000;
+    private static final long MAX_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class) >= ORDERS) return;
+        jdbcTemplate.update("INSERT INTO orders (id, customer_name, customer_email, status, total_amount, shipping_address, "
+                + "order_date, created_at, updated_at) "
+                + "SELECT 'bench-' || LPAD(X, 7, '0'), 'Bench Customer', 'bench@example.com', "
+                + "CASE MOD(X, 4) WHEN 0 THEN 'Delivered' ELSE 'Pending' END, 59.99, '1 Bench St, Benchville', "
+                + "DATEADD('SECOND', X, TIMESTAMP '2025-01-01 00:00:00'), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, " + ORDERS + ")");
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, product_name, size, quantity, price) "
+                + "SELECT 'bench-item-' || X, 'bench-' || LPAD(X, 7, '0'), 'sku-' || MOD(X, 50), 'Bench Jeans', '32', 1, 59.99 "
+                + "FROM SYSTEM_RANGE(1, " + ORDERS + ")");
+    }
+
+    @Test
+    void csvExport_runsInConstantMemory() throws Exception {
+        HeapWatchingStream out = new HeapWatchingStream(WARM_UP, ORDERS / 2, null);
+        long start = System.nanoTime();
+        long written = orderExportService.export(OrderExportService.Format.CSV, null, null, null, out);
+        report("csv", written, out, start);
+
+        assertThat(written).isEqualTo(ORDERS);
+        assertThat(out.lines).isEqualTo(ORDERS + 1);
+        assertThat(out.growth).isLessThan(MAX_GROWTH_BYTES);
+    }
+
+    @Test
+    void gzippedNdjsonExport_runsInConstantMemory() throws Exception {
+        HeapWatchingStream compressed = new HeapWatchingStream(Long.MAX_VALUE, Long.MAX_VALUE, null);
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed, 64 * 1024);
+        HeapWatchingStream out = new HeapWatchingStream(WARM_UP, ORDERS / 2, gzip);
+        long start = System.nanoTime();
+        long written = orderExportService.export(OrderExportService.Format.NDJSON, null, null, null, out);
+        gzip.finish();
+        report("ndjson.gz", written, out, start);
+        System.out.printf("ndjson.gz  compressed to %,d bytes%n", compressed.bytes);
+
+        assertThat(written).isEqualTo(ORDERS);
+        assertThat(out.lines).isEqualTo(ORDERS);
+        assertThat(out.growth).isLessThan(MAX_GROWTH_BYTES);
+    }
+
+    private static void report(String format, long written, HeapWatchingStream out, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10s %,d orders, %,d bytes in %.1f s (%,.0f orders/s), heap growth from warm-up to midpoint %,d KB%n",
+                format, written, out.bytes, seconds, written / seconds, out.growth / 1024);
+    }
+
+    /**
+     * Counts bytes and lines, optionally passing them on, and measures how much live heap
+     * (after a GC) grew between two lines.
+     */
+    private static final class HeapWatchingStream extends OutputStream {
+
+        private final long baselineAtLine;
+        private final long sampleAtLine;
+        private final OutputStream next;
+        private long baseline;
+        private long bytes;
+        private long lines;
+        private long growth;
+
+        HeapWatchingStream(long baselineAtLine, long sampleAtLine, OutputStream next) {
+            this.baselineAtLine = baselineAtLine;
+            this.sampleAtLine = sampleAtLine;
+            this.next = next;
+        }
+
+        @Override
+        public void write(int b) throws java.io.IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws java.io.IOException {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] != '\n') continue;
+                if (++lines == baselineAtLine) baseline = usedAfterGc();
+                if (lines == sampleAtLine) growth = usedAfterGc() - baseline;
+            }
+            if (next != null) next.write(b, off, len);
+        }
+
+        private static long usedAfterGc() {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.janesjeans.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams a few thousand orders through a fetch size far below the row count, so the
+ * export has to read the cursor in many round trips. The one-million-row memory check
+ * lives in {@link OrderExportBenchmarkTest}.
+ */
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:orderexport;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test",
+    "orders.export.fetch-size=50"
+})
+class OrderExportServiceTest {
+
+    private static final int ORDERS = 3_000;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private EmailService emailService;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class) >= ORDERS) return;
+        // every 1000th order has a customer name and a product name a spreadsheet would run
+        jdbcTemplate.update("INSERT INTO orders (id, customer_name, customer_email, status, total_amount, shipping_address, "
+                + "order_date, created_at, updated_at) "
+                + "SELECT 'export-' || LPAD(X, 5, '0'), CASE MOD(X, 1000) WHEN 0 THEN '=1+1' ELSE 'Export Customer' END, "
+                + "'export@example.com', CASE MOD(X, 4) WHEN 0 THEN 'Delivered' ELSE 'Pending' END, 119.98, "
+                + "'1 Export St, Exportville', DATEADD('SECOND', X, TIMESTAMP '2025-01-01 00:00:00'), "
+                + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, " + ORDERS + ")");
+        for (String line : List.of("a", "b")) {
+            jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, product_name, size, quantity, price) "
+                    + "SELECT 'export-item-" + line + "-' || X, 'export-' || LPAD(X, 5, '0'), 'sku-" + line + "', "
+                    + "CASE WHEN MOD(X, 1000) = 0 AND '" + line + "' = 'b' THEN '@SUM(A1)' ELSE 'Export Jeans' END, "
+                    + "'32', 1, 59.99 FROM SYSTEM_RANGE(1, " + ORDERS + ")");
+        }
+    }
+
+    @Test
+    void csvExport_writesEveryRowAcrossManyFetches() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = orderExportService.export(OrderExportService.Format.CSV, null, null, null, out);
+
+        List<String> lines = lines(out);
+        assertThat(written).isEqualTo(ORDERS);
+        assertThat(lines).hasSize(1 + ORDERS * 2);
+        assertThat(lines.get(0)).isEqualTo(OrderExportService.CSV_HEADER);
+        assertThat(lines.get(1)).startsWith("export-00001,").contains(",\"1 Export St, Exportville\",").endsWith(",sku-a,Export Jeans,32,1,59.99");
+        assertThat(lines.get(lines.size() - 1)).startsWith("export-03000,").contains(",sku-b,");
+    }
+
+    @Test
+    void csvExport_neutralisesFormulas() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        orderExportService.export(OrderExportService.Format.CSV, null, null, null, out);
+
+        List<String> lines = lines(out);
+        assertThat(lines).filteredOn(l -> l.contains(",'=1+1,")).hasSize(ORDERS / 1000 * 2);
+        assertThat(lines).filteredOn(l -> l.contains(",'@SUM(A1),")).hasSize(ORDERS / 1000);
+        assertThat(lines).noneMatch(l -> Arrays.stream(l.split(",")).anyMatch(field -> field.startsWith("=") || field.startsWith("@")));
+    }
+
+    @Test
+    void filteredExport_streamsOnlyMatchingOrders() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = orderExportService.export(OrderExportService.Format.NDJSON, "Delivered", null, null, out);
+
+        List<String> lines = lines(out);
+        assertThat(written).isEqualTo(ORDERS / 4);
+        assertThat(lines).hasSize(ORDERS / 4);
+        assertThat(lines).allMatch(l -> l.contains("\"status\":\"Delivered\""));
+    }
+
+    private static List<String> lines(ByteArrayOutputStream out) {
+        return List.of(out.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.OrderSummaryDTO;
+import com.janesjeans.api.entity.Order;
+import com.janesjeans.api.repository.OrderRepository;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:ordersearch;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test"
+})
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+class OrderSearchServiceTest {
+
+    private static final int ORDERS = 400;
+    private static final List<String> STATUSES = List.of("Pending", "Processing", "Shipped", "Delivered");
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2026, 6, 1, 12, 0);
+
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmailService emailService;
+
+    private final List<Order> orders = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        applySearchIndexes();
+        orderRepository.deleteAll();
+        orders.clear();
+        for (int i = 0; i < ORDERS; i++) {
+            // pairs share an order date, so paging has to break ties by id
+            orders.add(orderService.createOrder(Order.builder()
+                    .customerName("Search Customer " + i % 40)
+                    .customerEmail("customer" + i % 40 + "@example.com")
+                    .status(STATUSES.get(i % STATUSES.size()))
+                    .totalAmount(BigDecimal.valueOf(10 + i % 25 * 10))
+                    .shippingAddress("1 Search St")
+                    .orderDate(NEWEST.minusHours(i / 2))
+                    .items(new ArrayList<>())
+                    .build()));
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void search_walksEveryMatchingOrderOnceNewestFirst() {
+        OrderSearchFilter filter = OrderSearchFilter.builder()
+                .status("Shipped")
+                .from(NEWEST.minusDays(5))
+                .minTotal(new BigDecimal("50"))
+                .maxTotal(new BigDecimal("150"))
+                .build();
+        List<String> expected = expected(o -> o.getStatus().equals("Shipped")
+                && !o.getOrderDate().isBefore(NEWEST.minusDays(5))
+                && o.getTotalAmount().compareTo(new BigDecimal("50")) >= 0
+                && o.getTotalAmount().compareTo(new BigDecimal("150")) <= 0);
+        assertThat(expected).hasSizeGreaterThan(7);
+
+        assertThat(walk(filter, 7)).isEqualTo(expected);
+    }
+
+    @Test
+    void search_byCustomerEmail_withDateRange() {
+        OrderSearchFilter filter = OrderSearchFilter.builder()
+                .customerEmail(" customer7@example.com ")
+                .from(NEWEST.minusDays(6))
+                .to(NEWEST.minusDays(1))
+                .build();
+        List<String> expected = expected(o -> o.getCustomerEmail().equals("customer7@example.com")
+                && !o.getOrderDate().isBefore(NEWEST.minusDays(6))
+                && o.getOrderDate().isBefore(NEWEST.minusDays(1)));
+
+        assertThat(walk(filter, 2)).isEqualTo(expected).isNotEmpty();
+    }
+
+    @Test
+    void statusSearch_isServedByTheStatusOrderDateIndex() {
+        OrderSearchService.SearchQuery query = OrderSearchService.buildQuery(
+                OrderSearchFilter.builder().status("Shipped").maxTotal(new BigDecimal("100")).build(),
+                new OrderCursor(NEWEST.minusDays(2), orders.get(0).getId()), 51);
+
+        assertThat(explain(query)).contains("IDX_ORDERS_STATUS_ORDER_DATE");
+    }
+
+    @Test
+    void emailSearch_isServedByTheEmailOrderDateIndex() {
+        OrderSearchService.SearchQuery query = OrderSearchService.buildQuery(
+                OrderSearchFilter.builder().customerEmail("customer7@example.com").from(NEWEST.minusDays(30)).build(),
+                null, 51);
+
+        assertThat(explain(query)).contains("IDX_ORDERS_CUSTOMER_EMAIL_ORDER_DATE");
+    }
+
+    @Test
+    void invalidSearches_areRejected() throws Exception {
+        assertThatThrownBy(() -> orderSearchService.search(OrderSearchFilter.builder()
+                .minTotal(new BigDecimal("100")).maxTotal(new BigDecimal("10")).build(), null, 10, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        mockMvc.perform(get("/api/orders/search").param("size", "201")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/search").param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/search")
+                        .param("from", NEWEST.toString())
+                        .param("to", NEWEST.minusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/orders/search").param("email", "customer3@example.com").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.content[0].customerEmail").value("customer3@example.com"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    private List<String> walk(OrderSearchFilter filter, int size) {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderSlice slice = orderSearchService.search(filter, cursor, size, false);
+            slice.content().stream().map(OrderSummaryDTO::getId).forEach(seen::add);
+            cursor = slice.nextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private List<String> expected(Predicate<Order> matches) {
+        return orders.stream()
+                .filter(matches)
+                .sorted(Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+    }
+
+    private String explain(OrderSearchService.SearchQuery query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query.sql(), String.class, query.args().toArray()));
+    }
+
+    /**
+     * The test schema comes from the entities; add the search indexes by running their
+     * changelog, after the single-column status index it replaces.
+     */
+    private void applySearchIndexes() throws Exception {
+        Integer present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME = 'IDX_ORDERS_STATUS_ORDER_DATE'", Integer.class);
+        if (present != null && present > 0) return;
+        jdbcTemplate.execute("CREATE INDEX idx_orders_status ON orders (status)");
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            new Liquibase("db/changelog/changes/023-add-orders-search-indexes.xml", new ClassLoaderResourceAccessor(), database)
+                    .update("");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.janesjeans.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time the rate limiter adds to an OTP request, with every thread taking tokens from a
+ * shared pool of destinations so the buckets' compare-and-set is contended. Buckets are
+ * large enough that every call is allowed, which is the path real requests take.
+ *
+ * Run with: mvn test -Dtest=OtpRateLimiterBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OtpRateLimiterBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 500_000;
+    private static final int DESTINATIONS = 8_000;
+    private static final int ORDERS_PER_THREAD = 8_000;
+
+    @Test
+    void acquireCostsUnderAMicrosecond() throws Exception {
+        OtpRateLimiter limiter = new OtpRateLimiter(new SimpleMeterRegistry(), 1000, 60, 1000, 60, 1_000_000, 60_000);
+        String[] destinations = new String[DESTINATIONS];
+        for (int i = 0; i < DESTINATIONS; i++) destinations[i] = "+4477009" + String.format("%05d", i);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String[] orders = new String[ORDERS_PER_THREAD];
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) orders[i] = "order-" + t + "-" + i;
+                int seed = t;
+                workers.add(pool.submit(() -> {
+                    // first half warms up, the second half is timed; CPU time, so the
+                    // figure does not depend on how many cores share the threads
+                    ThreadMXBean cpu = ManagementFactory.getThreadMXBean();
+                    long start = 0;
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        if (i == CALLS_PER_THREAD / 2) start = cpu.getCurrentThreadCpuTime();
+                        limiter.acquire(orders[i % ORDERS_PER_THREAD], destinations[(i * 7 + seed) % DESTINATIONS]);
+                    }
+                    return cpu.getCurrentThreadCpuTime() - start;
+                }));
+            }
+            long worst = 0;
+            for (Future<Long> worker : workers) worst = Math.max(worst, worker.get());
+            double nanosPerCall = (double) worst / (CALLS_PER_THREAD / 2);
+            System.out.printf("otp rate limiter: %d threads, %.0f ns CPU per acquire (slowest thread), %d buckets%n",
+                    THREADS, nanosPerCall, limiter.buckets());
+            assertThat(nanosPerCall).isLessThan(1_000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.exception.OtpRateLimitedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OtpRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void contact_allowsABurstThenOneTokenPerPeriod() {
+        OtpRateLimiter limiter = limiter(100_000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) limiter.acquire("order-" + i, "+447700900123", now);
+
+        assertThatThrownBy(() -> limiter.acquire("order-3", "+447700900123", now + 1_000))
+                .isInstanceOf(OtpRateLimitedException.class)
+                .satisfies(e -> assertThat(((OtpRateLimitedException) e).getRetryAfterSeconds()).isEqualTo(119));
+        limiter.acquire("order-3", "+447700900123", now + 120_000);
+        assertThatThrownBy(() -> limiter.acquire("order-4", "+447700900123", now + 120_000))
+                .isInstanceOf(OtpRateLimitedException.class);
+
+        assertThat(registry.get("otp.rate.limit.allowed").tag("limit", "contact").counter().count()).isEqualTo(4);
+        assertThat(registry.get("otp.rate.limit.rejected").tag("limit", "contact").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void contact_isMatchedIgnoringCaseAndSpaces() {
+        OtpRateLimiter limiter = limiter(100_000);
+        long now = System.currentTimeMillis();
+        limiter.acquire("a", "Jane@Example.com", now);
+        limiter.acquire("b", " jane@example.com", now);
+        limiter.acquire("c", "JANE@EXAMPLE.COM ", now);
+
+        assertThatThrownBy(() -> limiter.acquire("d", "jane@example.com", now)).isInstanceOf(OtpRateLimitedException.class);
+        limiter.acquire("d", "someone@example.com", now);
+    }
+
+    @Test
+    void order_isLimitedAcrossContacts() {
+        OtpRateLimiter limiter = limiter(100_000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) limiter.acquire("order", "+44770090000" + i, now);
+
+        assertThatThrownBy(() -> limiter.acquire("order", "+447700900009", now))
+                .isInstanceOf(OtpRateLimitedException.class)
+                .satisfies(e -> assertThat(((OtpRateLimitedException) e).getRetryAfterSeconds()).isEqualTo(60));
+        // refused by the order limit before the contact bucket was touched
+        assertThat(registry.get("otp.rate.limit.buckets").tag("limit", "contact").gauge().value()).isEqualTo(5);
+        limiter.acquire("order", "+447700900009", now + 60_000);
+    }
+
+    @Test
+    void partlyRefilledBucket_keepsItsRemainderAfterATokenIsTaken() {
+        OtpRateLimiter limiter = limiter(100_000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) limiter.acquire("order-" + i, "+100", now);
+        // one and a half tokens back after 180 s: one is taken, half stays
+        limiter.acquire("order-3", "+100", now + 180_000);
+
+        assertThatThrownBy(() -> limiter.acquire("order-4", "+100", now + 239_000))
+                .isInstanceOf(OtpRateLimitedException.class)
+                .satisfies(e -> assertThat(((OtpRateLimitedException) e).getRetryAfterSeconds()).isEqualTo(1));
+        limiter.acquire("order-4", "+100", now + 240_000);
+    }
+
+    @Test
+    void concurrentRequests_takeExactlyTheBurst() throws Exception {
+        OtpRateLimiter limiter = limiter(100_000);
+        long now = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String orderId = "order-" + i;
+            attempts.add(pool.submit(() -> {
+                start.await();
+                try {
+                    limiter.acquire(orderId, "+447700900123", now);
+                    allowed.incrementAndGet();
+                } catch (OtpRateLimitedException ignored) {
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> attempt : attempts) attempt.get();
+        pool.shutdown();
+
+        assertThat(allowed.get()).isEqualTo(3);
+    }
+
+    @Test
+    void sweep_dropsRefilledBuckets() {
+        OtpRateLimiter limiter = limiter(100_000);
+        long now = System.currentTimeMillis();
+        limiter.acquire("a", "+1", now);
+        limiter.acquire("b", "+2", now);
+
+        assertThat(limiter.sweep(now + 59_000)).isZero();
+        // the order buckets are full again after a minute, the contact buckets not yet
+        assertThat(limiter.sweep(now + 60_000)).isEqualTo(2);
+        assertThat(limiter.buckets()).isEqualTo(2);
+        assertThat(limiter.sweep(now + 120_000)).isEqualTo(2);
+        assertThat(limiter.buckets()).isZero();
+    }
+
+    @Test
+    void cap_evictsTheStalestBucketInsteadOfRefusingNewKeys() {
+        OtpRateLimiter limiter = limiter(2);
+        long now = System.currentTimeMillis();
+        limiter.acquire("a", "+1", now);
+        limiter.acquire("b", "+2", now + 1_000);
+
+        limiter.acquire("c", "+3", now + 2_000);
+
+        assertThat(limiter.buckets()).isEqualTo(4);
+        assertThat(registry.get("otp.rate.limit.evicted").tag("limit", "order").counter().count()).isEqualTo(1);
+        // "a" went first, "b" still has its bucket and the four tokens left in it
+        for (int i = 0; i < 4; i++) limiter.acquire("b", "+2" + i, now + 3_000);
+        assertThatThrownBy(() -> limiter.acquire("b", "+29", now + 3_000)).isInstanceOf(OtpRateLimitedException.class);
+    }
+
+    @Test
+    void floodOfNewKeys_neverLocksOutAnotherCustomer() {
+        OtpRateLimiter limiter = limiter(16);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1_000; i++) limiter.acquire("made-up-" + i, "flood-" + i + "@example.com", now);
+
+        limiter.acquire("order", "jane@example.com", now);
+
+        assertThat(limiter.buckets()).isLessThanOrEqualTo(32);
+        assertThat(registry.get("otp.rate.limit.rejected").tag("limit", "order").counter().count()).isZero();
+    }
+
+    private OtpRateLimiter limiter(int maxKeys) {
+        return new OtpRateLimiter(registry, 5, 60, 3, 120, maxKeys, 60_000);
+    }
+}
@@ -0,0 +1,109 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.ShopProductDTO;
+import com.janesjeans.api.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductFamilyIndexTest {
+
+    private ProductFamilyIndex index;
+
+    private static Product variant(String id, String name, String size, String wash, int stock) {
+        return Product.builder()
+                .id(id).name(name).gender("Women").fit("Slim")
+                .size(size).wash(wash).price(new BigDecimal("79.99")).stockLevel(stock)
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFamilyIndex();
+        index.rebuild(List.of(
+                variant("a1", "Slim Dark", "30", "Dark Wash", 0),
+                variant("a2", "Slim Dark", "28", "Dark Wash", 3),
+                variant("b1", "Boyfriend Light", "32", "Light Wash", 0)));
+    }
+
+    @Test
+    void rebuild_groupsVariantsByNameAndAggregates() {
+        List<ShopProductDTO> families = index.families(null);
+        assertThat(families).extracting(ShopProductDTO::getName).containsExactly("Slim Dark", "Boyfriend Light");
+
+        ShopProductDTO slim = families.get(0);
+        assertThat(slim.getId()).isEqualTo("a1");
+        assertThat(slim.getSizes()).containsExactly("28", "30");
+        assertThat(slim.getColors()).containsExactly("Dark Wash");
+        assertThat(slim.isInStock()).isTrue();
+        assertThat(families.get(1).isInStock()).isFalse();
+
+        assertThat(index.familyOf("a2")).contains(slim);
+        assertThat(index.familyOf("missing")).isEmpty();
+    }
+
+    @Test
+    void upsert_updatesOnlyTheAffectedFamilies() {
+        ShopProductDTO boyfriendBefore = index.familyOf("b1").orElseThrow();
+
+        index.upsert(variant("a2", "Slim Dark", "28", "Dark Wash", 0));
+        assertThat(index.familyOf("a1").orElseThrow().isInStock()).isFalse();
+        assertThat(index.familyOf("b1").orElseThrow()).isEqualTo(boyfriendBefore);
+
+        index.upsert(variant("a3", "Slim Dark", "34", "Black", 5));
+        ShopProductDTO slim = index.familyOf("a3").orElseThrow();
+        assertThat(slim.getSizes()).containsExactly("28", "30", "34");
+        assertThat(slim.getColors()).containsExactly("Dark Wash", "Black");
+        assertThat(slim.isInStock()).isTrue();
+    }
+
+    @Test
+    void upsert_movesRenamedVariantsBetweenFamilies() {
+        index.upsert(variant("a1", "Boyfriend Light", "30", "Light Wash", 2));
+
+        assertThat(index.familyOf("a2").orElseThrow().getSizes()).containsExactly("28");
+        assertThat(index.familyOf("a2").orElseThrow().getId()).isEqualTo("a2");
+        ShopProductDTO boyfriend = index.familyOf("a1").orElseThrow();
+        assertThat(boyfriend.getName()).isEqualTo("Boyfriend Light");
+        assertThat(boyfriend.getSizes()).containsExactly("30", "32");
+        assertThat(boyfriend.isInStock()).isTrue();
+    }
+
+    @Test
+    void remove_dropsEmptyFamiliesFromEveryView() {
+        index.remove("b1");
+
+        assertThat(index.families(null)).extracting(ShopProductDTO::getName).containsExactly("Slim Dark");
+        assertThat(index.families("jeans")).extracting(ShopProductDTO::getName).containsExactly("Slim Dark");
+        assertThat(index.familyOf("b1")).isEmpty();
+    }
+
+    @Test
+    void families_filtersByCategory() {
+        assertThat(index.families("jeans")).hasSize(2);
+        assertThat(index.families("all")).hasSize(2);
+        assertThat(index.families("jackets")).isEmpty();
+    }
+
+    @Test
+    void variantsAndFamilies_areCopiesTheCallerCannotChangeItThrough() {
+        Product edited = variant("b2", "Boyfriend Light", "34", "Light Wash", 4);
+        index.upsert(edited);
+        edited.setName("Slim Dark");
+        edited.setStockLevel(0);
+        ShopProductDTO fetched = index.familyOf("b1").orElseThrow();
+        fetched.setName("Denim Overalls");
+        fetched.getSizes().clear();
+        index.families(null).get(0).getColors().add("Black");
+
+        ShopProductDTO boyfriend = index.familyOf("b2").orElseThrow();
+        assertThat(boyfriend.getName()).isEqualTo("Boyfriend Light");
+        assertThat(boyfriend.getSizes()).containsExactly("32", "34");
+        assertThat(boyfriend.isInStock()).isTrue();
+        assertThat(index.familyOf("a1").orElseThrow().getColors()).containsExactly("Dark Wash");
+    }
+}
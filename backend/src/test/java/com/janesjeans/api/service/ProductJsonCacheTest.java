@@ -0,0 +1,90 @@
+package com.janesjeans.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.janesjeans.api.dto.PaginatedCatalogResponse;
+import com.janesjeans.api.entity.ShopProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.janesjeans.api.service.CatalogSearchIndexTest.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductJsonCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductJsonCache(objectMapper, 2);
+    }
+
+    @Test
+    void get_servesTheSameEntryUntilTheVersionChanges() throws Exception {
+        ShopProduct p1 = product("p1", "Slim Fit Jeans", "jeans", "slim", "79.99", true);
+        p1.setMetadata(Map.of("fit", "slim"));
+
+        ProductJsonCache.Entry first = cache.get(p1);
+        assertThat(cache.get(p1)).isSameAs(first);
+        assertThat(objectMapper.readTree(first.bytes()))
+                .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(ProductJsonCache.toDetailDTO(p1))));
+
+        p1.setPrice(new BigDecimal("69.99"));
+        p1.setVersion(1L);
+        ProductJsonCache.Entry second = cache.get(p1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.etag()).isNotEqualTo(first.etag());
+        assertThat(new String(second.bytes())).contains("69.99");
+    }
+
+    @Test
+    void get_doesNotReplaceANewerVersionWithAnOlderOne() {
+        ShopProduct newer = product("p1", "Slim Fit Jeans", "jeans", "slim", "69.99", true);
+        newer.setVersion(2L);
+        ShopProduct older = product("p1", "Slim Fit Jeans", "jeans", "slim", "79.99", true);
+        older.setVersion(1L);
+
+        ProductJsonCache.Entry current = cache.get(newer);
+        cache.get(older);
+        assertThat(cache.get(newer)).isSameAs(current);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondCapacity() {
+        ShopProduct p1 = product("p1", "Slim Fit Jeans", "jeans", "slim", "79.99", true);
+        ShopProduct p2 = product("p2", "Relaxed Jeans", "jeans", "relaxed", "59.99", true);
+        ShopProduct p3 = product("p3", "Vitamin C Serum", "skincare", "serums", "24.50", true);
+
+        ProductJsonCache.Entry e1 = cache.get(p1);
+        cache.get(p2);
+        cache.get(p1);
+        cache.get(p3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(p1)).isSameAs(e1);
+        cache.evict("p1");
+        assertThat(cache.get(p1)).isNotSameAs(e1);
+    }
+
+    @Test
+    void fragmentsEmbedInPagesExactlyAsSerializedDtos() throws Exception {
+        List<ShopProduct> products = List.of(
+                product("p1", "Slim Fit Jeans", "jeans", "slim", "79.99", true),
+                product("p2", "Relaxed Jeans", "jeans", "relaxed", "59.99", false));
+        PaginatedCatalogResponse page = PaginatedCatalogResponse.builder()
+                .content(products.stream().map(p -> new RawValue(cache.get(p).json())).toList())
+                .page(0).size(12).totalElements(2).totalPages(1).first(true).last(true)
+                .build();
+
+        var json = objectMapper.readTree(objectMapper.writeValueAsString(page));
+        assertThat(json.get("content")).hasSize(2);
+        assertThat(json.get("content").get(1))
+                .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(ProductJsonCache.toDetailDTO(products.get(1)))));
+        assertThat(json.get("totalElements").asLong()).isEqualTo(2);
+    }
+}
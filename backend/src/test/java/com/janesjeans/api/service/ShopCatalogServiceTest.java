@@ -0,0 +1,156 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.entity.ShopProduct;
+import com.janesjeans.api.repository.ShopCategoryRepository;
+import com.janesjeans.api.repository.ShopProductRepository;
+import com.janesjeans.api.repository.ShopSubcategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.janesjeans.api.service.CatalogSearchIndexTest.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShopCatalogServiceTest {
+
+    private static final List<ShopProduct> PRODUCTS = List.of(
+            product("p1", "Slim Fit Dark Wash Jeans", "jeans", "slim", "79.99", true),
+            product("p2", "Relaxed Boyfriend Jeans", "jeans", "relaxed", "59.99", true),
+            product("p3", "Vitamin C Serum", "skincare", "serums", "24.50", false),
+            product("p4", "Dark Denim Jacket", "jackets", "denim", "129.00", true));
+
+    @Mock
+    private ShopCategoryRepository categoryRepository;
+
+    @Mock
+    private ShopSubcategoryRepository subcategoryRepository;
+
+    @Mock
+    private ShopProductRepository productRepository;
+
+    @Mock
+    private CategoryTreeCache categoryTree;
+
+    @Mock
+    private ProductJsonCache productJsonCache;
+
+    @Mock
+    private CatalogSuggestIndex suggestIndex;
+
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogSearchIndex();
+    }
+
+    private ShopCatalogService service() {
+        return new ShopCatalogService(categoryRepository, subcategoryRepository, productRepository,
+                index, categoryTree, productJsonCache, suggestIndex);
+    }
+
+    private List<String> search(String query) {
+        return service().searchCatalog(null, null, null, null, null, query, null, null,
+                        PageRequest.of(0, 20, Sort.by("price").ascending()))
+                .map(ShopProduct::getId).getContent();
+    }
+
+    private List<String> scroll(String query) {
+        return service().scrollCatalog(null, null, null, null, null, query, null, null,
+                        "price", "asc", null, 20, false)
+                .content().stream().map(ShopProduct::getId).toList();
+    }
+
+    @Test
+    void search_matchesWordPrefixesFromTheIndex() {
+        index.rebuild(PRODUCTS);
+        List<String> queries = List.of("jea", "DARK", "dark jeans", "serums", "ark", "wash denim");
+
+        List<List<String>> searched = queries.stream().map(this::search).toList();
+        List<List<String>> scrolled = queries.stream().map(this::scroll).toList();
+
+        assertThat(searched).isEqualTo(scrolled).containsExactly(
+                List.of("p2", "p1"), List.of("p1", "p4"), List.of("p1"), List.of("p3"), List.of(), List.of());
+    }
+
+    @Test
+    void searchWithoutTheIndex_pagesTheQueryInTheDatabase() {
+        Pageable page = PageRequest.of(0, 20, Sort.by("price").ascending());
+        when(productRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(PRODUCTS.get(3)), page, 1));
+        when(productRepository.findBy(any(Specification.class), any()))
+                .thenReturn(Window.from(List.of(PRODUCTS.get(3)), i -> ScrollPosition.keyset()));
+
+        assertThat(search("ark")).containsExactly("p4");
+        assertThat(scroll("ark")).containsExactly("p4");
+        verify(productRepository, never()).findAll(any(Specification.class));
+    }
+
+    @Test
+    void failedIndexBuild_isRetriedUntilItSucceeds() throws Exception {
+        when(productRepository.findAll())
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(PRODUCTS);
+        ShopCatalogService catalog = service();
+        ReflectionTestUtils.setField(catalog, "indexRetryMillis", 10L);
+
+        catalog.buildSearchIndex();
+        try {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!index.isReady()) {
+                assertThat(System.currentTimeMillis()).as("index not built in time").isLessThan(deadline);
+                Thread.sleep(20);
+            }
+        } finally {
+            catalog.stopIndexRetry();
+        }
+
+        verify(productRepository, times(3)).findAll();
+        assertThat(search("jea")).containsExactly("p2", "p1");
+    }
+
+    @Test
+    void searchWithoutAWord_constrainsNothingOnEitherPath() {
+        index.rebuild(PRODUCTS);
+
+        assertThat(search("!!")).containsExactly("p3", "p2", "p1", "p4");
+    }
+
+    @Test
+    void productsFromTheIndex_areCopiesTheCallerCannotChangeItThrough() {
+        index.rebuild(PRODUCTS);
+
+        ShopProduct fetched = service().getShopProductById("p3");
+        fetched.setName("Denim Overalls");
+        fetched.setPrice(new BigDecimal("1.00"));
+        service().searchCatalog(null, null, null, null, null, "vitamin", null, null, PageRequest.of(0, 20))
+                .getContent().get(0).setSizes(new String[] {"XS"});
+
+        assertThat(service().getShopProductById("p3").getName()).isEqualTo("Vitamin C Serum");
+        assertThat(search("vitamin")).containsExactly("p3");
+        assertThat(search("overalls")).isEmpty();
+        assertThat(search(null)).containsExactly("p3", "p2", "p1", "p4");
+        assertThat(PRODUCTS.get(2).getName()).isEqualTo("Vitamin C Serum");
+    }
+}
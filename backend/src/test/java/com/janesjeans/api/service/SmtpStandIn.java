@@ -0,0 +1,186 @@
+package com.janesjeans.api.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An SMTP server on a loopback port for tests: just enough of the protocol for JavaMail to
+ * send through it (EHLO, MAIL, RCPT, DATA, RSET, NOOP, QUIT), without TLS or auth. It keeps
+ * every message it accepts with the number of the connection it came in on, and can be
+ * told to refuse recipients for good (550), for a number of tries (451), or to turn every
+ * connection away (421).
+ */
+final class SmtpStandIn implements AutoCloseable {
+
+    record Message(String recipient, String data, int connection) {}
+
+    private final ServerSocket server;
+    private final ExecutorService sessions = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "smtp-stand-in-session");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger maxOpen = new AtomicInteger();
+    private final List<Message> messages = new CopyOnWriteArrayList<>();
+    private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicInteger> deferred = new ConcurrentHashMap<>();
+    private volatile boolean refusing;
+
+    private SmtpStandIn() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    static SmtpStandIn start() {
+        try {
+            return new SmtpStandIn();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start the SMTP stand-in", e);
+        }
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    /** Refuse this recipient with 550 from now on. */
+    void reject(String recipient) {
+        rejected.add(recipient.toLowerCase(Locale.ROOT));
+    }
+
+    /** Refuse this recipient with 451 the next {@code times} times it is offered. */
+    void defer(String recipient, int times) {
+        deferred.put(recipient.toLowerCase(Locale.ROOT), new AtomicInteger(times));
+    }
+
+    /** Greet new connections with 421 and hang up while {@code refusing} is set. */
+    void refuseConnections(boolean refusing) {
+        this.refusing = refusing;
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    /** The most sessions that were open at the same time. */
+    int maxOpenConnections() {
+        return maxOpen.get();
+    }
+
+    List<Message> messagesTo(String recipient) {
+        return messages.stream().filter(m -> m.recipient().equalsIgnoreCase(recipient)).toList();
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        sessions.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                int connection = connections.incrementAndGet();
+                sessions.execute(() -> session(socket, connection));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket, int connection) {
+        maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+            if (refusing) {
+                reply(out, "421 stand-in not accepting mail");
+                return;
+            }
+            reply(out, "220 localhost SMTP stand-in");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line : line.substring(0, 4);
+                switch (command.toUpperCase(Locale.ROOT)) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RSET" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> reply(out, recipient(address(line), recipients));
+                    case "DATA" -> {
+                        if (recipients.isEmpty()) {
+                            reply(out, "503 no valid recipients");
+                            continue;
+                        }
+                        reply(out, "354 end data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            data.append(line.startsWith(".") ? line.substring(1) : line).append("\r\n");
+                        }
+                        for (String recipient : recipients) messages.add(new Message(recipient, data.toString(), connection));
+                        recipients.clear();
+                        reply(out, "250 OK queued");
+                    }
+                    case "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 bye");
+                        return;
+                    }
+                    default -> reply(out, "502 command not implemented");
+                }
+            }
+        } catch (IOException ignored) {
+            // the client hung up
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    private String recipient(String address, List<String> recipients) {
+        String key = address.toLowerCase(Locale.ROOT);
+        if (rejected.contains(key)) return "550 5.1.1 <" + address + ">: mailbox unavailable";
+        AtomicInteger deferrals = deferred.get(key);
+        if (deferrals != null && deferrals.getAndDecrement() > 0) return "451 4.3.0 <" + address + ">: try again later";
+        recipients.add(address);
+        return "250 OK";
+    }
+
+    private static String address(String line) {
+        int open = line.indexOf('<');
+        int close = line.indexOf('>', open + 1);
+        return open >= 0 && close > open ? line.substring(open + 1, close) : line.substring(line.indexOf(':') + 1).strip();
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+        out.flush();
+    }
+}
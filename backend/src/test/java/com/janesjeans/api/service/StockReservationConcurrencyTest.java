@@ -0,0 +1,211 @@
+package com.janesjeans.api.service;
+
+import com.janesjeans.api.dto.GuestOrderRequest;
+import com.janesjeans.api.entity.Product;
+import com.janesjeans.api.exception.InsufficientStockException;
+import com.janesjeans.api.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.liquibase.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.profiles.active=test"
+})
+class StockReservationConcurrencyTest {
+
+    private static final int BUYERS = 500;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private EmailService emailService;
+
+    @Test
+    void parallelBuyers_neverOversell() throws Exception {
+        Product jeans = product("Race Jeans", 100);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        runBuyers(buyer -> {
+            try {
+                productService.reserveStock(List.of(item(jeans, 1)));
+                sold.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                refused.incrementAndGet();
+            }
+        });
+
+        assertThat(sold.get()).isEqualTo(100);
+        assertThat(refused.get()).isEqualTo(BUYERS - 100);
+        assertThat(stockOf(jeans)).isZero();
+    }
+
+    @Test
+    void parallelMultiLineCarts_reserveAllOrNothingWithoutDeadlocks() throws Exception {
+        Product jeans = product("Cart Jeans", 100);
+        Product belt = product("Cart Belt", 60);
+
+        AtomicInteger sold = new AtomicInteger();
+        runBuyers(buyer -> {
+            // half the carts list the products the other way round
+            List<GuestOrderRequest.GuestOrderItem> cart = buyer % 2 == 0
+                    ? List.of(item(jeans, 1), item(belt, 1))
+                    : List.of(item(belt, 1), item(jeans, 1));
+            try {
+                productService.reserveStock(cart);
+                sold.incrementAndGet();
+            } catch (InsufficientStockException ignored) {
+                // belt sold out
+            }
+        });
+
+        assertThat(sold.get()).isEqualTo(60);
+        assertThat(stockOf(belt)).isZero();
+        assertThat(stockOf(jeans)).isEqualTo(40);
+    }
+
+    @Test
+    void productEditsDuringCheckout_doNotUndoReservations() throws Exception {
+        Product jeans = product("Edited Jeans", 100);
+
+        AtomicInteger sold = new AtomicInteger();
+        runBuyers(buyer -> {
+            if (buyer % 5 == 0) {
+                Product edit = new Product();
+                edit.setDescription("Edit " + buyer);
+                edit.setStockLevel(null);
+                productService.updateProduct(jeans.getId(), edit);
+                return;
+            }
+            try {
+                productService.reserveStock(List.of(item(jeans, 1)));
+                sold.incrementAndGet();
+            } catch (InsufficientStockException ignored) {
+                // sold out
+            }
+        });
+
+        assertThat(sold.get()).isEqualTo(100);
+        assertThat(stockOf(jeans)).isZero();
+    }
+
+    @Test
+    void newStockLevel_isWrittenButNeverBelowHeldUnits() {
+        Product jeans = product("Counted Jeans", 10);
+        productService.holdStock(List.of(item(jeans, 4)));
+        Product edit = new Product();
+
+        edit.setStockLevel(3);
+        assertThatThrownBy(() -> productService.updateProduct(jeans.getId(), edit))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(stockOf(jeans)).isEqualTo(10);
+
+        edit.setStockLevel(6);
+        assertThat(productService.updateProduct(jeans.getId(), edit).getStockLevel()).isEqualTo(6);
+        assertThat(stockOf(jeans)).isEqualTo(6);
+        productService.releaseHeldStock(Map.of(jeans.getId(), 4));
+    }
+
+    @Test
+    void shortLine_reservesNothingAndReportsAvailability() {
+        Product jeans = product("Short Jeans", 5);
+        Product belt = product("Short Belt", 1);
+
+        assertThatThrownBy(() -> productService.reserveStock(List.of(item(jeans, 2), item(belt, 3))))
+                .isInstanceOf(InsufficientStockException.class)
+                .extracting(e -> ((InsufficientStockException) e).getStockErrors())
+                .isEqualTo(List.of("Short Belt: only 1 available (requested 3)"));
+
+        assertThat(stockOf(jeans)).isEqualTo(5);
+        assertThat(stockOf(belt)).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateLines_areMergedAndReleaseRestoresStock() {
+        Product jeans = product("Twice Jeans", 3);
+
+        assertThatThrownBy(() -> productService.reserveStock(List.of(item(jeans, 2), item(jeans, 2))))
+                .isInstanceOf(InsufficientStockException.class);
+        productService.reserveStock(List.of(item(jeans, 1), item(jeans, 2)));
+        assertThat(stockOf(jeans)).isZero();
+
+        productService.releaseStock(List.of(item(jeans, 3)));
+        assertThat(stockOf(jeans)).isEqualTo(3);
+    }
+
+    @Test
+    void invalidQuantity_isRejected() {
+        Product jeans = product("Negative Jeans", 3);
+
+        assertThatThrownBy(() -> productService.reserveStock(List.of(item(jeans, -2))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(stockOf(jeans)).isEqualTo(3);
+    }
+
+    private void runBuyers(java.util.function.IntConsumer buyer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            int id = i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                buyer.accept(id);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+    }
+
+    private Product product(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setFit("Slim");
+        p.setGender("Men");
+        p.setSize("32");
+        p.setPrice(new BigDecimal("59.99"));
+        p.setStockLevel(stock);
+        return productRepository.save(p);
+    }
+
+    private int stockOf(Product p) {
+        return productRepository.findById(p.getId()).orElseThrow().getStockLevel();
+    }
+
+    private static GuestOrderRequest.GuestOrderItem item(Product p, int quantity) {
+        GuestOrderRequest.GuestOrderItem item = new GuestOrderRequest.GuestOrderItem();
+        item.setProductId(p.getId());
+        item.setProductName(p.getName());
+        item.setQuantity(quantity);
+        item.setSize(p.getSize());
+        item.setPrice(p.getPrice());
+        return item;
+    }
+}
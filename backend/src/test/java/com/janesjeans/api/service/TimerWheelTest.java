@@ -0,0 +1,55 @@
+package com.janesjeans.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    @Test
+    void advance_returnsOnlyDueKeys() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 300);
+        wheel.schedule("c", 900);
+
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(299)).isEmpty(); // deadlines round up to the next tick
+        assertThat(wheel.advance(300)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(1000)).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolution_waitForTheirTurn() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4, 0);
+        wheel.schedule("late", 125); // three revolutions of 40 ms out, same slot as 5 ms
+
+        assertThat(wheel.advance(50)).isEmpty();
+        assertThat(wheel.advance(90)).isEmpty();
+        assertThat(wheel.advance(130)).containsExactly("late");
+    }
+
+    @Test
+    void pastDeadline_comesDueOnTheNextAdvance() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 8, 1_000);
+        wheel.schedule("overdue", 500);
+
+        assertThat(wheel.advance(1_050)).isEmpty(); // same tick
+        assertThat(wheel.advance(1_100)).containsExactly("overdue");
+    }
+
+    @Test
+    void longGap_visitsEverySlotOnce() {
+        TimerWheel<Integer> wheel = new TimerWheel<>(1, 16, 0);
+        for (int i = 1; i <= 100; i++) wheel.schedule(i, i);
+
+        List<Integer> due = new ArrayList<>(wheel.advance(10_000));
+        due.sort(null);
+        assertThat(due).hasSize(100).startsWith(1, 2, 3).endsWith(100);
+    }
+}
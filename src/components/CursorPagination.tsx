@@ -0,0 +1,113 @@
+import { useLanguage } from '@/contexts/LanguageContext';
+import { Button } from '@/components/ui/button';
+import {
+  Select,
+  SelectContent,
+  SelectItem,
+  SelectTrigger,
+  SelectValue,
+} from '@/components/ui/select';
+import { ChevronLeft, ChevronRight, ChevronsLeft } from 'lucide-react';
+
+// Pagination for keyset (cursor) slices: there is no total, so no last page either
+interface CursorPaginationProps {
+  currentPage: number;
+  pageSize: number;
+  rowCount: number;
+  canGoNext: boolean;
+  canGoPrevious: boolean;
+  onPageSizeChange: (size: number) => void;
+  goToFirstPage: () => void;
+  goToNextPage: () => void;
+  goToPreviousPage: () => void;
+}
+
+const CursorPagination = ({
+  currentPage,
+  pageSize,
+  rowCount,
+  canGoNext,
+  canGoPrevious,
+  onPageSizeChange,
+  goToFirstPage,
+  goToNextPage,
+  goToPreviousPage,
+}: CursorPaginationProps) => {
+  const { language } = useLanguage();
+
+  const pageSizeOptions = [10, 20, 50, 100];
+
+  const startIndex = rowCount === 0 ? 0 : (currentPage - 1) * pageSize + 1;
+  const endIndex = (currentPage - 1) * pageSize + rowCount;
+  const showingText = language === 'en'
+    ? `Showing ${startIndex}-${endIndex}`
+    : `${startIndex}-${endIndex} দেখাচ্ছে`;
+
+  const rowsPerPageText = language === 'en' ? 'Rows per page' : 'প্রতি পৃষ্ঠায় সারি';
+  const pageText = language === 'en' ? `Page ${currentPage}` : `পৃষ্ঠা ${currentPage}`;
+
+  return (
+    <div className="flex flex-col items-center justify-between gap-4 border-t pt-4 sm:flex-row">
+      <div className="flex items-center gap-2 text-sm text-muted-foreground">
+        <span>{showingText}</span>
+      </div>
+
+      <div className="flex flex-col items-center gap-4 sm:flex-row">
+        <div className="flex items-center gap-2">
+          <span className="text-sm text-muted-foreground">{rowsPerPageText}</span>
+          <Select
+            value={String(pageSize)}
+            onValueChange={(value) => onPageSizeChange(Number(value))}
+          >
+            <SelectTrigger className="h-8 w-16">
+              <SelectValue />
+            </SelectTrigger>
+            <SelectContent className="bg-popover">
+              {pageSizeOptions.map((size) => (
+                <SelectItem key={size} value={String(size)}>
+                  {size}
+                </SelectItem>
+              ))}
+            </SelectContent>
+          </Select>
+        </div>
+
+        <div className="flex items-center gap-1">
+          <span className="text-sm text-muted-foreground">{pageText}</span>
+        </div>
+
+        <div className="flex items-center gap-1">
+          <Button
+            variant="outline"
+            size="icon"
+            className="h-8 w-8"
+            onClick={goToFirstPage}
+            disabled={!canGoPrevious}
+          >
+            <ChevronsLeft className="h-4 w-4" />
+          </Button>
+          <Button
+            variant="outline"
+            size="icon"
+            className="h-8 w-8"
+            onClick={goToPreviousPage}
+            disabled={!canGoPrevious}
+          >
+            <ChevronLeft className="h-4 w-4" />
+          </Button>
+          <Button
+            variant="outline"
+            size="icon"
+            className="h-8 w-8"
+            onClick={goToNextPage}
+            disabled={!canGoNext}
+          >
+            <ChevronRight className="h-4 w-4" />
+          </Button>
+        </div>
+      </div>
+    </div>
+  );
+};
+
+export default CursorPagination;
@@ -2,7 +2,7 @@ import { useState } from 'react';
 import { useQuery } from '@tanstack/react-query';
 import { useLanguage } from '@/contexts/LanguageContext';
 import { CustomerDTO, OrderDTO } from '@/types';
-import { fetchOrders } from '@/lib/api';
+import { fetchCustomerOrders } from '@/lib/api';
 import {
   Dialog,
   DialogContent,
@@ -25,16 +25,14 @@ const CustomerDetailsDialog = ({ customer, isOpen, onClose }: CustomerDetailsDia
   const [selectedOrder, setSelectedOrder] = useState<OrderDTO | null>(null);
   const [isOrderDetailsOpen, setIsOrderDetailsOpen] = useState(false);
 
-  const { data: allOrders = [] } = useQuery({
-    queryKey: ['orders'],
-    queryFn: fetchOrders,
+  const { data: customerOrders = [] } = useQuery({
+    queryKey: ['orders', 'customer', customer?.email],
+    queryFn: () => fetchCustomerOrders(customer!.email),
     enabled: isOpen && !!customer,
   });
 
   if (!customer) return null;
 
-  const customerOrders = allOrders.filter(order => order.customerEmail === customer.email);
-
   const handleOrderClick = (order: OrderDTO) => {
     setSelectedOrder(order);
     setIsOrderDetailsOpen(true);
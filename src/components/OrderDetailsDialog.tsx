@@ -1,5 +1,7 @@
+import { useQuery } from '@tanstack/react-query';
 import { OrderDTO } from '@/types';
 import { useLanguage } from '@/contexts/LanguageContext';
+import { fetchOrderById } from '@/lib/api';
 import {
   Dialog,
   DialogContent,
@@ -17,10 +19,18 @@ interface OrderDetailsDialogProps {
   onOpenChange: (open: boolean) => void;
 }
 
-const OrderDetailsDialog = ({ order, open, onOpenChange }: OrderDetailsDialogProps) => {
+const OrderDetailsDialog = ({ order: listed, open, onOpenChange }: OrderDetailsDialogProps) => {
   const { t } = useLanguage();
 
-  if (!order) return null;
+  // order lists carry no notes; load the full order while the dialog is open
+  const { data: details } = useQuery({
+    queryKey: ['orders', listed?.id],
+    queryFn: () => fetchOrderById(listed!.id),
+    enabled: open && !!listed,
+  });
+
+  if (!listed) return null;
+  const order = details ?? listed;
 
   const getStatusColor = (status: string): string => {
     switch (status) {
@@ -1,7 +1,7 @@
 import { useState, useMemo } from 'react';
 import { useLanguage } from '@/contexts/LanguageContext';
-import { fetchOrders, updateOrderStatus, deleteOrder, fetchShipmentByOrderId } from '@/lib/api';
-import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
+import { fetchOrderSlice, downloadOrdersCsv, updateOrderStatus, deleteOrder, fetchShipmentByOrderId } from '@/lib/api';
+import { useQuery, useMutation, useQueryClient, keepPreviousData } from '@tanstack/react-query';
 import { OrderDTO, OrderStatus } from '@/types';
 import {
   Table,
@@ -34,18 +34,16 @@ import {
   AlertDialogTitle,
 } from '@/components/ui/alert-dialog';
 import { MoreHorizontal, Eye, Trash2, RefreshCw, Search, Filter, X, Download, Truck } from 'lucide-react';
-import { format, isWithinInterval, startOfDay, endOfDay } from 'date-fns';
+import { format, startOfDay, addDays } from 'date-fns';
 import { DateRange } from 'react-day-picker';
 import { toast } from 'sonner';
 import OrderDetailsDialog from './OrderDetailsDialog';
 import CreateOrderDialog from './CreateOrderDialog';
 import CreateShipmentFromOrderDialog from './CreateShipmentFromOrderDialog';
 import ShipmentDetailsDialog from './ShipmentDetailsDialog';
-import { usePagination } from '@/hooks/usePagination';
 import { useSorting } from '@/hooks/useSorting';
-import TablePagination from './TablePagination';
+import CursorPagination from './CursorPagination';
 import SortableHeader from './SortableHeader';
-import { exportToCsv, formatDateForCsv } from '@/lib/exportCsv';
 import DateRangeFilter from './DateRangeFilter';
 import { ShipmentDTO } from '@/types';
 
@@ -59,6 +57,9 @@ const OrdersTable = () => {
   const [searchQuery, setSearchQuery] = useState('');
   const [statusFilter, setStatusFilter] = useState<OrderStatus | 'All'>('All');
   const [dateRange, setDateRange] = useState<DateRange | undefined>(undefined);
+  const [pageSize, setPageSize] = useState(20);
+  // cursor of each page visited so far; the last one is the page shown
+  const [cursors, setCursors] = useState<(string | null)[]>([null]);
   const [orderForShipment, setOrderForShipment] = useState<OrderDTO | null>(null);
   const [isShipmentDialogOpen, setIsShipmentDialogOpen] = useState(false);
   const [selectedShipment, setSelectedShipment] = useState<ShipmentDTO | null>(null);
@@ -78,30 +79,41 @@ const OrdersTable = () => {
     }
   };
 
-  const { data: orders = [], isLoading } = useQuery({
-    queryKey: ['orders'],
-    queryFn: fetchOrders,
+  // status and dates are filtered by the server, which pages newest first by cursor
+  const serverFilter = useMemo(() => {
+    const toParam = (date: Date) => format(date, "yyyy-MM-dd'T'HH:mm:ss");
+    return {
+      status: statusFilter === 'All' ? undefined : statusFilter,
+      from: dateRange?.from ? toParam(startOfDay(dateRange.from)) : undefined,
+      to: dateRange?.from ? toParam(addDays(startOfDay(dateRange.to ?? dateRange.from), 1)) : undefined,
+    };
+  }, [statusFilter, dateRange]);
+  const cursor = cursors[cursors.length - 1];
+
+  const { data: slice, isLoading } = useQuery({
+    queryKey: ['orders', 'slice', serverFilter, pageSize, cursor],
+    queryFn: () => fetchOrderSlice({ ...serverFilter, size: pageSize, cursor }),
+    placeholderData: keepPreviousData,
   });
+  const orders = useMemo(() => slice?.orders ?? [], [slice]);
+
+  const restartPaging = () => setCursors([null]);
+  const changeStatusFilter = (status: OrderStatus | 'All') => {
+    setStatusFilter(status);
+    restartPaging();
+  };
+  const changeDateRange = (range: DateRange | undefined) => {
+    setDateRange(range);
+    restartPaging();
+  };
+  const changePageSize = (size: number) => {
+    setPageSize(size);
+    restartPaging();
+  };
 
+  // the search box narrows the page on screen
   const filteredOrders = useMemo(() => {
     let result = orders;
-    
-    // Apply status filter
-    if (statusFilter !== 'All') {
-      result = result.filter(order => order.status === statusFilter);
-    }
-    
-    // Apply date range filter
-    if (dateRange?.from) {
-      result = result.filter(order => {
-        const orderDate = new Date(order.orderDate);
-        const from = startOfDay(dateRange.from!);
-        const to = dateRange.to ? endOfDay(dateRange.to) : endOfDay(dateRange.from!);
-        return isWithinInterval(orderDate, { start: from, end: to });
-      });
-    }
-    
-    // Apply search filter
     if (searchQuery.trim()) {
       const query = searchQuery.toLowerCase();
       result = result.filter((order) =>
@@ -115,10 +127,9 @@ const OrdersTable = () => {
     }
     
     return result;
-  }, [orders, searchQuery, statusFilter, dateRange]);
+  }, [orders, searchQuery]);
 
   const { sortedItems, requestSort, getSortDirection } = useSorting<OrderDTO>(filteredOrders);
-  const pagination = usePagination(sortedItems, { initialPageSize: 10 });
 
   const updateStatusMutation = useMutation({
     mutationFn: ({ id, status }: { id: string; status: OrderStatus }) =>
@@ -170,28 +181,14 @@ const OrdersTable = () => {
 
   const statusOptions: OrderStatus[] = ['Pending', 'Processing', 'Shipped', 'Delivered'];
 
-  const handleExportCsv = () => {
-    const headers = ['Order ID', 'Customer Name', 'Customer Email', 'Items', 'Status', 'Order Date', 'Shipped Date', 'Delivered Date', 'Total Amount', 'Shipping Address'];
-    const data = sortedItems.map(order => [
-      order.id,
-      order.customerName,
-      order.customerEmail,
-      order.items.map(item => `${item.productName} (x${item.quantity})`).join('; '),
-      order.status,
-      formatDateForCsv(order.orderDate),
-      order.shippedDate ? formatDateForCsv(order.shippedDate) : '',
-      order.deliveredDate ? formatDateForCsv(order.deliveredDate) : '',
-      order.totalAmount.toFixed(2),
-      order.shippingAddress
-    ]);
-
-    exportToCsv({
-      filename: `orders-${new Date().toISOString().split('T')[0]}`,
-      headers,
-      data,
-    });
-
-    toast.success(t('export') + ' successful');
+  // every order matching the status and dates, streamed by the server rather than paged here
+  const handleExportCsv = async () => {
+    try {
+      await downloadOrdersCsv(serverFilter);
+      toast.success(t('export') + ' successful');
+    } catch (error) {
+      toast.error('Error exporting orders');
+    }
   };
 
   if (isLoading) {
@@ -213,7 +210,7 @@ const OrdersTable = () => {
               <CardTitle>{t('orders')}</CardTitle>
               <p className="text-sm text-muted-foreground">
                 {filteredOrders.length} {t('orders').toLowerCase()}
-                {(searchQuery || statusFilter !== 'All' || dateRange?.from) && ` (${orders.length} total)`}
+                {searchQuery && ` (${orders.length} on this page)`}
               </p>
             </div>
             <div className="flex flex-col gap-2 sm:flex-row sm:items-center sm:flex-wrap">
@@ -228,7 +225,7 @@ const OrdersTable = () => {
               </div>
               <DateRangeFilter
                 dateRange={dateRange}
-                onDateRangeChange={setDateRange}
+                onDateRangeChange={changeDateRange}
               />
               <DropdownMenu>
                 <DropdownMenuTrigger asChild>
@@ -241,7 +238,7 @@ const OrdersTable = () => {
                   <DropdownMenuLabel>{t('filter')}</DropdownMenuLabel>
                   <DropdownMenuSeparator />
                   <DropdownMenuItem
-                    onClick={() => setStatusFilter('All')}
+                    onClick={() => changeStatusFilter('All')}
                     className={statusFilter === 'All' ? 'bg-accent' : ''}
                   >
                     {t('all')}
@@ -249,7 +246,7 @@ const OrdersTable = () => {
                   {statusOptions.map((status) => (
                     <DropdownMenuItem
                       key={status}
-                      onClick={() => setStatusFilter(status)}
+                      onClick={() => changeStatusFilter(status)}
                       className={statusFilter === status ? 'bg-accent' : ''}
                     >
                       <Badge className={`mr-2 ${getStatusColor(status)}`}>
@@ -262,7 +259,7 @@ const OrdersTable = () => {
               <Button
                 variant="outline"
                 onClick={handleExportCsv}
-                disabled={filteredOrders.length === 0}
+                disabled={orders.length === 0}
                 className="gap-2"
               >
                 <Download className="h-4 w-4" />
@@ -278,7 +275,7 @@ const OrdersTable = () => {
               <Badge variant="secondary" className="gap-1">
                 {t('status')}: {t(statusFilter.toLowerCase() as any)}
                 <button
-                  onClick={() => setStatusFilter('All')}
+                  onClick={() => changeStatusFilter('All')}
                   className="ml-1 rounded-full hover:bg-muted-foreground/20"
                 >
                   <X className="h-3 w-3" />
@@ -338,14 +335,14 @@ const OrdersTable = () => {
                 </TableRow>
               </TableHeader>
               <TableBody>
-                {pagination.paginatedItems.length === 0 ? (
+                {sortedItems.length === 0 ? (
                   <TableRow>
                     <TableCell colSpan={7} className="h-24 text-center text-muted-foreground">
                       {t('noData')}
                     </TableCell>
                   </TableRow>
                 ) : (
-                  pagination.paginatedItems.map((order) => (
+                  sortedItems.map((order) => (
                   <TableRow key={order.id}>
                     <TableCell className="font-medium">{order.id}</TableCell>
                     <TableCell>
@@ -435,22 +432,17 @@ const OrdersTable = () => {
             </Table>
           </div>
 
-          {sortedItems.length > 0 && (
-            <TablePagination
-              currentPage={pagination.currentPage}
-              totalPages={pagination.totalPages}
-              pageSize={pagination.pageSize}
-              totalItems={pagination.totalItems}
-              startIndex={pagination.startIndex}
-              endIndex={pagination.endIndex}
-              canGoNext={pagination.canGoNext}
-              canGoPrevious={pagination.canGoPrevious}
-              onPageChange={pagination.setCurrentPage}
-              onPageSizeChange={pagination.setPageSize}
-              goToFirstPage={pagination.goToFirstPage}
-              goToLastPage={pagination.goToLastPage}
-              goToNextPage={pagination.goToNextPage}
-              goToPreviousPage={pagination.goToPreviousPage}
+          {(orders.length > 0 || cursors.length > 1) && (
+            <CursorPagination
+              currentPage={cursors.length}
+              pageSize={pageSize}
+              rowCount={orders.length}
+              canGoNext={!!slice?.nextCursor}
+              canGoPrevious={cursors.length > 1}
+              onPageSizeChange={changePageSize}
+              goToFirstPage={restartPaging}
+              goToNextPage={() => slice?.nextCursor && setCursors([...cursors, slice.nextCursor])}
+              goToPreviousPage={() => setCursors(cursors.slice(0, -1))}
             />
           )}
         </CardContent>
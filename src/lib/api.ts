@@ -8,6 +8,9 @@ export {
   fetchSalesData,
   fetchCategoryDistribution,
   fetchOrders,
+  fetchOrderSlice,
+  fetchCustomerOrders,
+  downloadOrdersCsv,
   fetchOrderById,
   createOrder,
   updateOrder,
@@ -11,7 +11,10 @@ export { authService } from './auth.service';
 export { userService } from './user.service';
 export { auditService } from './audit.service';
 export { fetchProducts } from './product.service';
-export { fetchOrders, fetchOrderById, createOrder, updateOrder, updateOrderStatus, deleteOrder } from './order.service';
+export {
+  fetchOrders, fetchOrderSlice, fetchCustomerOrders, downloadOrdersCsv, fetchOrderById, createOrder, updateOrder, updateOrderStatus, deleteOrder,
+} from './order.service';
+export type { OrderSlice, OrderSliceQuery } from './order.service';
 export { fetchCustomers, fetchCustomerById, createCustomer, updateCustomer, deleteCustomer } from './customer.service';
 export {
   fetchShippingVendors, fetchShippingVendorById, createShippingVendor, updateShippingVendor, deleteShippingVendor,
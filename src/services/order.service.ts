@@ -4,7 +4,7 @@
  */
 
 import { OrderDTO, OrderStatus } from '@/types';
-import { apiGet, apiPost, apiPut, apiDelete } from './util';
+import { API_BASE_URL, getAuthHeaders, apiGet, apiPost, apiPut, apiDelete } from './util';
 
 const mapOrder = (o: any): OrderDTO => ({
   id: o.id,
@@ -26,9 +26,79 @@ const mapOrder = (o: any): OrderDTO => ({
   notes: o.notes,
 });
 
+export interface OrderSliceQuery {
+  status?: OrderStatus;
+  email?: string;
+  /** ISO local date-time, inclusive */
+  from?: string;
+  /** ISO local date-time, exclusive */
+  to?: string;
+  cursor?: string | null;
+  size?: number;
+}
+
+export interface OrderSlice {
+  orders: OrderDTO[];
+  nextCursor: string | null;
+}
+
+// One keyset slice of /api/orders/search, newest first, with line items but without notes;
+// pass its nextCursor back for the following slice
+export const fetchOrderSlice = async (query: OrderSliceQuery = {}): Promise<OrderSlice> => {
+  const params = new URLSearchParams({ size: String(query.size ?? 20), expand: 'items' });
+  if (query.status) params.append('status', query.status);
+  if (query.email) params.append('email', query.email);
+  if (query.from) params.append('from', query.from);
+  if (query.to) params.append('to', query.to);
+  if (query.cursor) params.append('cursor', query.cursor);
+  const slice = await apiGet<any>(`/api/orders/search?${params}`);
+  return { orders: (slice.content || []).map(mapOrder), nextCursor: slice.nextCursor ?? null };
+};
+
+// Every order of one customer; the email filter is served by an index, so this stays small
+export const fetchCustomerOrders = async (email: string): Promise<OrderDTO[]> => {
+  const orders: OrderDTO[] = [];
+  let cursor: string | null = null;
+  do {
+    const slice = await fetchOrderSlice({ email, cursor, size: 100 });
+    orders.push(...slice.orders);
+    cursor = slice.nextCursor;
+  } while (cursor);
+  return orders;
+};
+
+// Download the server's streamed CSV export (one line per item) for the given filters
+export const downloadOrdersCsv = async (query: Pick<OrderSliceQuery, 'status' | 'from' | 'to'> = {}): Promise<void> => {
+  const params = new URLSearchParams({ format: 'csv' });
+  if (query.status) params.append('status', query.status);
+  if (query.from) params.append('from', query.from);
+  if (query.to) params.append('to', query.to);
+  const response = await fetch(`${API_BASE_URL}/api/orders/export?${params}`, { headers: getAuthHeaders() });
+  if (!response.ok) throw new Error(`Export failed: ${response.status}`);
+  const url = URL.createObjectURL(await response.blob());
+  const link = document.createElement('a');
+  link.setAttribute('href', url);
+  link.setAttribute('download', `orders-${new Date().toISOString().split('T')[0]}.csv`);
+  link.style.visibility = 'hidden';
+  document.body.appendChild(link);
+  link.click();
+  document.body.removeChild(link);
+  URL.revokeObjectURL(url);
+};
+
+// Every order with its items, for reports that aggregate over all of them; tables page
+// with fetchOrderSlice instead. Notes are not listed: fetch one order with fetchOrderById.
 export const fetchOrders = async (): Promise<OrderDTO[]> => {
-  const data = await apiGet<any[]>('/api/orders');
-  return data.map(mapOrder);
+  const orders: OrderDTO[] = [];
+  let cursor: string | null = null;
+  do {
+    const params = new URLSearchParams({ paging: 'cursor', size: '200', expand: 'items' });
+    if (cursor) params.append('cursor', cursor);
+    const slice = await apiGet<any>(`/api/orders?${params}`);
+    orders.push(...(slice.content || []).map(mapOrder));
+    cursor = slice.nextCursor ?? null;
+  } while (cursor);
+  return orders;
 };
 
 export const fetchOrderById = async (id: string): Promise<OrderDTO | undefined> => {
@@ -88,7 +88,7 @@ describe('API Module - Orders', () => {
       totalAmount: 100,
       shippingAddress: '123 St',
     }];
-    mockFetch.mockReturnValueOnce(mockJsonResponse(mockOrders));
+    mockFetch.mockReturnValueOnce(mockJsonResponse({ content: mockOrders, nextCursor: null }));
 
     const { fetchOrders } = await import('@/lib/api');
     const result = await fetchOrders();
@@ -99,6 +99,24 @@ describe('API Module - Orders', () => {
     expect(result[0].items[0].price).toBe(50);
   });
 
+  it('fetchOrderSlice asks for one filtered slice and returns its cursor', async () => {
+    mockFetch.mockReturnValueOnce(mockJsonResponse({
+      content: [{ id: 'ord-2', customerName: 'Jane', customerEmail: 'jane@test.com', items: [], status: 'Shipped', totalAmount: 80 }],
+      nextCursor: 'next-page',
+    }));
+
+    const { fetchOrderSlice } = await import('@/lib/api');
+    const slice = await fetchOrderSlice({ status: 'Shipped', size: 20, cursor: 'this-page' });
+
+    const url = new URL(mockFetch.mock.calls[0][0]);
+    expect(url.pathname).toBe('/api/orders/search');
+    expect(url.searchParams.get('status')).toBe('Shipped');
+    expect(url.searchParams.get('size')).toBe('20');
+    expect(url.searchParams.get('cursor')).toBe('this-page');
+    expect(slice.orders[0].id).toBe('ord-2');
+    expect(slice.nextCursor).toBe('next-page');
+  });
+
   it('createOrder sends POST with correct body', async () => {
     const newOrder = {
       customerName: 'Jane',